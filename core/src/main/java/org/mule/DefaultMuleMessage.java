@@ -47,6 +47,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Reader;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -109,6 +111,12 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
     private transient Map<String, DataHandler> outboundAttachments = new ConcurrentHashMap<String, DataHandler>();
 
     private transient byte[] cache;
+
+    /**
+     * Last conversion of the payload done by {@link #getPayload(DataType, String)} that can be reused
+     */
+    private transient volatile PayloadConversion lastConversion;
+
     protected transient MuleContext muleContext;
 
     // these are transient because serialisation generates a new instance
@@ -351,6 +359,13 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
             return (T) getPayload();
         }
 
+        Object payload = getPayload();
+        PayloadConversion conversion = lastConversion;
+        if (conversion != null && conversion.isConversionOf(payload, source, resultType, encoding))
+        {
+            return (T) conversion.result;
+        }
+
         // The transformer to execute on this message
         Transformer transformer = muleContext.getRegistry().lookupTransformer(source, resultType);
         if (transformer == null)
@@ -373,6 +388,10 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         {
             setPayload(result);
         }
+        else if (PayloadConversion.isReusable(payload, result))
+        {
+            lastConversion = new PayloadConversion(payload, source, resultType, encoding, result);
+        }
 
         return (T) result;
     }
@@ -1319,6 +1338,7 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
             this.payload = payload;
         }
         cache = null;
+        lastConversion = null;
     }
 
     /**
@@ -1328,6 +1348,7 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
     public void release()
     {
         cache = null;
+        lastConversion = null;
     }
 
     /**
@@ -2014,4 +2035,56 @@ public class DefaultMuleMessage implements MuleMessage, ThreadSafeAccess, Deseri
         properties.invocationMap = invocationProperties;
     }
 
+    /**
+     * A conversion of a {@link String} payload to a number, boolean or character that can be handed out again
+     * while the payload is not replaced, so that expressions asking for the same value repeatedly do not run
+     * the transformer every time. Conversions of any other payload are not kept, since byte arrays, streams
+     * and other objects may change when they are modified or read, and conversions to strings are not kept
+     * either, so {@link #getPayloadAsString()} still converts the payload on every call.
+     */
+    private static final class PayloadConversion
+    {
+
+        private final Object payload;
+        private final DataType<?> source;
+        private final DataType<?> resultType;
+        private final String encoding;
+        private final Object result;
+
+        PayloadConversion(Object payload, DataType<?> source, DataType<?> resultType, String encoding, Object result)
+        {
+            this.payload = payload;
+            this.source = source;
+            this.resultType = resultType;
+            this.encoding = encoding;
+            this.result = result;
+        }
+
+        static boolean isReusable(Object payload, Object result)
+        {
+            return payload instanceof String
+                   && (result instanceof Boolean || result instanceof Character
+                       || result instanceof Integer || result instanceof Long || result instanceof Short
+                       || result instanceof Byte || result instanceof Double || result instanceof Float
+                       || result instanceof BigDecimal || result instanceof BigInteger);
+        }
+
+        boolean isConversionOf(Object payload, DataType<?> source, DataType<?> resultType, String encoding)
+        {
+            return this.payload == payload && ObjectUtils.equals(this.encoding, encoding)
+                   && isSameDataType(this.source, source) && isSameDataType(this.resultType, resultType);
+        }
+
+        private static boolean isSameDataType(DataType<?> a, DataType<?> b)
+        {
+            if (a == b)
+            {
+                return true;
+            }
+            // DataType.equals() lets any mime type match a wildcard, so the mime types are compared as well
+            return a.getClass() == b.getClass() && a.getType() == b.getType()
+                   && ObjectUtils.equals(a.getMimeType(), b.getMimeType())
+                   && ObjectUtils.equals(a.getEncoding(), b.getEncoding()) && a.equals(b);
+        }
+    }
 }
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.api.processor;
+
+/**
+ * Identifies processing stages and constructs that can tell how many more events they can take before their
+ * queues are full, so that message sources can hold back instead of pulling in events that would only pile
+ * up waiting to be processed.
+ */
+public interface DemandSignal
+{
+
+    /**
+     * Demand of a stage that has no limit on the events it can take
+     */
+    int UNBOUNDED = Integer.MAX_VALUE;
+
+    /**
+     * @return the number of events that can be taken right away, 0 if none or {@link #UNBOUNDED}
+     */
+    int getDemand();
+}
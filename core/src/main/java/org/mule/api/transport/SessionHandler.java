@@ -27,6 +27,28 @@ public interface SessionHandler
 
     MuleSession retrieveSessionInfoFromMessage(MuleMessage message) throws MuleException;
 
+    /**
+     * Stores the session sent back with the response to a request. Handlers that have nothing specific to
+     * responses store it as any other session.
+     *
+     * @param session the session to send back
+     * @param requestSession the session read from the request, which may have been changed while
+     *            processing it
+     * @param message the response message
+     */
+    void storeResponseSessionInfoToMessage(MuleSession session, MuleSession requestSession, MuleMessage message)
+        throws MuleException;
+
+    /**
+     * Reads the session sent back with the response to a request. Handlers that have nothing specific to
+     * responses read it as any other session.
+     *
+     * @param message the response message
+     * @param requestSession the session sent with the request
+     */
+    MuleSession retrieveResponseSessionInfoFromMessage(MuleMessage message, MuleSession requestSession)
+        throws MuleException;
+
     /**
      * The property name of the session id to use when creating the Mule session. by
      * default the property name "ID" will be used. If no property was set on the
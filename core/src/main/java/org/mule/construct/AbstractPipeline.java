@@ -17,9 +17,11 @@ import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.exception.MessagingExceptionHandlerAcceptor;
 import org.mule.api.lifecycle.LifecycleException;
 import org.mule.api.processor.DefaultMessageProcessorPathElement;
+import org.mule.api.processor.DemandSignal;
 import org.mule.api.processor.InterceptingMessageProcessor;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.processor.MessageProcessorBuilder;
+import org.mule.api.processor.MessageProcessorChain;
 import org.mule.api.processor.MessageProcessorChainBuilder;
 import org.mule.api.processor.MessageProcessorContainer;
 import org.mule.api.processor.MessageProcessorPathElement;
@@ -52,8 +54,11 @@ import java.util.Map;
  * the {@link DefaultMessageProcessorChainBuilder}.
  * <p/>
  * If no message processors are configured then the source message is simply returned.
+ * <p/>
+ * The demand of the pipeline is the lowest demand of the processing stages it is made of, so message sources
+ * can hold back while any stage of the pipeline is falling behind.
  */
-public abstract class AbstractPipeline extends AbstractFlowConstruct implements Pipeline
+public abstract class AbstractPipeline extends AbstractFlowConstruct implements Pipeline, DemandSignal
 {
     protected MessageSource messageSource;
     protected MessageProcessor pipeline;
@@ -63,6 +68,7 @@ public abstract class AbstractPipeline extends AbstractFlowConstruct implements
 
     protected ProcessingStrategy processingStrategy;
     private boolean canProcessMessage = false;
+    private List<DemandSignal> demandSignals = Collections.emptyList();
 
     public AbstractPipeline(String name, MuleContext muleContext)
     {
@@ -194,6 +200,7 @@ public abstract class AbstractPipeline extends AbstractFlowConstruct implements
         super.doInitialise();
 
         pipeline = createPipeline();
+        demandSignals = findDemandSignals(pipeline);
 
         if (messageSource != null)
         {
@@ -214,6 +221,39 @@ public abstract class AbstractPipeline extends AbstractFlowConstruct implements
         initialiseIfInitialisable(pipeline);
     }
 
+    private List<DemandSignal> findDemandSignals(MessageProcessor processor)
+    {
+        if (!(processor instanceof MessageProcessorChain))
+        {
+            return Collections.emptyList();
+        }
+        List<DemandSignal> signals = new ArrayList<DemandSignal>(1);
+        // the chain may still hold the builders some of its processors were built from
+        for (Object chainedProcessor : ((MessageProcessorChain) processor).getMessageProcessors())
+        {
+            if (chainedProcessor instanceof DemandSignal)
+            {
+                signals.add((DemandSignal) chainedProcessor);
+            }
+        }
+        return signals;
+    }
+
+    /**
+     * @return the lowest demand of the processing stages of this pipeline, or
+     *         {@link DemandSignal#UNBOUNDED} if none of them limits the events it takes
+     */
+    @Override
+    public int getDemand()
+    {
+        int demand = UNBOUNDED;
+        for (DemandSignal signal : demandSignals)
+        {
+            demand = Math.min(demand, signal.getDemand());
+        }
+        return demand;
+    }
+
     protected void configureMessageProcessors(MessageProcessorChainBuilder builder) throws MuleException
     {
         getProcessingStrategy().configureProcessors(getMessageProcessors(),
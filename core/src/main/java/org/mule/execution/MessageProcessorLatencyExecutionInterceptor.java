@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.construct.MessageProcessorPathResolver;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.management.stats.LatencyStatistics;
+
+/**
+ * Intercepts MessageProcessor execution to record its latency in the flow construct's
+ * {@link LatencyStatistics}, keyed by the processor path. Nothing is recorded unless statistics are
+ * enabled for the flow construct and message processor latency has been enabled.
+ */
+class MessageProcessorLatencyExecutionInterceptor implements MessageProcessorExecutionInterceptor
+{
+
+    private final MessageProcessorExecutionInterceptor next;
+
+    MessageProcessorLatencyExecutionInterceptor(MessageProcessorExecutionInterceptor next)
+    {
+        this.next = next;
+    }
+
+    @Override
+    public MuleEvent execute(MessageProcessor messageProcessor, MuleEvent event) throws MessagingException
+    {
+        String processorPath = getProcessorPathToRecord(event.getFlowConstruct(), messageProcessor);
+        if (processorPath == null)
+        {
+            return next.execute(messageProcessor, event);
+        }
+
+        long startTime = System.nanoTime();
+        try
+        {
+            return next.execute(messageProcessor, event);
+        }
+        finally
+        {
+            event.getFlowConstruct().getStatistics().getLatencyStatistics()
+                .getMessageProcessorLatency(processorPath)
+                .recordValue((System.nanoTime() - startTime) / 1000);
+        }
+    }
+
+    private String getProcessorPathToRecord(FlowConstruct flowConstruct, MessageProcessor messageProcessor)
+    {
+        if (!(flowConstruct instanceof MessageProcessorPathResolver))
+        {
+            return null;
+        }
+        FlowConstructStatistics statistics = flowConstruct.getStatistics();
+        if (statistics == null || !statistics.isEnabled()
+            || !statistics.getLatencyStatistics().isMessageProcessorLatencyEnabled())
+        {
+            return null;
+        }
+        return ((MessageProcessorPathResolver) flowConstruct).getProcessorPath(messageProcessor);
+    }
+}
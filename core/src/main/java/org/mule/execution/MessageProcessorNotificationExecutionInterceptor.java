@@ -16,7 +16,9 @@ import org.mule.context.notification.MessageProcessorNotification;
 import org.mule.context.notification.ServerNotificationManager;
 
 /**
- * Intercepts MessageProcessor execution to fire before and after notifications
+ * Intercepts MessageProcessor execution to fire before and after notifications. When notifications are
+ * disabled for the event or nobody listens for {@link MessageProcessorNotification}s the processor is
+ * executed directly, without the bookkeeping needed to fire them.
  */
 class MessageProcessorNotificationExecutionInterceptor implements MessageProcessorExecutionInterceptor
 {
@@ -39,6 +41,10 @@ class MessageProcessorNotificationExecutionInterceptor implements MessageProcess
     {
         ServerNotificationManager notificationManager = event.getMuleContext().getNotificationManager();
         boolean fireNotification = event.isNotificationsEnabled();
+        if (next != null && !(fireNotification && isNotificationEnabled(notificationManager)))
+        {
+            return next.execute(messageProcessor, event);
+        }
         if (fireNotification)
         {
             fireNotification(notificationManager, event.getFlowConstruct(), event, messageProcessor,
@@ -79,10 +85,15 @@ class MessageProcessorNotificationExecutionInterceptor implements MessageProcess
         return result;
     }
 
+    private boolean isNotificationEnabled(ServerNotificationManager serverNotificationManager)
+    {
+        return serverNotificationManager != null
+               && serverNotificationManager.isNotificationEnabled(MessageProcessorNotification.class);
+    }
+
     protected void fireNotification(ServerNotificationManager serverNotificationManager, FlowConstruct flowConstruct, MuleEvent event, MessageProcessor processor, MessagingException exceptionThrown, int action)
     {
-        if (serverNotificationManager != null
-            && serverNotificationManager.isNotificationEnabled(MessageProcessorNotification.class))
+        if (isNotificationEnabled(serverNotificationManager))
         {
             if (flowConstruct instanceof MessageProcessorPathResolver && ((MessageProcessorPathResolver) flowConstruct).getProcessorPath(processor) != null)
             {
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.construct.MessageProcessorPathResolver;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.management.stats.AllStatistics;
+import org.mule.management.stats.MessageProcessorProfiler;
+
+/**
+ * Intercepts MessageProcessor execution to time it with the application's
+ * {@link MessageProcessorProfiler}. The processor path is only resolved when the profiler is enabled.
+ */
+class MessageProcessorProfilingExecutionInterceptor implements MessageProcessorExecutionInterceptor
+{
+
+    private final MessageProcessorExecutionInterceptor next;
+
+    MessageProcessorProfilingExecutionInterceptor(MessageProcessorExecutionInterceptor next)
+    {
+        this.next = next;
+    }
+
+    @Override
+    public MuleEvent execute(MessageProcessor messageProcessor, MuleEvent event) throws MessagingException
+    {
+        FlowConstruct flowConstruct = event.getFlowConstruct();
+        MessageProcessorProfiler profiler = getEnabledProfiler(flowConstruct);
+        if (profiler == null)
+        {
+            return next.execute(messageProcessor, event);
+        }
+
+        String processorPath = ((MessageProcessorPathResolver) flowConstruct).getProcessorPath(messageProcessor);
+        if (processorPath == null || !profiler.enter(processorPath, messageProcessor.getClass()))
+        {
+            return next.execute(messageProcessor, event);
+        }
+        try
+        {
+            return next.execute(messageProcessor, event);
+        }
+        finally
+        {
+            profiler.exit();
+        }
+    }
+
+    private MessageProcessorProfiler getEnabledProfiler(FlowConstruct flowConstruct)
+    {
+        if (!(flowConstruct instanceof MessageProcessorPathResolver) || flowConstruct.getMuleContext() == null)
+        {
+            return null;
+        }
+        AllStatistics statistics = flowConstruct.getMuleContext().getStatistics();
+        if (statistics == null || !statistics.getMessageProcessorProfiler().isEnabled())
+        {
+            return null;
+        }
+        return statistics.getMessageProcessorProfiler();
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import org.mule.api.MuleContext;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.source.MessageSource;
+import org.mule.execution.throttling.RateLimiter;
+import org.mule.execution.throttling.SlidingWindowRateLimiter;
+import org.mule.execution.throttling.ThrottlingResult;
+import org.mule.execution.throttling.TokenBucketRateLimiter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This phase limits the rate at which messages are accepted from each {@link MessageSource}, discarding
+ * messages over the limit before they are routed so that load is shed before it takes a flow thread.
+ * <p/>
+ * To participate of this phase, {@link MessageProcessTemplate} must implement
+ * {@link ThrottlingPhaseTemplate}. The phase is not part of the default phases; it is enabled by
+ * registering an instance with {@link #setMaxRequestsPerPeriod(long)} set in the registry. It runs before
+ * any other phase.
+ * <p/>
+ * Messages are limited per message source, or per message source and client when a client key expression is
+ * set. Evaluating the expression requires the template to create the {@link org.mule.api.MuleEvent} for the
+ * message, so it adds some work to every message.
+ */
+public class ThrottlingPhase implements MessageProcessPhase<ThrottlingPhaseTemplate>, Comparable<MessageProcessPhase>, MuleContextAware
+{
+
+    public static final String TOKEN_BUCKET = "token-bucket";
+    public static final String SLIDING_WINDOW = "sliding-window";
+
+    private static final int DEFAULT_MAX_CLIENT_KEYS = 10000;
+
+    private final ConcurrentMap<MessageSource, SourceLimiters> sourceLimiters = new ConcurrentHashMap<MessageSource, SourceLimiters>();
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private MuleContext muleContext;
+    private String algorithm = TOKEN_BUCKET;
+    private long maxRequestsPerPeriod;
+    private long periodMillis = 1000;
+    private String clientKeyExpression;
+    private int maxClientKeys = DEFAULT_MAX_CLIENT_KEYS;
+
+    @Override
+    public boolean supportsTemplate(MessageProcessTemplate messageProcessTemplate)
+    {
+        return maxRequestsPerPeriod > 0 && messageProcessTemplate instanceof ThrottlingPhaseTemplate;
+    }
+
+    @Override
+    public void runPhase(ThrottlingPhaseTemplate throttlingPhaseTemplate, MessageProcessContext messageProcessContext, PhaseResultNotifier phaseResultNotifier)
+    {
+        try
+        {
+            RateLimiter rateLimiter = getRateLimiter(throttlingPhaseTemplate, messageProcessContext.getMessageSource());
+            ThrottlingResult result = rateLimiter.tryAcquire(System.currentTimeMillis());
+            throttlingPhaseTemplate.setThrottlingPolicyStatistics(result.getRemaining(), result.getLimit(), result.getResetMillis());
+            if (result.isAllowed())
+            {
+                acceptedCount.incrementAndGet();
+                phaseResultNotifier.phaseSuccessfully();
+            }
+            else
+            {
+                rejectedCount.incrementAndGet();
+                throttlingPhaseTemplate.discardMessageOnThrottlingExceeded();
+                phaseResultNotifier.phaseConsumedMessage();
+            }
+        }
+        catch (Exception e)
+        {
+            phaseResultNotifier.phaseFailure(e);
+        }
+    }
+
+    private RateLimiter getRateLimiter(ThrottlingPhaseTemplate throttlingPhaseTemplate, MessageSource messageSource) throws Exception
+    {
+        SourceLimiters limiters = sourceLimiters.get(messageSource);
+        if (limiters == null)
+        {
+            limiters = new SourceLimiters();
+            SourceLimiters previous = sourceLimiters.putIfAbsent(messageSource, limiters);
+            if (previous != null)
+            {
+                limiters = previous;
+            }
+        }
+        if (clientKeyExpression == null)
+        {
+            return limiters.sourceLimiter;
+        }
+        String clientKey = String.valueOf(muleContext.getExpressionManager().evaluate(clientKeyExpression,
+            throttlingPhaseTemplate.getMuleEvent()));
+        return limiters.getClientLimiter(clientKey);
+    }
+
+    protected RateLimiter createRateLimiter()
+    {
+        if (SLIDING_WINDOW.equals(algorithm))
+        {
+            return new SlidingWindowRateLimiter(maxRequestsPerPeriod, periodMillis);
+        }
+        return new TokenBucketRateLimiter(maxRequestsPerPeriod, periodMillis);
+    }
+
+    @Override
+    public int compareTo(MessageProcessPhase messageProcessPhase)
+    {
+        if (messageProcessPhase instanceof ThrottlingPhase)
+        {
+            return 0;
+        }
+        return -1;
+    }
+
+    @Override
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+    }
+
+    public String getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    /**
+     * @param algorithm either {@link #TOKEN_BUCKET}, the default, or {@link #SLIDING_WINDOW}
+     */
+    public void setAlgorithm(String algorithm)
+    {
+        if (!TOKEN_BUCKET.equals(algorithm) && !SLIDING_WINDOW.equals(algorithm))
+        {
+            throw new IllegalArgumentException("Unknown throttling algorithm: " + algorithm);
+        }
+        this.algorithm = algorithm;
+    }
+
+    public long getMaxRequestsPerPeriod()
+    {
+        return maxRequestsPerPeriod;
+    }
+
+    public void setMaxRequestsPerPeriod(long maxRequestsPerPeriod)
+    {
+        this.maxRequestsPerPeriod = maxRequestsPerPeriod;
+    }
+
+    public long getPeriodMillis()
+    {
+        return periodMillis;
+    }
+
+    public void setPeriodMillis(long periodMillis)
+    {
+        this.periodMillis = periodMillis;
+    }
+
+    public String getClientKeyExpression()
+    {
+        return clientKeyExpression;
+    }
+
+    /**
+     * @param clientKeyExpression expression evaluated against each message to find the client it comes from,
+     *            for example {@code #[message.inboundProperties['X-Forwarded-For']]}
+     */
+    public void setClientKeyExpression(String clientKeyExpression)
+    {
+        this.clientKeyExpression = clientKeyExpression;
+    }
+
+    public int getMaxClientKeys()
+    {
+        return maxClientKeys;
+    }
+
+    /**
+     * @param maxClientKeys the number of clients tracked per message source. Once reached, messages from
+     *            new clients share a single limiter so that the number of limiters is bounded.
+     */
+    public void setMaxClientKeys(int maxClientKeys)
+    {
+        this.maxClientKeys = maxClientKeys;
+    }
+
+    public long getAcceptedCount()
+    {
+        return acceptedCount.get();
+    }
+
+    public long getRejectedCount()
+    {
+        return rejectedCount.get();
+    }
+
+    private class SourceLimiters
+    {
+        final RateLimiter sourceLimiter = createRateLimiter();
+        final ConcurrentMap<String, RateLimiter> clientLimiters = new ConcurrentHashMap<String, RateLimiter>();
+
+        RateLimiter getClientLimiter(String clientKey)
+        {
+            RateLimiter limiter = clientLimiters.get(clientKey);
+            if (limiter == null)
+            {
+                if (clientLimiters.size() >= maxClientKeys)
+                {
+                    return sourceLimiter;
+                }
+                limiter = createRateLimiter();
+                RateLimiter previous = clientLimiters.putIfAbsent(clientKey, limiter);
+                if (previous != null)
+                {
+                    limiter = previous;
+                }
+            }
+            return limiter;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution.throttling;
+
+/**
+ * Decides whether a message can be accepted given the messages accepted before it.
+ * <p/>
+ * Implementations must be thread safe and should not block, since they are invoked by the threads that
+ * receive messages from a {@link org.mule.api.source.MessageSource}.
+ */
+public interface RateLimiter
+{
+
+    /**
+     * Tries to accept one message.
+     *
+     * @param now the current time in milliseconds
+     * @return whether the message was accepted along with the state of the limiter after the attempt
+     */
+    ThrottlingResult tryAcquire(long now);
+
+    /**
+     * @return the maximum number of messages accepted per period
+     */
+    long getLimit();
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution.throttling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Accepts up to {@code limit} messages in any window of {@code windowMillis}, approximating the sliding
+ * window with the count of the current fixed window plus the count of the previous one weighted by how
+ * much of it still overlaps the sliding window.
+ * <p/>
+ * Counting is lock-free. When the window moves on, the first thread to notice replaces it with a compare and
+ * set; a thread still counting on the replaced window may have its message accepted without being counted,
+ * which is an accepted trade-off for never blocking.
+ */
+public class SlidingWindowRateLimiter implements RateLimiter
+{
+
+    private final long limit;
+    private final long windowMillis;
+    private final AtomicReference<Window> currentWindow = new AtomicReference<Window>(new Window(Long.MIN_VALUE, 0));
+
+    public SlidingWindowRateLimiter(long limit, long windowMillis)
+    {
+        if (limit < 1 || windowMillis < 1)
+        {
+            throw new IllegalArgumentException("Invalid sliding window: " + limit + " messages every " + windowMillis + "ms");
+        }
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    public ThrottlingResult tryAcquire(long now)
+    {
+        Window window = getWindow(now);
+        long elapsed = Math.min(Math.max(now - window.start, 0), windowMillis);
+        long weightedPrevious = window.previousCount * (windowMillis - elapsed) / windowMillis;
+        long resetMillis = windowMillis - elapsed;
+        while (true)
+        {
+            long count = window.count.get();
+            if (weightedPrevious + count >= limit)
+            {
+                return ThrottlingResult.rejected(limit, resetMillis);
+            }
+            if (window.count.compareAndSet(count, count + 1))
+            {
+                return new ThrottlingResult(true, limit - weightedPrevious - count - 1, limit, resetMillis);
+            }
+        }
+    }
+
+    private Window getWindow(long now)
+    {
+        long start = now - now % windowMillis;
+        while (true)
+        {
+            Window window = currentWindow.get();
+            if (window.start >= start)
+            {
+                return window;
+            }
+            long previousCount = window.start == start - windowMillis ? window.count.get() : 0;
+            Window next = new Window(start, previousCount);
+            if (currentWindow.compareAndSet(window, next))
+            {
+                return next;
+            }
+        }
+    }
+
+    @Override
+    public long getLimit()
+    {
+        return limit;
+    }
+
+    private static class Window
+    {
+        final long start;
+        final long previousCount;
+        final AtomicLong count = new AtomicLong();
+
+        Window(long start, long previousCount)
+        {
+            this.start = start;
+            this.previousCount = previousCount;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution.throttling;
+
+/**
+ * Outcome of {@link RateLimiter#tryAcquire(long)}, carrying the statistics a
+ * {@link org.mule.execution.ThrottlingPhaseTemplate} can expose to clients.
+ */
+public final class ThrottlingResult
+{
+
+    private final boolean allowed;
+    private final long remaining;
+    private final long limit;
+    private final long resetMillis;
+
+    public ThrottlingResult(boolean allowed, long remaining, long limit, long resetMillis)
+    {
+        this.allowed = allowed;
+        this.remaining = remaining;
+        this.limit = limit;
+        this.resetMillis = resetMillis;
+    }
+
+    static ThrottlingResult rejected(long limit, long resetMillis)
+    {
+        return new ThrottlingResult(false, 0, limit, resetMillis);
+    }
+
+    /**
+     * @return true if the message was accepted
+     */
+    public boolean isAllowed()
+    {
+        return allowed;
+    }
+
+    /**
+     * @return the number of messages that can still be accepted in the current period
+     */
+    public long getRemaining()
+    {
+        return remaining;
+    }
+
+    /**
+     * @return the maximum number of messages accepted per period
+     */
+    public long getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * @return milliseconds until the limiter accepts messages again when the message was rejected, or until
+     *         the current period ends when it was accepted
+     */
+    public long getResetMillis()
+    {
+        return resetMillis;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ThrottlingResult{allowed=" + allowed + ", remaining=" + remaining + ", limit=" + limit
+               + ", resetMillis=" + resetMillis + "}";
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution.throttling;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that holds up to {@code capacity} tokens and refills them continuously over
+ * {@code periodMillis}, so bursts of up to {@code capacity} messages are accepted while the sustained rate
+ * is limited to {@code capacity} messages per period.
+ * <p/>
+ * The bucket is implemented as a generic cell rate algorithm: the only state is the time, in microseconds,
+ * at which the bucket would be full again, updated with a single compare and set per accepted message.
+ */
+public class TokenBucketRateLimiter implements RateLimiter
+{
+
+    private final long capacity;
+    private final long emissionInterval;
+    private final long burstTolerance;
+    private final AtomicLong theoreticalArrivalTime = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucketRateLimiter(long capacity, long periodMillis)
+    {
+        if (capacity < 1 || periodMillis < 1)
+        {
+            throw new IllegalArgumentException("Invalid token bucket: " + capacity + " tokens every " + periodMillis + "ms");
+        }
+        this.capacity = capacity;
+        this.emissionInterval = Math.max(1, periodMillis * 1000 / capacity);
+        this.burstTolerance = emissionInterval * (capacity - 1);
+    }
+
+    @Override
+    public ThrottlingResult tryAcquire(long now)
+    {
+        long nowMicros = now * 1000;
+        while (true)
+        {
+            long arrivalTime = theoreticalArrivalTime.get();
+            long start = Math.max(arrivalTime, nowMicros);
+            long backlog = start - nowMicros;
+            if (backlog > burstTolerance)
+            {
+                return ThrottlingResult.rejected(capacity, toMillis(backlog - burstTolerance));
+            }
+            long nextArrivalTime = start + emissionInterval;
+            if (theoreticalArrivalTime.compareAndSet(arrivalTime, nextArrivalTime))
+            {
+                long used = nextArrivalTime - nowMicros;
+                long remaining = (capacity * emissionInterval - used) / emissionInterval;
+                return new ThrottlingResult(true, remaining, capacity, toMillis(used));
+            }
+        }
+    }
+
+    private long toMillis(long micros)
+    {
+        return (micros + 999) / 1000;
+    }
+
+    @Override
+    public long getLimit()
+    {
+        return capacity;
+    }
+}
@@ -8,6 +8,7 @@ package org.mule.lifecycle;
 
 import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.lifecycle.Disposable;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.LifecycleCallback;
@@ -17,6 +18,7 @@ import org.mule.api.lifecycle.RegistryLifecycleHelpers;
 import org.mule.api.lifecycle.Startable;
 import org.mule.api.lifecycle.Stoppable;
 import org.mule.api.registry.Registry;
+import org.mule.api.transport.Connector;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.lifecycle.phases.ContainerManagedLifecyclePhase;
 import org.mule.lifecycle.phases.MuleContextDisposePhase;
@@ -25,7 +27,9 @@ import org.mule.lifecycle.phases.MuleContextStartPhase;
 import org.mule.lifecycle.phases.MuleContextStopPhase;
 import org.mule.lifecycle.phases.NotInLifecyclePhase;
 import org.mule.registry.AbstractRegistryBroker;
+import org.mule.util.concurrent.NamedThreadFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +39,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -42,6 +51,11 @@ import org.apache.commons.logging.LogFactory;
 
 public class RegistryLifecycleManager extends AbstractLifecycleManager<Registry> implements RegistryLifecycleHelpers
 {
+    /**
+     * The number of threads used to start the connectors of an application, 1 (sequential start) by default
+     */
+    public static final String CONNECTOR_START_THREADS_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "lifecycle.connectorStartThreads";
+
     protected Map<String, LifecyclePhase> phases = new HashMap<String, LifecyclePhase>();
     protected TreeMap<String, LifecycleCallback> callbacks = new TreeMap<String, LifecycleCallback>();
     protected MuleContext muleContext;
@@ -257,6 +271,13 @@ public class RegistryLifecycleManager extends AbstractLifecycleManager<Registry>
 
                 lo.firePreNotification(muleContext);
 
+                if (isParallelStart(phase, lo, targets))
+                {
+                    startInParallel(phase, targets, duplicates);
+                    lo.firePostNotification(muleContext);
+                    continue;
+                }
+
                 for (Iterator<Object> target = targets.iterator(); target.hasNext();)
                 {
                     Object o = target.next();
@@ -279,5 +300,87 @@ public class RegistryLifecycleManager extends AbstractLifecycleManager<Registry>
                 lo.firePostNotification(muleContext);
             }
         }
+
+        /**
+         * Connectors are started before any other object that could use them and do not depend on each other,
+         * so it is safe to start them concurrently. This is only done when
+         * {@link #CONNECTOR_START_THREADS_PROPERTY} allows more than one thread.
+         */
+        private boolean isParallelStart(LifecyclePhase phase, LifecycleObject lo, List<Object> targets)
+        {
+            return targets.size() > 1 && Startable.PHASE_NAME.equals(phase.getName())
+                   && Connector.class.equals(lo.getType())
+                   && Integer.getInteger(CONNECTOR_START_THREADS_PROPERTY, 1) > 1;
+        }
+
+        private void startInParallel(final LifecyclePhase phase, List<Object> targets, Set<Object> duplicates)
+            throws MuleException
+        {
+            List<Object> connectors = new ArrayList<Object>(targets.size());
+            for (Object o : targets)
+            {
+                if (duplicates.add(o))
+                {
+                    connectors.add(o);
+                }
+            }
+            targets.clear();
+
+            int threads = Math.min(Integer.getInteger(CONNECTOR_START_THREADS_PROPERTY, 1), connectors.size());
+            String threadName = String.format("[%s].connector.start",
+                muleContext == null ? getLifecycleObject().getRegistryId() : muleContext.getConfiguration().getId());
+            // the application class loader has to be visible to the connectors being started
+            ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new NamedThreadFactory(threadName, Thread.currentThread().getContextClassLoader()));
+            try
+            {
+                List<Future<?>> results = new ArrayList<Future<?>>(connectors.size());
+                for (final Object connector : connectors)
+                {
+                    if (logger.isDebugEnabled())
+                    {
+                        logger.debug("lifecycle phase: " + phase.getName() + " for object: " + connector);
+                    }
+                    results.add(executor.submit(new Callable<Object>()
+                    {
+                        public Object call() throws Exception
+                        {
+                            phase.applyLifecycle(connector);
+                            return null;
+                        }
+                    }));
+                }
+
+                for (int i = 0; i < results.size(); i++)
+                {
+                    waitForStart(phase, connectors.get(i), results.get(i));
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        private void waitForStart(LifecyclePhase phase, Object connector, Future<?> result) throws MuleException
+        {
+            try
+            {
+                result.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (e.getCause() instanceof MuleException)
+                {
+                    throw (MuleException) e.getCause();
+                }
+                throw new LifecycleException(CoreMessages.failedToInvokeLifecycle(phase.getName(), connector), e.getCause(), connector);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new LifecycleException(CoreMessages.failedToInvokeLifecycle(phase.getName(), connector), e, connector);
+            }
+        }
     }
 }
@@ -23,6 +23,7 @@ public class AllStatistics
     private long startTime;
     private ApplicationStatistics appStats;
     private Map<String, FlowConstructStatistics> flowConstructStats = new HashMap<String, FlowConstructStatistics>();
+    private final MessageProcessorProfiler messageProcessorProfiler = new MessageProcessorProfiler();
 
     /**
      * 
@@ -65,6 +66,7 @@ public class AllStatistics
         {
             statistics.clear();
         }
+        messageProcessorProfiler.clear();
         startTime = System.currentTimeMillis();
     }
 
@@ -133,4 +135,12 @@ public class AllStatistics
     {
         return appStats;
     }
+
+    /**
+     * @return the profiler shared by all the flow constructs of the application
+     */
+    public MessageProcessorProfiler getMessageProcessorProfiler()
+    {
+        return messageProcessorProfiler;
+    }
 }
@@ -18,6 +18,7 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
     private final AtomicLong fatalError = new AtomicLong(0);
     private int threadPoolSize = 0;
     protected final ComponentStatistics flowStatistics = new ComponentStatistics();
+    protected final LatencyStatistics latencyStatistics = new LatencyStatistics();
     
     // these can't sensibly converted to AtomicLong as they are processed together
     // in incQueuedEvent
@@ -94,6 +95,10 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
         {
             flowStatistics.clear();
         }
+        if (latencyStatistics != null)
+        {
+            latencyStatistics.clear();
+        }
     }
 
     public void addCompleteFlowExecutionTime(long time)
@@ -103,7 +108,21 @@ public class FlowConstructStatistics extends AbstractFlowConstructStatistics imp
 
     public void addFlowExecutionBranchTime(long time, long total)
     {
-        flowStatistics.addExecutionBranchTime(time == total, time, total);
+        boolean first = time == total;
+        flowStatistics.addExecutionBranchTime(first, time, total);
+        if (first)
+        {
+            // The first branch is the one the caller waits for
+            latencyStatistics.getFlowLatency().recordValue(time);
+        }
+    }
+
+    /**
+     * @return the latency distributions of this flow construct
+     */
+    public LatencyStatistics getLatencyStatistics()
+    {
+        return latencyStatistics;
     }
 
     public long getAverageProcessingTime()
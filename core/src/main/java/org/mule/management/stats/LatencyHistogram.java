@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latency values with a bounded relative error over a high dynamic range.
+ * <p/>
+ * Values are counted in log-linear buckets: every power of two range is split into the same number of
+ * linear sub-buckets, so the error of a reported percentile is bounded by the sub-bucket width relative
+ * to the value no matter how large the value is. With {@code precisionBits} bits the error is at most
+ * 1 in 2<sup>precisionBits - 1</sup>, that is about 3.1% with the default precision. Values below the
+ * number of sub-buckets are counted exactly.
+ * <p/>
+ * Recording a value is a constant time operation that updates a few atomic counters and does not allocate,
+ * so it is safe to call on every event. Reads are not atomic with respect to concurrent recording, which
+ * means a percentile may be calculated from a slightly inconsistent view while values are being recorded.
+ */
+public class LatencyHistogram implements Serializable
+{
+    private static final long serialVersionUID = -3482215563434120389L;
+
+    /**
+     * Default number of bits used for the linear sub-buckets of each power of two range
+     */
+    public static final int DEFAULT_PRECISION_BITS = 6;
+
+    private final int precisionBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+    private final long highestTrackableValue;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+
+    /**
+     * @param highestTrackableValue values higher than this are counted as this value
+     */
+    public LatencyHistogram(long highestTrackableValue)
+    {
+        this(highestTrackableValue, DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param highestTrackableValue values higher than this are counted as this value
+     * @param precisionBits the number of bits of precision kept for each value, between 2 and 14
+     */
+    public LatencyHistogram(long highestTrackableValue, int precisionBits)
+    {
+        if (precisionBits < 2 || precisionBits > 14)
+        {
+            throw new IllegalArgumentException("precisionBits must be between 2 and 14: " + precisionBits);
+        }
+        if (highestTrackableValue < 1)
+        {
+            throw new IllegalArgumentException("highestTrackableValue must be positive: " + highestTrackableValue);
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.subBucketHalfCount = subBucketCount >> 1;
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(indexFor(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Record a single value. Negative values are counted as zero.
+     */
+    public void recordValue(long value)
+    {
+        if (value < 0)
+        {
+            value = 0;
+        }
+        else if (value > highestTrackableValue)
+        {
+            value = highestTrackableValue;
+        }
+
+        counts.incrementAndGet(indexFor(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        updateMax(value);
+        updateMin(value);
+    }
+
+    private void updateMax(long value)
+    {
+        long current;
+        while (value > (current = maxValue.get()))
+        {
+            if (maxValue.compareAndSet(current, value))
+            {
+                return;
+            }
+        }
+    }
+
+    private void updateMin(long value)
+    {
+        long current;
+        while (value < (current = minValue.get()))
+        {
+            if (minValue.compareAndSet(current, value))
+            {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Maps a value to its bucket. Values below the sub-bucket count map to themselves, larger values keep
+     * their {@code precisionBits} most significant bits.
+     */
+    int indexFor(long value)
+    {
+        if (value < subBucketCount)
+        {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - precisionBits + 1;
+        int subBucket = (int) (value >>> shift);
+        return subBucketCount + (shift - 1) * subBucketHalfCount + (subBucket - subBucketHalfCount);
+    }
+
+    /**
+     * @return the highest value that maps to the given bucket
+     */
+    long highestValueFor(int index)
+    {
+        if (index < subBucketCount)
+        {
+            return index;
+        }
+        int offset = index - subBucketCount;
+        int shift = offset / subBucketHalfCount + 1;
+        long subBucket = (offset % subBucketHalfCount) + subBucketHalfCount;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * @param percentile a percentile between 0 and 100
+     * @return the value below which the given percentage of recorded values fall, or 0 if nothing has
+     *         been recorded
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long count = 0;
+        long[] snapshot = new long[counts.length()];
+        for (int i = 0; i < snapshot.length; i++)
+        {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0)
+        {
+            return 0;
+        }
+
+        double requested = Math.min(Math.max(percentile, 0.0), 100.0);
+        long countAtPercentile = Math.max(1, (long) Math.ceil((requested / 100.0) * count));
+        long accumulated = 0;
+        for (int i = 0; i < snapshot.length; i++)
+        {
+            accumulated += snapshot[i];
+            if (accumulated >= countAtPercentile)
+            {
+                return Math.min(highestValueFor(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Adds the values recorded by another histogram with the same configuration to this one
+     */
+    public void add(LatencyHistogram other)
+    {
+        if (other.counts.length() != counts.length() || other.precisionBits != precisionBits)
+        {
+            throw new IllegalArgumentException("Cannot add histograms with different configurations");
+        }
+        long added = 0;
+        for (int i = 0; i < counts.length(); i++)
+        {
+            long count = other.counts.get(i);
+            if (count != 0)
+            {
+                counts.addAndGet(i, count);
+                added += count;
+            }
+        }
+        if (added > 0)
+        {
+            totalCount.addAndGet(added);
+            totalValue.addAndGet(other.totalValue.get());
+            updateMax(other.maxValue.get());
+            updateMin(other.minValue.get());
+        }
+    }
+
+    /**
+     * Discards all recorded values
+     */
+    public void clear()
+    {
+        for (int i = 0; i < counts.length(); i++)
+        {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalValue.set(0);
+        maxValue.set(0);
+        minValue.set(Long.MAX_VALUE);
+    }
+
+    /**
+     * @return a new empty histogram with the same configuration as this one
+     */
+    public LatencyHistogram createEmptyCopy()
+    {
+        return new LatencyHistogram(highestTrackableValue, precisionBits);
+    }
+
+    public long getTotalCount()
+    {
+        return totalCount.get();
+    }
+
+    public long getMaxValue()
+    {
+        return maxValue.get();
+    }
+
+    public long getMinValue()
+    {
+        long min = minValue.get();
+        return min == Long.MAX_VALUE ? 0 : min;
+    }
+
+    public double getMean()
+    {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    public long getHighestTrackableValue()
+    {
+        return highestTrackableValue;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distributions for a flow construct: the flow itself, each of its inbound endpoints and,
+ * when enabled, each message processor in its processor path.
+ * <p/>
+ * Flow and endpoint latencies are recorded in milliseconds. Message processor latencies are recorded in
+ * microseconds since most processors take well under a millisecond. Message processor latencies are not
+ * recorded unless {@link #setMessageProcessorLatencyEnabled(boolean)} is called, since that adds a
+ * timing call around every processor invocation.
+ */
+public class LatencyStatistics implements Serializable
+{
+    private static final long serialVersionUID = -5128467095380234577L;
+
+    /**
+     * Set to true to record message processor latencies for every flow by default
+     */
+    public static final String MESSAGE_PROCESSOR_LATENCY_PROPERTY = "mule.stats.latency.messageProcessors";
+
+    private static final long PROCESSOR_HIGHEST_TRACKABLE_VALUE = TimeUnit.HOURS.toMicros(1);
+
+    private final RollingLatencyHistogram flowLatency = new RollingLatencyHistogram();
+
+    private final ConcurrentMap<String, RollingLatencyHistogram> endpointLatencies = new ConcurrentHashMap<String, RollingLatencyHistogram>();
+
+    private final ConcurrentMap<String, RollingLatencyHistogram> processorLatencies = new ConcurrentHashMap<String, RollingLatencyHistogram>();
+
+    private volatile boolean messageProcessorLatencyEnabled = Boolean.getBoolean(MESSAGE_PROCESSOR_LATENCY_PROPERTY);
+
+    /**
+     * @return the latency of the flow, in milliseconds
+     */
+    public RollingLatencyHistogram getFlowLatency()
+    {
+        return flowLatency;
+    }
+
+    /**
+     * Returns the latency histogram for an inbound endpoint, creating it if needed. Callers on the hot path
+     * should keep a reference to the returned histogram instead of looking it up for every event.
+     *
+     * @param endpoint the name or address of the endpoint
+     */
+    public RollingLatencyHistogram getInboundEndpointLatency(String endpoint)
+    {
+        return getOrCreate(endpointLatencies, endpoint, RollingLatencyHistogram.DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    /**
+     * Returns the latency histogram for the message processor with the given path, creating it if needed.
+     *
+     * @param processorPath the path of the processor, as returned by
+     *            {@link org.mule.api.construct.MessageProcessorPathResolver#getProcessorPath}
+     */
+    public RollingLatencyHistogram getMessageProcessorLatency(String processorPath)
+    {
+        return getOrCreate(processorLatencies, processorPath, PROCESSOR_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    private RollingLatencyHistogram getOrCreate(ConcurrentMap<String, RollingLatencyHistogram> histograms,
+                                                String key,
+                                                long highestTrackableValue)
+    {
+        RollingLatencyHistogram histogram = histograms.get(key);
+        if (histogram == null)
+        {
+            histogram = new RollingLatencyHistogram(highestTrackableValue);
+            RollingLatencyHistogram previous = histograms.putIfAbsent(key, histogram);
+            if (previous != null)
+            {
+                histogram = previous;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * @return the inbound endpoint latencies, sorted by endpoint
+     */
+    public SortedMap<String, RollingLatencyHistogram> getInboundEndpointLatencies()
+    {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, RollingLatencyHistogram>(endpointLatencies));
+    }
+
+    /**
+     * @return the message processor latencies, sorted by processor path
+     */
+    public SortedMap<String, RollingLatencyHistogram> getMessageProcessorLatencies()
+    {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, RollingLatencyHistogram>(processorLatencies));
+    }
+
+    /**
+     * @return one summary line per inbound endpoint, in milliseconds
+     */
+    public String[] getInboundEndpointLatencySummaries()
+    {
+        return summarize(getInboundEndpointLatencies());
+    }
+
+    /**
+     * @return one summary line per message processor path, in microseconds
+     */
+    public String[] getMessageProcessorLatencySummaries()
+    {
+        return summarize(getMessageProcessorLatencies());
+    }
+
+    private String[] summarize(SortedMap<String, RollingLatencyHistogram> histograms)
+    {
+        String[] summaries = new String[histograms.size()];
+        int i = 0;
+        for (Map.Entry<String, RollingLatencyHistogram> entry : histograms.entrySet())
+        {
+            summaries[i++] = entry.getKey() + " - " + entry.getValue().getSummary();
+        }
+        return summaries;
+    }
+
+    public boolean isMessageProcessorLatencyEnabled()
+    {
+        return messageProcessorLatencyEnabled;
+    }
+
+    public void setMessageProcessorLatencyEnabled(boolean messageProcessorLatencyEnabled)
+    {
+        this.messageProcessorLatencyEnabled = messageProcessorLatencyEnabled;
+    }
+
+    public void clear()
+    {
+        flowLatency.clear();
+        clear(endpointLatencies);
+        clear(processorLatencies);
+    }
+
+    private void clear(Map<String, RollingLatencyHistogram> histograms)
+    {
+        for (RollingLatencyHistogram histogram : histograms.values())
+        {
+            histogram.clear();
+        }
+    }
+}
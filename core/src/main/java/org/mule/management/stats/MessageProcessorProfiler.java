@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A low overhead profiler that times message processor invocations and aggregates them by processor path,
+ * as returned by {@link org.mule.api.construct.MessageProcessorPathResolver#getProcessorPath}.
+ * <p/>
+ * For every path the profiler keeps the number of invocations, the total time spent in the processor and
+ * its self time, that is the total time minus the time spent in the processors it invoked on the same
+ * thread (i.e. the routes of a choice or the inner chain of a foreach). Processors invoked on a different
+ * thread, such as the ones after an async scope or a SEDA queue, are timed on that thread; since they are
+ * aggregated by path they still show up under the processor that dispatched them in the reports.
+ * <p/>
+ * Profiling is sampled: only one out of every {@link #setSampleRate(int) sampleRate} top level processor
+ * invocations of a thread is timed, together with every processor nested in it. Timing an invocation
+ * does not allocate once the path has been seen, so the profiler can be left enabled in production with a
+ * reasonable sample rate. Nothing is recorded while the profiler is disabled, which is the default unless
+ * the {@link #ENABLED_PROPERTY} system property is set.
+ * <p/>
+ * Results can be written as a tree ordered by total time, or as collapsed stacks that can be fed to
+ * flame graph tools, with one line per processor and its self time in microseconds.
+ */
+public class MessageProcessorProfiler
+{
+    /**
+     * Set to true to enable the profiler on start up
+     */
+    public static final String ENABLED_PROPERTY = "mule.profiler.messageProcessors";
+
+    /**
+     * One out of how many top level invocations are profiled, 10 by default
+     */
+    public static final String SAMPLE_RATE_PROPERTY = "mule.profiler.messageProcessors.sampleRate";
+
+    private static final int INITIAL_STACK_DEPTH = 32;
+
+    private final ConcurrentMap<String, ProfiledProcessor> processors = new ConcurrentHashMap<String, ProfiledProcessor>();
+
+    private final ThreadLocal<InvocationStack> stacks = new ThreadLocal<InvocationStack>()
+    {
+        @Override
+        protected InvocationStack initialValue()
+        {
+            return new InvocationStack();
+        }
+    };
+
+    private volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private volatile int sampleRate = Integer.getInteger(SAMPLE_RATE_PROPERTY, 10);
+
+    private volatile long startTime = System.currentTimeMillis();
+
+    /**
+     * Marks the start of a message processor invocation on the current thread. Every call that returns
+     * true must be followed by a call to {@link #exit()} on the same thread once the processor returns,
+     * whether it fails or not.
+     *
+     * @param processorPath the path of the invoked processor
+     * @param processorType the type of the processor, only used the first time the path is seen
+     * @return false if the profiler is disabled, in which case {@link #exit()} must not be called
+     */
+    public boolean enter(String processorPath, Class<?> processorType)
+    {
+        if (!enabled)
+        {
+            return false;
+        }
+        InvocationStack stack = stacks.get();
+        ProfiledProcessor processor = null;
+        if (stack.isSampling())
+        {
+            processor = getProfiledProcessor(processorPath, processorType);
+        }
+        stack.push(processor);
+        return true;
+    }
+
+    /**
+     * Marks the end of the last invocation started on the current thread
+     */
+    public void exit()
+    {
+        stacks.get().pop();
+    }
+
+    private ProfiledProcessor getProfiledProcessor(String processorPath, Class<?> processorType)
+    {
+        ProfiledProcessor processor = processors.get(processorPath);
+        if (processor == null)
+        {
+            processor = new ProfiledProcessor(processorPath, processorType.getSimpleName());
+            ProfiledProcessor previous = processors.putIfAbsent(processorPath, processor);
+            if (previous != null)
+            {
+                processor = previous;
+            }
+        }
+        return processor;
+    }
+
+    /**
+     * Keeps the invocations in progress on a thread. Invocations that are not sampled are pushed with
+     * a null processor so that their nested invocations are not sampled either.
+     */
+    private final class InvocationStack
+    {
+        private ProfiledProcessor[] processors = new ProfiledProcessor[INITIAL_STACK_DEPTH];
+        private long[] startTimes = new long[INITIAL_STACK_DEPTH];
+        private long[] childTimes = new long[INITIAL_STACK_DEPTH];
+        private int depth;
+        private long rootInvocations;
+
+        boolean isSampling()
+        {
+            if (depth == 0)
+            {
+                int rate = sampleRate;
+                return rate <= 1 || rootInvocations++ % rate == 0;
+            }
+            return processors[depth - 1] != null;
+        }
+
+        void push(ProfiledProcessor processor)
+        {
+            if (depth == processors.length)
+            {
+                grow();
+            }
+            processors[depth] = processor;
+            childTimes[depth] = 0;
+            startTimes[depth] = processor == null ? 0 : System.nanoTime();
+            depth++;
+        }
+
+        void pop()
+        {
+            if (depth == 0)
+            {
+                return;
+            }
+            depth--;
+            ProfiledProcessor processor = processors[depth];
+            if (processor == null)
+            {
+                return;
+            }
+            processors[depth] = null;
+            long totalTime = System.nanoTime() - startTimes[depth];
+            processor.record(totalTime, totalTime - childTimes[depth]);
+            if (depth > 0)
+            {
+                childTimes[depth - 1] += totalTime;
+            }
+        }
+
+        private void grow()
+        {
+            int length = processors.length * 2;
+            ProfiledProcessor[] newProcessors = new ProfiledProcessor[length];
+            long[] newStartTimes = new long[length];
+            long[] newChildTimes = new long[length];
+            System.arraycopy(processors, 0, newProcessors, 0, depth);
+            System.arraycopy(startTimes, 0, newStartTimes, 0, depth);
+            System.arraycopy(childTimes, 0, newChildTimes, 0, depth);
+            processors = newProcessors;
+            startTimes = newStartTimes;
+            childTimes = newChildTimes;
+        }
+    }
+
+    /**
+     * The counters of a processor path
+     */
+    public static final class ProfiledProcessor
+    {
+        private final String path;
+        private final String type;
+        private final AtomicLong invocations = new AtomicLong();
+        private final AtomicLong totalTime = new AtomicLong();
+        private final AtomicLong selfTime = new AtomicLong();
+
+        ProfiledProcessor(String path, String type)
+        {
+            this.path = path;
+            this.type = type;
+        }
+
+        void record(long total, long self)
+        {
+            invocations.incrementAndGet();
+            totalTime.addAndGet(total);
+            selfTime.addAndGet(self);
+        }
+
+        void clear()
+        {
+            invocations.set(0);
+            totalTime.set(0);
+            selfTime.set(0);
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        /**
+         * @return the simple class name of the processor
+         */
+        public String getType()
+        {
+            return type;
+        }
+
+        /**
+         * @return the number of sampled invocations
+         */
+        public long getInvocations()
+        {
+            return invocations.get();
+        }
+
+        /**
+         * @return the total time of the sampled invocations, in nanoseconds
+         */
+        public long getTotalTime()
+        {
+            return totalTime.get();
+        }
+
+        /**
+         * @return the self time of the sampled invocations, in nanoseconds
+         */
+        public long getSelfTime()
+        {
+            return selfTime.get();
+        }
+    }
+
+    /**
+     * @return the profiled processors, by path
+     */
+    public Map<String, ProfiledProcessor> getProfiledProcessors()
+    {
+        return Collections.unmodifiableMap(processors);
+    }
+
+    /**
+     * Writes one line per profiled processor in the collapsed stack format used by flame graph tools:
+     * the processor and its ancestors separated by semicolons, followed by its self time in microseconds.
+     */
+    public void writeCollapsedStacks(Writer writer) throws IOException
+    {
+        Map<String, List<ProfiledProcessor>> children = new HashMap<String, List<ProfiledProcessor>>();
+        List<ProfiledProcessor> roots = buildTree(children);
+        for (ProfiledProcessor root : roots)
+        {
+            String flowName = getFlowName(root.getPath());
+            writeCollapsedStacks(writer, children, root, flowName, "/" + flowName);
+        }
+        writer.flush();
+    }
+
+    private void writeCollapsedStacks(Writer writer,
+                                      Map<String, List<ProfiledProcessor>> children,
+                                      ProfiledProcessor processor,
+                                      String parentStack,
+                                      String parentPath) throws IOException
+    {
+        String stack = parentStack + ";" + getFrameName(processor, parentPath);
+        long selfMicros = TimeUnit.NANOSECONDS.toMicros(processor.getSelfTime());
+        if (selfMicros > 0)
+        {
+            writer.write(stack);
+            writer.write(' ');
+            writer.write(String.valueOf(selfMicros));
+            writer.write('\n');
+        }
+        List<ProfiledProcessor> nested = children.get(processor.getPath());
+        if (nested != null)
+        {
+            for (ProfiledProcessor child : nested)
+            {
+                writeCollapsedStacks(writer, children, child, stack, processor.getPath());
+            }
+        }
+    }
+
+    /**
+     * Writes the profiled processors as an indented tree, with the nested processors of each one ordered by
+     * total time.
+     */
+    public void writeTree(Writer writer) throws IOException
+    {
+        Map<String, List<ProfiledProcessor>> children = new HashMap<String, List<ProfiledProcessor>>();
+        List<ProfiledProcessor> roots = buildTree(children);
+        writer.write("Message processor profile, sampling 1 of every " + Math.max(1, sampleRate)
+                     + " invocations since " + new Date(startTime) + "\n");
+        writer.write("invocations  total(ms)  self(ms)  mean(us)  processor\n");
+        for (ProfiledProcessor root : roots)
+        {
+            writeTree(writer, children, root, 0, "/" + getFlowName(root.getPath()));
+        }
+        writer.flush();
+    }
+
+    private void writeTree(Writer writer,
+                           Map<String, List<ProfiledProcessor>> children,
+                           ProfiledProcessor processor,
+                           int level,
+                           String parentPath) throws IOException
+    {
+        long invocations = processor.getInvocations();
+        long total = processor.getTotalTime();
+        StringBuilder line = new StringBuilder(128);
+        line.append(String.format("%11d  %9.3f  %8.3f  %8d  ", invocations, total / 1000000.0,
+            processor.getSelfTime() / 1000000.0, invocations == 0 ? 0 : total / invocations / 1000));
+        for (int i = 0; i < level; i++)
+        {
+            line.append("  ");
+        }
+        line.append(level == 0 ? processor.getPath() : getFrameName(processor, parentPath)).append('\n');
+        writer.write(line.toString());
+
+        List<ProfiledProcessor> nested = children.get(processor.getPath());
+        if (nested != null)
+        {
+            for (ProfiledProcessor child : nested)
+            {
+                writeTree(writer, children, child, level + 1, processor.getPath());
+            }
+        }
+    }
+
+    /**
+     * Links every processor to the closest profiled processor whose path is a prefix of its own.
+     *
+     * @return the processors without a profiled ancestor, ordered by total time
+     */
+    private List<ProfiledProcessor> buildTree(Map<String, List<ProfiledProcessor>> children)
+    {
+        List<ProfiledProcessor> roots = new ArrayList<ProfiledProcessor>();
+        for (ProfiledProcessor processor : processors.values())
+        {
+            String parentPath = getParentPath(processor.getPath());
+            while (parentPath != null && !processors.containsKey(parentPath))
+            {
+                parentPath = getParentPath(parentPath);
+            }
+            if (parentPath == null)
+            {
+                roots.add(processor);
+            }
+            else
+            {
+                List<ProfiledProcessor> siblings = children.get(parentPath);
+                if (siblings == null)
+                {
+                    siblings = new ArrayList<ProfiledProcessor>();
+                    children.put(parentPath, siblings);
+                }
+                siblings.add(processor);
+            }
+        }
+
+        Collections.sort(roots, BY_TOTAL_TIME);
+        for (List<ProfiledProcessor> siblings : children.values())
+        {
+            Collections.sort(siblings, BY_TOTAL_TIME);
+        }
+        return roots;
+    }
+
+    private static final Comparator<ProfiledProcessor> BY_TOTAL_TIME = new Comparator<ProfiledProcessor>()
+    {
+        @Override
+        public int compare(ProfiledProcessor p1, ProfiledProcessor p2)
+        {
+            long t1 = p1.getTotalTime();
+            long t2 = p2.getTotalTime();
+            return t1 < t2 ? 1 : (t1 == t2 ? p1.getPath().compareTo(p2.getPath()) : -1);
+        }
+    };
+
+    /**
+     * @return the path without its last element, or null for the root element of a path. Path elements
+     *         are separated by slashes; slashes in element names are escaped with a backslash
+     */
+    static String getParentPath(String path)
+    {
+        for (int i = path.length() - 1; i > 0; i--)
+        {
+            if (path.charAt(i) == '/' && path.charAt(i - 1) != '\\')
+            {
+                return path.substring(0, i);
+            }
+        }
+        return null;
+    }
+
+    private static String getFlowName(String path)
+    {
+        String flowPath = path;
+        for (String parent = getParentPath(path); parent != null; parent = getParentPath(parent))
+        {
+            flowPath = parent;
+        }
+        return flowPath.substring(1);
+    }
+
+    private static String getFrameName(ProfiledProcessor processor, String parentPath)
+    {
+        String path = processor.getPath();
+        String relativePath = path.startsWith(parentPath) ? path.substring(parentPath.length() + 1) : path;
+        return (relativePath + " " + processor.getType()).replace(';', ':');
+    }
+
+    /**
+     * Resets the counters of every processor
+     */
+    public void clear()
+    {
+        for (ProfiledProcessor processor : processors.values())
+        {
+            processor.clear();
+        }
+        startTime = System.currentTimeMillis();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    /**
+     * @param sampleRate profile one out of every this many top level invocations of each thread; 1 to
+     *            profile every invocation
+     */
+    public void setSampleRate(int sampleRate)
+    {
+        if (sampleRate < 1)
+        {
+            throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+}
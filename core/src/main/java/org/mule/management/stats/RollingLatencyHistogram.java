@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps latency histograms for a rolling time window as well as for the whole lifetime of a component.
+ * <p/>
+ * The window is divided in a fixed number of slices, each one with its own {@link LatencyHistogram}. A value
+ * is recorded in the slice for the current time and in the lifetime histogram. When time moves past a slice
+ * it is cleared by the first thread that records into it again, so old values drop out of the window
+ * without any background task. Clearing a slice races with concurrent recording on the same slice, so a
+ * few values may be lost when a slice is recycled; this is an accepted trade-off for keeping recording
+ * lock-free.
+ */
+public class RollingLatencyHistogram implements Serializable
+{
+    private static final long serialVersionUID = 2281906395361066270L;
+
+    /**
+     * The length of the rolling window in seconds, 60 by default
+     */
+    public static final String WINDOW_SECONDS_PROPERTY = "mule.stats.latency.windowSeconds";
+
+    /**
+     * The number of slices the rolling window is divided in, 6 by default
+     */
+    public static final String WINDOW_SLICES_PROPERTY = "mule.stats.latency.windowSlices";
+
+    /**
+     * By default latencies are recorded in milliseconds and anything above an hour is counted as an hour
+     */
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 60 * 60 * 1000;
+
+    private final LatencyHistogram lifetime;
+    private final LatencyHistogram[] slices;
+    private final AtomicLongArray sliceEpochs;
+    private final long sliceMillis;
+
+    public RollingLatencyHistogram()
+    {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    /**
+     * Creates a histogram with the window configured through system properties
+     *
+     * @param highestTrackableValue the highest value tracked, in whatever unit values are recorded
+     */
+    public RollingLatencyHistogram(long highestTrackableValue)
+    {
+        this(Long.getLong(WINDOW_SECONDS_PROPERTY, 60) * 1000, Integer.getInteger(WINDOW_SLICES_PROPERTY, 6),
+             highestTrackableValue);
+    }
+
+    public RollingLatencyHistogram(long windowMillis, int sliceCount, long highestTrackableValue)
+    {
+        if (sliceCount < 1 || windowMillis < sliceCount)
+        {
+            throw new IllegalArgumentException("Invalid rolling window: " + windowMillis + "ms in " + sliceCount + " slices");
+        }
+        this.lifetime = new LatencyHistogram(highestTrackableValue);
+        this.slices = new LatencyHistogram[sliceCount];
+        this.sliceEpochs = new AtomicLongArray(sliceCount);
+        this.sliceMillis = windowMillis / sliceCount;
+        for (int i = 0; i < sliceCount; i++)
+        {
+            slices[i] = lifetime.createEmptyCopy();
+            sliceEpochs.set(i, -1);
+        }
+    }
+
+    public void recordValue(long value)
+    {
+        recordValue(value, System.currentTimeMillis());
+    }
+
+    void recordValue(long value, long now)
+    {
+        lifetime.recordValue(value);
+
+        long epoch = now / sliceMillis;
+        int index = (int) (epoch % slices.length);
+        long sliceEpoch = sliceEpochs.get(index);
+        if (sliceEpoch != epoch && sliceEpochs.compareAndSet(index, sliceEpoch, epoch))
+        {
+            slices[index].clear();
+        }
+        slices[index].recordValue(value);
+    }
+
+    /**
+     * @return a new histogram with the values recorded within the rolling window
+     */
+    public LatencyHistogram getWindowSnapshot()
+    {
+        return getWindowSnapshot(System.currentTimeMillis());
+    }
+
+    LatencyHistogram getWindowSnapshot(long now)
+    {
+        long currentEpoch = now / sliceMillis;
+        LatencyHistogram snapshot = lifetime.createEmptyCopy();
+        for (int i = 0; i < slices.length; i++)
+        {
+            long sliceEpoch = sliceEpochs.get(i);
+            if (sliceEpoch >= 0 && currentEpoch - sliceEpoch < slices.length)
+            {
+                snapshot.add(slices[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the histogram with every value recorded since creation or the last {@link #clear()}
+     */
+    public LatencyHistogram getLifetime()
+    {
+        return lifetime;
+    }
+
+    public long getWindowMillis()
+    {
+        return sliceMillis * slices.length;
+    }
+
+    public void clear()
+    {
+        lifetime.clear();
+        for (int i = 0; i < slices.length; i++)
+        {
+            sliceEpochs.set(i, -1);
+            slices[i].clear();
+        }
+    }
+
+    /**
+     * @return a one line summary of the window and lifetime percentiles, in the unit values were recorded in
+     */
+    public String getSummary()
+    {
+        LatencyHistogram window = getWindowSnapshot();
+        StringBuilder summary = new StringBuilder(160);
+        append(summary, "window", window);
+        summary.append("; ");
+        append(summary, "lifetime", lifetime);
+        return summary.toString();
+    }
+
+    private void append(StringBuilder summary, String label, LatencyHistogram histogram)
+    {
+        summary.append(label)
+            .append(": count=").append(histogram.getTotalCount())
+            .append(" p50=").append(histogram.getValueAtPercentile(50))
+            .append(" p90=").append(histogram.getValueAtPercentile(90))
+            .append(" p99=").append(histogram.getValueAtPercentile(99))
+            .append(" p99.9=").append(histogram.getValueAtPercentile(99.9))
+            .append(" max=").append(histogram.getMaxValue());
+    }
+}
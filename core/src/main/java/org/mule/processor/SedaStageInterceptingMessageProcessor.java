@@ -20,6 +20,7 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.lifecycle.Lifecycle;
 import org.mule.api.lifecycle.LifecycleCallback;
 import org.mule.api.lifecycle.LifecycleException;
+import org.mule.api.processor.DemandSignal;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.service.FailedToQueueEventException;
 import org.mule.config.QueueProfile;
@@ -44,9 +45,12 @@ import javax.resource.spi.work.WorkException;
 /**
  * Processes {@link MuleEvent}'s asynchronously using a {@link MuleWorkManager} to schedule asynchronous
  * processing of the next {@link MessageProcessor}.
+ * <p/>
+ * When the queue profile limits the number of outstanding messages, the room left in the queue is signalled
+ * as demand so that message sources can slow down before the queue fills up.
  */
 public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMessageProcessor
-    implements Work, Lifecycle, Pausable, Resumable
+    implements Work, Lifecycle, Pausable, Resumable, DemandSignal
 {
     protected static final String QUEUE_NAME_PREFIX = "seda.queue";
 
@@ -280,6 +284,19 @@ public class SedaStageInterceptingMessageProcessor extends AsyncInterceptingMess
         return queue.size();
     }
 
+    /**
+     * @return the room left in the queue, or {@link DemandSignal#UNBOUNDED} if the queue has no capacity limit
+     */
+    public int getDemand()
+    {
+        int capacity = queueProfile.getMaxOutstandingMessages();
+        if (capacity <= 0 || queue == null)
+        {
+            return UNBOUNDED;
+        }
+        return Math.max(0, capacity - queue.size());
+    }
+
     protected String getQueueName()
     {
         return String.format("%s(%s)", QUEUE_NAME_PREFIX, getStageName());
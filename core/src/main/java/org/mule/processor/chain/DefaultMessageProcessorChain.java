@@ -14,9 +14,9 @@ import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.component.Component;
-import org.mule.api.construct.FlowConstruct;
 import org.mule.api.construct.Pipeline;
 import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.processor.MessageProcessorChain;
 import org.mule.api.processor.RequestReplyReplierMessageProcessor;
@@ -28,13 +28,14 @@ import org.mule.routing.MessageFilter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
 public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
 {
     protected MessageProcessorExecutionTemplate messageProcessorExecutionTemplate = MessageProcessorExecutionTemplate.createExecutionTemplate();
 
+    private volatile ExecutionPlan executionPlan;
+
     protected DefaultMessageProcessorChain(List<MessageProcessor> processors)
     {
         super(null, processors);
@@ -70,6 +71,37 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
         return new DefaultMessageProcessorChainBuilder().chain(messageProcessors).build();
     }
 
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        super.initialise();
+        executionPlan = new ExecutionPlan(processors);
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        executionPlan = null;
+    }
+
+    /**
+     * Returns the plan used to execute this chain, creating it if the chain was used without being
+     * initialised or its processors were modified since the plan was created. The processors list can be
+     * modified through {@link #getMessageProcessors()} or by whoever created the chain with it, so it is
+     * compared with the plan on every use.
+     */
+    ExecutionPlan getExecutionPlan()
+    {
+        ExecutionPlan plan = executionPlan;
+        if (plan == null || !plan.isPlanFor(processors))
+        {
+            plan = new ExecutionPlan(processors);
+            executionPlan = plan;
+        }
+        return plan;
+    }
+
     protected MuleEvent doProcess(MuleEvent event) throws MuleException
     {
         if (event.getMuleContext() != null
@@ -79,19 +111,20 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
         }
         else
         {
-            FlowConstruct flowConstruct = event.getFlowConstruct();
-            boolean flowConstructIsNotAService = !(flowConstruct instanceof Service);
+            ExecutionPlan plan = getExecutionPlan();
+            MessageProcessor[] steps = plan.processors;
+            boolean[] mayReturnNull = plan.mayReturnNull;
+            boolean flowConstructIsNotAService = !(event.getFlowConstruct() instanceof Service);
             MuleEvent copy = null;
-            
-            for (int i = 0; i < processors.size(); i++)
+
+            for (int i = 0; i < steps.length; i++)
             {
-                MessageProcessor processor = processors.get(i);
-                if (flowConstructIsNotAService && processorMayReturnNull(processor))
+                if (flowConstructIsNotAService && mayReturnNull[i])
                 {
                     copy = OptimizedRequestContext.criticalSetEvent(event);
                 }
 
-                event = messageProcessorExecutionTemplate.execute(processor, event);
+                event = messageProcessorExecutionTemplate.execute(steps[i], event);
 
                 if (VoidMuleEvent.getInstance().equals(event))
                 {
@@ -115,38 +148,30 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
     }
 
     /*
-     * Using old implementation 100% as is.
+     * Old implementation semantics, running on the execution plan instead of iterating the processors.
      */
     private MuleEvent doProcessFlowEndingWithOneWayEndpointReturnsNull(MuleEvent event)
         throws MessagingException
     {
-        FlowConstruct flowConstruct = event.getFlowConstruct();
+        ExecutionPlan plan = getExecutionPlan();
+        MessageProcessor[] steps = plan.processors;
+        boolean isFlow = event.getFlowConstruct() instanceof Flow;
         MuleEvent currentEvent = event;
         MuleEvent resultEvent;
         MuleEvent copy = null;
-        Iterator<MessageProcessor> processorIterator = processors.iterator();
-        MessageProcessor processor = null;
-        if (processorIterator.hasNext())
-        {
-            processor = processorIterator.next();
-        }
         boolean resultWasNull = false;
-        while (processor != null)
+        for (int i = 0; i < steps.length; i++)
         {
-            MessageProcessor nextProcessor = null;
-            if (processorIterator.hasNext())
-            {
-                nextProcessor = processorIterator.next();
-            }
+            boolean hasNextProcessor = i < steps.length - 1;
 
-            if (flowConstruct instanceof Flow && nextProcessor != null && processorMayReturnNull(processor))
+            if (isFlow && hasNextProcessor && plan.mayReturnNull[i])
             {
                 copy = OptimizedRequestContext.criticalSetEvent(currentEvent);
             }
 
-            resultEvent = messageProcessorExecutionTemplate.execute(processor, currentEvent);
+            resultEvent = messageProcessorExecutionTemplate.execute(steps[i], currentEvent);
 
-            if (resultWasNull && processor instanceof RequestReplyReplierMessageProcessor)
+            if (resultWasNull && plan.replyToReplier[i])
             {
                 // reply-to processing should not resurrect a dead event
                 resultEvent = null;
@@ -159,7 +184,7 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
             }
             else if (VoidMuleEvent.getInstance().equals(resultEvent))
             {
-                if (flowConstruct instanceof Flow && nextProcessor != null)
+                if (isFlow && hasNextProcessor)
                 {
                     resultWasNull = true;
                     // // In a flow when a MessageProcessor returns null the next
@@ -186,7 +211,6 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
             {
                 return null;
             }
-            processor = nextProcessor;
         }
         return currentEvent;
     }
@@ -214,4 +238,47 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
     {
         super.setMuleContext(context);
     }
+
+    /**
+     * Immutable snapshot of the processors of a chain along with everything about them that can be decided
+     * before any event is processed, so that processing an event is a plain loop over an array.
+     */
+    class ExecutionPlan
+    {
+        final MessageProcessor[] processors;
+        final boolean[] mayReturnNull;
+        final boolean[] replyToReplier;
+
+        ExecutionPlan(List<MessageProcessor> processorList)
+        {
+            processors = processorList.toArray(new MessageProcessor[processorList.size()]);
+            mayReturnNull = new boolean[processors.length];
+            replyToReplier = new boolean[processors.length];
+            for (int i = 0; i < processors.length; i++)
+            {
+                mayReturnNull[i] = processorMayReturnNull(processors[i]);
+                replyToReplier[i] = processors[i] instanceof RequestReplyReplierMessageProcessor;
+            }
+        }
+
+        /**
+         * @return whether the given list holds the same processors, in the same order, as this plan
+         */
+        boolean isPlanFor(List<MessageProcessor> processorList)
+        {
+            if (processorList.size() != processors.length)
+            {
+                return false;
+            }
+            int i = 0;
+            for (MessageProcessor processor : processorList)
+            {
+                if (processor != processors[i++])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
 }
@@ -37,10 +37,10 @@ public class SimpleMessageProcessorChain extends DefaultMessageProcessorChain
 
     protected MuleEvent doProcess(MuleEvent event) throws MuleException
     {
-        for (int i = 0; i < processors.size(); i++)
+        MessageProcessor[] steps = getExecutionPlan().processors;
+        for (int i = 0; i < steps.length; i++)
         {
-            MessageProcessor processor = processors.get(i);
-            event = messageProcessorExecutionTemplate.execute(processor, event);
+            event = messageProcessorExecutionTemplate.execute(steps[i], event);
             if (event == null)
             {
                 return null;
@@ -72,8 +72,8 @@ public class MuleRegistryHelper implements MuleRegistry
     /**
      * We cache transformer searches so that we only search once
      */
-    protected ConcurrentHashMap/*<String, Transformer>*/ exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
-    protected ConcurrentHashMap/*Map<String, List<Transformer>>*/ transformerListCache = new ConcurrentHashMap/*<String, List<Transformer>>*/(8);
+    protected ConcurrentHashMap/*<DataTypePairKey, Transformer>*/ exactTransformerCache = new ConcurrentHashMap/*<DataTypePairKey, Transformer>*/(8);
+    protected ConcurrentHashMap/*Map<DataTypePairKey, List<Transformer>>*/ transformerListCache = new ConcurrentHashMap/*<DataTypePairKey, List<Transformer>>*/(8);
 
     private MuleContext muleContext;
 
@@ -223,8 +223,8 @@ public class MuleRegistryHelper implements MuleRegistry
      */
     public Transformer lookupTransformer(DataType source, DataType result) throws TransformerException
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
-        Transformer cachedTransformer = (Transformer) exactTransformerCache.get(dataTypePairHash);
+        final DataTypePairKey dataTypePairKey = new DataTypePairKey(source, result);
+        Transformer cachedTransformer = (Transformer) exactTransformerCache.get(dataTypePairKey);
         if (cachedTransformer != null)
         {
             return cachedTransformer;
@@ -235,7 +235,7 @@ public class MuleRegistryHelper implements MuleRegistry
         if (trans != null)
         {
             Transformer concurrentlyAddedTransformer = (Transformer) exactTransformerCache.putIfAbsent(
-                    dataTypePairHash, trans);
+                    dataTypePairKey, trans);
             if (concurrentlyAddedTransformer != null)
             {
                 return concurrentlyAddedTransformer;
@@ -279,9 +279,9 @@ public class MuleRegistryHelper implements MuleRegistry
      */
     public List<Transformer> lookupTransformers(DataType source, DataType result)
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
+        final DataTypePairKey dataTypePairKey = new DataTypePairKey(source, result);
 
-        List<Transformer> results = (List<Transformer>) transformerListCache.get(dataTypePairHash);
+        List<Transformer> results = (List<Transformer>) transformerListCache.get(dataTypePairKey);
         if (results != null)
         {
             return results;
@@ -306,7 +306,7 @@ public class MuleRegistryHelper implements MuleRegistry
         }
 
         List<Transformer> concurrentlyAddedTransformers = (List<Transformer>) transformerListCache.putIfAbsent(
-                dataTypePairHash, results);
+                dataTypePairKey, results);
         if (concurrentlyAddedTransformers != null)
         {
             return concurrentlyAddedTransformers;
@@ -829,10 +829,49 @@ public class MuleRegistryHelper implements MuleRegistry
         return false;
     }
 
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
+    /**
+     * Key of the transformer caches. Identifies a source and result data type pair by the class and hash code
+     * of each data type, as the string key used before did, without building a string on every lookup.
+     */
+    private static final class DataTypePairKey
     {
-        return source.getClass().getName() + source.hashCode() + ":" + result.getClass().getName()
-               + result.hashCode();
+
+        private final Class<?> sourceClass;
+        private final int sourceHash;
+        private final Class<?> resultClass;
+        private final int resultHash;
+        private final int hashCode;
+
+        DataTypePairKey(DataType<?> source, DataType<?> result)
+        {
+            this.sourceClass = source.getClass();
+            this.sourceHash = source.hashCode();
+            this.resultClass = result.getClass();
+            this.resultHash = result.hashCode();
+            this.hashCode = 31 * (31 * (31 * sourceClass.hashCode() + sourceHash) + resultClass.hashCode()) + resultHash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof DataTypePairKey))
+            {
+                return false;
+            }
+            DataTypePairKey that = (DataTypePairKey) o;
+            return sourceHash == that.sourceHash && resultHash == that.resultHash
+                   && sourceClass == that.sourceClass && resultClass == that.resultClass;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
     }
 
     private class TransformerResolverComparator implements Comparator<TransformerResolver>
@@ -29,9 +29,12 @@ import org.mule.util.store.QueuePersistenceObjectStore;
 
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -46,12 +49,27 @@ import org.apache.commons.logging.LogFactory;
  * If route was not successfully executed after the configured retry count then the message
  * will be routed to the defined dead letter queue route or in case there is no dead letter
  * queue route then it will be handled by the flow exception strategy.
+ * <p/>
+ * Pending events are tracked in a time ordered {@link RetryIndex} of their object store keys. The time of
+ * the next attempt is part of the key, so on start the index is rebuilt from the store keys without
+ * retrieving any event. Due events are taken from the index in batches and processed by at most as many
+ * concurrent redeliveries as the threading profile allows active threads. Once a redelivery is done, the next
+ * one is scheduled for the earliest attempt time left in the index.
  */
 public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntilSuccessfulProcessingStrategy implements Initialisable, Startable, Stoppable
 {
 
+    /**
+     * Maximum number of due events taken from the index at a time by a redelivery
+     */
+    private static final int RETRY_BATCH_SIZE = 32;
+
     protected transient Log logger = LogFactory.getLog(getClass());
     private ScheduledExecutorService scheduledPool;
+    private final RetryIndex retryIndex = new RetryIndex();
+    private Semaphore redeliveryPermits;
+    // attempt time of the earliest redelivery scheduled and not yet started, or Long.MAX_VALUE if there is none
+    private final AtomicLong scheduledRedeliveryTime = new AtomicLong(Long.MAX_VALUE);
 
     @Override
     public void initialise() throws InitialisationException
@@ -70,6 +88,7 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         final String threadPrefix = String.format("%s%s.%s", ThreadNameHelper.getPrefix(getUntilSuccessfulConfiguration().getMuleContext()),
                                                   getUntilSuccessfulConfiguration().getFlowConstruct().getName(), "until-successful");
         scheduledPool = getUntilSuccessfulConfiguration().getThreadingProfile().createScheduledPool(threadPrefix);
+        redeliveryPermits = new Semaphore(Math.max(1, getUntilSuccessfulConfiguration().getThreadingProfile().getMaxThreadsActive()));
         scheduleAllPendingEventsForProcessing();
     }
 
@@ -79,6 +98,9 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
     {
         scheduledPool.shutdown();
         scheduledPool = null;
+        scheduledRedeliveryTime.set(Long.MAX_VALUE);
+        // the pending events are indexed again from the object store when started
+        retryIndex.clear();
     }
 
     @Override
@@ -95,8 +117,9 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
         try
         {
-            final Serializable eventStoreKey = storeEvent(event);
-            scheduleForProcessing(eventStoreKey, true);
+            final long attemptTime = System.currentTimeMillis();
+            final Serializable eventStoreKey = storeEvent(event, attemptTime);
+            scheduleForProcessing(eventStoreKey, attemptTime);
             if (getUntilSuccessfulConfiguration().getAckExpression() == null)
             {
                 return VoidMuleEvent.getInstance();
@@ -115,18 +138,18 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
     {
         try
         {
-            for (final Serializable eventStoreKey : getUntilSuccessfulConfiguration().getObjectStore().allKeys())
+            final List<Serializable> eventStoreKeys = getUntilSuccessfulConfiguration().getObjectStore().allKeys();
+            for (final Serializable eventStoreKey : eventStoreKeys)
             {
-                try
-                {
-                    scheduleForProcessing(eventStoreKey, true);
-                }
-                catch (final Exception e)
+                retryIndex.add(eventStoreKey, RetryIndex.getAttemptTime(getKeyId(eventStoreKey)));
+            }
+            if (!eventStoreKeys.isEmpty())
+            {
+                if (logger.isDebugEnabled())
                 {
-                    logger.error(
-                            MessageFactory.createStaticMessage("Failed to schedule for processing event stored with key: "
-                                                               + eventStoreKey), e);
+                    logger.debug("Indexed " + eventStoreKeys.size() + " pending until successful events");
                 }
+                scheduleNextRedelivery();
             }
         }
         catch (Exception e)
@@ -139,24 +162,120 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
     }
 
-    private void scheduleForProcessing(final Serializable eventStoreKey, boolean firstTime) throws Exception
+    private void scheduleForProcessing(final Serializable eventStoreKey, long attemptTime)
+    {
+        retryIndex.add(eventStoreKey, attemptTime);
+        scheduleRedelivery(attemptTime);
+    }
+
+    /**
+     * Schedules a redelivery for the earliest attempt time in the index, if there is any
+     */
+    private void scheduleNextRedelivery()
     {
-        this.scheduledPool.schedule(new Callable<Object>()
+        final long attemptTime = retryIndex.nextAttemptTime();
+        if (attemptTime >= 0)
+        {
+            scheduleRedelivery(attemptTime);
+        }
+    }
+
+    /**
+     * Schedules a redelivery that processes whatever events are due when it runs, unless one is already
+     * scheduled to run by then. Every event added to the index schedules one for its attempt time and every
+     * redelivery schedules the next one when done, so no event is left waiting for new ones to come.
+     */
+    private void scheduleRedelivery(final long attemptTime)
+    {
+        final ScheduledExecutorService pool = this.scheduledPool;
+        if (pool == null || pool.isShutdown())
+        {
+            // stopped, the pending events are indexed again when started
+            return;
+        }
+        long scheduledTime;
+        do
+        {
+            scheduledTime = scheduledRedeliveryTime.get();
+            if (scheduledTime <= attemptTime)
+            {
+                return;
+            }
+        }
+        while (!scheduledRedeliveryTime.compareAndSet(scheduledTime, attemptTime));
+
+        pool.schedule(new Callable<Object>()
         {
             @Override
             public Object call() throws Exception
             {
-                try
+                scheduledRedeliveryTime.compareAndSet(attemptTime, Long.MAX_VALUE);
+                processDueEvents();
+                return null;
+            }
+        }, Math.max(0, attemptTime - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void processDueEvents()
+    {
+        if (!redeliveryPermits.tryAcquire())
+        {
+            // the redeliveries in progress will pick up the due events
+            return;
+        }
+        try
+        {
+            List<Serializable> dueKeys = pollDueEvents();
+            while (!dueKeys.isEmpty())
+            {
+                final long now = System.currentTimeMillis();
+                if (retryIndex.hasDue(now) && redeliveryPermits.availablePermits() > 0)
                 {
-                    retrieveAndProcessEvent(eventStoreKey);
+                    scheduleRedelivery(now);
                 }
-                catch (Exception e)
+                for (Serializable eventStoreKey : dueKeys)
                 {
-                    incrementProcessAttemptCountAndRescheduleOrRemoveFromStore(eventStoreKey);
+                    processStoredEvent(eventStoreKey);
                 }
-                return null;
+                dueKeys = pollDueEvents();
             }
-        }, firstTime ? 0 : getUntilSuccessfulConfiguration().getSecondsBetweenRetries(), TimeUnit.SECONDS);
+        }
+        finally
+        {
+            redeliveryPermits.release();
+        }
+        // events may have become due after the last poll while other redeliveries gave up for lack of
+        // permits, and the timer may fire a little before the attempt time of the events it was scheduled for
+        scheduleNextRedelivery();
+    }
+
+    /**
+     * Takes a single event while there are idle redelivery permits, so that due events are spread across
+     * concurrent redeliveries, and a batch when all of them are busy.
+     */
+    private List<Serializable> pollDueEvents()
+    {
+        final int batchSize = redeliveryPermits.availablePermits() > 0 ? 1 : RETRY_BATCH_SIZE;
+        return retryIndex.pollDue(System.currentTimeMillis(), batchSize);
+    }
+
+    private void processStoredEvent(Serializable eventStoreKey)
+    {
+        try
+        {
+            retrieveAndProcessEvent(eventStoreKey);
+        }
+        catch (Exception e)
+        {
+            try
+            {
+                incrementProcessAttemptCountAndRescheduleOrRemoveFromStore(eventStoreKey);
+            }
+            catch (Exception rescheduleException)
+            {
+                logger.error("Failed to reschedule event stored with key: " + eventStoreKey, rescheduleException);
+            }
+        }
     }
 
     private void incrementProcessAttemptCountAndRescheduleOrRemoveFromStore(final Serializable eventStoreKey) throws Exception
@@ -173,10 +292,13 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
             if (deliveryAttemptCount <= getUntilSuccessfulConfiguration().getMaxRetries())
             {
                 // we store the incremented version unless the max attempt count has
-                // been reached
+                // been reached, keyed by the time of the next attempt
                 message.setInvocationProperty(PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, deliveryAttemptCount + 1);
-                getUntilSuccessfulConfiguration().getObjectStore().store(eventStoreKey, mutableEvent);
-                this.scheduleForProcessing(eventStoreKey, false);
+                final long attemptTime = System.currentTimeMillis()
+                                         + TimeUnit.SECONDS.toMillis(getUntilSuccessfulConfiguration().getSecondsBetweenRetries());
+                final Serializable retryStoreKey = rescheduledQueueKey(eventStoreKey, attemptTime);
+                getUntilSuccessfulConfiguration().getObjectStore().store(retryStoreKey, mutableEvent);
+                this.scheduleForProcessing(retryStoreKey, attemptTime);
             }
             else
             {
@@ -189,20 +311,13 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         }
     }
 
-    private Serializable storeEvent(final MuleEvent event) throws ObjectStoreException
+    private Serializable storeEvent(final MuleEvent event, final long attemptTime) throws ObjectStoreException
     {
         final MuleMessage message = event.getMessage();
         final Integer deliveryAttemptCount = message.getInvocationProperty(
                 PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, DEFAULT_PROCESS_ATTEMPT_COUNT_PROPERTY_VALUE);
-        return storeEvent(event, deliveryAttemptCount);
-    }
-
-    private Serializable storeEvent(final MuleEvent event, final int deliveryAttemptCount)
-            throws ObjectStoreException
-    {
-        final MuleMessage message = event.getMessage();
         message.setInvocationProperty(PROCESS_ATTEMPT_COUNT_PROPERTY_NAME, deliveryAttemptCount);
-        final Serializable eventStoreKey = buildQueueKey(event);
+        final Serializable eventStoreKey = buildQueueKey(event, attemptTime);
         getUntilSuccessfulConfiguration().getObjectStore().store(eventStoreKey, event);
         return eventStoreKey;
     }
@@ -217,6 +332,33 @@ public class AsynchronousUntilSuccessfulProcessingStrategy extends AbstractUntil
         return new QueueKey(QueuePersistenceObjectStore.DEFAULT_QUEUE_STORE, key);
     }
 
+    /**
+     * Builds the key to store an event with, including the time of its next processing attempt so that
+     * pending events can be indexed from the keys alone
+     */
+    public static Serializable buildQueueKey(final MuleEvent muleEvent, final long attemptTime)
+    {
+        final QueueKey queueKey = (QueueKey) buildQueueKey(muleEvent);
+        return new QueueKey(queueKey.queueName, RetryIndex.buildKeyId(queueKey.id.toString(), attemptTime));
+    }
+
+    private static Serializable rescheduledQueueKey(final Serializable eventStoreKey, final long attemptTime)
+    {
+        if (!(eventStoreKey instanceof QueueKey))
+        {
+            // not stored by this strategy, keep the key so it is due right away when indexed on start
+            return eventStoreKey;
+        }
+        final QueueKey queueKey = (QueueKey) eventStoreKey;
+        return new QueueKey(queueKey.queueName, RetryIndex.buildKeyId(RetryIndex.getBaseId(getKeyId(queueKey)), attemptTime));
+    }
+
+    private static String getKeyId(final Serializable eventStoreKey)
+    {
+        return eventStoreKey instanceof QueueKey ? String.valueOf(((QueueKey) eventStoreKey).id)
+                                                 : String.valueOf(eventStoreKey);
+    }
+
     private void abandonRetries(final MuleEvent event, final MuleEvent mutableEvent)
     {
         if (getUntilSuccessfulConfiguration().getDlqMP() == null)
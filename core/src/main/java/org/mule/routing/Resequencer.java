@@ -12,8 +12,10 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.management.stats.RollingLatencyHistogram;
 import org.mule.routing.correlation.CorrelationSequenceComparator;
 import org.mule.routing.correlation.EventCorrelatorCallback;
+import org.mule.routing.correlation.IncrementalResequencer;
 import org.mule.routing.correlation.ResequenceMessagesCorrelatorCallback;
 
 import java.util.Comparator;
@@ -25,6 +27,13 @@ import java.util.Comparator;
  * another router such as the <i>Resequencer</i> can receive the parts and reorder or
  * merge them.
  * <p>
+ * When <code>incremental</code> is set, events are released as soon as every event
+ * before them in the sequence has been released instead of when the whole group has
+ * arrived. Out of sequence events are held in a reorder window of bounded size per
+ * group and spilled to an in memory object store beyond that, see
+ * {@link IncrementalResequencer}. The timeout then applies to the wait for a missing
+ * sequence, which is skipped once it expires.
+ * <p>
  * <b>EIP Reference:</b> <a
  * href="http://www.eaipatterns.com/Resequencer.html">http://
  * www.eaipatterns.com/Resequencer.html<a/>
@@ -32,6 +41,10 @@ import java.util.Comparator;
 public class Resequencer extends AbstractAggregator
 {
     protected Comparator eventComparator;
+    protected IncrementalResequencer incrementalResequencer;
+
+    private boolean incremental = false;
+    private int reorderWindow = IncrementalResequencer.DEFAULT_REORDER_WINDOW;
 
     public Resequencer()
     {
@@ -47,6 +60,48 @@ public class Resequencer extends AbstractAggregator
             throw new InitialisationException(CoreMessages.objectIsNull("eventComparator"), this);
         }
         super.initialise();
+        if (incremental)
+        {
+            incrementalResequencer = new IncrementalResequencer(muleContext, flowConstruct, storePrefix, reorderWindow,
+                getTimeout(), new IncrementalResequencer.ReleaseCallback()
+                {
+                    @Override
+                    public MuleEvent release(MuleEvent event) throws MuleException
+                    {
+                        return processNext(event);
+                    }
+                });
+        }
+    }
+
+    @Override
+    public void start() throws MuleException
+    {
+        super.start();
+        if (incrementalResequencer != null)
+        {
+            incrementalResequencer.start();
+        }
+    }
+
+    @Override
+    public void stop() throws MuleException
+    {
+        if (incrementalResequencer != null)
+        {
+            incrementalResequencer.stop();
+        }
+        super.stop();
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        if (incrementalResequencer != null)
+        {
+            incrementalResequencer.dispose();
+        }
     }
 
     public Comparator getEventComparator()
@@ -69,6 +124,10 @@ public class Resequencer extends AbstractAggregator
     @Override
     public MuleEvent process(MuleEvent event) throws MuleException
     {
+        if (incrementalResequencer != null)
+        {
+            return incrementalResequencer.process(event);
+        }
         MuleEvent result = eventCorrelator.process(event);
         if (!isEventValid(result))
         {
@@ -83,4 +142,40 @@ public class Resequencer extends AbstractAggregator
         return last;
     }
 
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public void setIncremental(boolean incremental)
+    {
+        this.incremental = incremental;
+    }
+
+    public int getReorderWindow()
+    {
+        return reorderWindow;
+    }
+
+    public void setReorderWindow(int reorderWindow)
+    {
+        this.reorderWindow = reorderWindow;
+    }
+
+    /**
+     * @return the number of events currently held back by the incremental resequencer, or 0 when not incremental
+     */
+    public int getReorderDepth()
+    {
+        return incrementalResequencer == null ? 0 : incrementalResequencer.getReorderDepth();
+    }
+
+    /**
+     * @return how long groups waited for missing sequences, in milliseconds, or null when not incremental
+     */
+    public RollingLatencyHistogram getGapWaitTime()
+    {
+        return incrementalResequencer == null ? null : incrementalResequencer.getGapWaitTime();
+    }
+
 }
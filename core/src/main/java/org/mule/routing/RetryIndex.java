@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time ordered index of the keys of stored events pending a retry, used by
+ * {@link AsynchronousUntilSuccessfulProcessingStrategy} to find the events that are due without going
+ * through the object store.
+ * <p/>
+ * The index only holds keys and attempt times so it can be rebuilt from the object store keys alone. The
+ * attempt time is kept in the key itself, see {@link #buildKeyId(String, long)}.
+ */
+class RetryIndex
+{
+
+    private static final char ATTEMPT_TIME_SEPARATOR = '@';
+
+    private final ConcurrentSkipListSet<Entry> entries = new ConcurrentSkipListSet<Entry>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Adds a key to the index
+     *
+     * @param key the object store key of the event
+     * @param attemptTime the time at which the event should be processed, in milliseconds
+     */
+    public void add(Serializable key, long attemptTime)
+    {
+        entries.add(new Entry(key, attemptTime, sequence.getAndIncrement()));
+    }
+
+    /**
+     * Removes and returns the keys of the events that are due, earliest first
+     *
+     * @param now the current time, in milliseconds
+     * @param maxKeys the maximum number of keys to return
+     * @return the due keys, or an empty list if there are none
+     */
+    public List<Serializable> pollDue(long now, int maxKeys)
+    {
+        List<Serializable> due = new ArrayList<Serializable>(Math.min(maxKeys, 16));
+        Iterator<Entry> iterator = entries.iterator();
+        while (due.size() < maxKeys && iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+            if (entry.attemptTime > now)
+            {
+                break;
+            }
+            // Only the thread that actually removes the entry gets to process it
+            if (entries.remove(entry))
+            {
+                due.add(entry.key);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * @return true if any key is due at the given time
+     */
+    public boolean hasDue(long now)
+    {
+        Iterator<Entry> iterator = entries.iterator();
+        return iterator.hasNext() && iterator.next().attemptTime <= now;
+    }
+
+    /**
+     * @return the earliest attempt time in the index, or -1 if it is empty
+     */
+    public long nextAttemptTime()
+    {
+        Iterator<Entry> iterator = entries.iterator();
+        return iterator.hasNext() ? iterator.next().attemptTime : -1;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * @param baseId the id that identifies the event
+     * @param attemptTime the time of the next processing attempt, in milliseconds
+     * @return the id to store the event with
+     */
+    public static String buildKeyId(String baseId, long attemptTime)
+    {
+        return baseId + ATTEMPT_TIME_SEPARATOR + attemptTime;
+    }
+
+    /**
+     * @param keyId an id built by {@link #buildKeyId(String, long)}
+     * @return the id that identifies the event, without the attempt time
+     */
+    public static String getBaseId(String keyId)
+    {
+        int separator = keyId.lastIndexOf(ATTEMPT_TIME_SEPARATOR);
+        return separator == -1 || parseAttemptTime(keyId, separator) < 0 ? keyId : keyId.substring(0, separator);
+    }
+
+    /**
+     * @param keyId an id built by {@link #buildKeyId(String, long)}
+     * @return the attempt time in the id, or 0 if the id has none so that the event is due right away
+     */
+    public static long getAttemptTime(String keyId)
+    {
+        return Math.max(0, parseAttemptTime(keyId, keyId.lastIndexOf(ATTEMPT_TIME_SEPARATOR)));
+    }
+
+    private static long parseAttemptTime(String keyId, int separator)
+    {
+        if (separator == -1 || separator == keyId.length() - 1)
+        {
+            return -1;
+        }
+        long attemptTime = 0;
+        for (int i = separator + 1; i < keyId.length(); i++)
+        {
+            char c = keyId.charAt(i);
+            if (c < '0' || c > '9' || attemptTime > (Long.MAX_VALUE - 9) / 10)
+            {
+                return -1;
+            }
+            attemptTime = attemptTime * 10 + (c - '0');
+        }
+        return attemptTime;
+    }
+
+    private static class Entry implements Comparable<Entry>
+    {
+
+        private final Serializable key;
+        private final long attemptTime;
+        private final long sequence;
+
+        Entry(Serializable key, long attemptTime, long sequence)
+        {
+            this.key = key;
+            this.attemptTime = attemptTime;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other)
+        {
+            if (attemptTime != other.attemptTime)
+            {
+                return attemptTime < other.attemptTime ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,544 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing.correlation;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.ThreadSafeAccess;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.execution.ExecutionCallback;
+import org.mule.api.execution.ExecutionTemplate;
+import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreManager;
+import org.mule.execution.ErrorHandlingExecutionTemplate;
+import org.mule.management.stats.RollingLatencyHistogram;
+import org.mule.routing.EventProcessingThread;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Resequences the events of each correlation group as they arrive, releasing every event as soon as all the
+ * events with a lower correlation sequence have been released, instead of holding back the whole group.
+ * <p/>
+ * Events that arrive ahead of the next expected sequence are kept in a per group reorder window ordered by
+ * sequence. When the window is full the event furthest from being released is spilled to a persistent
+ * object store of the object store manager, which keeps it on disk, and read back when its turn comes, so
+ * the memory used by a group is bounded by its window. Spilled events still only live as long as the
+ * resequencer, as the state of the groups is not persisted: the store is cleared when it is first used and
+ * disposed with the resequencer.
+ * <p/>
+ * Once started, a monitor checks the groups periodically. When a gap timeout is set, a group that has been
+ * waiting for the same missing sequence for longer than that skips it and releases what it holds. Groups
+ * that hold no events and got none for the idle group timeout are dropped, which is how groups of unknown
+ * size, such as those of streaming splitters, go away.
+ * <p/>
+ * The events of a group are released in order while holding the group's lock, so releases of different
+ * groups run concurrently but those of the same group never overlap.
+ */
+public class IncrementalResequencer
+{
+
+    /**
+     * Default maximum number of events held in memory per group while waiting for a gap to be filled
+     */
+    public static final int DEFAULT_REORDER_WINDOW = 1000;
+
+    /**
+     * Default milliseconds after which a group that holds no events and got none is dropped
+     */
+    public static final long DEFAULT_IDLE_GROUP_TIMEOUT = 30 * 60 * 1000L;
+
+    private static final long MIN_EXPIRY_INTERVAL = 10;
+    private static final long MAX_EXPIRY_INTERVAL = 1000;
+
+    protected transient final Log logger = LogFactory.getLog(IncrementalResequencer.class);
+
+    private final ConcurrentMap<String, SequenceGroup> groups = new ConcurrentHashMap<String, SequenceGroup>();
+    private final MuleContext muleContext;
+    private final FlowConstruct flowConstruct;
+    private final String storeName;
+    private final int reorderWindow;
+    private final long gapTimeout;
+    private final ReleaseCallback callback;
+    private long idleGroupTimeout = DEFAULT_IDLE_GROUP_TIMEOUT;
+    private ListableObjectStore<MuleEvent> spillStore;
+    private ExpiringGroupMonitoringThread expiringGroupMonitoringThread;
+
+    private final AtomicInteger reorderDepth = new AtomicInteger();
+    private final AtomicInteger maxReorderDepth = new AtomicInteger();
+    private final AtomicLong spilledEvents = new AtomicLong();
+    private final RollingLatencyHistogram gapWaitTime = new RollingLatencyHistogram();
+
+    /**
+     * Callback used to release each event once it is in sequence
+     */
+    public interface ReleaseCallback
+    {
+
+        MuleEvent release(MuleEvent event) throws MuleException;
+    }
+
+    /**
+     * @param muleContext the context to look up the object store manager from
+     * @param flowConstruct the flow whose exception strategy handles failures releasing events on timeout
+     * @param storePrefix prefix for the name of the store events are spilled to
+     * @param reorderWindow maximum number of out of sequence events kept in the reorder window per group
+     * @param gapTimeout milliseconds to wait for a missing sequence before skipping it, 0 to wait forever
+     * @param callback used to release the events in sequence
+     */
+    public IncrementalResequencer(MuleContext muleContext, FlowConstruct flowConstruct, String storePrefix,
+                                  int reorderWindow, long gapTimeout, ReleaseCallback callback)
+    {
+        if (reorderWindow < 1)
+        {
+            throw new IllegalArgumentException("Reorder window must be at least 1: " + reorderWindow);
+        }
+        this.muleContext = muleContext;
+        this.flowConstruct = flowConstruct;
+        this.storeName = storePrefix + ".resequencer.spill";
+        this.reorderWindow = reorderWindow;
+        this.gapTimeout = gapTimeout;
+        this.callback = callback;
+    }
+
+    /**
+     * Starts the monitor that skips timed out gaps and drops idle groups
+     */
+    public synchronized void start()
+    {
+        if (expiringGroupMonitoringThread == null)
+        {
+            expiringGroupMonitoringThread = new ExpiringGroupMonitoringThread();
+            expiringGroupMonitoringThread.start();
+        }
+    }
+
+    public void stop()
+    {
+        ExpiringGroupMonitoringThread thread;
+        synchronized (this)
+        {
+            thread = expiringGroupMonitoringThread;
+            expiringGroupMonitoringThread = null;
+        }
+        if (thread != null)
+        {
+            thread.stopProcessing();
+        }
+    }
+
+    /**
+     * Adds an event to its group and releases every event of the group that is now in sequence
+     *
+     * @param event the event to resequence
+     * @return the result of the last release, or null if no event could be released yet
+     * @throws MuleException if releasing an event fails, or an event cannot be read back from the store
+     */
+    public MuleEvent process(MuleEvent event) throws MuleException
+    {
+        MuleMessage message = event.getMessage();
+        String groupId = message.getCorrelationId();
+        int sequence = message.getCorrelationSequence();
+        if (groupId == null || sequence < 0)
+        {
+            // nothing to resequence by
+            return callback.release(event);
+        }
+
+        while (true)
+        {
+            SequenceGroup group = getGroup(groupId);
+            synchronized (group)
+            {
+                if (groups.get(groupId) != group)
+                {
+                    // completed or dropped while waiting for the lock
+                    continue;
+                }
+                if (sequence < group.nextSequence || group.isHeld(sequence))
+                {
+                    logger.warn("Releasing event with sequence " + sequence + " of group " + groupId
+                                + " that arrived after its turn or more than once");
+                    return callback.release(event);
+                }
+                if (message.getCorrelationGroupSize() > 0)
+                {
+                    group.size = message.getCorrelationGroupSize();
+                }
+
+                long now = System.currentTimeMillis();
+                group.lastActivity = now;
+                if (sequence == group.nextSequence)
+                {
+                    return releaseInSequence(group, event, now);
+                }
+
+                hold(group, sequence, event);
+                if (group.gapStarted < 0)
+                {
+                    group.gapStarted = now;
+                }
+                else if (isGapTimedOut(group, now))
+                {
+                    return skipGap(group, now);
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Skips the gaps that timed out and drops the groups that have been idle for too long. Called
+     * periodically once started.
+     */
+    public void expire()
+    {
+        long now = System.currentTimeMillis();
+        for (final SequenceGroup group : groups.values())
+        {
+            synchronized (group)
+            {
+                if (groups.get(group.groupId) != group)
+                {
+                    continue;
+                }
+                if (group.heldCount() == 0)
+                {
+                    if (now - group.lastActivity > idleGroupTimeout)
+                    {
+                        if (logger.isDebugEnabled())
+                        {
+                            logger.debug("Dropping idle group " + group.groupId + " waiting for sequence " + group.nextSequence);
+                        }
+                        groups.remove(group.groupId);
+                    }
+                }
+                else if (isGapTimedOut(group, now))
+                {
+                    skipGapOnTimeout(group, now);
+                }
+            }
+        }
+    }
+
+    private void skipGapOnTimeout(final SequenceGroup group, final long now)
+    {
+        ExecutionTemplate<MuleEvent> executionTemplate = ErrorHandlingExecutionTemplate.createErrorHandlingExecutionTemplate(
+            muleContext, flowConstruct.getExceptionListener());
+        try
+        {
+            executionTemplate.execute(new ExecutionCallback<MuleEvent>()
+            {
+                @Override
+                public MuleEvent process() throws Exception
+                {
+                    return skipGap(group, now);
+                }
+            });
+        }
+        catch (MessagingException e)
+        {
+            // already handled by the execution template
+        }
+        catch (Exception e)
+        {
+            muleContext.getExceptionListener().handleException(e);
+        }
+    }
+
+    private boolean isGapTimedOut(SequenceGroup group, long now)
+    {
+        return gapTimeout > 0 && group.gapStarted >= 0 && now - group.gapStarted > gapTimeout;
+    }
+
+    private MuleEvent skipGap(SequenceGroup group, long now) throws MuleException
+    {
+        int firstHeld = group.firstHeldSequence();
+        logger.warn("Timed out waiting for sequences " + group.nextSequence + " to " + (firstHeld - 1)
+                    + " of group " + group.groupId + ", skipping them");
+        group.nextSequence = firstHeld;
+        return releaseInSequence(group, copy(takeHeld(group, firstHeld)), now);
+    }
+
+    private SequenceGroup getGroup(String groupId)
+    {
+        SequenceGroup group = groups.get(groupId);
+        if (group == null)
+        {
+            group = new SequenceGroup(groupId);
+            SequenceGroup previous = groups.putIfAbsent(groupId, group);
+            if (previous != null)
+            {
+                group = previous;
+            }
+        }
+        return group;
+    }
+
+    private MuleEvent releaseInSequence(SequenceGroup group, MuleEvent event, long now) throws MuleException
+    {
+        if (group.gapStarted >= 0)
+        {
+            gapWaitTime.recordValue(now - group.gapStarted);
+            group.gapStarted = -1;
+        }
+
+        MuleEvent result = release(group, event);
+        while (group.isHeld(group.nextSequence))
+        {
+            result = release(group, copy(takeHeld(group, group.nextSequence)));
+        }
+
+        if (group.size > 0 && group.nextSequence > group.size)
+        {
+            groups.remove(group.groupId);
+        }
+        else if (group.heldCount() > 0)
+        {
+            // still waiting on a gap
+            group.gapStarted = now;
+        }
+        return result;
+    }
+
+    private MuleEvent release(SequenceGroup group, MuleEvent event) throws MuleException
+    {
+        group.nextSequence++;
+        return callback.release(event);
+    }
+
+    private void hold(SequenceGroup group, int sequence, MuleEvent event) throws ObjectStoreException
+    {
+        if (group.window.size() < reorderWindow)
+        {
+            group.window.put(sequence, event);
+        }
+        else if (sequence > group.window.lastKey())
+        {
+            spill(group, sequence, event);
+        }
+        else
+        {
+            Map.Entry<Integer, MuleEvent> furthest = group.window.pollLastEntry();
+            spill(group, furthest.getKey(), furthest.getValue());
+            group.window.put(sequence, event);
+        }
+        int depth = reorderDepth.incrementAndGet();
+        int max = maxReorderDepth.get();
+        while (depth > max && !maxReorderDepth.compareAndSet(max, depth))
+        {
+            max = maxReorderDepth.get();
+        }
+    }
+
+    private void spill(SequenceGroup group, int sequence, MuleEvent event) throws ObjectStoreException
+    {
+        getSpillStore().store(spillKey(group.groupId, sequence), event);
+        group.spilled.add(sequence);
+        spilledEvents.incrementAndGet();
+    }
+
+    private MuleEvent takeHeld(SequenceGroup group, int sequence) throws ObjectStoreException
+    {
+        reorderDepth.decrementAndGet();
+        MuleEvent event = group.window.remove(sequence);
+        if (event == null)
+        {
+            group.spilled.remove(sequence);
+            event = getSpillStore().remove(spillKey(group.groupId, sequence));
+        }
+        return event;
+    }
+
+    private MuleEvent copy(MuleEvent event)
+    {
+        // held events arrived on other threads
+        if (event instanceof ThreadSafeAccess)
+        {
+            return (MuleEvent) ((ThreadSafeAccess) event).newThreadCopy();
+        }
+        return event;
+    }
+
+    private String spillKey(String groupId, int sequence)
+    {
+        return groupId + "." + sequence;
+    }
+
+    private synchronized ListableObjectStore<MuleEvent> getSpillStore()
+    {
+        if (spillStore == null)
+        {
+            ObjectStoreManager objectStoreManager = (ObjectStoreManager) muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+            // persistent so that spilled events are kept on disk rather than on the heap
+            ListableObjectStore<MuleEvent> store = objectStoreManager.getObjectStore(storeName, true);
+            try
+            {
+                // held events do not outlive the groups, whose state is only kept in memory, so anything
+                // left from a previous run belongs to groups that are gone
+                store.clear();
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Could not clear resequencer spill store " + storeName, e);
+            }
+            spillStore = store;
+        }
+        return spillStore;
+    }
+
+    /**
+     * Drops every pending group and disposes the spill store
+     */
+    public void dispose()
+    {
+        stop();
+        groups.clear();
+        reorderDepth.set(0);
+        synchronized (this)
+        {
+            if (spillStore != null)
+            {
+                try
+                {
+                    ObjectStoreManager objectStoreManager = (ObjectStoreManager) muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+                    objectStoreManager.disposeStore(spillStore);
+                }
+                catch (ObjectStoreException e)
+                {
+                    logger.warn("Could not dispose resequencer spill store " + storeName, e);
+                }
+                spillStore = null;
+            }
+        }
+    }
+
+    /**
+     * @return the number of events currently held back, in memory or spilled, across all groups
+     */
+    public int getReorderDepth()
+    {
+        return reorderDepth.get();
+    }
+
+    /**
+     * @return the highest number of events held back at the same time
+     */
+    public int getMaxReorderDepth()
+    {
+        return maxReorderDepth.get();
+    }
+
+    /**
+     * @return the number of events spilled to the store because a reorder window was full
+     */
+    public long getSpilledEvents()
+    {
+        return spilledEvents.get();
+    }
+
+    /**
+     * @return how long groups waited for missing sequences before releasing held events, in milliseconds
+     */
+    public RollingLatencyHistogram getGapWaitTime()
+    {
+        return gapWaitTime;
+    }
+
+    public int getReorderWindow()
+    {
+        return reorderWindow;
+    }
+
+    /**
+     * @return the number of groups with events pending
+     */
+    public int getGroupCount()
+    {
+        return groups.size();
+    }
+
+    public long getIdleGroupTimeout()
+    {
+        return idleGroupTimeout;
+    }
+
+    /**
+     * @param idleGroupTimeout milliseconds after which a group that holds no events and got none is dropped
+     */
+    public void setIdleGroupTimeout(long idleGroupTimeout)
+    {
+        this.idleGroupTimeout = idleGroupTimeout;
+    }
+
+    private final class ExpiringGroupMonitoringThread extends EventProcessingThread
+    {
+
+        ExpiringGroupMonitoringThread()
+        {
+            super(flowConstruct.getName() + ".resequencer.expiry", gapTimeout > 0
+                                                                  ? Math.max(MIN_EXPIRY_INTERVAL, Math.min(MAX_EXPIRY_INTERVAL, gapTimeout / 2))
+                                                                  : MAX_EXPIRY_INTERVAL);
+        }
+
+        @Override
+        protected void doRun()
+        {
+            expire();
+        }
+    }
+
+    private static class SequenceGroup
+    {
+
+        private final String groupId;
+        private final TreeMap<Integer, MuleEvent> window = new TreeMap<Integer, MuleEvent>();
+        private final TreeSet<Integer> spilled = new TreeSet<Integer>();
+        private int nextSequence = 1;
+        private int size = -1;
+        private long gapStarted = -1;
+        private long lastActivity = System.currentTimeMillis();
+
+        SequenceGroup(String groupId)
+        {
+            this.groupId = groupId;
+        }
+
+        boolean isHeld(int sequence)
+        {
+            return window.containsKey(sequence) || spilled.contains(sequence);
+        }
+
+        int heldCount()
+        {
+            return window.size() + spilled.size();
+        }
+
+        int firstHeldSequence()
+        {
+            if (window.isEmpty())
+            {
+                return spilled.first();
+            }
+            return spilled.isEmpty() ? window.firstKey() : Math.min(window.firstKey(), spilled.first());
+        }
+    }
+}
@@ -0,0 +1,599 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.session;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleSession;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.model.SessionException;
+import org.mule.api.security.SecurityContext;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.util.Base64;
+import org.mule.util.SerializationUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A session handler that stores the session in the "MULE_SESSION" property as a Base64 encoded, compact
+ * binary representation instead of a Java serialized {@link DefaultMuleSession}. Strings, numbers, booleans,
+ * characters, dates and byte arrays are written in a few bytes each; any other {@link Serializable} value
+ * falls back to Java serialization. Headers created by {@link SerializeAndEncodeSessionHandler} are still
+ * read, so the handler can be introduced on one side of a conversation at a time.
+ * <p/>
+ * The representation starts with a marker and a version number so that it can evolve. When the encoded
+ * session is larger than {@link #setCompressionThreshold(int)} bytes it is deflated.
+ * <p/>
+ * When delta encoding is enabled, requests say that the caller can read deltas, and the session sent back
+ * with a synchronous response to such a request only carries the properties that were added, changed or
+ * removed while processing it. The caller applies the delta to the session it sent. The whole session is
+ * sent back when the request did not ask for a delta, or when the session read from the request is not
+ * known.
+ */
+public class CompactSessionHandler extends SerializeAndEncodeSessionHandler
+{
+
+    static final byte MARKER = (byte) 0xC5;
+    static final byte VERSION = 1;
+
+    static final int FLAG_DEFLATED = 1;
+    static final int FLAG_DELTA = 2;
+    static final int FLAG_DELTA_ACCEPTED = 4;
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_STRING = 1;
+    private static final int TYPE_INTEGER = 2;
+    private static final int TYPE_LONG = 3;
+    private static final int TYPE_BOOLEAN = 4;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_FLOAT = 6;
+    private static final int TYPE_SHORT = 7;
+    private static final int TYPE_BYTE = 8;
+    private static final int TYPE_CHARACTER = 9;
+    private static final int TYPE_BYTE_ARRAY = 10;
+    private static final int TYPE_DATE = 11;
+    private static final int TYPE_BIG_DECIMAL = 12;
+    private static final int TYPE_BIG_INTEGER = 13;
+    private static final int TYPE_SERIALIZED = 14;
+
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    /**
+     * Encoded property values of the sessions received with requests that accept a delta, kept until the
+     * response is sent
+     */
+    private final Map<MuleSession, Map<String, byte[]>> receivedSessions = Collections.synchronizedMap(new WeakHashMap<MuleSession, Map<String, byte[]>>());
+
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private boolean deltaEncoding;
+
+    @Override
+    public MuleSession retrieveSessionInfoFromMessage(MuleMessage message) throws MuleException
+    {
+        return retrieveResponseSessionInfoFromMessage(message, null);
+    }
+
+    /**
+     * Reads the session sent back with a response, applying it to the session sent with the request if it
+     * only carries the changes to that session.
+     */
+    @Override
+    public MuleSession retrieveResponseSessionInfoFromMessage(MuleMessage message, MuleSession requestSession) throws MuleException
+    {
+        String encodedSession = message.getInboundProperty(MuleProperties.MULE_SESSION_PROPERTY);
+        if (encodedSession == null)
+        {
+            return null;
+        }
+        byte[] bytes = Base64.decode(encodedSession);
+        if (bytes == null || bytes.length < 3 || bytes[0] != MARKER)
+        {
+            return super.retrieveSessionInfoFromMessage(message);
+        }
+        try
+        {
+            return decode(bytes, requestSession, message.getMuleContext());
+        }
+        catch (IOException e)
+        {
+            throw new SessionException(MessageFactory.createStaticMessage("Unable to read compact MuleSession"), e);
+        }
+    }
+
+    @Override
+    public void storeSessionInfoToMessage(MuleSession session, MuleMessage message) throws MuleException
+    {
+        store(session, null, deltaEncoding, message);
+    }
+
+    /**
+     * Stores the session sent back with the response to a request. When delta encoding is enabled and the
+     * request accepted a delta, only the changes to the session read from it are stored.
+     */
+    @Override
+    public void storeResponseSessionInfoToMessage(MuleSession session, MuleSession requestSession, MuleMessage message) throws MuleException
+    {
+        Map<String, byte[]> baseline = receivedSessions.remove(requestSession);
+        store(session, deltaEncoding ? baseline : null, false, message);
+    }
+
+    private void store(MuleSession session, Map<String, byte[]> baseline, boolean acceptDelta, MuleMessage message) throws MuleException
+    {
+        String encodedSession;
+        try
+        {
+            encodedSession = Base64.encodeBytes(encode(session, baseline, acceptDelta, message.getMuleContext()), Base64.DONT_BREAK_LINES);
+        }
+        catch (IOException e)
+        {
+            throw new SessionException(MessageFactory.createStaticMessage("Unable to serialize MuleSession"), e);
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Adding compact Session header to message: " + encodedSession);
+        }
+        message.setOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY, encodedSession);
+    }
+
+    /**
+     * @param baseline the encoded property values the delta is computed against, null to encode the whole
+     *            session
+     * @param acceptDelta whether the session is sent with a request for which a delta can be sent back
+     */
+    byte[] encode(MuleSession session, Map<String, byte[]> baseline, boolean acceptDelta, MuleContext muleContext) throws IOException
+    {
+        DefaultMuleSession serializableSession = (DefaultMuleSession) removeNonSerializableProperties(session, muleContext);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(body);
+        writeString(out, session.getId());
+        out.writeBoolean(session.isValid());
+        SecurityContext securityContext = session.getSecurityContext();
+        if (securityContext instanceof Serializable)
+        {
+            out.writeBoolean(true);
+            writeBytes(out, SerializationUtils.serialize((Serializable) securityContext));
+        }
+        else
+        {
+            out.writeBoolean(false);
+        }
+
+        Map<String, Object> properties = serializableSession.getProperties();
+        List<String> names = new ArrayList<String>(properties.keySet());
+        List<byte[]> values = new ArrayList<byte[]>(names.size());
+        for (int i = 0; i < names.size(); i++)
+        {
+            byte[] value = encodeValue(properties.get(names.get(i)));
+            if (baseline != null && Arrays.equals(value, baseline.get(names.get(i))))
+            {
+                names.remove(i);
+                i--;
+            }
+            else
+            {
+                values.add(value);
+            }
+        }
+        writeVarInt(out, names.size());
+        for (int i = 0; i < names.size(); i++)
+        {
+            writeString(out, names.get(i));
+            out.write(values.get(i));
+        }
+        if (baseline != null)
+        {
+            List<String> removed = new ArrayList<String>();
+            for (String name : baseline.keySet())
+            {
+                if (!properties.containsKey(name))
+                {
+                    removed.add(name);
+                }
+            }
+            writeVarInt(out, removed.size());
+            for (String name : removed)
+            {
+                writeString(out, name);
+            }
+        }
+        out.flush();
+
+        int flags = baseline != null ? FLAG_DELTA : 0;
+        if (acceptDelta)
+        {
+            flags |= FLAG_DELTA_ACCEPTED;
+        }
+        byte[] content = body.toByteArray();
+        if (compressionThreshold >= 0 && content.length > compressionThreshold)
+        {
+            byte[] deflated = deflate(content);
+            if (deflated.length < content.length)
+            {
+                content = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+
+        byte[] result = new byte[content.length + 3];
+        result[0] = MARKER;
+        result[1] = VERSION;
+        result[2] = (byte) flags;
+        System.arraycopy(content, 0, result, 3, content.length);
+        return result;
+    }
+
+    /**
+     * @param requestSession the session sent with the request if the bytes come with its response, null
+     *            otherwise
+     */
+    MuleSession decode(byte[] bytes, MuleSession requestSession, MuleContext muleContext) throws IOException, MuleException
+    {
+        if (bytes[1] != VERSION)
+        {
+            throw new SessionException(MessageFactory.createStaticMessage("Unsupported compact MuleSession version " + bytes[1]));
+        }
+        int flags = bytes[2];
+        byte[] content = Arrays.copyOfRange(bytes, 3, bytes.length);
+        if ((flags & FLAG_DEFLATED) != 0)
+        {
+            content = inflate(content);
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(content));
+        String id = readString(in);
+        DefaultMuleSession session;
+        if ((flags & FLAG_DELTA) != 0)
+        {
+            // deltas are only sent back to requests that accept them, so the request session is known
+            if (requestSession == null || !id.equals(requestSession.getId()))
+            {
+                throw new SessionException(MessageFactory.createStaticMessage("Received changes to MuleSession " + id
+                                                                              + " without the session they apply to"));
+            }
+            session = new DefaultMuleSession(id);
+            for (String name : requestSession.getPropertyNamesAsSet())
+            {
+                session.getProperties().put(name, requestSession.getProperty(name));
+            }
+        }
+        else
+        {
+            session = new DefaultMuleSession(id);
+        }
+        session.setValid(in.readBoolean());
+        if (in.readBoolean())
+        {
+            session.setSecurityContext((SecurityContext) SerializationUtils.deserialize(readBytes(in), muleContext));
+        }
+
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++)
+        {
+            String name = readString(in);
+            session.getProperties().put(name, readValue(in, muleContext));
+        }
+        if ((flags & FLAG_DELTA) != 0)
+        {
+            int removed = readVarInt(in);
+            for (int i = 0; i < removed; i++)
+            {
+                session.getProperties().remove(readString(in));
+            }
+        }
+        else if (deltaEncoding && (flags & FLAG_DELTA_ACCEPTED) != 0)
+        {
+            rememberReceivedSession(session);
+        }
+        return session;
+    }
+
+    private void rememberReceivedSession(DefaultMuleSession session) throws IOException
+    {
+        Map<String, byte[]> baseline = new TreeMap<String, byte[]>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, Object> property : session.getProperties().entrySet())
+        {
+            baseline.put(property.getKey(), encodeValue(property.getValue()));
+        }
+        receivedSessions.put(session, baseline);
+    }
+
+    private byte[] encodeValue(Object value) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (value == null)
+        {
+            out.writeByte(TYPE_NULL);
+        }
+        else if (value instanceof String)
+        {
+            out.writeByte(TYPE_STRING);
+            writeString(out, (String) value);
+        }
+        else if (value instanceof Integer)
+        {
+            out.writeByte(TYPE_INTEGER);
+            writeVarLong(out, (Integer) value);
+        }
+        else if (value instanceof Long)
+        {
+            out.writeByte(TYPE_LONG);
+            writeVarLong(out, (Long) value);
+        }
+        else if (value instanceof Boolean)
+        {
+            out.writeByte(TYPE_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        }
+        else if (value instanceof Double)
+        {
+            out.writeByte(TYPE_DOUBLE);
+            out.writeDouble((Double) value);
+        }
+        else if (value instanceof Float)
+        {
+            out.writeByte(TYPE_FLOAT);
+            out.writeFloat((Float) value);
+        }
+        else if (value instanceof Short)
+        {
+            out.writeByte(TYPE_SHORT);
+            out.writeShort((Short) value);
+        }
+        else if (value instanceof Byte)
+        {
+            out.writeByte(TYPE_BYTE);
+            out.writeByte((Byte) value);
+        }
+        else if (value instanceof Character)
+        {
+            out.writeByte(TYPE_CHARACTER);
+            out.writeChar((Character) value);
+        }
+        else if (value instanceof byte[])
+        {
+            out.writeByte(TYPE_BYTE_ARRAY);
+            writeBytes(out, (byte[]) value);
+        }
+        else if (value.getClass() == Date.class)
+        {
+            out.writeByte(TYPE_DATE);
+            writeVarLong(out, ((Date) value).getTime());
+        }
+        else if (value.getClass() == BigDecimal.class)
+        {
+            out.writeByte(TYPE_BIG_DECIMAL);
+            writeString(out, value.toString());
+        }
+        else if (value.getClass() == BigInteger.class)
+        {
+            out.writeByte(TYPE_BIG_INTEGER);
+            writeBytes(out, ((BigInteger) value).toByteArray());
+        }
+        else
+        {
+            out.writeByte(TYPE_SERIALIZED);
+            writeBytes(out, SerializationUtils.serialize((Serializable) value));
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private Object readValue(DataInputStream in, MuleContext muleContext) throws IOException, MuleException
+    {
+        int type = in.readByte();
+        switch (type)
+        {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return readString(in);
+            case TYPE_INTEGER:
+                return (int) readVarLong(in);
+            case TYPE_LONG:
+                return readVarLong(in);
+            case TYPE_BOOLEAN:
+                return in.readBoolean();
+            case TYPE_DOUBLE:
+                return in.readDouble();
+            case TYPE_FLOAT:
+                return in.readFloat();
+            case TYPE_SHORT:
+                return in.readShort();
+            case TYPE_BYTE:
+                return in.readByte();
+            case TYPE_CHARACTER:
+                return in.readChar();
+            case TYPE_BYTE_ARRAY:
+                return readBytes(in);
+            case TYPE_DATE:
+                return new Date(readVarLong(in));
+            case TYPE_BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case TYPE_BIG_INTEGER:
+                return new BigInteger(readBytes(in));
+            case TYPE_SERIALIZED:
+                return SerializationUtils.deserialize(readBytes(in), muleContext);
+            default:
+                throw new SessionException(MessageFactory.createStaticMessage("Unknown compact MuleSession value type " + type));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        writeBytes(out, value.getBytes("UTF-8"));
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        return new String(readBytes(in), "UTF-8");
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException
+    {
+        writeVarInt(out, value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException
+    {
+        byte[] value = new byte[readVarInt(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed compact MuleSession length");
+    }
+
+    /**
+     * Writes a signed value zig-zag encoded so that small negative numbers take few bytes too
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException
+    {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0)
+        {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException
+    {
+        long zigZag = 0;
+        for (int shift = 0; shift < 64; shift += 7)
+        {
+            int b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed compact MuleSession number");
+    }
+
+    private static byte[] deflate(byte[] content)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try
+        {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished())
+            {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] content) throws IOException
+    {
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput(content);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(content.length * 4);
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished())
+            {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new IOException("Truncated compact MuleSession");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        }
+        catch (DataFormatException e)
+        {
+            IOException ioException = new IOException("Malformed compact MuleSession");
+            ioException.initCause(e);
+            throw ioException;
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    public int getCompressionThreshold()
+    {
+        return compressionThreshold;
+    }
+
+    /**
+     * @param compressionThreshold size in bytes above which the encoded session is deflated, or -1 to never
+     *            deflate it
+     */
+    public void setCompressionThreshold(int compressionThreshold)
+    {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public boolean isDeltaEncoding()
+    {
+        return deltaEncoding;
+    }
+
+    public void setDeltaEncoding(boolean deltaEncoding)
+    {
+        this.deltaEncoding = deltaEncoding;
+    }
+}
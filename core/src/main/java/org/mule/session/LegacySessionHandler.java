@@ -120,6 +120,18 @@ public class LegacySessionHandler implements SessionHandler
         sessionString = (String) encoder.transform(sessionString);
         message.setOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY, sessionString);
     }
+
+    public void storeResponseSessionInfoToMessage(MuleSession session, MuleSession requestSession, MuleMessage message)
+        throws MuleException
+    {
+        storeSessionInfoToMessage(session, message);
+    }
+
+    public MuleSession retrieveResponseSessionInfoFromMessage(MuleMessage message, MuleSession requestSession)
+        throws MuleException
+    {
+        return retrieveSessionInfoFromMessage(message);
+    }
     
     /**
      * @deprecated This method is no longer needed and will be removed in the next major release
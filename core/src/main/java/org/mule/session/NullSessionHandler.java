@@ -35,6 +35,18 @@ public class NullSessionHandler implements SessionHandler
         // noop
     }
 
+    public void storeResponseSessionInfoToMessage(MuleSession session, MuleSession requestSession, MuleMessage message)
+        throws MuleException
+    {
+        storeSessionInfoToMessage(session, message);
+    }
+
+    public MuleSession retrieveResponseSessionInfoFromMessage(MuleMessage message, MuleSession requestSession)
+        throws MuleException
+    {
+        return retrieveSessionInfoFromMessage(message);
+    }
+
     /**
      * The property name of the session id to use when creating the Mule session. by
      * default the property name "ID" will be used. If no property was set on the
@@ -57,6 +57,18 @@ public class SerializeOnlySessionHandler implements SessionHandler
         }
         message.setOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY, serializedSession);
     }
+
+    public void storeResponseSessionInfoToMessage(MuleSession session, MuleSession requestSession, MuleMessage message)
+        throws MuleException
+    {
+        storeSessionInfoToMessage(session, message);
+    }
+
+    public MuleSession retrieveResponseSessionInfoFromMessage(MuleMessage message, MuleSession requestSession)
+        throws MuleException
+    {
+        return retrieveSessionInfoFromMessage(message);
+    }
     
     protected MuleSession removeNonSerializableProperties(final MuleSession session,
                                                           final MuleContext muleContext)
@@ -42,6 +42,18 @@ public class SimpleSessionHandler implements SessionHandler
     {
         message.setOutboundProperty(MuleProperties.MULE_SESSION_PROPERTY, session);
     }
+
+    public void storeResponseSessionInfoToMessage(MuleSession session, MuleSession requestSession, MuleMessage message)
+        throws MuleException
+    {
+        storeSessionInfoToMessage(session, message);
+    }
+
+    public MuleSession retrieveResponseSessionInfoFromMessage(MuleMessage message, MuleSession requestSession)
+        throws MuleException
+    {
+        return retrieveSessionInfoFromMessage(message);
+    }
     
     /**
      * @deprecated This method is no longer needed and will be removed in the next major release
@@ -6,18 +6,26 @@
  */
 package org.mule.transformer.codec;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.Base64;
 import org.mule.util.IOUtils;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * <code>Base64Encoder</code> transforms Base64 encoded data into strings or byte
- * arrays.
+ * arrays. When the return class is {@link OutputHandler} the payload is decoded as it
+ * is written to the transport instead of being held in memory.
  */
 public class Base64Decoder extends AbstractTransformer
 {
@@ -34,31 +42,38 @@ public class Base64Decoder extends AbstractTransformer
     {
         try
         {
-            String data;
+            if (OutputHandler.class.isAssignableFrom(getReturnClass()))
+            {
+                return createOutputHandler(toInputStream(src, outputEncoding));
+            }
+
+            byte[] result;
 
             if (src instanceof byte[])
             {
-                data = new String((byte[]) src, outputEncoding);
+                byte[] data = (byte[]) src;
+                result = Base64.gunzipIfCompressed(Base64.decode(data, 0, data.length));
             }
             else if (src instanceof InputStream)
             {
+                // Decode as the stream is read instead of buffering the whole payload as a String first
                 InputStream input = (InputStream) src;
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
                 try
                 {
-                    data = IOUtils.toString(input);
+                    Base64.decode(input, output);
                 }
                 finally
                 {
                     input.close();
                 }
+                result = Base64.gunzipIfCompressed(output.toByteArray());
             }
             else
             {
-                data = (String) src;
+                result = Base64.decode((String) src);
             }
 
-            byte[] result = Base64.decode(data);
-
             if (DataTypeFactory.STRING.equals(getReturnDataType()))
             {
                 return new String(result, outputEncoding);
@@ -75,4 +90,42 @@ public class Base64Decoder extends AbstractTransformer
         }
     }
 
+    protected InputStream toInputStream(Object src, String encoding) throws IOException
+    {
+        if (src instanceof InputStream)
+        {
+            return (InputStream) src;
+        }
+        else if (src instanceof String)
+        {
+            return new ByteArrayInputStream(((String) src).getBytes(Base64.PREFERRED_ENCODING));
+        }
+        else
+        {
+            return new ByteArrayInputStream((byte[]) src);
+        }
+    }
+
+    /**
+     * Defers decoding until the transport provides its output stream, decompressing gzip-compressed
+     * content as {@link Base64#decode(String)} does.
+     */
+    protected OutputHandler createOutputHandler(final InputStream input)
+    {
+        return new OutputHandler()
+        {
+            public void write(MuleEvent event, OutputStream out) throws IOException
+            {
+                try
+                {
+                    IOUtils.copy(Base64.gunzipIfCompressed(new Base64.InputStream(new BufferedInputStream(input),
+                        Base64.DECODE)), out);
+                }
+                finally
+                {
+                    input.close();
+                }
+            }
+        };
+    }
 }
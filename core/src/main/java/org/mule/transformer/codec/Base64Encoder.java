@@ -6,18 +6,24 @@
  */
 package org.mule.transformer.codec;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.Base64;
-import org.mule.util.IOUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
  * <code>Base64Encoder</code> transforms strings or byte arrays into Base64 encoded
- * string.
+ * string. When the return class is {@link OutputHandler} the payload is encoded as it
+ * is written to the transport instead of being held in memory.
  */
 public class Base64Encoder extends AbstractTransformer
 {
@@ -35,31 +41,37 @@ public class Base64Encoder extends AbstractTransformer
     {
         try
         {
-            byte[] buf;
+            if (OutputHandler.class.isAssignableFrom(getReturnClass()))
+            {
+                return createOutputHandler(toInputStream(src, encoding));
+            }
+
+            String result;
 
             if (src instanceof String)
             {
-                buf = ((String) src).getBytes(encoding);
+                result = Base64.encodeBytes(((String) src).getBytes(encoding), Base64.DONT_BREAK_LINES);
             }
             else if (src instanceof InputStream)
             {
+                // Encode as the stream is read instead of buffering the whole payload first
                 InputStream input = (InputStream) src;
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
                 try
                 {
-                    buf = IOUtils.toByteArray(input);
+                    Base64.encode(input, output);
                 }
                 finally
                 {
                     input.close();
                 }
+                result = output.toString(Base64.PREFERRED_ENCODING);
             }
             else
             {
-                buf = (byte[]) src;
+                result = Base64.encodeBytes((byte[]) src, Base64.DONT_BREAK_LINES);
             }
 
-            String result = Base64.encodeBytes(buf, Base64.DONT_BREAK_LINES);
-
             if (getReturnClass().equals(byte[].class))
             {
                 return result.getBytes(encoding);
@@ -76,4 +88,40 @@ public class Base64Encoder extends AbstractTransformer
         }
     }
 
+    protected InputStream toInputStream(Object src, String encoding) throws IOException
+    {
+        if (src instanceof InputStream)
+        {
+            return (InputStream) src;
+        }
+        else if (src instanceof String)
+        {
+            return new ByteArrayInputStream(((String) src).getBytes(encoding));
+        }
+        else
+        {
+            return new ByteArrayInputStream((byte[]) src);
+        }
+    }
+
+    /**
+     * Defers encoding until the transport provides its output stream.
+     */
+    protected OutputHandler createOutputHandler(final InputStream input)
+    {
+        return new OutputHandler()
+        {
+            public void write(MuleEvent event, OutputStream out) throws IOException
+            {
+                try
+                {
+                    Base64.encode(input, out);
+                }
+                finally
+                {
+                    input.close();
+                }
+            }
+        };
+    }
 }
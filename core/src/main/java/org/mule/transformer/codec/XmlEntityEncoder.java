@@ -6,18 +6,29 @@
  */
 package org.mule.transformer.codec;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.XMLEntityCodec;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-
-import org.apache.commons.io.IOUtils;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 
 /**
- * Encodes a string with XML entities
+ * Encodes a string with XML entities. When the return class is
+ * {@link OutputHandler} the payload is converted as it is written to the transport
+ * instead of being held in memory.
  */
 public class XmlEntityEncoder extends AbstractTransformer
 {
@@ -35,15 +46,31 @@ public class XmlEntityEncoder extends AbstractTransformer
     {
         try
         {
-            String data;
+            if (OutputHandler.class.isAssignableFrom(getReturnClass()))
+            {
+                return createOutputHandler(toReader(src, encoding), encoding);
+            }
 
-            if (src instanceof byte[])
+            if (src instanceof InputStream)
             {
-                data = new String((byte[]) src, encoding);
+                // Convert as the stream is read instead of buffering the whole payload first
+                Reader reader = toReader(src, encoding);
+                try
+                {
+                    StringWriter writer = new StringWriter();
+                    XMLEntityCodec.encode(reader, writer);
+                    return writer.toString();
+                }
+                finally
+                {
+                    reader.close();
+                }
             }
-            else if (src instanceof InputStream)
+
+            String data;
+            if (src instanceof byte[])
             {
-                data = IOUtils.toString((InputStream)src);
+                data = new String((byte[]) src, encoding);
             }
             else
             {
@@ -60,4 +87,42 @@ public class XmlEntityEncoder extends AbstractTransformer
         }
     }
 
+    protected Reader toReader(Object src, String encoding) throws IOException
+    {
+        if (src instanceof InputStream)
+        {
+            return new InputStreamReader((InputStream) src, encoding);
+        }
+        else if (src instanceof byte[])
+        {
+            return new InputStreamReader(new ByteArrayInputStream((byte[]) src), encoding);
+        }
+        else
+        {
+            return new StringReader((String) src);
+        }
+    }
+
+    /**
+     * Defers the conversion until the transport provides its output stream.
+     */
+    protected OutputHandler createOutputHandler(final Reader reader, final String encoding)
+    {
+        return new OutputHandler()
+        {
+            public void write(MuleEvent event, OutputStream out) throws IOException
+            {
+                try
+                {
+                    Writer writer = new OutputStreamWriter(out, encoding);
+                    XMLEntityCodec.encode(reader, writer);
+                    writer.flush();
+                }
+                finally
+                {
+                    reader.close();
+                }
+            }
+        };
+    }
 }
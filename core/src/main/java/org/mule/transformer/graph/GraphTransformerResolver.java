@@ -14,107 +14,50 @@ import org.mule.api.transformer.Transformer;
 import org.mule.config.i18n.CoreMessages;
 
 import java.util.List;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
-import org.apache.commons.collections.map.LRUMap;
 
+/**
+ * Resolves {@link Converter} chains out of the shortest conversion paths between the registered converters,
+ * kept in a {@link TransformationRouteTable}.
+ */
 public class GraphTransformerResolver implements TransformerResolver
 {
 
-    private ReentrantReadWriteLock readWriteLock;
-    private TransformationGraph graph;
-    private CompositeConverterFilter converterFilter;
-    private LRUMap cache;
-    private TransformationGraphLookupStrategy lookupStrategyTransformation;
+    private TransformationRouteTable routeTable;
 
     public GraphTransformerResolver()
     {
-        this.readWriteLock = new ReentrantReadWriteLock();
-        this.graph = new TransformationGraph();
-        lookupStrategyTransformation = new TransformationGraphLookupStrategy(graph);
-        converterFilter = new CompositeConverterFilter(new TransformationLengthConverterFilter(), new PriorityWeightingConverterFilter(), new NameConverterFilter());
-        cache = new LRUMap();
+        CompositeConverterFilter converterFilter = new CompositeConverterFilter(new TransformationLengthConverterFilter(), new PriorityWeightingConverterFilter(), new NameConverterFilter());
+        routeTable = new TransformationRouteTable(new TransformationGraph(), converterFilter);
     }
 
     @Override
     public Transformer resolve(DataType<?> source, DataType<?> result) throws ResolverException
     {
-        String cacheKey = getDataTypeSourceResultPairHash(source, result);
-
-        readWriteLock.readLock().lock();
-        try
-        {
-            if (cache.containsKey(cacheKey))
-            {
-                return (Converter) cache.get(cacheKey);
-            }
-        }
-        finally
-        {
-            readWriteLock.readLock().unlock();
-        }
-
-        List<Converter> converters = converterFilter.filter(lookupStrategyTransformation.lookupConverters(source, result), source, result);
+        List<Converter> converters = routeTable.lookupConverters(source, result);
 
         if (converters.size() > 1)
         {
             throw new ResolverException(CoreMessages.transformHasMultipleMatches(source.getType(), result.getType(), converters.get(0), converters.get(1)));
         }
 
-        Transformer converter = (converters.size() == 0) ? null : converters.get(0);
-
-
-        readWriteLock.writeLock().lock();
-        try
-        {
-            cache.put(cacheKey, converter);
-        }
-        finally
-        {
-            readWriteLock.writeLock().unlock();
-        }
-
-        return converter;
-    }
-
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        StringBuilder builder = new StringBuilder();
-        builder.append(source.getClass().getName());
-        builder.append(source.hashCode());
-        builder.append(":");
-        builder.append(result.getClass().getName());
-        builder.append(result.hashCode());
-
-        return builder.toString();
+        return (converters.size() == 0) ? null : converters.get(0);
     }
 
     @Override
     public void transformerChange(Transformer transformer, RegistryAction registryAction)
     {
-        readWriteLock.writeLock().lock();
-
-        try
+        if (!(transformer instanceof Converter))
         {
-            if (!(transformer instanceof Converter))
-            {
-                return;
-            }
-
-            cache.clear();
+            return;
+        }
 
-            if (registryAction == RegistryAction.ADDED)
-            {
-                graph.addConverter((Converter) transformer);
-            }
-            else if (registryAction == RegistryAction.REMOVED)
-            {
-                graph.removeConverter((Converter) transformer);
-            }
+        if (registryAction == RegistryAction.ADDED)
+        {
+            routeTable.addConverter((Converter) transformer);
         }
-        finally
+        else if (registryAction == RegistryAction.REMOVED)
         {
-            readWriteLock.writeLock().unlock();
+            routeTable.removeConverter((Converter) transformer);
         }
     }
 }
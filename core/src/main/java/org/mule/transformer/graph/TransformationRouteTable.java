@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transformer.graph;
+
+import org.mule.api.transformer.Converter;
+import org.mule.api.transformer.DataType;
+import org.mule.transformer.CompositeConverter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps the shortest conversion paths between the data types of a {@link TransformationGraph}.
+ * <p/>
+ * The paths from a source data type to every data type reachable from it are found with a single breadth
+ * first search the first time a conversion from that source is looked up, and kept until a converter that
+ * can change them is added or removed. Only the routes of the data types that can reach the source data
+ * types of that converter are dropped, the rest of the table is kept. Lookups of routes that are already
+ * known do not take any lock.
+ */
+public class TransformationRouteTable
+{
+
+    private final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final TransformationGraph graph;
+    private final ConverterFilter converterFilter;
+    private final ConcurrentMap<DataType<?>, Routes> routes = new ConcurrentHashMap<DataType<?>, Routes>();
+    private volatile Set<DataType<?>> dataTypes = Collections.emptySet();
+
+    public TransformationRouteTable(TransformationGraph graph, ConverterFilter converterFilter)
+    {
+        this.graph = graph;
+        this.converterFilter = converterFilter;
+    }
+
+    public void addConverter(Converter converter)
+    {
+        readWriteLock.writeLock().lock();
+        try
+        {
+            graph.addConverter(converter);
+            invalidateRoutesReaching(converter.getSourceDataTypes());
+            dataTypes = new HashSet<DataType<?>>(graph.vertexSet());
+        }
+        finally
+        {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    public void removeConverter(Converter converter)
+    {
+        readWriteLock.writeLock().lock();
+        try
+        {
+            // the routes going through the converter must be found before its data types leave the graph
+            invalidateRoutesReaching(converter.getSourceDataTypes());
+            graph.removeConverter(converter);
+            dataTypes = new HashSet<DataType<?>>(graph.vertexSet());
+        }
+        finally
+        {
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Looks for the {@link Converter} to convert from the source to the target data types, out of the
+     * shortest conversion paths between them.
+     *
+     * @param source data type to be converted
+     * @param target data type to be converted to
+     * @return the converters selected by the converter filter, an empty list if there are none
+     */
+    public List<Converter> lookupConverters(DataType<?> source, DataType<?> target)
+    {
+        Set<DataType<?>> currentDataTypes = dataTypes;
+        if (!currentDataTypes.contains(source) || !currentDataTypes.contains(target))
+        {
+            return Collections.emptyList();
+        }
+
+        Routes sourceRoutes = routes.get(source);
+        if (sourceRoutes == null)
+        {
+            sourceRoutes = findRoutes(source);
+            if (sourceRoutes == null)
+            {
+                return Collections.emptyList();
+            }
+        }
+        return sourceRoutes.getConverters(source, target, converterFilter);
+    }
+
+    private Routes findRoutes(DataType<?> source)
+    {
+        readWriteLock.readLock().lock();
+        try
+        {
+            if (!graph.containsVertex(source))
+            {
+                return null;
+            }
+            Routes sourceRoutes = routes.get(source);
+            if (sourceRoutes == null)
+            {
+                sourceRoutes = new Routes(findShortestPaths(source));
+                Routes concurrentlyFoundRoutes = routes.putIfAbsent(source, sourceRoutes);
+                if (concurrentlyFoundRoutes != null)
+                {
+                    sourceRoutes = concurrentlyFoundRoutes;
+                }
+            }
+            return sourceRoutes;
+        }
+        finally
+        {
+            readWriteLock.readLock().unlock();
+        }
+    }
+
+    private Map<DataType<?>, List<Converter[]>> findShortestPaths(DataType<?> source)
+    {
+        Map<DataType<?>, List<Converter[]>> shortestPaths = new HashMap<DataType<?>, List<Converter[]>>();
+        Set<DataType<?>> expanded = new HashSet<DataType<?>>();
+
+        Map<DataType<?>, List<Converter[]>> level = new HashMap<DataType<?>, List<Converter[]>>();
+        level.put(source, Collections.singletonList(new Converter[0]));
+        while (!level.isEmpty())
+        {
+            Map<DataType<?>, List<Converter[]>> nextLevel = new HashMap<DataType<?>, List<Converter[]>>();
+            for (Map.Entry<DataType<?>, List<Converter[]>> entry : level.entrySet())
+            {
+                // the source is only expanded once, even if it is reached again through a cycle
+                if (!expanded.add(entry.getKey()))
+                {
+                    continue;
+                }
+                for (TransformationEdge edge : graph.outgoingEdgesOf(entry.getKey()))
+                {
+                    DataType<?> edgeTarget = graph.getEdgeTarget(edge);
+                    if (shortestPaths.containsKey(edgeTarget))
+                    {
+                        continue;
+                    }
+                    List<Converter[]> targetPaths = nextLevel.get(edgeTarget);
+                    if (targetPaths == null)
+                    {
+                        targetPaths = new ArrayList<Converter[]>(1);
+                        nextLevel.put(edgeTarget, targetPaths);
+                    }
+                    for (Converter[] path : entry.getValue())
+                    {
+                        Converter[] targetPath = new Converter[path.length + 1];
+                        System.arraycopy(path, 0, targetPath, 0, path.length);
+                        targetPath[path.length] = edge.getConverter();
+                        targetPaths.add(targetPath);
+                    }
+                }
+            }
+            shortestPaths.putAll(nextLevel);
+            level = nextLevel;
+        }
+        return shortestPaths;
+    }
+
+    private void invalidateRoutesReaching(List<DataType<?>> targets)
+    {
+        Set<DataType<?>> visited = new HashSet<DataType<?>>();
+        LinkedList<DataType<?>> pending = new LinkedList<DataType<?>>();
+        for (DataType<?> target : targets)
+        {
+            if (graph.containsVertex(target) && visited.add(target))
+            {
+                pending.add(target);
+            }
+        }
+
+        while (!pending.isEmpty())
+        {
+            DataType<?> dataType = pending.removeFirst();
+            routes.remove(dataType);
+            for (TransformationEdge edge : graph.incomingEdgesOf(dataType))
+            {
+                DataType<?> edgeSource = graph.getEdgeSource(edge);
+                if (visited.add(edgeSource))
+                {
+                    pending.add(edgeSource);
+                }
+            }
+        }
+    }
+
+    /**
+     * The shortest conversion paths from a source data type, and the converters already selected out of
+     * them for each target data type
+     */
+    private static class Routes
+    {
+
+        private final Map<DataType<?>, List<Converter[]>> shortestPaths;
+        private final ConcurrentMap<DataType<?>, List<Converter>> converters = new ConcurrentHashMap<DataType<?>, List<Converter>>();
+
+        Routes(Map<DataType<?>, List<Converter[]>> shortestPaths)
+        {
+            this.shortestPaths = shortestPaths;
+        }
+
+        List<Converter> getConverters(DataType<?> source, DataType<?> target, ConverterFilter converterFilter)
+        {
+            List<Converter> targetConverters = converters.get(target);
+            if (targetConverters == null)
+            {
+                List<Converter> filtered = converterFilter.filter(createConverters(target), source, target);
+                targetConverters = Collections.unmodifiableList(new ArrayList<Converter>(filtered));
+                List<Converter> concurrentlyAddedConverters = converters.putIfAbsent(target, targetConverters);
+                if (concurrentlyAddedConverters != null)
+                {
+                    targetConverters = concurrentlyAddedConverters;
+                }
+            }
+            return targetConverters;
+        }
+
+        private List<Converter> createConverters(DataType<?> target)
+        {
+            // Any data type equal to the target will do, as when walking the graph
+            int shortestLength = Integer.MAX_VALUE;
+            List<Converter[]> candidatePaths = new ArrayList<Converter[]>();
+            for (Map.Entry<DataType<?>, List<Converter[]>> entry : shortestPaths.entrySet())
+            {
+                if (!entry.getKey().equals(target))
+                {
+                    continue;
+                }
+                int length = entry.getValue().get(0).length;
+                if (length < shortestLength)
+                {
+                    shortestLength = length;
+                    candidatePaths.clear();
+                }
+                if (length == shortestLength)
+                {
+                    candidatePaths.addAll(entry.getValue());
+                }
+            }
+
+            List<Converter> candidates = new LinkedList<Converter>();
+            for (Converter[] path : candidatePaths)
+            {
+                candidates.add(path.length == 1 ? path[0] : new CompositeConverter(path));
+            }
+            return candidates;
+        }
+    }
+}
@@ -78,8 +78,8 @@ public abstract class AbstractMessageDispatcher extends AbstractTransportMessage
                 if (resultMessage != null)
                 {
                     resultMessage.setMessageRootId(event.getMessage().getMessageRootId());
-                    MuleSession storedSession = connector.getSessionHandler().retrieveSessionInfoFromMessage(
-                        resultMessage);
+                    MuleSession storedSession = connector.getSessionHandler().retrieveResponseSessionInfoFromMessage(
+                        resultMessage, event.getSession());
                     event.getSession().merge(storedSession);
                     MuleEvent resultEvent = new DefaultMuleEvent(resultMessage, event);
                     RequestContext.setEvent(resultEvent);
@@ -24,6 +24,7 @@ import org.mule.api.execution.ExecutionTemplate;
 import org.mule.api.lifecycle.CreateException;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.lifecycle.Startable;
+import org.mule.api.processor.DemandSignal;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.routing.filter.FilterUnacceptedException;
 import org.mule.api.transaction.Transaction;
@@ -38,6 +39,8 @@ import org.mule.execution.MessageProcessTemplate;
 import org.mule.execution.MessageProcessingManager;
 import org.mule.execution.TransactionalErrorHandlingExecutionTemplate;
 import org.mule.lifecycle.PrimaryNodeLifecycleNotificationListener;
+import org.mule.management.stats.FlowConstructStatistics;
+import org.mule.management.stats.RollingLatencyHistogram;
 import org.mule.session.DefaultMuleSession;
 import org.mule.session.LegacySessionHandler;
 import org.mule.transaction.TransactionCoordination;
@@ -56,6 +59,11 @@ import org.apache.commons.lang.SerializationException;
  */
 public abstract class AbstractMessageReceiver extends AbstractTransportMessageHandler implements MessageReceiver
 {
+    /**
+     * Longest pause, in milliseconds, between checks of the flow demand while waiting for it to catch up
+     */
+    private static final long MAX_DEMAND_PAUSE = 50;
+
     /**
      * The Service with which this receiver is associated with
      */
@@ -91,6 +99,8 @@ public abstract class AbstractMessageReceiver extends AbstractTransportMessageHa
 
     private WorkManager messageReceiverWorkManager;
 
+    private volatile RollingLatencyHistogram inboundEndpointLatency;
+
     /**
      * Creates the Message Receiver
      *
@@ -180,6 +190,34 @@ public abstract class AbstractMessageReceiver extends AbstractTransportMessageHa
         return flowConstruct;
     }
 
+    /**
+     * @return the number of events the flow can take right away, or {@link DemandSignal#UNBOUNDED} if the
+     *         flow does not signal its demand
+     */
+    protected int getDemand()
+    {
+        if (flowConstruct instanceof DemandSignal)
+        {
+            return ((DemandSignal) flowConstruct).getDemand();
+        }
+        return DemandSignal.UNBOUNDED;
+    }
+
+    /**
+     * Waits while the flow cannot take any more events, so that receivers reading events as they arrive stop
+     * consuming from the transport until the flow catches up. Returns straight away if the receiver is not
+     * started.
+     */
+    protected void awaitDemand() throws InterruptedException
+    {
+        long pause = 1;
+        while (getDemand() <= 0 && isStarted())
+        {
+            Thread.sleep(pause);
+            pause = Math.min(pause * 2, MAX_DEMAND_PAUSE);
+        }
+    }
+
     @Override
     public final MuleEvent routeMessage(MuleMessage message) throws MuleException
     {
@@ -507,6 +545,43 @@ public abstract class AbstractMessageReceiver extends AbstractTransportMessageHa
     }
 
     public MuleEvent routeEvent(MuleEvent muleEvent) throws MuleException
+    {
+        RollingLatencyHistogram latency = getInboundEndpointLatency();
+        long startTime = latency != null ? System.currentTimeMillis() : 0;
+        try
+        {
+            return doRouteEvent(muleEvent);
+        }
+        finally
+        {
+            if (latency != null)
+            {
+                latency.recordValue(System.currentTimeMillis() - startTime);
+            }
+        }
+    }
+
+    /**
+     * @return the latency histogram of this receiver's endpoint if the flow construct statistics are enabled,
+     *         or null otherwise
+     */
+    protected RollingLatencyHistogram getInboundEndpointLatency()
+    {
+        FlowConstructStatistics statistics = flowConstruct != null ? flowConstruct.getStatistics() : null;
+        if (statistics == null || !statistics.isEnabled())
+        {
+            return null;
+        }
+        RollingLatencyHistogram latency = inboundEndpointLatency;
+        if (latency == null)
+        {
+            latency = statistics.getLatencyStatistics().getInboundEndpointLatency(endpoint.getName());
+            inboundEndpointLatency = latency;
+        }
+        return latency;
+    }
+
+    protected MuleEvent doRouteEvent(MuleEvent muleEvent) throws MuleException
     {
         MuleEvent resultEvent = listener.process(muleEvent);
         if (resultEvent != null
@@ -525,7 +600,8 @@ public abstract class AbstractMessageReceiver extends AbstractTransportMessageHa
             // Do not propagate security context back to caller
             MuleSession resultSession = new DefaultMuleSession(resultEvent.getSession());
             resultSession.setSecurityContext(null);
-            connector.getSessionHandler().storeSessionInfoToMessage(resultSession, resultEvent.getMessage());
+            connector.getSessionHandler().storeResponseSessionInfoToMessage(resultSession,
+                resultEvent.getSession(), resultEvent.getMessage());
 
             if (resultEvent.getMessage() != null && !endpoint.isDisableTransportTransformer())
             {
@@ -6,10 +6,14 @@
  */
 package org.mule.transport;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.lifecycle.CreateException;
+import org.mule.api.schedule.Scheduler;
+import org.mule.api.schedule.SchedulerFactory;
 import org.mule.api.transport.Connector;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.ObjectUtils;
@@ -22,12 +26,21 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <code>AbstractPollingMessageReceiver</code> implements a base class for polling
  * message receivers. The receiver provides a {@link #poll()} method that implementations
  * must implement to execute their custom code. Note that the receiver will not poll if
  * the associated connector is not started.
+ * <p/>
+ * The receiver keeps track of what each poll yields, as reported by the poll itself through
+ * {@link #pollFound(int, boolean)} or {@link #getBatchSize(int)}: whether it found anything to
+ * process, and whether it left messages waiting for the next poll. Polls that report nothing
+ * are taken as having found something, so they are not backed off. Polls are
+ * scheduled at a fixed frequency on the connector's scheduler, unless the endpoint has a
+ * {@link SchedulerFactory} in the {@link #SCHEDULER_FACTORY_PROPERTY_NAME} property, in
+ * which case the scheduler it creates runs the polls and can adapt to their yield.
  */
 public abstract class AbstractPollingMessageReceiver extends AbstractMessageReceiver
 {
@@ -36,9 +49,34 @@ public abstract class AbstractPollingMessageReceiver extends AbstractMessageRece
 
     public static final long DEFAULT_STARTUP_DELAY = 1000;
 
+    /**
+     * The {@link InboundEndpoint} property that contains the {@link SchedulerFactory} of the scheduler running
+     * the polls
+     */
+    public static final String SCHEDULER_FACTORY_PROPERTY_NAME = MuleProperties.ENDPOINT_PROPERTY_PREFIX + "schedulerFactory";
+
     private long frequency = DEFAULT_POLL_FREQUENCY;
     private TimeUnit timeUnit = DEFAULT_POLL_TIMEUNIT;
 
+    private final AtomicLong skippedPolls = new AtomicLong();
+
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong emptyPolls = new AtomicLong();
+    private final AtomicLong fullPolls = new AtomicLong();
+    private final AtomicLong routedEvents = new AtomicLong();
+
+    /**
+     * The poll running on the current thread, for {@link #pollFound(int, boolean)} to record what it found
+     */
+    private final ThreadLocal<Poll> currentPoll = new ThreadLocal<Poll>();
+
+    private volatile PollYield lastPollYield = PollYield.PARTIAL;
+
+    /**
+     * The scheduler created by the endpoint's scheduler factory, if there is one
+     */
+    private Scheduler pollScheduler;
+
     // @GuardedBy(itself)
     protected final Map<ScheduledFuture, PollingReceiverWorker> schedules = new HashMap<ScheduledFuture, PollingReceiverWorker>();
 
@@ -54,7 +92,15 @@ public abstract class AbstractPollingMessageReceiver extends AbstractMessageRece
     {
         try
         {
-            this.schedule();
+            SchedulerFactory<Runnable> schedulerFactory = getSchedulerFactory();
+            if (schedulerFactory != null)
+            {
+                this.startPollScheduler(schedulerFactory);
+            }
+            else
+            {
+                this.schedule();
+            }
         }
         catch (Exception ex)
         {
@@ -105,7 +151,41 @@ public abstract class AbstractPollingMessageReceiver extends AbstractMessageRece
     }
 
     /**
-     * This method cancels the schedules which were created in {@link #schedule()}.
+     * Runs the polls with a scheduler from the endpoint's factory instead of the connector's scheduler. The
+     * scheduler is created and registered the first time, and only started after that.
+     */
+    protected void startPollScheduler(SchedulerFactory<Runnable> schedulerFactory) throws MuleException
+    {
+        synchronized (schedules)
+        {
+            if (pollScheduler == null)
+            {
+                pollScheduler = schedulerFactory.create(getPollSchedulerName(), this.createWork());
+            }
+            pollScheduler.start();
+
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(ObjectUtils.identityToShortString(this) + " started poll scheduler "
+                             + pollScheduler.getName());
+            }
+        }
+    }
+
+    protected String getPollSchedulerName()
+    {
+        return String.format("%s://%s/%s", connector.getProtocol(), flowConstruct.getName(), hashCode());
+    }
+
+    @SuppressWarnings("unchecked")
+    protected SchedulerFactory<Runnable> getSchedulerFactory()
+    {
+        return (SchedulerFactory<Runnable>) endpoint.getProperty(SCHEDULER_FACTORY_PROPERTY_NAME);
+    }
+
+    /**
+     * This method cancels the schedules which were created in {@link #schedule()}, and stops the
+     * scheduler started in {@link #startPollScheduler(SchedulerFactory)}.
      *
      * @see Future#cancel(boolean)
      */
@@ -113,6 +193,19 @@ public abstract class AbstractPollingMessageReceiver extends AbstractMessageRece
     {
         synchronized (schedules)
         {
+            if (pollScheduler != null)
+            {
+                try
+                {
+                    pollScheduler.stop();
+                }
+                catch (MuleException e)
+                {
+                    logger.warn(ObjectUtils.identityToShortString(this) + " could not stop poll scheduler "
+                                + pollScheduler.getName(), e);
+                }
+            }
+
             // cancel our schedules gently: do not interrupt when polling is in progress
             for (Iterator<ScheduledFuture> i = schedules.keySet().iterator(); i.hasNext();)
             {
@@ -197,24 +290,154 @@ public abstract class AbstractPollingMessageReceiver extends AbstractMessageRece
      */
     protected int getBatchSize(int available)
     {
+        // never take more than the flow can queue
+        available = Math.min(available, getDemand());
         if (available <= 0)
         {
+            pollFound(0, false);
             return 0;
         }
 
         int maxThreads = connector.getReceiverThreadingProfile().getMaxThreadsActive();
-        return Math.max(1, Math.min(available, ((maxThreads / 2) - 1)));
+        int batchSize = Math.max(1, Math.min(available, ((maxThreads / 2) - 1)));
+        pollFound(batchSize, batchSize < available);
+        return batchSize;
     }
 
     /**
-     * Check whether polling should take place on this instance.
+     * Reports what the poll running on the calling thread found, so that the scheduler can adapt to it. Polls
+     * that hand what they find over to other threads report it here, since what they route is not known
+     * when the poll returns. May be called several times by the same poll, the counts add up.
+     *
+     * @param found the number of messages or resources the poll is going to process
+     * @param more whether the poll left more waiting for the next poll
+     */
+    protected void pollFound(int found, boolean more)
+    {
+        Poll poll = currentPoll.get();
+        if (poll != null)
+        {
+            poll.reported = true;
+            poll.found += found;
+            poll.moreAvailable |= more;
+        }
+    }
+
+    /**
+     * Check whether polling should take place on this instance. Polls are skipped while the flow cannot take
+     * any more events.
      */
     public final void performPoll() throws Exception
     {
         if (!pollOnPrimaryInstanceOnly() || flowConstruct.getMuleContext().isPrimaryPollingInstance())
         {
-            poll();   
+            if (getDemand() <= 0)
+            {
+                skippedPolls.incrementAndGet();
+                // the flow is full rather than the source empty, so neither poll right away nor back off
+                lastPollYield = PollYield.PARTIAL;
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Skipping poll of " + getEndpointURI() + ", the flow cannot take more events");
+                }
+                return;
+            }
+
+            Poll poll = new Poll();
+            currentPoll.set(poll);
+            try
+            {
+                poll();
+            }
+            finally
+            {
+                currentPoll.remove();
+                recordYield(poll);
+            }
+        }
+    }
+
+    private void recordYield(Poll poll)
+    {
+        PollYield yield;
+        if (!poll.reported)
+        {
+            yield = PollYield.PARTIAL;
+        }
+        else if (poll.found <= 0)
+        {
+            yield = PollYield.EMPTY;
+            emptyPolls.incrementAndGet();
+        }
+        else if (poll.moreAvailable)
+        {
+            yield = PollYield.FULL;
+            fullPolls.incrementAndGet();
+        }
+        else
+        {
+            yield = PollYield.PARTIAL;
         }
+        polls.incrementAndGet();
+        lastPollYield = yield;
+    }
+
+    /**
+     * Counts the events routed by this receiver
+     */
+    @Override
+    public MuleEvent routeEvent(MuleEvent muleEvent) throws MuleException
+    {
+        routedEvents.incrementAndGet();
+        return super.routeEvent(muleEvent);
+    }
+
+    /**
+     * @return what the last poll yielded
+     */
+    public PollYield getLastPollYield()
+    {
+        return lastPollYield;
+    }
+
+    /**
+     * @return the number of polls performed
+     */
+    public long getPolls()
+    {
+        return polls.get();
+    }
+
+    /**
+     * @return the number of polls that found nothing to process
+     */
+    public long getEmptyPolls()
+    {
+        return emptyPolls.get();
+    }
+
+    /**
+     * @return the number of polls that left messages waiting for the next poll
+     */
+    public long getFullPolls()
+    {
+        return fullPolls.get();
+    }
+
+    /**
+     * @return the number of messages routed by this receiver
+     */
+    public long getPolledMessages()
+    {
+        return routedEvents.get();
+    }
+
+    /**
+     * @return the number of polls skipped because the flow could not take more events
+     */
+    public long getSkippedPolls()
+    {
+        return skippedPolls.get();
     }
 
     /**
@@ -227,4 +450,15 @@ public abstract class AbstractPollingMessageReceiver extends AbstractMessageRece
 
 
     protected abstract void poll() throws Exception;
+
+    /**
+     * What a single poll has seen so far
+     */
+    private static final class Poll
+    {
+
+        boolean reported;
+        int found;
+        boolean moreAvailable;
+    }
 }
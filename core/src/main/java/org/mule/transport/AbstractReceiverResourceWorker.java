@@ -38,12 +38,18 @@ public abstract class AbstractReceiverResourceWorker extends AbstractReceiverWor
             Object message;
             do 
             {
+                // stop reading from the resource while the flow cannot keep up
+                receiver.awaitDemand();
                 message = getNextMessage(resource);
                 messages.add(message);
                 super.doRun();
             }
             while (message != null && hasMoreMessages(message));
         }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
         catch (Exception e)
         {
             receiver.getConnector().getMuleContext().getExceptionListener().handleException(e);
@@ -0,0 +1,709 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport;
+
+import org.mule.management.stats.RollingLatencyHistogram;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.pool.KeyedPoolableObjectFactory;
+
+/**
+ * {@link ConfigurableKeyedObjectPool} that does not lock on borrow and return while there are idle objects or
+ * room to create new ones. Idle objects are kept in a lock free stack per key, and the number of active and
+ * idle objects is kept in atomic counters, so threads using different keys, or the same key, do not contend
+ * on a pool wide monitor the way they do with commons-pool's <code>GenericKeyedObjectPool</code>.
+ * <p/>
+ * Objects are validated when returned, as {@link DefaultConfigurableKeyedObjectPool} does, and invalid ones are
+ * destroyed instead of going back to the pool. Threads only wait on a monitor, of the key being borrowed,
+ * when the pool is exhausted and the when exhausted action is {@link #WHEN_EXHAUSTED_BLOCK}.
+ * <p/>
+ * The limits on the number of objects are enforced by reserving room in the counters with compare and set
+ * before an object is created or made idle, so concurrent borrowers and returners can't go over them. The
+ * pool of a key is dropped once it has no objects and no thread is using it, so keys that come and go don't
+ * accumulate.
+ * <p/>
+ * The time spent waiting for an object and the number of objects created and destroyed are kept as metrics.
+ */
+public class LockFreeConfigurableKeyedObjectPool implements ConfigurableKeyedObjectPool
+{
+
+    /**
+     * Longest time, in milliseconds, a borrower waits before checking again whether it can get an object, as
+     * room for a new object may be made by the return of an object of another key
+     */
+    private static final long MAX_WAIT_SLICE = 100;
+
+    protected transient final Log logger = LogFactory.getLog(LockFreeConfigurableKeyedObjectPool.class);
+
+    private final ConcurrentMap<Object, KeyedPool> pools = new ConcurrentHashMap<Object, KeyedPool>();
+    private final AtomicInteger totalActive = new AtomicInteger();
+    private final AtomicInteger totalIdle = new AtomicInteger();
+    // active and idle objects, including those being created
+    private final AtomicInteger totalObjects = new AtomicInteger();
+
+    private final RollingLatencyHistogram borrowWaitTime = new RollingLatencyHistogram();
+    private final AtomicLong borrowedObjects = new AtomicLong();
+    private final AtomicLong createdObjects = new AtomicLong();
+    private final AtomicLong destroyedObjects = new AtomicLong();
+
+    private volatile KeyedPoolableObjectFactory factory;
+    private volatile int maxActive = 8;
+    private volatile int maxIdle = 8;
+    private volatile int maxTotal = -1;
+    private volatile long maxWait = -1;
+    private volatile byte whenExhaustedAction = WHEN_EXHAUSTED_BLOCK;
+    private volatile boolean closed;
+
+    public Object borrowObject(Object key) throws Exception, NoSuchElementException, IllegalStateException
+    {
+        assertOpen();
+        KeyedPool pool = acquirePool(key);
+        try
+        {
+            long startTime = 0;
+            while (true)
+            {
+                Object object = pool.idle.pop();
+                if (object != null)
+                {
+                    pool.numIdle.decrementAndGet();
+                    totalIdle.decrementAndGet();
+                    pool.numActive.incrementAndGet();
+                    totalActive.incrementAndGet();
+                    try
+                    {
+                        factory.activateObject(key, object);
+                    }
+                    catch (Exception e)
+                    {
+                        // try with another idle object, or a new one
+                        destroyActive(key, pool, object);
+                        continue;
+                    }
+                    return borrowed(startTime, object);
+                }
+
+                if (reserveActive(pool, false) || (whenExhaustedAction == WHEN_EXHAUSTED_GROW && reserveActive(pool, true)))
+                {
+                    return borrowed(startTime, createActive(key, pool));
+                }
+
+                if (whenExhaustedAction == WHEN_EXHAUSTED_FAIL)
+                {
+                    throw new NoSuchElementException("Pool exhausted for key " + key);
+                }
+
+                if (startTime == 0)
+                {
+                    startTime = System.nanoTime();
+                }
+                awaitReturn(key, pool, startTime);
+            }
+        }
+        finally
+        {
+            releasePool(key, pool);
+        }
+    }
+
+    private Object borrowed(long startTime, Object object)
+    {
+        borrowedObjects.incrementAndGet();
+        borrowWaitTime.recordValue(startTime == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return object;
+    }
+
+    private void awaitReturn(Object key, KeyedPool pool, long startTime) throws InterruptedException
+    {
+        long waitTime = MAX_WAIT_SLICE;
+        if (maxWait > 0)
+        {
+            long remaining = maxWait - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            if (remaining <= 0)
+            {
+                throw new NoSuchElementException("Timeout waiting for idle object for key " + key);
+            }
+            waitTime = Math.min(remaining, MAX_WAIT_SLICE);
+        }
+        synchronized (pool)
+        {
+            pool.waiters++;
+            try
+            {
+                // the object may have been returned while we were getting the monitor
+                if (pool.numIdle.get() == 0 && isExhausted(pool))
+                {
+                    pool.wait(waitTime);
+                }
+            }
+            finally
+            {
+                pool.waiters--;
+            }
+        }
+        assertOpen();
+    }
+
+    private boolean isExhausted(KeyedPool pool)
+    {
+        return (maxActive >= 0 && pool.numActive.get() >= maxActive)
+               || (maxTotal >= 0 && totalObjects.get() >= maxTotal && totalIdle.get() == 0);
+    }
+
+    /**
+     * Counts a new active object for the pool if there is room for it, both for its key and in total
+     */
+    private boolean reserveActive(KeyedPool pool, boolean grow)
+    {
+        while (true)
+        {
+            int active = pool.numActive.get();
+            if (!grow && maxActive >= 0 && active >= maxActive)
+            {
+                return false;
+            }
+            if (pool.numActive.compareAndSet(active, active + 1))
+            {
+                totalActive.incrementAndGet();
+                break;
+            }
+        }
+        if (!reserveTotal(grow))
+        {
+            releaseActive(pool);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts a new object in the total, destroying idle objects of other keys to make room for it if the
+     * total reached its limit
+     */
+    private boolean reserveTotal(boolean grow)
+    {
+        while (true)
+        {
+            int total = totalObjects.get();
+            if (!grow && maxTotal >= 0 && total >= maxTotal)
+            {
+                if (!evictIdleObject())
+                {
+                    return false;
+                }
+            }
+            else if (totalObjects.compareAndSet(total, total + 1))
+            {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Destroys an idle object of any key to make room for a new one, as the total number of objects reached
+     * its limit
+     */
+    private boolean evictIdleObject()
+    {
+        for (Map.Entry<Object, KeyedPool> entry : pools.entrySet())
+        {
+            KeyedPool pool = entry.getValue();
+            if (!pool.acquire())
+            {
+                continue;
+            }
+            try
+            {
+                Object object = pool.idle.pop();
+                if (object != null)
+                {
+                    pool.numIdle.decrementAndGet();
+                    totalIdle.decrementAndGet();
+                    destroy(entry.getKey(), object);
+                    return true;
+                }
+            }
+            finally
+            {
+                releasePool(entry.getKey(), pool);
+            }
+        }
+        return false;
+    }
+
+    private Object createActive(Object key, KeyedPool pool) throws Exception
+    {
+        Object object;
+        try
+        {
+            object = factory.makeObject(key);
+        }
+        catch (Exception e)
+        {
+            totalObjects.decrementAndGet();
+            releaseActive(pool);
+            throw e;
+        }
+        createdObjects.incrementAndGet();
+        try
+        {
+            factory.activateObject(key, object);
+        }
+        catch (Exception e)
+        {
+            destroyActive(key, pool, object);
+            throw e;
+        }
+        return object;
+    }
+
+    public void returnObject(Object key, Object obj) throws Exception
+    {
+        KeyedPool pool = acquirePool(key);
+        try
+        {
+            if (closed || !factory.validateObject(key, obj))
+            {
+                destroyActive(key, pool, obj);
+                return;
+            }
+
+            try
+            {
+                factory.passivateObject(key, obj);
+            }
+            catch (Exception e)
+            {
+                destroyActive(key, pool, obj);
+                return;
+            }
+
+            if (!reserveIdle(pool))
+            {
+                destroyActive(key, pool, obj);
+                return;
+            }
+            totalIdle.incrementAndGet();
+            pool.idle.push(obj);
+            releaseActive(pool);
+        }
+        finally
+        {
+            releasePool(key, pool);
+        }
+    }
+
+    /**
+     * Counts a new idle object for the pool if it has room for it
+     */
+    private boolean reserveIdle(KeyedPool pool)
+    {
+        while (true)
+        {
+            int idle = pool.numIdle.get();
+            if (maxIdle >= 0 && idle >= maxIdle)
+            {
+                return false;
+            }
+            if (pool.numIdle.compareAndSet(idle, idle + 1))
+            {
+                return true;
+            }
+        }
+    }
+
+    public void invalidateObject(Object key, Object obj) throws Exception
+    {
+        KeyedPool pool = acquirePool(key);
+        try
+        {
+            destroyActive(key, pool, obj);
+        }
+        finally
+        {
+            releasePool(key, pool);
+        }
+    }
+
+    private void destroyActive(Object key, KeyedPool pool, Object object)
+    {
+        releaseActive(pool);
+        destroy(key, object);
+    }
+
+    private void releaseActive(KeyedPool pool)
+    {
+        pool.numActive.decrementAndGet();
+        totalActive.decrementAndGet();
+        if (pool.waiters > 0)
+        {
+            synchronized (pool)
+            {
+                pool.notifyAll();
+            }
+        }
+    }
+
+    private void destroy(Object key, Object object)
+    {
+        totalObjects.decrementAndGet();
+        destroyedObjects.incrementAndGet();
+        try
+        {
+            factory.destroyObject(key, object);
+        }
+        catch (Exception e)
+        {
+            logger.warn("Could not destroy pooled object " + object, e);
+        }
+    }
+
+    public void addObject(Object key) throws Exception, IllegalStateException, UnsupportedOperationException
+    {
+        assertOpen();
+        KeyedPool pool = acquirePool(key);
+        try
+        {
+            Object object = factory.makeObject(key);
+            createdObjects.incrementAndGet();
+            totalObjects.incrementAndGet();
+            try
+            {
+                factory.passivateObject(key, object);
+            }
+            catch (Exception e)
+            {
+                destroy(key, object);
+                throw e;
+            }
+            pool.numIdle.incrementAndGet();
+            totalIdle.incrementAndGet();
+            pool.idle.push(object);
+        }
+        finally
+        {
+            releasePool(key, pool);
+        }
+    }
+
+    /**
+     * Returns the pool of the key, creating it if needed, registered as in use by the calling thread so that
+     * it is not dropped until {@link #releasePool(Object, KeyedPool)} is called
+     */
+    private KeyedPool acquirePool(Object key)
+    {
+        while (true)
+        {
+            KeyedPool pool = pools.get(key);
+            if (pool == null)
+            {
+                pool = new KeyedPool();
+                KeyedPool previous = pools.putIfAbsent(key, pool);
+                if (previous != null)
+                {
+                    pool = previous;
+                }
+            }
+            if (pool.acquire())
+            {
+                return pool;
+            }
+            // the pool is being dropped, wait for it to be gone
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Ends the use of the pool by the calling thread, and drops the pool if it was the last thread using it
+     * and the pool has no objects left. Objects are only counted in the pool by threads using it, so the
+     * counters can't grow once the pool is retired.
+     */
+    private void releasePool(Object key, KeyedPool pool)
+    {
+        if (pool.users.decrementAndGet() == 0 && pool.isEmpty() && pool.users.compareAndSet(0, KeyedPool.RETIRED))
+        {
+            if (pool.isEmpty())
+            {
+                pools.remove(key, pool);
+            }
+            else
+            {
+                // an object was counted before the pool was retired
+                pool.users.set(0);
+            }
+        }
+    }
+
+    private void assertOpen()
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Pool is closed");
+        }
+    }
+
+    public int getNumIdle(Object key) throws UnsupportedOperationException
+    {
+        KeyedPool pool = pools.get(key);
+        return pool == null ? 0 : pool.numIdle.get();
+    }
+
+    public int getNumActive(Object key) throws UnsupportedOperationException
+    {
+        KeyedPool pool = pools.get(key);
+        return pool == null ? 0 : pool.numActive.get();
+    }
+
+    /**
+     * @return the number of keys the pool currently holds objects for or is being used with
+     */
+    int getNumKeys()
+    {
+        return pools.size();
+    }
+
+    public int getNumIdle() throws UnsupportedOperationException
+    {
+        return totalIdle.get();
+    }
+
+    public int getNumActive() throws UnsupportedOperationException
+    {
+        return totalActive.get();
+    }
+
+    public void clear()
+    {
+        for (Object key : pools.keySet())
+        {
+            clear(key);
+        }
+    }
+
+    public void clear(Object key)
+    {
+        KeyedPool pool = pools.get(key);
+        if (pool == null || !pool.acquire())
+        {
+            return;
+        }
+        try
+        {
+            Object object;
+            while ((object = pool.idle.pop()) != null)
+            {
+                pool.numIdle.decrementAndGet();
+                totalIdle.decrementAndGet();
+                destroy(key, object);
+            }
+        }
+        finally
+        {
+            releasePool(key, pool);
+        }
+    }
+
+    public void close() throws Exception
+    {
+        closed = true;
+        clear();
+        for (KeyedPool pool : pools.values())
+        {
+            synchronized (pool)
+            {
+                pool.notifyAll();
+            }
+        }
+    }
+
+    public void setFactory(KeyedPoolableObjectFactory factory) throws IllegalStateException, UnsupportedOperationException
+    {
+        if (this.factory != null)
+        {
+            // objects made by the previous factory must not be handed out anymore
+            clear();
+        }
+        this.factory = factory;
+    }
+
+    public int getMaxActive()
+    {
+        return maxActive;
+    }
+
+    public void setMaxActive(int maxActive)
+    {
+        this.maxActive = maxActive;
+    }
+
+    public int getMaxTotal()
+    {
+        return maxTotal;
+    }
+
+    public void setMaxTotal(int maxTotal)
+    {
+        this.maxTotal = maxTotal;
+    }
+
+    public long getMaxWait()
+    {
+        return maxWait;
+    }
+
+    public void setMaxWait(long maxWait)
+    {
+        this.maxWait = maxWait;
+    }
+
+    public int getMaxIdle()
+    {
+        return maxIdle;
+    }
+
+    public void setMaxIdle(int maxIdle)
+    {
+        this.maxIdle = maxIdle;
+    }
+
+    public byte getWhenExhaustedAction()
+    {
+        return whenExhaustedAction;
+    }
+
+    public void setWhenExhaustedAction(byte whenExhaustedAction)
+    {
+        if (whenExhaustedAction != WHEN_EXHAUSTED_FAIL && whenExhaustedAction != WHEN_EXHAUSTED_BLOCK
+            && whenExhaustedAction != WHEN_EXHAUSTED_GROW)
+        {
+            throw new IllegalArgumentException("whenExhaustedAction " + whenExhaustedAction + " not recognized.");
+        }
+        this.whenExhaustedAction = whenExhaustedAction;
+    }
+
+    /**
+     * @return how long borrowers waited for an object, in milliseconds
+     */
+    public RollingLatencyHistogram getBorrowWaitTime()
+    {
+        return borrowWaitTime;
+    }
+
+    public long getBorrowedObjects()
+    {
+        return borrowedObjects.get();
+    }
+
+    public long getCreatedObjects()
+    {
+        return createdObjects.get();
+    }
+
+    public long getDestroyedObjects()
+    {
+        return destroyedObjects.get();
+    }
+
+    /**
+     * The idle objects and counters of a single key
+     */
+    private static class KeyedPool
+    {
+
+        /**
+         * Value of {@link #users} once the pool has been dropped
+         */
+        private static final int RETIRED = -1;
+
+        private final IdleStack idle = new IdleStack();
+        private final AtomicInteger numActive = new AtomicInteger();
+        private final AtomicInteger numIdle = new AtomicInteger();
+        // threads borrowing, returning or adding objects of this pool
+        private final AtomicInteger users = new AtomicInteger();
+        // @GuardedBy(this)
+        private volatile int waiters;
+
+        boolean acquire()
+        {
+            while (true)
+            {
+                int current = users.get();
+                if (current == RETIRED)
+                {
+                    return false;
+                }
+                if (users.compareAndSet(current, current + 1))
+                {
+                    return true;
+                }
+            }
+        }
+
+        boolean isEmpty()
+        {
+            return numActive.get() == 0 && numIdle.get() == 0;
+        }
+    }
+
+    /**
+     * Treiber stack, so the most recently returned object, the one most likely to still be warm, is the next
+     * one borrowed
+     */
+    private static class IdleStack
+    {
+
+        private final AtomicReference<Node> head = new AtomicReference<Node>();
+
+        void push(Object object)
+        {
+            Node node = new Node(object);
+            do
+            {
+                node.next = head.get();
+            }
+            while (!head.compareAndSet(node.next, node));
+        }
+
+        Object pop()
+        {
+            while (true)
+            {
+                Node node = head.get();
+                if (node == null)
+                {
+                    return null;
+                }
+                if (head.compareAndSet(node, node.next))
+                {
+                    return node.object;
+                }
+            }
+        }
+    }
+
+    private static class Node
+    {
+
+        private final Object object;
+        private Node next;
+
+        Node(Object object)
+        {
+            this.object = object;
+        }
+    }
+}
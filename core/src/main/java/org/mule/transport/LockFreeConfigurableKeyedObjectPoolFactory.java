@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport;
+
+/**
+ * Implements {@link org.mule.transport.ConfigurableKeyedObjectPoolFactory} creating instances
+ * of {@link org.mule.transport.LockFreeConfigurableKeyedObjectPool}.
+ * <p/>
+ * Set it as the dispatcher pool factory of a connector with
+ * {@link AbstractConnector#setDispatcherPoolFactory(ConfigurableKeyedObjectPoolFactory)} to avoid contention
+ * on the dispatcher pool when many threads send through the same connector.
+ */
+public class LockFreeConfigurableKeyedObjectPoolFactory implements ConfigurableKeyedObjectPoolFactory
+{
+
+    public ConfigurableKeyedObjectPool createObjectPool()
+    {
+        return new LockFreeConfigurableKeyedObjectPool();
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport;
+
+/**
+ * What the last poll of an {@link AbstractPollingMessageReceiver} produced, so that
+ * schedulers can adapt the time until the next poll.
+ */
+public enum PollYield
+{
+    /**
+     * The poll found nothing to process
+     */
+    EMPTY,
+
+    /**
+     * The poll processed everything that was available
+     */
+    PARTIAL,
+
+    /**
+     * The poll processed a full batch and there are more messages waiting
+     */
+    FULL
+}
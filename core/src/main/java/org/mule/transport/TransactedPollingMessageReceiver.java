@@ -120,6 +120,7 @@ public abstract class TransactedPollingMessageReceiver extends AbstractPollingMe
             {
                 if (hasNoMessages())
                 {
+                    pollFound(0, false);
                     if (NO_MESSAGES_SLEEP_TIME > 0)
                     {
                         Thread.sleep(NO_MESSAGES_SLEEP_TIME);
@@ -136,6 +137,7 @@ public abstract class TransactedPollingMessageReceiver extends AbstractPollingMe
                     {
                         // this is not ideal, but jdbc receiver returns a list of maps, not List<MuleMessage>
                         List messages = getMessages();
+                        pollFound(messages == null ? 0 : messages.size(), false);
                         if (messages != null && messages.size() > 0)
                         {
                             for (Object message : messages)
@@ -152,6 +154,7 @@ public abstract class TransactedPollingMessageReceiver extends AbstractPollingMe
             {
                 // Receive messages and launch a worker for each message
                 List messages = getMessages();
+                pollFound(messages == null ? 0 : messages.size(), false);
                 if (messages != null && messages.size() > 0)
                 {
                     final CountDownLatch countdown = new CountDownLatch(messages.size());
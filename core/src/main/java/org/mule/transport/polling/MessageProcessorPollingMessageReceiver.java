@@ -33,6 +33,11 @@ import org.mule.util.Predicate;
 import org.mule.util.StringUtils;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkManager;
 
 /**
  * <p>
@@ -43,6 +48,12 @@ import java.util.Map;
  * at the initialization phase. This {@link org.mule.api.schedule.Scheduler} can be stopped/started and executed by using the {@link org.mule.api.registry.MuleRegistry}
  * interface, this way users can manipulate poll from outside mule server.
  * </p>
+ * <p>
+ * When configured with more than one partition, each poll runs the message source once per partition, in
+ * parallel, with the key of the partition in the {@link #PARTITION_VARIABLE} flow variable. The key is the
+ * index of the partition unless a partition expression is configured. A partition still running from a
+ * previous poll is skipped, and watermarks are kept per partition.
+ * </p>
  */
 public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessageReceiver
 {
@@ -64,10 +75,25 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
 
     /**
      * <p>
-     * The {@link InboundEndpoint} property for poll that contains the {@link SchedulerFactory}
+     * The {@link InboundEndpoint} property for poll that contains the number of partitions polled in parallel
+     * </p>
+     */
+    public static final String PARTITIONS_PROPERTY_NAME = MuleProperties.ENDPOINT_PROPERTY_PREFIX + "partitions";
+
+    /**
+     * <p>
+     * The {@link InboundEndpoint} property for poll that contains the expression that resolves the key of each
+     * partition, evaluated with the index of the partition in the {@link #PARTITION_VARIABLE} flow variable
+     * </p>
+     */
+    public static final String PARTITION_EXPRESSION_PROPERTY_NAME = MuleProperties.ENDPOINT_PROPERTY_PREFIX + "partitionExpression";
+
+    /**
+     * <p>
+     * The flow variable that holds the key of the partition polled by the event
      * </p>
      */
-    public static final String SCHEDULER_FACTORY_PROPERTY_NAME = MuleProperties.ENDPOINT_PROPERTY_PREFIX + "schedulerFactory";
+    public static final String PARTITION_VARIABLE = "pollPartition";
 
     /**
      * <p>
@@ -117,6 +143,27 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
      */
     protected MessageProcessorPollingOverride override;
 
+    /**
+     * <p>
+     * The number of partitions polled in parallel, and the expression that resolves their keys
+     * </p>
+     */
+    protected int partitions = 1;
+    protected String partitionExpression;
+
+    /**
+     * <p>
+     * Whether the poll of each partition is still running
+     * </p>
+     */
+    private AtomicBoolean[] runningPartitions;
+
+    /**
+     * The number of partition polls that got a new message since the last poll, reported as what that poll
+     * found since the partitions are polled after it returns
+     */
+    private final AtomicInteger partitionsFound = new AtomicInteger();
+
     public MessageProcessorPollingMessageReceiver(Connector connector,
                                                   FlowConstruct flowConstruct,
                                                   InboundEndpoint endpoint) throws CreateException
@@ -127,12 +174,80 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
     @Override
     public void poll() throws Exception
     {
-        MuleMessage request = new DefaultMuleMessage(StringUtils.EMPTY, (Map<String, Object>) null,
-                                                     connector.getMuleContext());
-        pollWith(request);
+        if (partitions > 1)
+        {
+            pollPartitions();
+        }
+        else
+        {
+            pollWith(createRequest());
+        }
+    }
+
+    private MuleMessage createRequest()
+    {
+        return new DefaultMuleMessage(StringUtils.EMPTY, (Map<String, Object>) null, connector.getMuleContext());
+    }
+
+    /**
+     * <p>
+     * Schedules the poll of every partition that is not still running from the previous poll
+     * </p>
+     */
+    protected void pollPartitions()
+    {
+        pollFound(partitionsFound.getAndSet(0), false);
+        for (int i = 0; i < partitions; i++)
+        {
+            if (!runningPartitions[i].compareAndSet(false, true))
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug(String.format("Partition %d of poll in flow %s is still running, skipping it",
+                                               i, flowConstruct.getName()));
+                }
+                continue;
+            }
+
+            final int partition = i;
+            try
+            {
+                getWorkManager().scheduleWork(new Work()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            pollWith(createRequest(), partition);
+                        }
+                        finally
+                        {
+                            runningPartitions[partition].set(false);
+                        }
+                    }
+
+                    @Override
+                    public void release()
+                    {
+                        // nothing to release
+                    }
+                }, WorkManager.INDEFINITE, null, connector);
+            }
+            catch (Exception e)
+            {
+                runningPartitions[i].set(false);
+                connector.getMuleContext().getExceptionListener().handleException(e);
+            }
+        }
     }
 
     public void pollWith(final MuleMessage request) throws Exception
+    {
+        pollWith(request, null);
+    }
+
+    private void pollWith(final MuleMessage request, final Integer partition)
     {
         ExecutionTemplate<MuleEvent> executionTemplate = createExecutionTemplate();
         try
@@ -151,12 +266,32 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
                     }
 
                     MuleEvent event = new DefaultMuleEvent(request, ep.getExchangePattern(), flowConstruct);
+                    Object partitionKey = null;
+                    if (partition != null)
+                    {
+                        partitionKey = resolvePartitionKey(event, partition);
+                        event.setFlowVariable(PARTITION_VARIABLE, partitionKey);
+                    }
                     event = interceptor.prepareSourceEvent(event);
 
                     MuleEvent sourceEvent = sourceMessageProcessor.process(event);
-                    if (isNewMessage(sourceEvent))
+                    boolean found = isNewMessage(sourceEvent);
+                    if (partition == null)
+                    {
+                        pollFound(found ? 1 : 0, false);
+                    }
+                    else if (found)
+                    {
+                        partitionsFound.incrementAndGet();
+                    }
+                    if (found)
                     {
-                        event = interceptor.prepareRouting(sourceEvent, createMuleEvent(sourceEvent.getMessage(), null));
+                        MuleEvent flowEvent = createMuleEvent(sourceEvent.getMessage(), null);
+                        if (partitionKey != null)
+                        {
+                            flowEvent.setFlowVariable(PARTITION_VARIABLE, partitionKey);
+                        }
+                        event = interceptor.prepareRouting(sourceEvent, flowEvent);
                         routeEvent(event);
                         interceptor.postProcessRouting(event);
                     }
@@ -182,6 +317,16 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
         }
     }
 
+    private Object resolvePartitionKey(MuleEvent event, int partition)
+    {
+        if (partitionExpression == null)
+        {
+            return partition;
+        }
+        event.setFlowVariable(PARTITION_VARIABLE, partition);
+        return connector.getMuleContext().getExpressionManager().evaluate(partitionExpression, event);
+    }
+
     /**
      * <p>
      * On the Initialization phase it.
@@ -200,6 +345,18 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
         sourceMessageProcessor = getSourceMessageProcessor();
         override = getPollOverride();
 
+        Object partitionsProperty = endpoint.getProperty(PARTITIONS_PROPERTY_NAME);
+        if (partitionsProperty != null)
+        {
+            partitions = Math.max(1, Integer.parseInt(partitionsProperty.toString()));
+        }
+        partitionExpression = (String) endpoint.getProperty(PARTITION_EXPRESSION_PROPERTY_NAME);
+        runningPartitions = new AtomicBoolean[partitions];
+        for (int i = 0; i < partitions; i++)
+        {
+            runningPartitions[i] = new AtomicBoolean(false);
+        }
+
         getSchedulerFactory().create(schedulerNameOf(this), createWork());
     }
 
@@ -268,12 +425,6 @@ public class MessageProcessorPollingMessageReceiver extends AbstractPollingMessa
         }
     }
 
-
-    private SchedulerFactory<Runnable> getSchedulerFactory()
-    {
-        return (SchedulerFactory<Runnable>) endpoint.getProperty(SCHEDULER_FACTORY_PROPERTY_NAME);
-    }
-
     /**
      * Override implementation that doesn't change anything. Used as a default when no override is defined
      */
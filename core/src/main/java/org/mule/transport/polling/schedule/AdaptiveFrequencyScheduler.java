@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.polling.schedule;
+
+import org.mule.api.MuleException;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.lifecycle.LifecycleCallback;
+import org.mule.api.schedule.Scheduler;
+import org.mule.lifecycle.DefaultLifecycleManager;
+import org.mule.lifecycle.SimpleLifecycleManager;
+import org.mule.transport.PollYield;
+import org.mule.transport.PollingReceiverWorker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * <p>
+ * {@link PollScheduler} that adapts the time until the next poll to what the last one yielded:
+ * <ul>
+ * <li>After an empty poll the delay doubles, up to the maximum frequency</li>
+ * <li>After a poll that left messages waiting the next poll runs right away</li>
+ * <li>Otherwise the next poll runs after the minimum frequency</li>
+ * </ul>
+ * </p>
+ * <p>
+ * The yield is taken from the receiver of the job when it is a {@link PollingReceiverWorker}. Any other job
+ * is polled at the minimum frequency.
+ * </p>
+ */
+public class AdaptiveFrequencyScheduler<T extends Runnable> extends PollScheduler<T>
+{
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    /**
+     * <p>Thread executor service</p>
+     */
+    private ScheduledExecutorService executor;
+
+    /**
+     * <p>The {@link TimeUnit} of the scheduler</p>
+     */
+    private final TimeUnit timeUnit;
+
+    /**
+     * <p>The time in timeUnit between polls that yield messages</p>
+     */
+    private final long minFrequency;
+
+    /**
+     * <p>The longest time in timeUnit between polls, reached after consecutive empty polls</p>
+     */
+    private final long maxFrequency;
+
+    /**
+     * <p>The time in timeUnit that it has to wait before executing the first task</p>
+     */
+    private final long startDelay;
+
+    /**
+     * <p>The time in timeUnit until the next poll</p>
+     */
+    private final AtomicLong currentDelay;
+
+    private final AtomicLong immediatePolls = new AtomicLong();
+    private final AtomicLong backedOffPolls = new AtomicLong();
+
+    /**
+     * <p>
+     * A {@link SimpleLifecycleManager} to manage the {@link Scheduler} lifecycle.
+     * </p>
+     */
+    private final SimpleLifecycleManager<Scheduler> lifecycleManager;
+
+    public AdaptiveFrequencyScheduler(String name,
+                                      long minFrequency,
+                                      long maxFrequency,
+                                      long startDelay,
+                                      T job,
+                                      TimeUnit timeUnit)
+    {
+        super(name, job);
+        this.minFrequency = minFrequency;
+        this.maxFrequency = Math.max(minFrequency, maxFrequency);
+        this.startDelay = startDelay;
+        this.timeUnit = timeUnit;
+        this.currentDelay = new AtomicLong(minFrequency);
+        lifecycleManager = new DefaultLifecycleManager<Scheduler>(name, this);
+    }
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        try
+        {
+            lifecycleManager.fireInitialisePhase(new LifecycleCallback<Scheduler>()
+            {
+                @Override
+                public void onTransition(String phaseName, Scheduler object) throws MuleException
+                {
+                    executor = Executors.newSingleThreadScheduledExecutor();
+                }
+            });
+        }
+        catch (MuleException e)
+        {
+            throw new InitialisationException(e, this);
+        }
+    }
+
+    /**
+     * <p>
+     * Starts polling after the start delay. Can be called several times, if the {@link Scheduler} is already
+     * started or if it is starting then the start request is omitted
+     * </p>
+     */
+    @Override
+    public synchronized void start() throws MuleException
+    {
+        if (isNotStarted())
+        {
+            lifecycleManager.fireStartPhase(new LifecycleCallback<Scheduler>()
+            {
+                @Override
+                public void onTransition(String phaseName, Scheduler object) throws MuleException
+                {
+                    if (executor != null)
+                    {
+                        executor.shutdown();
+                    }
+                    executor = Executors.newSingleThreadScheduledExecutor();
+                    currentDelay.set(minFrequency);
+                    executor.schedule(new AdaptivePoll(executor), startDelay, timeUnit);
+                }
+            });
+        }
+    }
+
+    /**
+     * <p>
+     * Stops polling. Can be called several times, if the {@link Scheduler} is already stopped or if it is
+     * stopping then the stop request is omitted
+     * </p>
+     */
+    @Override
+    public synchronized void stop() throws MuleException
+    {
+        if (isNotStopped())
+        {
+            lifecycleManager.fireStopPhase(new LifecycleCallback<Scheduler>()
+            {
+                @Override
+                public void onTransition(String phaseName, Scheduler object) throws MuleException
+                {
+                    executor.shutdown();
+                    executor = Executors.newSingleThreadScheduledExecutor();
+                }
+            });
+        }
+    }
+
+    /**
+     * <p>
+     * Executes the the {@link Scheduler} task, without changing the time of the next poll
+     * </p>
+     */
+    @Override
+    public void schedule() throws Exception
+    {
+        executor.submit(job);
+    }
+
+    @Override
+    public void dispose()
+    {
+        try
+        {
+            lifecycleManager.fireDisposePhase(new LifecycleCallback<Scheduler>()
+            {
+                @Override
+                public void onTransition(String phaseName, Scheduler object) throws MuleException
+                {
+                    if (executor != null && !executor.isTerminated())
+                    {
+                        executor.shutdown();
+                        try
+                        {
+                            executor.awaitTermination(1000, TimeUnit.MILLISECONDS);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                        finally
+                        {
+                            if (!executor.isTerminated())
+                            {
+                                executor.shutdownNow();
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        catch (MuleException e)
+        {
+            logger.error("The Scheduler " + name + " could not be disposed");
+        }
+    }
+
+    /**
+     * @return the time in timeUnit until the next poll, given what the last poll yielded
+     */
+    protected long nextDelay(PollYield yield)
+    {
+        switch (yield)
+        {
+            case FULL:
+                immediatePolls.incrementAndGet();
+                currentDelay.set(minFrequency);
+                return 0;
+            case EMPTY:
+                long delay = Math.min(maxFrequency, Math.max(1, currentDelay.get()) * 2);
+                if (delay > minFrequency)
+                {
+                    backedOffPolls.incrementAndGet();
+                }
+                currentDelay.set(delay);
+                return delay;
+            default:
+                currentDelay.set(minFrequency);
+                return minFrequency;
+        }
+    }
+
+    private PollYield lastYield()
+    {
+        if (job instanceof PollingReceiverWorker)
+        {
+            return ((PollingReceiverWorker) job).getReceiver().getLastPollYield();
+        }
+        return PollYield.PARTIAL;
+    }
+
+    private boolean isNotStopped()
+    {
+        return !lifecycleManager.getState().isStopped() && !lifecycleManager.getState().isStopping();
+    }
+
+    private boolean isNotStarted()
+    {
+        return !lifecycleManager.getState().isStarted() && !lifecycleManager.getState().isStarting();
+    }
+
+    public long getMinFrequency()
+    {
+        return minFrequency;
+    }
+
+    public long getMaxFrequency()
+    {
+        return maxFrequency;
+    }
+
+    public TimeUnit getTimeUnit()
+    {
+        return timeUnit;
+    }
+
+    /**
+     * @return the time in timeUnit until the next poll, or the last one waited for while polls are running
+     */
+    public long getCurrentDelay()
+    {
+        return currentDelay.get();
+    }
+
+    /**
+     * @return the number of polls run right after the previous one because it left messages waiting
+     */
+    public long getImmediatePolls()
+    {
+        return immediatePolls.get();
+    }
+
+    /**
+     * @return the number of polls delayed longer than the minimum frequency because of empty polls
+     */
+    public long getBackedOffPolls()
+    {
+        return backedOffPolls.get();
+    }
+
+    /**
+     * Runs the job and schedules the next run on the same executor, unless it was replaced by a stop or
+     * another start meanwhile
+     */
+    private class AdaptivePoll implements Runnable
+    {
+
+        private final ScheduledExecutorService pollExecutor;
+
+        AdaptivePoll(ScheduledExecutorService pollExecutor)
+        {
+            this.pollExecutor = pollExecutor;
+        }
+
+        @Override
+        public void run()
+        {
+            long delay = minFrequency;
+            try
+            {
+                job.run();
+                delay = nextDelay(lastYield());
+            }
+            catch (RuntimeException e)
+            {
+                logger.error("Poll of scheduler " + name + " failed", e);
+            }
+            finally
+            {
+                if (!pollExecutor.isShutdown())
+                {
+                    pollExecutor.schedule(this, delay, timeUnit);
+                }
+            }
+        }
+    }
+}
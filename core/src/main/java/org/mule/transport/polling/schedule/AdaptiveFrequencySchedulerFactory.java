@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.polling.schedule;
+
+import static org.mule.util.Preconditions.checkArgument;
+import org.mule.api.schedule.Scheduler;
+import org.mule.api.schedule.SchedulerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Creates {@link AdaptiveFrequencyScheduler}s, which poll at the minimum frequency while polls yield messages,
+ * right away while they leave messages waiting, and back off up to the maximum frequency while they are empty.
+ * </p>
+ */
+public class AdaptiveFrequencySchedulerFactory<T extends Runnable> extends SchedulerFactory<T>
+{
+
+    /**
+     * <p>The {@link TimeUnit} of the scheduler</p>
+     */
+    private TimeUnit timeUnit = TimeUnit.MILLISECONDS;
+
+    /**
+     * <p>The time in timeUnit between polls that yield messages</p>
+     */
+    private long minFrequency = 1000l;
+
+    /**
+     * <p>The longest time in timeUnit between empty polls</p>
+     */
+    private long maxFrequency = 60000l;
+
+    /**
+     * <p>The time in timeUnit that it has to wait before executing the first task</p>
+     */
+    private long startDelay = 1000l;
+
+    @Override
+    protected Scheduler doCreate(String name, final T job)
+    {
+        checkArgument(maxFrequency >= minFrequency, "Max frequency must not be lower than min frequency");
+
+        return new AdaptiveFrequencyScheduler<T>(name, minFrequency, maxFrequency, startDelay, job, timeUnit);
+    }
+
+    public void setTimeUnit(TimeUnit timeUnit)
+    {
+        this.timeUnit = timeUnit;
+    }
+
+    public void setMinFrequency(long minFrequency)
+    {
+        checkArgument(minFrequency > 0, "Min frequency must be greater then zero");
+
+        this.minFrequency = minFrequency;
+    }
+
+    public void setMaxFrequency(long maxFrequency)
+    {
+        checkArgument(maxFrequency > 0, "Max frequency must be greater then zero");
+
+        this.maxFrequency = maxFrequency;
+    }
+
+    public void setStartDelay(long startDelay)
+    {
+        checkArgument(startDelay >= 0, "Start delay must be greater then zero");
+
+        this.startDelay = startDelay;
+    }
+}
@@ -13,6 +13,7 @@ import org.mule.api.store.ObjectStore;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.transport.polling.MessageProcessorPollingInterceptor;
+import org.mule.transport.polling.MessageProcessorPollingMessageReceiver;
 import org.mule.transport.polling.MessageProcessorPollingOverride;
 
 import java.io.NotSerializableException;
@@ -35,6 +36,11 @@ import org.slf4j.LoggerFactory;
  * A limitation of this implementation is that the poll must be embedded into a
  * synchronous flow. An exception will be thrown if this is not the case.
  * </p>
+ * <p>
+ * When the poll runs in partitions, each partition keeps its own value in the
+ * object store, under the variable followed by the key of the partition. The flow
+ * variable keeps the same name in all of them.
+ * </p>
  * 
  * @since 3.5.0
  */
@@ -87,6 +93,16 @@ public abstract class Watermark extends MessageProcessorPollingOverride
         }
     }
 
+    /**
+     * Returns the object store key of the watermark for the partition polled by the
+     * event, or the variable itself if the poll is not partitioned
+     */
+    protected String resolveStoreKey(MuleEvent event, String resolvedVariable)
+    {
+        Object partition = event.getFlowVariable(MessageProcessorPollingMessageReceiver.PARTITION_VARIABLE);
+        return partition == null ? resolvedVariable : resolvedVariable + "." + partition;
+    }
+
     /**
      * Retrieves the watermark value from the underlying peristent store and enriches
      * the event.If there is no value stored, a default expression will be used to
@@ -99,7 +115,7 @@ public abstract class Watermark extends MessageProcessorPollingOverride
 
         try
         {
-            watermarkValue = objectStore.retrieve(resolvedVariable);
+            watermarkValue = objectStore.retrieve(resolveStoreKey(event, resolvedVariable));
         }
         catch (ObjectDoesNotExistException ex)
         {
@@ -135,36 +151,58 @@ public abstract class Watermark extends MessageProcessorPollingOverride
         try
         {
             String variableName = resolveVariable(event);
+            store(event, variableName, this.getUpdatedValue(event, variableName));
+        }
+        catch (Exception e)
+        {
+            logger.error("Exception found updating watermark", e);
+        }
+    }
 
-            Object watermarkValue = this.getUpdatedValue(event, variableName);
+    /**
+     * Updates the watermark in persistent storage with the given value, selected
+     * while the event was processed
+     * 
+     * @param event The event containing the watermark as a flow variable
+     * @param watermarkValue The new value of the watermark
+     */
+    public final void updateFrom(MuleEvent event, Object watermarkValue) throws ObjectStoreException
+    {
+        try
+        {
+            store(event, resolveVariable(event), watermarkValue);
+        }
+        catch (Exception e)
+        {
+            logger.error("Exception found updating watermark", e);
+        }
+    }
 
-            if (watermarkValue == null)
-            {
-                logger.warn(CoreMessages.nullWatermark().getMessage());
-            }
-            else if (watermarkValue instanceof Serializable)
+    private void store(MuleEvent event, String variableName, Object watermarkValue) throws ObjectStoreException
+    {
+        if (watermarkValue == null)
+        {
+            logger.warn(CoreMessages.nullWatermark().getMessage());
+        }
+        else if (watermarkValue instanceof Serializable)
+        {
+            String storeKey = resolveStoreKey(event, variableName);
+            synchronized (objectStore)
             {
-                synchronized (objectStore)
+                if (objectStore.contains(storeKey))
                 {
-                    if (objectStore.contains(variableName))
-                    {
-                        objectStore.remove(variableName);
-                    }
-                    if (watermarkValue != null)
-                    {
-                        objectStore.store(variableName, (Serializable) watermarkValue);
-                    }
+                    objectStore.remove(storeKey);
+                }
+                if (watermarkValue != null)
+                {
+                    objectStore.store(storeKey, (Serializable) watermarkValue);
                 }
-            }
-            else
-            {
-                throw new IllegalArgumentException(CoreMessages.notSerializableWatermark(variableName)
-                    .getMessage());
             }
         }
-        catch (Exception e)
+        else
         {
-            logger.error("Exception found updating watermark", e);
+            throw new IllegalArgumentException(CoreMessages.notSerializableWatermark(variableName)
+                .getMessage());
         }
     }
 
@@ -24,6 +24,7 @@ public class SelectorWatermark extends Watermark
 {
 
     private final WatermarkSelector selector;
+    private final WatermarkSelectorBroker selectorBroker;
     private final String selectorExpression;
 
     public SelectorWatermark(ObjectStore<Serializable> objectStore,
@@ -34,6 +35,24 @@ public class SelectorWatermark extends Watermark
     {
         super(objectStore, variable, defaultExpression);
         this.selector = selector;
+        this.selectorBroker = null;
+        this.selectorExpression = selectorExpression;
+    }
+
+    /**
+     * Creates a watermark that gives each poll a new selector from the broker, so
+     * that polls running in parallel, like the partitions of a poll, select their
+     * values independently
+     */
+    public SelectorWatermark(ObjectStore<Serializable> objectStore,
+                             String variable,
+                             String defaultExpression,
+                             WatermarkSelectorBroker selectorBroker,
+                             String selectorExpression)
+    {
+        super(objectStore, variable, defaultExpression);
+        this.selector = selectorBroker.newSelector(selectorExpression);
+        this.selectorBroker = selectorBroker;
         this.selectorExpression = selectorExpression;
     }
 
@@ -57,12 +76,16 @@ public class SelectorWatermark extends Watermark
 
     /**
      * {@inheritDoc}
-     * @return a new {@link SelectorWatermarkPollingInterceptor}
+     * @return a new {@link SelectorWatermarkPollingInterceptor}, with a new selector
+     *         if this watermark was created with a selector broker
      */
     @Override
     public MessageProcessorPollingInterceptor interceptor()
     {
-        return new SelectorWatermarkPollingInterceptor(this, this.selector, this.selectorExpression);
+        WatermarkSelector interceptorSelector = this.selectorBroker == null
+                                                                           ? this.selector
+                                                                           : this.selectorBroker.newSelector(this.selectorExpression);
+        return new SelectorWatermarkPollingInterceptor(this, interceptorSelector, this.selectorExpression);
     }
 
 }
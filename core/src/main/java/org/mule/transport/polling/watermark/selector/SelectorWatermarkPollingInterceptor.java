@@ -9,6 +9,7 @@ package org.mule.transport.polling.watermark.selector;
 
 import org.mule.api.MuleEvent;
 import org.mule.api.config.ConfigurationException;
+import org.mule.api.store.ObjectStoreException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.streaming.ProvidesTotalHint;
 import org.mule.transport.polling.watermark.Watermark;
@@ -91,6 +92,23 @@ public class SelectorWatermarkPollingInterceptor extends WatermarkPollingInterce
         return event;
     }
 
+    /**
+     * Saves the value selected by this interceptor's selector, so that polls using
+     * selectors of their own update the watermark independently
+     */
+    @Override
+    public void postProcessRouting(MuleEvent event) throws ObjectStoreException
+    {
+        try
+        {
+            this.watermark.updateFrom(event, this.selector.getSelectedValue());
+        }
+        finally
+        {
+            this.selector.reset();
+        }
+    }
+
     private static class SelectorIteratorProxy<T> implements Iterator<T>, ProvidesTotalHint
     {
         private final Iterator<T> delegate;
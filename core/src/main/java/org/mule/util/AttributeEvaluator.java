@@ -18,10 +18,11 @@ import java.util.regex.Pattern;
 public class AttributeEvaluator
 {
     private static final Pattern SINGLE_EXPRESSION_REGEX_PATTERN = Pattern.compile("^#\\[(?:(?!#\\[).)*\\]$");
+    private static final TemplateParser PARSER = TemplateParser.createMuleStyleParser();
 
     private enum AttributeType
     {
-        EXPRESSION, STRING
+        EXPRESSION, TEMPLATE, STRING
     }
 
     private final String attributeValue;
@@ -45,6 +46,10 @@ public class AttributeEvaluator
         {
             this.attributeType = AttributeType.EXPRESSION;
         }
+        else if (PARSER.isContainsTemplate(attributeValue))
+        {
+            this.attributeType = AttributeType.TEMPLATE;
+        }
         else
         {
             this.attributeType = AttributeType.STRING;
@@ -63,7 +68,7 @@ public class AttributeEvaluator
 
     public boolean isString()
     {
-        return attributeType.equals(AttributeType.STRING);
+        return !isExpression();
     }
 
     public Object resolveValue(MuleMessage message)
@@ -72,10 +77,15 @@ public class AttributeEvaluator
         {
             return expressionManager.evaluate(attributeValue, message);
         }
-        else
+        else if (attributeType.equals(AttributeType.TEMPLATE))
         {
             return expressionManager.parse(attributeValue, message);
         }
+        else
+        {
+            // Plain text, there is nothing to parse
+            return attributeValue;
+        }
     }
 
     public String getRawValue()
@@ -66,8 +66,10 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.PushbackInputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -99,6 +101,9 @@ public final class Base64
 
     /* ******** P R I V A T E F I E L D S ******** */
 
+    /** Number of groups of bytes converted at a time by the stream methods. */
+    private static final int STREAM_BUFFER_GROUPS = 1024;
+
     /** Maximum line length (76) of Base64 output. */
     private static final int MAX_LINE_LENGTH = 76;
 
@@ -141,7 +146,8 @@ public final class Base64
 
     /**
      * Translates a Base64 value to either its 6-bit reconstruction value or a
-     * negative number indicating some other meaning.
+     * negative number indicating some other meaning. It has an entry for every
+     * unsigned byte value, so it must be indexed with <code>b &amp; 0xFF</code>.
      */
     private static final byte[] DECODABET = {-9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal
         // 0 -
@@ -167,23 +173,20 @@ public final class Base64
                                                             // 'm'
         39, 40, 41, 42, 43, 44, 45, 46, 47, 48, 49, 50, 51, // Letters 'n' through
                                                             // 'z'
-        -9, -9, -9, -9 // Decimal 123 - 126
-    /*
-     * ,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 127 - 139
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 140 - 152
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 153 - 165
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 166 - 178
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 179 - 191
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 192 - 204
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 205 - 217
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 218 - 230
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9, // Decimal 231 - 243
-     * -9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9,-9 // Decimal 244 - 255
-     */
+        -9, -9, -9, -9, // Decimal 123 - 126
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 127 - 139
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 140 - 152
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 153 - 165
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 166 - 178
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 179 - 191
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 192 - 204
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 205 - 217
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 218 - 230
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, // Decimal 231 - 243
+        -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9, -9 // Decimal 244 - 255
     };
 
-    // I think I end up not using the BAD_ENCODING indicator.
-    // private static final byte BAD_ENCODING = -9; // Indicates error in
+    private static final byte BAD_ENCODING = -9; // Indicates error in
     // encoding
     private static final byte WHITE_SPACE_ENC = -5; // Indicates white space in
     // encoding
@@ -591,8 +594,8 @@ public final class Base64
             // int outBuff = ( ( DECODABET[ source[ srcOffset ] ] << 24 ) >>> 6
             // )
             // | ( ( DECODABET[ source[ srcOffset + 1] ] << 24 ) >>> 12 );
-            int outBuff = ((DECODABET[source[srcOffset]] & 0xFF) << 18)
-                          | ((DECODABET[source[srcOffset + 1]] & 0xFF) << 12);
+            int outBuff = ((DECODABET[source[srcOffset] & 0xFF] & 0xFF) << 18)
+                          | ((DECODABET[source[srcOffset + 1] & 0xFF] & 0xFF) << 12);
 
             destination[destOffset] = (byte) (outBuff >>> 16);
             return 1;
@@ -606,9 +609,9 @@ public final class Base64
             // )
             // | ( ( DECODABET[ source[ srcOffset + 1 ] ] << 24 ) >>> 12 )
             // | ( ( DECODABET[ source[ srcOffset + 2 ] ] << 24 ) >>> 18 );
-            int outBuff = ((DECODABET[source[srcOffset]] & 0xFF) << 18)
-                          | ((DECODABET[source[srcOffset + 1]] & 0xFF) << 12)
-                          | ((DECODABET[source[srcOffset + 2]] & 0xFF) << 6);
+            int outBuff = ((DECODABET[source[srcOffset] & 0xFF] & 0xFF) << 18)
+                          | ((DECODABET[source[srcOffset + 1] & 0xFF] & 0xFF) << 12)
+                          | ((DECODABET[source[srcOffset + 2] & 0xFF] & 0xFF) << 6);
 
             destination[destOffset] = (byte) (outBuff >>> 16);
             destination[destOffset + 1] = (byte) (outBuff >>> 8);
@@ -627,10 +630,10 @@ public final class Base64
                 // | ( ( DECODABET[ source[ srcOffset + 1 ] ] << 24 ) >>> 12 )
                 // | ( ( DECODABET[ source[ srcOffset + 2 ] ] << 24 ) >>> 18 )
                 // | ( ( DECODABET[ source[ srcOffset + 3 ] ] << 24 ) >>> 24 );
-                int outBuff = ((DECODABET[source[srcOffset]] & 0xFF) << 18)
-                              | ((DECODABET[source[srcOffset + 1]] & 0xFF) << 12)
-                              | ((DECODABET[source[srcOffset + 2]] & 0xFF) << 6)
-                              | ((DECODABET[source[srcOffset + 3]] & 0xFF));
+                int outBuff = ((DECODABET[source[srcOffset] & 0xFF] & 0xFF) << 18)
+                              | ((DECODABET[source[srcOffset + 1] & 0xFF] & 0xFF) << 12)
+                              | ((DECODABET[source[srcOffset + 2] & 0xFF] & 0xFF) << 6)
+                              | ((DECODABET[source[srcOffset + 3] & 0xFF] & 0xFF));
 
                 destination[destOffset] = (byte) (outBuff >> 16);
                 destination[destOffset + 1] = (byte) (outBuff >> 8);
@@ -642,10 +645,10 @@ public final class Base64
             {
                 // this is not good.
                 StringBuffer msg = new StringBuffer(64);
-                msg.append(source[srcOffset]).append(": ").append(DECODABET[source[srcOffset]]);
-                msg.append(source[srcOffset + 1]).append(": ").append(DECODABET[source[srcOffset + 1]]);
-                msg.append(source[srcOffset + 2]).append(": ").append(DECODABET[source[srcOffset + 2]]);
-                msg.append(source[srcOffset + 3]).append(": ").append(DECODABET[source[srcOffset + 3]]);
+                msg.append(source[srcOffset]).append(": ").append(DECODABET[source[srcOffset] & 0xFF]);
+                msg.append(source[srcOffset + 1]).append(": ").append(DECODABET[source[srcOffset + 1] & 0xFF]);
+                msg.append(source[srcOffset + 2]).append(": ").append(DECODABET[source[srcOffset + 2] & 0xFF]);
+                msg.append(source[srcOffset + 3]).append(": ").append(DECODABET[source[srcOffset + 3] & 0xFF]);
                 throw (IllegalStateException) new IllegalStateException(msg.toString()).initCause(e);
             } // end catch
         }
@@ -675,8 +678,8 @@ public final class Base64
         byte sbiDecode = 0;
         for (i = off; i < off + len; i++)
         {
-            sbiCrop = (byte) (source[i] & 0x7f); // Only the low seven bits
-            sbiDecode = DECODABET[sbiCrop];
+            sbiCrop = source[i];
+            sbiDecode = DECODABET[sbiCrop & 0xFF];
 
             if (sbiDecode >= WHITE_SPACE_ENC) // White space, Equals sign or
             // better
@@ -735,6 +738,18 @@ public final class Base64
         // Decode
         bytes = decode(bytes, 0, bytes.length);
 
+        return gunzipIfCompressed(bytes);
+    } // end decode
+
+    /**
+     * Decompresses data decoded from Base64 notation if it is gzip-compressed,
+     * otherwise returns it as it is.
+     * 
+     * @param bytes the decoded data
+     * @return the decompressed data
+     */
+    public static byte[] gunzipIfCompressed(byte[] bytes)
+    {
         // Check to see if it's gzip-compressed
         // GZIP Magic Two-Byte Number: 0x8b1f (35615)
         if (bytes != null && bytes.length >= 4)
@@ -779,6 +794,239 @@ public final class Base64
         } // end if: bytes.length >= 2
 
         return bytes;
+    } // end gunzipIfCompressed
+
+    /**
+     * Wraps a stream of data decoded from Base64 notation so that it is
+     * decompressed as it is read if it is gzip-compressed, otherwise it is read as
+     * it is. Unlike {@link #gunzipIfCompressed(byte[])} the data can't be returned
+     * unchanged once decompression has started, so corrupt gzip data results in an
+     * <tt>IOException</tt> when reading.
+     * 
+     * @param in the decoded data
+     * @return a stream over the decompressed data
+     * @throws IOException if the start of the data can't be read
+     */
+    public static java.io.InputStream gunzipIfCompressed(java.io.InputStream in) throws IOException
+    {
+        PushbackInputStream pushback = new PushbackInputStream(in, 2);
+        byte[] head = new byte[2];
+        int length = 0;
+        while (length < head.length)
+        {
+            int read = pushback.read(head, length, head.length - length);
+            if (read < 0)
+            {
+                break;
+            }
+            length += read;
+        }
+        pushback.unread(head, 0, length);
+
+        if (length == head.length && GZIPInputStream.GZIP_MAGIC == ((head[0] & 0xff) | ((head[1] << 8) & 0xff00)))
+        {
+            return new GZIPInputStream(pushback);
+        }
+        return pushback;
+    } // end gunzipIfCompressed
+
+    /* ******** B U F F E R A N D S T R E A M M E T H O D S ******** */
+
+    /**
+     * Encodes the bytes remaining in <var>source</var> into <var>destination</var>
+     * without breaking lines, translating them with the lookup table and without any
+     * intermediate array. Only complete groups of three bytes are encoded unless
+     * <var>endOfInput</var> is true, in which case the last one or two bytes are
+     * encoded with padding. Bytes that could not be encoded, because of that or
+     * because <var>destination</var> is full, are left in <var>source</var> so
+     * that encoding can be resumed with more input or a drained destination.
+     * 
+     * @param source the data to convert
+     * @param destination the buffer to hold the conversion
+     * @param endOfInput whether <var>source</var> holds the last bytes to encode
+     */
+    public static void encode(ByteBuffer source, ByteBuffer destination, boolean endOfInput)
+    {
+        while (source.remaining() >= 3 && destination.remaining() >= 4)
+        {
+            int bits = ((source.get() & 0xFF) << 16) | ((source.get() & 0xFF) << 8) | (source.get() & 0xFF);
+            destination.put(ALPHABET[bits >>> 18]);
+            destination.put(ALPHABET[(bits >>> 12) & 0x3F]);
+            destination.put(ALPHABET[(bits >>> 6) & 0x3F]);
+            destination.put(ALPHABET[bits & 0x3F]);
+        }
+        if (endOfInput && source.hasRemaining() && source.remaining() < 3 && destination.remaining() >= 4)
+        {
+            int numSigBytes = source.remaining();
+            int bits = (source.get() & 0xFF) << 16;
+            if (numSigBytes > 1)
+            {
+                bits |= (source.get() & 0xFF) << 8;
+            }
+            destination.put(ALPHABET[bits >>> 18]);
+            destination.put(ALPHABET[(bits >>> 12) & 0x3F]);
+            destination.put(numSigBytes > 1 ? ALPHABET[(bits >>> 6) & 0x3F] : EQUALS_SIGN);
+            destination.put(EQUALS_SIGN);
+        }
+    } // end encode
+
+    /**
+     * Decodes the Base64 notation remaining in <var>source</var> into
+     * <var>destination</var>, skipping white space. Only complete groups of four
+     * characters are decoded; an incomplete group is left in <var>source</var> so
+     * that decoding can be resumed with more input. Decoding stops after a group
+     * with padding, since that is the end of the encoded data.
+     * 
+     * @param source the Base64 encoded data
+     * @param destination the buffer to hold the decoded data
+     * @return true if the end of the encoded data was reached
+     * @throws IllegalArgumentException if <var>source</var> contains a character
+     *             that is not valid Base64 notation
+     */
+    public static boolean decode(ByteBuffer source, ByteBuffer destination)
+    {
+        while (destination.remaining() >= 3)
+        {
+            while (source.hasRemaining() && isWhiteSpace(source.get(source.position())))
+            {
+                source.get();
+            }
+            int groupStart = source.position();
+            int bits = 0;
+            int chars = 0;
+            int padding = 0;
+            while (chars < 4 && source.hasRemaining())
+            {
+                byte b = source.get();
+                byte decoded = DECODABET[b & 0xFF];
+                if (decoded == WHITE_SPACE_ENC)
+                {
+                    continue;
+                }
+                if (decoded == EQUALS_SIGN_ENC && chars >= 2)
+                {
+                    padding++;
+                    bits <<= 6;
+                }
+                else if (decoded >= 0 && padding == 0)
+                {
+                    bits = (bits << 6) | decoded;
+                }
+                else
+                {
+                    throw new IllegalArgumentException("Bad Base64 input character at " + (source.position() - 1)
+                                                       + ": " + b + "(decimal)");
+                }
+                chars++;
+            }
+            if (chars < 4)
+            {
+                source.position(groupStart);
+                return false;
+            }
+            destination.put((byte) (bits >>> 16));
+            if (padding < 2)
+            {
+                destination.put((byte) (bits >>> 8));
+            }
+            if (padding < 1)
+            {
+                destination.put((byte) bits);
+            }
+            else
+            {
+                return true;
+            }
+        }
+        return false;
+    } // end decode
+
+    private static boolean isWhiteSpace(byte b)
+    {
+        return DECODABET[b & 0xFF] == WHITE_SPACE_ENC;
+    }
+
+    /**
+     * Encodes everything read from <var>in</var> into Base64 notation without
+     * breaking lines, writing it to <var>out</var> as it is read. Neither stream is
+     * closed.
+     * 
+     * @param in the data to convert
+     * @param out the stream to write the Base64 notation to
+     * @return the number of bytes written
+     * @throws IOException if reading or writing fails
+     */
+    public static long encode(java.io.InputStream in, java.io.OutputStream out) throws IOException
+    {
+        ByteBuffer input = ByteBuffer.allocate(3 * STREAM_BUFFER_GROUPS);
+        ByteBuffer output = ByteBuffer.allocate(4 * STREAM_BUFFER_GROUPS);
+        long written = 0;
+        boolean endOfInput = false;
+        while (!endOfInput)
+        {
+            int read = in.read(input.array(), input.position(), input.remaining());
+            if (read < 0)
+            {
+                endOfInput = true;
+            }
+            else
+            {
+                input.position(input.position() + read);
+            }
+            input.flip();
+            encode(input, output, endOfInput);
+            input.compact();
+            out.write(output.array(), 0, output.position());
+            written += output.position();
+            output.clear();
+        }
+        return written;
+    } // end encode
+
+    /**
+     * Decodes the Base64 notation read from <var>in</var>, writing the decoded data
+     * to <var>out</var> as it is read. Neither stream is closed. Unlike
+     * {@link #decode(String)} gzip-compressed data is not decompressed.
+     * 
+     * @param in the Base64 encoded data
+     * @param out the stream to write the decoded data to
+     * @return the number of bytes written
+     * @throws IOException if reading or writing fails or the input is not valid
+     *             Base64 notation
+     */
+    public static long decode(java.io.InputStream in, java.io.OutputStream out) throws IOException
+    {
+        ByteBuffer input = ByteBuffer.allocate(4 * STREAM_BUFFER_GROUPS);
+        ByteBuffer output = ByteBuffer.allocate(3 * STREAM_BUFFER_GROUPS);
+        long written = 0;
+        boolean endOfData = false;
+        int read = 0;
+        while (!endOfData && read >= 0)
+        {
+            if (!input.hasRemaining())
+            {
+                throw new IOException("Base64 input has too much white space within a group of characters");
+            }
+            read = in.read(input.array(), input.position(), input.remaining());
+            if (read > 0)
+            {
+                input.position(input.position() + read);
+            }
+            input.flip();
+            try
+            {
+                endOfData = decode(input, output);
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw (IOException) new IOException(e.getMessage()).initCause(e);
+            }
+            input.compact();
+            out.write(output.array(), 0, output.position());
+            written += output.position();
+            output.clear();
+        }
+        return written;
     } // end decode
 
     /**
@@ -1100,7 +1348,7 @@ public final class Base64
                         {
                             b = in.read();
                         }
-                        while (b >= 0 && DECODABET[b & 0x7f] <= WHITE_SPACE_ENC);
+                        while (b >= 0 && DECODABET[b] <= WHITE_SPACE_ENC);
 
                         if (b < 0)
                         {
@@ -1316,7 +1564,7 @@ public final class Base64
             else
             {
                 // Meaningful Base64 character?
-                if (DECODABET[theByte & 0x7f] > WHITE_SPACE_ENC)
+                if (DECODABET[theByte & 0xFF] > WHITE_SPACE_ENC)
                 {
                     buffer[position++] = (byte) theByte;
                     if (position >= bufferLength) // Enough to output.
@@ -1327,7 +1575,7 @@ public final class Base64
                         position = 0;
                     } // end if: enough to output
                 } // end if: meaningful base64 character
-                else if (DECODABET[theByte & 0x7f] != WHITE_SPACE_ENC)
+                else if (DECODABET[theByte & 0xFF] != WHITE_SPACE_ENC)
                 {
                     throw new IOException("Invalid character in Base64 data.");
                 } // end else: not white space either
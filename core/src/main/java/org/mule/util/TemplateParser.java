@@ -11,6 +11,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,6 +33,19 @@ public final class TemplateParser
     private static final String DOLLAR_ESCAPE = "@@@";
     private static final String NULL_AS_STRING = "null";
 
+    /**
+     * Templates come from configuration so there are normally only a few of them, but callers may also parse
+     * strings built at runtime. Once this many templates are cached, new ones are compiled for every call.
+     */
+    private static final int MAX_CACHED_TEMPLATES = 1024;
+
+    /**
+     * Largest builder kept for reuse by {@link CompiledTemplate#render(TemplateCallback)}
+     */
+    private static final int MAX_REUSED_BUILDER_CAPACITY = 8 * 1024;
+
+    private static final ThreadLocal<StringBuilder> renderBuilder = new ThreadLocal<StringBuilder>();
+
     private static final Map<String, PatternInfo> patterns = new HashMap<String, PatternInfo>();
 
     static
@@ -61,7 +76,7 @@ public final class TemplateParser
     private final int pre;
     private final int post;
     private final PatternInfo style;
-
+    private final ConcurrentMap<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<String, CompiledTemplate>();
 
     public static TemplateParser createAntStyleParser()
     {
@@ -126,8 +141,41 @@ public final class TemplateParser
         return parse(null, template, callback);
     }
 
+    /**
+     * Splits a template into its literal parts and the tokens to resolve when it is rendered, so that
+     * templates which are parsed over and over are only matched against the pattern once. Compiled
+     * templates that contain tokens are cached by this parser.
+     *
+     * @param template the string containing the template place holders i.e. My name is ${name}
+     * @return the compiled template
+     */
+    public CompiledTemplate compile(String template)
+    {
+        CompiledTemplate compiled = compiledTemplates.get(template);
+        if (compiled == null)
+        {
+            compiled = new CompiledTemplate(template);
+            // Strings without tokens are more likely to be data than configuration, and are cheap to compile
+            if (compiled.isContainsTemplate() && compiledTemplates.size() < MAX_CACHED_TEMPLATES)
+            {
+                CompiledTemplate previous = compiledTemplates.putIfAbsent(template, compiled);
+                if (previous != null)
+                {
+                    compiled = previous;
+                }
+            }
+        }
+        return compiled;
+    }
+
     protected String parse(Map<?, ?> props, String template, TemplateCallback callback)
     {
+        if (callback != null)
+        {
+            // Every token is resolved through the callback, so the compiled template renders the same result
+            return compile(template).render(callback);
+        }
+
         String result = template;
         Map<?, ?> newProps = props;
         if (props != null && !(props instanceof CaseInsensitiveHashMap))
@@ -144,15 +192,7 @@ public final class TemplateParser
             String match = m.group();
             String propname = match.substring(pre, match.length() - post);
 
-            if (callback != null)
-            {
-                value = callback.match(propname);
-                if (value == null)
-                {
-                    value = NULL_AS_STRING;
-                }
-            }
-            else if (newProps != null)
+            if (newProps != null)
             {
                 value = newProps.get(propname);
             }
@@ -290,6 +330,149 @@ public final class TemplateParser
         Object match(String token);
     }
 
+    /**
+     * A template split into literal parts and tokens. It is immutable so the same instance can be rendered
+     * concurrently by any number of threads.
+     */
+    public final class CompiledTemplate
+    {
+        private final String template;
+        private final String[] literals;
+        private final String[] tokens;
+        private final int[] firstOccurrences;
+        private final int literalLength;
+
+        private CompiledTemplate(String template)
+        {
+            this.template = template;
+
+            List<String> literalList = new ArrayList<String>();
+            List<String> tokenList = new ArrayList<String>();
+            Matcher m = pattern.matcher(template);
+            int literalStart = 0;
+            while (m.find())
+            {
+                literalList.add(unescapeDollars(template.substring(literalStart, m.start())));
+                tokenList.add(template.substring(m.start() + pre, m.end() - post));
+                literalStart = m.end();
+            }
+            literalList.add(unescapeDollars(template.substring(literalStart)));
+
+            this.literals = literalList.toArray(new String[literalList.size()]);
+            this.tokens = tokenList.toArray(new String[tokenList.size()]);
+            this.firstOccurrences = new int[tokens.length];
+            int length = 0;
+            for (int i = 0; i < tokens.length; i++)
+            {
+                firstOccurrences[i] = tokenList.indexOf(tokens[i]);
+            }
+            for (String literal : literals)
+            {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        /**
+         * Resolves every token through the callback and returns the template with the tokens replaced by
+         * their values. A token that appears more than once is only resolved the first time. Null values are
+         * rendered as "null".
+         *
+         * @param callback used to resolve the tokens
+         * @return the rendered String
+         */
+        public String render(TemplateCallback callback)
+        {
+            if (tokens.length == 0)
+            {
+                return literals[0];
+            }
+
+            // Tokens may be resolved by parsing other templates on this same thread, so the builder is
+            // taken out of the thread local while in use and those nested renders get a new one
+            StringBuilder builder = renderBuilder.get();
+            if (builder == null)
+            {
+                builder = new StringBuilder(literalLength + 16 * tokens.length);
+            }
+            else
+            {
+                renderBuilder.set(null);
+            }
+
+            try
+            {
+                String[] values = new String[tokens.length];
+                builder.append(literals[0]);
+                for (int i = 0; i < tokens.length; i++)
+                {
+                    int first = firstOccurrences[i];
+                    if (first == i)
+                    {
+                        values[i] = resolve(callback, tokens[i]);
+                    }
+                    else
+                    {
+                        values[i] = values[first];
+                    }
+                    builder.append(values[i]).append(literals[i + 1]);
+                }
+                return builder.toString();
+            }
+            finally
+            {
+                if (builder.capacity() <= MAX_REUSED_BUILDER_CAPACITY)
+                {
+                    builder.setLength(0);
+                    renderBuilder.set(builder);
+                }
+            }
+        }
+
+        private String resolve(TemplateCallback callback, String token)
+        {
+            Object value = callback.match(token);
+            if (value == null)
+            {
+                return NULL_AS_STRING;
+            }
+            return unescapeDollars(value.toString());
+        }
+
+        /**
+         * @return true if the template has any token to resolve
+         */
+        public boolean isContainsTemplate()
+        {
+            return tokens.length > 0;
+        }
+
+        public String getTemplate()
+        {
+            return template;
+        }
+
+        @Override
+        public String toString()
+        {
+            return template;
+        }
+    }
+
+    /**
+     * {@link #parse(Map, String, TemplateCallback)} escapes dollars in values as {@link #DOLLAR_ESCAPE} and
+     * then turns every occurrence of it in the result back into a dollar, so this does the same for
+     * compiled templates.
+     */
+    private static String unescapeDollars(String value)
+    {
+        if (value.indexOf(DOLLAR_ESCAPE) != -1)
+        {
+            return value.replace(DOLLAR_ESCAPE, "$");
+        }
+        return value;
+    }
+
 
     public static class PatternInfo
     {
@@ -7,6 +7,7 @@
 package org.mule.util;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.io.Writer;
 import java.util.HashMap;
 import java.util.Map;
@@ -22,6 +23,13 @@ public final class XMLEntityCodec
 {
     private static final Entities MuleEntities = new Entities();
 
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * Longer than any entity name or character reference we can decode, including the ampersand and semicolon
+     */
+    private static final int MAX_ENTITY_LENGTH = 32;
+
     static
     {
         MuleEntities.addEntities(Entities.APOS_ARRAY);
@@ -55,6 +63,78 @@ public final class XMLEntityCodec
         return MuleEntities.unescape(str);
     }
 
+    /**
+     * Encodes the characters read from <code>reader</code> and writes them to <code>writer</code> as they
+     * are read, so that large documents don't need to be held in memory. Neither the reader nor the writer
+     * are closed.
+     */
+    public static void encode(Reader reader, Writer writer) throws IOException
+    {
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = reader.read(buffer)) >= 0)
+        {
+            MuleEntities.escape(writer, buffer, 0, read);
+        }
+    }
+
+    /**
+     * Decodes the characters read from <code>reader</code> and writes them to <code>writer</code> as they
+     * are read, giving the same result as {@link #decodeString(String)} on the whole content. Neither the
+     * reader nor the writer are closed.
+     */
+    public static void decode(Reader reader, Writer writer) throws IOException
+    {
+        char[] buffer = new char[BUFFER_SIZE];
+        StringBuilder entity = new StringBuilder(MAX_ENTITY_LENGTH);
+        boolean inEntity = false;
+        int read;
+        while ((read = reader.read(buffer)) >= 0)
+        {
+            int runStart = 0;
+            for (int i = 0; i < read; i++)
+            {
+                char c = buffer[i];
+                if (inEntity)
+                {
+                    if (c == '&' || Character.isWhitespace(c) || entity.length() == MAX_ENTITY_LENGTH)
+                    {
+                        // cannot be an entity, the text is left as it is
+                        writer.append(entity);
+                        inEntity = false;
+                        runStart = i;
+                    }
+                    else
+                    {
+                        entity.append(c);
+                        if (c == ';')
+                        {
+                            MuleEntities.unescape(writer, entity.toString());
+                            inEntity = false;
+                            runStart = i + 1;
+                        }
+                        continue;
+                    }
+                }
+                if (c == '&')
+                {
+                    writer.write(buffer, runStart, i - runStart);
+                    entity.setLength(0);
+                    entity.append(c);
+                    inEntity = true;
+                }
+            }
+            if (!inEntity)
+            {
+                writer.write(buffer, runStart, read - runStart);
+            }
+        }
+        if (inEntity)
+        {
+            writer.append(entity);
+        }
+    }
+
     /**
      * <p>
      * Returns the name of the entity identified by the specified value.
@@ -506,9 +586,19 @@ public final class XMLEntityCodec
          */
         public String escape(String str)
         {
-            // TODO: rewrite to use a Writer
-            StringBuffer buf = new StringBuffer(str.length() * 2);
-            for (int i = 0; i < str.length(); ++i)
+            int first = 0;
+            while (first < str.length() && !needsEscaping(str.charAt(first)))
+            {
+                first++;
+            }
+            if (first == str.length())
+            {
+                return str;
+            }
+
+            StringBuilder buf = new StringBuilder(str.length() + 16);
+            buf.append(str, 0, first);
+            for (int i = first; i < str.length(); ++i)
             {
                 char ch = str.charAt(i);
                 String entityName = this.entityName(ch);
@@ -536,6 +626,46 @@ public final class XMLEntityCodec
             return buf.toString();
         }
 
+        private boolean needsEscaping(char ch)
+        {
+            return ch > 0x7F || this.entityName(ch) != null;
+        }
+
+        /**
+         * Escapes <code>len</code> characters of <code>chars</code> starting at <code>off</code> and
+         * writes them to <code>writer</code>, writing runs of characters that need no escaping in a single
+         * call.
+         */
+        public void escape(Writer writer, char[] chars, int off, int len) throws IOException
+        {
+            int runStart = off;
+            int end = off + len;
+            for (int i = off; i < end; i++)
+            {
+                char c = chars[i];
+                if (!needsEscaping(c))
+                {
+                    continue;
+                }
+                writer.write(chars, runStart, i - runStart);
+                runStart = i + 1;
+                String entityName = this.entityName(c);
+                if (entityName == null)
+                {
+                    writer.write("&#");
+                    writer.write(Integer.toString(c, 10));
+                    writer.write(';');
+                }
+                else
+                {
+                    writer.write('&');
+                    writer.write(entityName);
+                    writer.write(';');
+                }
+            }
+            writer.write(chars, runStart, end - runStart);
+        }
+
         /**
          * <p>
          * Escapes the characters in the <code>String</code> passed and writes the
@@ -856,7 +986,7 @@ public final class XMLEntityCodec
         private static class LookupEntityMap extends PrimitiveEntityMap
         {
             private static final int LOOKUP_TABLE_SIZE = 256;
-            private String[] lookupTable;
+            private volatile String[] lookupTable;
 
             /**
              * {@inheritDoc}
@@ -895,11 +1025,13 @@ public final class XMLEntityCodec
              */
             private void createLookupTable()
             {
-                lookupTable = new String[LOOKUP_TABLE_SIZE];
+                // fill the table before publishing it since escaping may run concurrently
+                String[] table = new String[LOOKUP_TABLE_SIZE];
                 for (int i = 0; i < LOOKUP_TABLE_SIZE; ++i)
                 {
-                    lookupTable[i] = super.name(i);
+                    table[i] = super.name(i);
                 }
+                lookupTable = table;
             }
         }
 
@@ -8,15 +8,18 @@ package org.mule;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import org.mule.api.MuleMessage;
+import org.mule.api.transformer.DataType;
 import org.mule.api.transport.PropertyScope;
 import org.mule.session.DefaultMuleSession;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.tck.testmodels.fruit.Apple;
 import org.mule.tck.testmodels.fruit.Orange;
+import org.mule.transformer.types.DataTypeFactory;
 import org.mule.transformer.types.MimeTypes;
 import org.mule.transport.NullPayload;
 import org.mule.util.IOUtils;
@@ -25,6 +28,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -344,6 +348,42 @@ public class DefaultMuleMessageTestCase extends AbstractMuleContextTestCase
 
     }
 
+    @Test
+    public void testConversionOfPayloadIsReusedUntilPayloadChanges() throws Exception
+    {
+        MuleMessage message = new DefaultMuleMessage("1000.5", muleContext);
+        DataType<BigDecimal> decimal = DataTypeFactory.create(BigDecimal.class);
+
+        BigDecimal converted = message.getPayload(decimal);
+        assertEquals(new BigDecimal("1000.5"), converted);
+        assertSame(converted, message.getPayload(decimal));
+
+        message.setPayload("2000.5");
+        assertEquals(new BigDecimal("2000.5"), message.getPayload(decimal));
+    }
+
+    @Test
+    public void testConversionOfByteArrayPayloadIsNotReused() throws Exception
+    {
+        byte[] payload = TEST_MESSAGE.getBytes();
+        MuleMessage message = new DefaultMuleMessage(payload, muleContext);
+
+        assertEquals(TEST_MESSAGE, message.getPayload(DataType.STRING_DATA_TYPE));
+        payload[0] = 'X';
+        assertEquals("X" + TEST_MESSAGE.substring(1), message.getPayload(DataType.STRING_DATA_TYPE));
+    }
+
+    @Test
+    public void testConversionOfMutablePayloadIsNotReused() throws Exception
+    {
+        StringBuilder payload = new StringBuilder(TEST_MESSAGE);
+        MuleMessage message = new DefaultMuleMessage(payload, muleContext);
+
+        assertEquals(TEST_MESSAGE, message.getPayload(DataType.STRING_DATA_TYPE));
+        payload.append("!");
+        assertEquals(TEST_MESSAGE + "!", message.getPayload(DataType.STRING_DATA_TYPE));
+    }
+
     //
     // helpers
     //
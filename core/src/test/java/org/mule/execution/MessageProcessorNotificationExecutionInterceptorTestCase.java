@@ -182,4 +182,19 @@ public class MessageProcessorNotificationExecutionInterceptorTestCase extends Ab
 
         assertThat(serverNotifications.size(),Is.is(0));
     }
+
+    @Test
+    public void executesNextInterceptorDirectlyWithoutListeners() throws MuleException
+    {
+        Mockito.when(mockMuleEvent.getMuleContext().getNotificationManager()).thenReturn(mockNotificationManager);
+        Mockito.when(mockMuleEvent.isNotificationsEnabled()).thenReturn(true);
+        Mockito.when(mockNotificationManager.isNotificationEnabled(MessageProcessorNotification.class)).thenReturn(false);
+        Mockito.when(mockNextInterceptor.execute(mockMessageProcessor, mockMuleEvent)).thenReturn(mockResultMuleEvent);
+
+        MuleEvent result = messageProcessorNotificationExecutionInterceptor.execute(mockMessageProcessor, mockMuleEvent);
+
+        assertThat(result, is(mockResultMuleEvent));
+        Mockito.verify(mockNotificationManager, Mockito.never()).fireNotification(Mockito.any(ServerNotification.class));
+        Mockito.verify(mockMuleEvent, Mockito.never()).getFlowConstruct();
+    }
 }
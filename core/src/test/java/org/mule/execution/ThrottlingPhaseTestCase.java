@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.source.MessageSource;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+@SmallTest
+public class ThrottlingPhaseTestCase extends AbstractMuleTestCase
+{
+
+    @Mock
+    private ThrottlingPhaseTemplate mockTemplate;
+    @Mock
+    private MessageProcessContext mockContext;
+    @Mock
+    private PhaseResultNotifier mockNotifier;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MuleContext mockMuleContext;
+    private ThrottlingPhase phase;
+
+    @Before
+    public void setUp()
+    {
+        when(mockContext.getMessageSource()).thenReturn(mock(MessageSource.class));
+        phase = new ThrottlingPhase();
+        phase.setMuleContext(mockMuleContext);
+        phase.setMaxRequestsPerPeriod(2);
+        phase.setPeriodMillis(60000);
+    }
+
+    @Test
+    public void disabledUntilLimitIsSet()
+    {
+        assertTrue(phase.supportsTemplate(mockTemplate));
+        assertFalse(new ThrottlingPhase().supportsTemplate(mockTemplate));
+        assertFalse(phase.supportsTemplate(mock(ValidationPhaseTemplate.class)));
+    }
+
+    @Test
+    public void runsBeforeOtherPhases()
+    {
+        assertEquals(-1, phase.compareTo(new ValidationPhase()));
+        assertEquals(-1, phase.compareTo(new FlowProcessingPhase()));
+        assertEquals(0, phase.compareTo(new ThrottlingPhase()));
+    }
+
+    @Test
+    public void discardsMessagesOverLimit() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            phase.runPhase(mockTemplate, mockContext, mockNotifier);
+        }
+        verify(mockNotifier, times(2)).phaseSuccessfully();
+        verify(mockNotifier).phaseConsumedMessage();
+        verify(mockTemplate).discardMessageOnThrottlingExceeded();
+        verify(mockTemplate).setThrottlingPolicyStatistics(eq(1L), eq(2L), anyLong());
+        verify(mockTemplate, times(2)).setThrottlingPolicyStatistics(eq(0L), eq(2L), anyLong());
+        assertEquals(2, phase.getAcceptedCount());
+        assertEquals(1, phase.getRejectedCount());
+    }
+
+    @Test
+    public void limitsEachMessageSourceSeparately() throws Exception
+    {
+        MessageProcessContext otherContext = mock(MessageProcessContext.class);
+        when(otherContext.getMessageSource()).thenReturn(mock(MessageSource.class));
+        phase.setMaxRequestsPerPeriod(1);
+
+        phase.runPhase(mockTemplate, mockContext, mockNotifier);
+        phase.runPhase(mockTemplate, otherContext, mockNotifier);
+
+        verify(mockNotifier, times(2)).phaseSuccessfully();
+    }
+
+    @Test
+    public void limitsEachClientSeparately() throws Exception
+    {
+        MuleEvent event = mock(MuleEvent.class);
+        when(mockTemplate.getMuleEvent()).thenReturn(event);
+        when(mockMuleContext.getExpressionManager().evaluate("#[client]", event)).thenReturn("a", "b", "a");
+        phase.setClientKeyExpression("#[client]");
+        phase.setMaxRequestsPerPeriod(1);
+
+        for (int i = 0; i < 3; i++)
+        {
+            phase.runPhase(mockTemplate, mockContext, mockNotifier);
+        }
+
+        verify(mockNotifier, times(2)).phaseSuccessfully();
+        verify(mockNotifier).phaseConsumedMessage();
+    }
+
+    @Test
+    public void usesSlidingWindow() throws Exception
+    {
+        phase.setAlgorithm(ThrottlingPhase.SLIDING_WINDOW);
+        for (int i = 0; i < 3; i++)
+        {
+            phase.runPhase(mockTemplate, mockContext, mockNotifier);
+        }
+        verify(mockNotifier, times(2)).phaseSuccessfully();
+        verify(mockTemplate).discardMessageOnThrottlingExceeded();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownAlgorithm()
+    {
+        phase.setAlgorithm("leaky");
+    }
+}
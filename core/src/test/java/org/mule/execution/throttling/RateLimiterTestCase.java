@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.execution.throttling;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class RateLimiterTestCase extends AbstractMuleTestCase
+{
+    private static final long NOW = 1000000;
+
+    @Test
+    public void tokenBucketAcceptsBurstUpToCapacity()
+    {
+        RateLimiter limiter = new TokenBucketRateLimiter(3, 300);
+        assertEquals(2, limiter.tryAcquire(NOW).getRemaining());
+        assertEquals(1, limiter.tryAcquire(NOW).getRemaining());
+        assertEquals(0, limiter.tryAcquire(NOW).getRemaining());
+
+        ThrottlingResult rejected = limiter.tryAcquire(NOW);
+        assertFalse(rejected.isAllowed());
+        assertEquals(3, rejected.getLimit());
+        assertEquals(100, rejected.getResetMillis());
+    }
+
+    @Test
+    public void tokenBucketRefillsOverPeriod()
+    {
+        RateLimiter limiter = new TokenBucketRateLimiter(3, 300);
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(limiter.tryAcquire(NOW).isAllowed());
+        }
+        assertFalse(limiter.tryAcquire(NOW + 99).isAllowed());
+        assertTrue(limiter.tryAcquire(NOW + 100).isAllowed());
+        assertFalse(limiter.tryAcquire(NOW + 100).isAllowed());
+        assertEquals(2, limiter.tryAcquire(NOW + 1000).getRemaining());
+    }
+
+    @Test
+    public void slidingWindowLimitsMessagesPerWindow()
+    {
+        RateLimiter limiter = new SlidingWindowRateLimiter(2, 1000);
+        ThrottlingResult first = limiter.tryAcquire(NOW);
+        assertTrue(first.isAllowed());
+        assertEquals(1, first.getRemaining());
+        assertEquals(1000, first.getResetMillis());
+        assertTrue(limiter.tryAcquire(NOW + 500).isAllowed());
+
+        ThrottlingResult rejected = limiter.tryAcquire(NOW + 600);
+        assertFalse(rejected.isAllowed());
+        assertEquals(400, rejected.getResetMillis());
+    }
+
+    @Test
+    public void slidingWindowWeighsPreviousWindow()
+    {
+        RateLimiter limiter = new SlidingWindowRateLimiter(4, 1000);
+        for (int i = 0; i < 4; i++)
+        {
+            assertTrue(limiter.tryAcquire(NOW).isAllowed());
+        }
+        // a quarter into the next window three quarters of the previous count still apply
+        assertTrue(limiter.tryAcquire(NOW + 1250).isAllowed());
+        assertFalse(limiter.tryAcquire(NOW + 1250).isAllowed());
+        // after a window without messages nothing from older windows applies
+        assertEquals(3, limiter.tryAcquire(NOW + 3000).getRemaining());
+    }
+}
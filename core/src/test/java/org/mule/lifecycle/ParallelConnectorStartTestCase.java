@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.lifecycle;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleException;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.junit4.rule.SystemProperty;
+import org.mule.tck.testmodels.mule.TestConnector;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ParallelConnectorStartTestCase extends AbstractMuleContextTestCase
+{
+
+    @Rule
+    public SystemProperty connectorStartThreads = new SystemProperty(
+        RegistryLifecycleManager.CONNECTOR_START_THREADS_PROPERTY, "2");
+
+    private final CountDownLatch startingConnectors = new CountDownLatch(2);
+
+    @Test
+    public void startsConnectorsConcurrently() throws Exception
+    {
+        ConcurrentStartConnector first = registerConnector("first");
+        ConcurrentStartConnector second = registerConnector("second");
+
+        muleContext.start();
+
+        // each connector only starts once the other one is starting too
+        assertTrue(first.startedWithOther);
+        assertTrue(second.startedWithOther);
+        assertTrue(first.isStarted());
+        assertTrue(second.isStarted());
+    }
+
+    @Test
+    public void failsWhenAConnectorFailsToStart() throws Exception
+    {
+        registerConnector("first");
+        ConcurrentStartConnector failing = registerConnector("failing");
+        failing.setFailAtStartup(true);
+
+        try
+        {
+            muleContext.start();
+            fail("Connector start failure was not reported");
+        }
+        catch (MuleException e)
+        {
+            // expected
+        }
+        assertFalse(failing.isStarted());
+    }
+
+    private ConcurrentStartConnector registerConnector(String name) throws MuleException
+    {
+        ConcurrentStartConnector connector = new ConcurrentStartConnector(muleContext);
+        connector.setName(name);
+        muleContext.getRegistry().registerConnector(connector);
+        return connector;
+    }
+
+    private class ConcurrentStartConnector extends TestConnector
+    {
+
+        volatile boolean startedWithOther;
+
+        ConcurrentStartConnector(MuleContext context)
+        {
+            super(context);
+        }
+
+        @Override
+        protected void doStart()
+        {
+            startingConnectors.countDown();
+            try
+            {
+                startedWithOther = startingConnectors.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            super.doStart();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class LatencyHistogramTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void emptyHistogram()
+    {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        assertEquals(0, histogram.getTotalCount());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMinValue());
+    }
+
+    @Test
+    public void smallValuesAreExact()
+    {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        for (int i = 1; i <= 50; i++)
+        {
+            histogram.recordValue(i);
+        }
+        assertEquals(50, histogram.getTotalCount());
+        assertEquals(25, histogram.getValueAtPercentile(50));
+        assertEquals(50, histogram.getValueAtPercentile(100));
+        assertEquals(1, histogram.getMinValue());
+        assertEquals(25.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void largeValuesHaveBoundedError()
+    {
+        LatencyHistogram histogram = new LatencyHistogram(3600000);
+        for (long i = 1; i <= 100000; i++)
+        {
+            histogram.recordValue(i * 10);
+        }
+        assertWithinError(500000, histogram.getValueAtPercentile(50));
+        assertWithinError(990000, histogram.getValueAtPercentile(99));
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void bucketsAreContiguous()
+    {
+        LatencyHistogram histogram = new LatencyHistogram(Long.MAX_VALUE / 2);
+        int previous = -1;
+        for (long value = 0; value < 1000000; value++)
+        {
+            int index = histogram.indexFor(value);
+            assertTrue(index == previous || index == previous + 1);
+            assertTrue(histogram.highestValueFor(index) >= value);
+            previous = index;
+        }
+    }
+
+    @Test
+    public void valuesAboveRangeAreClamped()
+    {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        histogram.recordValue(5000);
+        histogram.recordValue(-1);
+        assertEquals(1000, histogram.getMaxValue());
+        assertEquals(0, histogram.getMinValue());
+    }
+
+    @Test
+    public void rollingWindowDropsOldSlices()
+    {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(60000, 6, 1000);
+        histogram.recordValue(100, 0);
+        histogram.recordValue(200, 30000);
+
+        assertEquals(2, histogram.getWindowSnapshot(30000).getTotalCount());
+        assertEquals(1, histogram.getWindowSnapshot(65000).getTotalCount());
+        assertEquals(200, histogram.getWindowSnapshot(65000).getMaxValue());
+        assertEquals(0, histogram.getWindowSnapshot(120000).getTotalCount());
+
+        histogram.recordValue(300, 60000);
+        assertEquals(2, histogram.getWindowSnapshot(60000).getTotalCount());
+        assertEquals(3, histogram.getLifetime().getTotalCount());
+    }
+
+    private void assertWithinError(long expected, long actual)
+    {
+        double error = Math.abs(actual - expected) / (double) expected;
+        assertTrue("Expected " + expected + " but was " + actual, error <= 1.0 / (1 << (LatencyHistogram.DEFAULT_PRECISION_BITS - 1)));
+    }
+}
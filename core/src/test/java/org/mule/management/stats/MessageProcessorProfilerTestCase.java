@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.management.stats;
+
+import org.mule.management.stats.MessageProcessorProfiler.ProfiledProcessor;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@SmallTest
+public class MessageProcessorProfilerTestCase extends AbstractMuleTestCase
+{
+    private static final String FOREACH = "/flow/processors/0";
+    private static final String INNER = "/flow/processors/0/0";
+    private static final String LOGGER = "/flow/processors/1";
+
+    private MessageProcessorProfiler profiler;
+
+    @Before
+    public void createProfiler()
+    {
+        profiler = new MessageProcessorProfiler();
+        profiler.setEnabled(true);
+        profiler.setSampleRate(1);
+    }
+
+    @Test
+    public void nothingRecordedWhenDisabled()
+    {
+        profiler.setEnabled(false);
+        assertFalse(profiler.enter(LOGGER, String.class));
+        assertTrue(profiler.getProfiledProcessors().isEmpty());
+    }
+
+    @Test
+    public void selfTimeExcludesNestedProcessors() throws Exception
+    {
+        assertTrue(profiler.enter(FOREACH, Object.class));
+        for (int i = 0; i < 3; i++)
+        {
+            assertTrue(profiler.enter(INNER, String.class));
+            Thread.sleep(5);
+            profiler.exit();
+        }
+        profiler.exit();
+
+        ProfiledProcessor foreach = profiler.getProfiledProcessors().get(FOREACH);
+        ProfiledProcessor inner = profiler.getProfiledProcessors().get(INNER);
+        assertEquals(1, foreach.getInvocations());
+        assertEquals(3, inner.getInvocations());
+        assertEquals(inner.getTotalTime(), inner.getSelfTime());
+        assertTrue(foreach.getTotalTime() >= inner.getTotalTime());
+        assertEquals(foreach.getTotalTime() - inner.getTotalTime(), foreach.getSelfTime());
+    }
+
+    @Test
+    public void samplesTopLevelInvocations()
+    {
+        profiler.setSampleRate(4);
+        for (int i = 0; i < 8; i++)
+        {
+            profiler.enter(FOREACH, Object.class);
+            profiler.enter(INNER, String.class);
+            profiler.exit();
+            profiler.exit();
+        }
+        assertEquals(2, profiler.getProfiledProcessors().get(FOREACH).getInvocations());
+        assertEquals(2, profiler.getProfiledProcessors().get(INNER).getInvocations());
+    }
+
+    @Test
+    public void invocationsOnOtherThreadsAreAggregatedByPath() throws Exception
+    {
+        profiler.enter(FOREACH, Object.class);
+        Thread asyncThread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                profiler.enter(INNER, String.class);
+                profiler.exit();
+            }
+        };
+        asyncThread.start();
+        asyncThread.join();
+        profiler.exit();
+
+        ProfiledProcessor foreach = profiler.getProfiledProcessors().get(FOREACH);
+        assertEquals(1, profiler.getProfiledProcessors().get(INNER).getInvocations());
+        assertEquals(foreach.getTotalTime(), foreach.getSelfTime());
+    }
+
+    @Test
+    public void writesCollapsedStacks() throws Exception
+    {
+        profiler.enter(FOREACH, Object.class);
+        profiler.enter(INNER, String.class);
+        Thread.sleep(2);
+        profiler.exit();
+        profiler.exit();
+
+        StringWriter writer = new StringWriter();
+        profiler.writeCollapsedStacks(writer);
+        assertTrue(writer.toString(), writer.toString().contains("flow;processors/0 Object;0 String "));
+    }
+
+    @Test
+    public void writesTree() throws Exception
+    {
+        profiler.enter(LOGGER, String.class);
+        profiler.exit();
+        profiler.enter(FOREACH, Object.class);
+        profiler.enter(INNER, String.class);
+        profiler.exit();
+        profiler.exit();
+
+        StringWriter writer = new StringWriter();
+        profiler.writeTree(writer);
+        String tree = writer.toString();
+        assertTrue(tree, tree.contains(FOREACH + "\n"));
+        assertTrue(tree, tree.contains("  0 String\n"));
+        assertTrue(tree, tree.contains(LOGGER + "\n"));
+    }
+
+    @Test
+    public void parentPathHonoursEscapedSlashes()
+    {
+        assertEquals("/flow/processors", MessageProcessorProfiler.getParentPath("/flow/processors/0"));
+        assertEquals("/fl\\/ow", MessageProcessorProfiler.getParentPath("/fl\\/ow/processors"));
+        assertNull(MessageProcessorProfiler.getParentPath("/fl\\/ow"));
+    }
+}
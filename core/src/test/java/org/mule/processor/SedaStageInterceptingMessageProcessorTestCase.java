@@ -21,6 +21,7 @@ import org.mule.api.MessagingException;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleRuntimeException;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.config.ThreadingProfile;
 import org.mule.api.exception.MessagingExceptionHandler;
 import org.mule.api.lifecycle.Initialisable;
@@ -29,7 +30,9 @@ import org.mule.api.lifecycle.Lifecycle;
 import org.mule.api.lifecycle.LifecycleState;
 import org.mule.api.lifecycle.Startable;
 import org.mule.api.lifecycle.Stoppable;
+import org.mule.api.processor.DemandSignal;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.QueueStore;
 import org.mule.config.ChainedThreadingProfile;
 import org.mule.config.QueueProfile;
 import org.mule.construct.Flow;
@@ -39,6 +42,7 @@ import org.mule.service.Pausable;
 import org.mule.util.concurrent.Latch;
 
 import java.beans.ExceptionListener;
+import java.io.Serializable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -228,6 +232,35 @@ public class SedaStageInterceptingMessageProcessorTestCase extends AsyncIntercep
         sedaStageInterceptingMessageProcessor.process(event);
     }
 
+    @Test
+    public void testDemandFollowsQueueDepth() throws Exception
+    {
+        QueueStore<Serializable> queueStore = muleContext.getRegistry().lookupObject(
+            MuleProperties.QUEUE_STORE_DEFAULT_IN_MEMORY_NAME);
+        QueueProfile boundedQueueProfile = new QueueProfile(2, queueStore);
+        SedaStageInterceptingMessageProcessor sedaStageInterceptingMessageProcessor = new SedaStageInterceptingMessageProcessor(
+            "testDemandFollowsQueueDepth", "testDemandFollowsQueueDepth", boundedQueueProfile, queueTimeout,
+            muleContext.getDefaultThreadingProfile(), queueStatistics, muleContext);
+        sedaStageInterceptingMessageProcessor.setListener(getSensingNullMessageProcessor());
+        sedaStageInterceptingMessageProcessor.initialise();
+
+        // not started, so nothing takes events off the queue
+        assertEquals(2, sedaStageInterceptingMessageProcessor.getDemand());
+        sedaStageInterceptingMessageProcessor.enqueue(getTestEvent(TEST_MESSAGE));
+        assertEquals(1, sedaStageInterceptingMessageProcessor.getDemand());
+        sedaStageInterceptingMessageProcessor.enqueue(getTestEvent(TEST_MESSAGE));
+        assertEquals(0, sedaStageInterceptingMessageProcessor.getDemand());
+
+        sedaStageInterceptingMessageProcessor.dequeue();
+        assertEquals(1, sedaStageInterceptingMessageProcessor.getDemand());
+    }
+
+    @Test
+    public void testDemandIsUnboundedWithoutQueueLimit() throws Exception
+    {
+        assertEquals(DemandSignal.UNBOUNDED, ((DemandSignal) messageProcessor).getDemand());
+    }
+
     @Override
     protected AsyncInterceptingMessageProcessor createAsyncInterceptingMessageProcessor(MessageProcessor listener)
         throws Exception
@@ -668,6 +668,34 @@ public class DefaultMessageProcessorChainTestCase extends AbstractMuleTestCase
         assertSame(event, response);
     }
 
+    @Test
+    public void executionPlanIsRefreshedWhenProcessorsAreAdded() throws Exception
+    {
+        MessageProcessorChain chain = new DefaultMessageProcessorChainBuilder().chain(new AppendingMP("1"),
+            new AppendingMP("2")).build();
+        chain.initialise();
+        assertEquals("012", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+
+        chain.getMessageProcessors().add(new AppendingMP("3"));
+        assertEquals("0123", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+    }
+
+    @Test
+    public void executionPlanIsRefreshedWhenProcessorsAreReplaced() throws Exception
+    {
+        MessageProcessorChain chain = new DefaultMessageProcessorChainBuilder().chain(new AppendingMP("1"),
+            new AppendingMP("2")).build();
+        chain.initialise();
+        assertEquals("012", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+
+        chain.getMessageProcessors().set(1, new AppendingMP("3"));
+        assertEquals("013", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+
+        chain.getMessageProcessors().remove(0);
+        chain.getMessageProcessors().add(new AppendingMP("4"));
+        assertEquals("034", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+    }
+
     static class TestNonIntercepting implements MessageProcessor
     {
         public MuleEvent process(MuleEvent event) throws MuleException
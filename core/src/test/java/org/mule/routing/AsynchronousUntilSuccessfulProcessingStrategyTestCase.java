@@ -30,10 +30,12 @@ import org.mule.tck.size.SmallTest;
 import org.mule.util.concurrent.Latch;
 import org.mule.util.store.SimpleMemoryObjectStore;
 
+import java.io.Serializable;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -56,6 +58,7 @@ public class AsynchronousUntilSuccessfulProcessingStrategyTestCase extends Abstr
     private ScheduledThreadPoolExecutor mockScheduledPool = mock(ScheduledThreadPoolExecutor.class, Answers.RETURNS_DEEP_STUBS.get());
     private SimpleMemoryObjectStore<MuleEvent> objectStore = new SimpleMemoryObjectStore<MuleEvent>();
     private boolean failRoute;
+    private final AtomicLong scheduleDelayAdjustment = new AtomicLong();
     private CountDownLatch routeCountDownLatch;
 
     @Before
@@ -129,6 +132,53 @@ public class AsynchronousUntilSuccessfulProcessingStrategyTestCase extends Abstr
         verify(mockEvent.getMessage(), times(1)).setPayload(expressionEvalutaionResult);
     }
 
+    @Test
+    public void pendingEventsAreIndexedFromStoreKeysOnStart() throws Exception
+    {
+        routeCountDownLatch = new Latch();
+        Serializable dueKey = AsynchronousUntilSuccessfulProcessingStrategy.buildQueueKey(mockEvent, 0);
+        Serializable futureKey = AsynchronousUntilSuccessfulProcessingStrategy.buildQueueKey(mockEvent, Long.MAX_VALUE);
+        objectStore.store(dueKey, mockEvent);
+        objectStore.store(futureKey, mockEvent);
+
+        createProcessingStrategy();
+        waitUntilRouteIsExecuted();
+        verify(mockRoute, times(1)).process(mockEvent);
+        assertThat(objectStore.contains(dueKey), is(false));
+        assertThat(objectStore.contains(futureKey), is(true));
+    }
+
+    @Test
+    public void pendingEventsNotDueOnStartAreRedeliveredOnTime() throws Exception
+    {
+        routeCountDownLatch = new Latch();
+        long attemptTime = System.currentTimeMillis() + 200;
+        Serializable futureKey = AsynchronousUntilSuccessfulProcessingStrategy.buildQueueKey(mockEvent, attemptTime);
+        objectStore.store(futureKey, mockEvent);
+
+        createProcessingStrategy();
+        waitUntilRouteIsExecuted();
+        assertThat(System.currentTimeMillis() >= attemptTime, is(true));
+        verify(mockRoute, times(1)).process(mockEvent);
+        assertThat(objectStore.contains(futureKey), is(false));
+    }
+
+    @Test
+    public void redeliveryFiringBeforeTheAttemptTimeIsScheduledAgain() throws Exception
+    {
+        routeCountDownLatch = new Latch();
+        // the timer fires early, as it measures the delay on a different clock
+        scheduleDelayAdjustment.set(-150);
+        long attemptTime = System.currentTimeMillis() + 200;
+        Serializable futureKey = AsynchronousUntilSuccessfulProcessingStrategy.buildQueueKey(mockEvent, attemptTime);
+        objectStore.store(futureKey, mockEvent);
+
+        createProcessingStrategy();
+        waitUntilRouteIsExecuted();
+        verify(mockRoute, times(1)).process(mockEvent);
+        assertThat(objectStore.contains(futureKey), is(false));
+    }
+
     private void executeUntilSuccessfulFailingRoute() throws Exception
     {
         failRoute = true;
@@ -168,15 +218,21 @@ public class AsynchronousUntilSuccessfulProcessingStrategyTestCase extends Abstr
             @Override
             public Object answer(final InvocationOnMock invocationOnMock) throws Throwable
             {
-                assertThat((Long) invocationOnMock.getArguments()[1], is(mockUntilSuccessfulConfiguration.getSecondsBetweenRetries()));
-                assertThat((TimeUnit) invocationOnMock.getArguments()[2], is(TimeUnit.SECONDS));
-                new Thread(new Runnable()
+                final long delay = (Long) invocationOnMock.getArguments()[1];
+                assertThat(delay >= 0, is(true));
+                assertThat((TimeUnit) invocationOnMock.getArguments()[2], is(TimeUnit.MILLISECONDS));
+                Thread thread = new Thread(new Runnable()
                 {
                     @Override
                     public void run()
                     {
                         try
                         {
+                            long adjustedDelay = delay + scheduleDelayAdjustment.getAndSet(0);
+                            if (adjustedDelay > 0)
+                            {
+                                Thread.sleep(adjustedDelay);
+                            }
                             ((Callable) invocationOnMock.getArguments()[0]).call();
                         }
                         catch (Exception e)
@@ -184,7 +240,10 @@ public class AsynchronousUntilSuccessfulProcessingStrategyTestCase extends Abstr
                             //Do nothing.
                         }
                     }
-                }).start();
+                });
+                // redeliveries of events far in the future never run
+                thread.setDaemon(true);
+                thread.start();
                 return null;
             }
         });
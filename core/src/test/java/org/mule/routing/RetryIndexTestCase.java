@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+@SmallTest
+public class RetryIndexTestCase extends AbstractMuleTestCase
+{
+
+    private final RetryIndex index = new RetryIndex();
+
+    @Test
+    public void pollsDueKeysInAttemptTimeOrder()
+    {
+        index.add("late", 300);
+        index.add("early", 100);
+        index.add("notDue", 1000);
+        index.add("sameTimeAsEarly", 100);
+
+        assertThat(index.hasDue(99), is(false));
+        assertThat(index.pollDue(99, 10).isEmpty(), is(true));
+        assertThat(index.pollDue(500, 2), is(Arrays.<Serializable> asList("early", "sameTimeAsEarly")));
+        assertThat(index.pollDue(500, 2), is(Collections.<Serializable> singletonList("late")));
+        assertThat(index.hasDue(500), is(false));
+        assertThat(index.size(), is(1));
+    }
+
+    @Test
+    public void peeksTheEarliestAttemptTime()
+    {
+        assertThat(index.nextAttemptTime(), is(-1L));
+
+        index.add("late", 300);
+        index.add("early", 100);
+
+        assertThat(index.nextAttemptTime(), is(100L));
+        index.pollDue(100, 10);
+        assertThat(index.nextAttemptTime(), is(300L));
+    }
+
+    @Test
+    public void keyIdsCarryTheAttemptTime()
+    {
+        String keyId = RetryIndex.buildKeyId("flow-cluster-1234", 1389000000000L);
+
+        assertThat(RetryIndex.getAttemptTime(keyId), is(1389000000000L));
+        assertThat(RetryIndex.getBaseId(keyId), is("flow-cluster-1234"));
+        assertThat(RetryIndex.getBaseId(RetryIndex.buildKeyId(keyId, 5)), is(keyId));
+    }
+
+    @Test
+    public void keyIdsWithoutAttemptTimeAreDueRightAway()
+    {
+        assertThat(RetryIndex.getAttemptTime("flow@1a2b-cluster-1234"), is(0L));
+        assertThat(RetryIndex.getBaseId("flow@1a2b-cluster-1234"), is("flow@1a2b-cluster-1234"));
+        assertThat(RetryIndex.getAttemptTime("flow-cluster-1234@"), is(0L));
+    }
+}
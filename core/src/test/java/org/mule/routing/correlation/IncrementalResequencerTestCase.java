@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing.correlation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.tck.MuleTestUtils;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class IncrementalResequencerTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String GROUP = "group";
+
+    private final List<Object> released = new ArrayList<Object>();
+    private final IncrementalResequencer.ReleaseCallback callback = new IncrementalResequencer.ReleaseCallback()
+    {
+        @Override
+        public MuleEvent release(MuleEvent event) throws MuleException
+        {
+            synchronized (released)
+            {
+                released.add(event.getMessage().getPayload());
+            }
+            return event;
+        }
+    };
+
+    private IncrementalResequencer resequencer;
+
+    @After
+    public void disposeResequencer()
+    {
+        if (resequencer != null)
+        {
+            resequencer.dispose();
+        }
+    }
+
+    @Test
+    public void releasesEventsAsSoonAsTheyAreInSequence() throws Exception
+    {
+        resequencer = createResequencer(10, 0);
+
+        assertNull(resequencer.process(createEvent(2, 4)));
+        assertEquals(1, resequencer.getReorderDepth());
+
+        assertNotNull(resequencer.process(createEvent(1, 4)));
+        assertEquals(Arrays.<Object> asList(1, 2), released);
+
+        assertNotNull(resequencer.process(createEvent(3, 4)));
+        assertNotNull(resequencer.process(createEvent(4, 4)));
+        assertEquals(Arrays.<Object> asList(1, 2, 3, 4), released);
+        assertEquals(0, resequencer.getReorderDepth());
+        assertEquals(1, resequencer.getGapWaitTime().getLifetime().getTotalCount());
+    }
+
+    @Test
+    public void spillsEventsBeyondTheReorderWindow() throws Exception
+    {
+        resequencer = createResequencer(2, 0);
+
+        for (int sequence : new int[] {6, 2, 5, 3, 4})
+        {
+            assertNull(resequencer.process(createEvent(sequence, 6)));
+        }
+        assertEquals(5, resequencer.getMaxReorderDepth());
+        assertEquals(3, resequencer.getSpilledEvents());
+
+        resequencer.process(createEvent(1, 6));
+        assertEquals(Arrays.<Object> asList(1, 2, 3, 4, 5, 6), released);
+        assertEquals(0, resequencer.getReorderDepth());
+    }
+
+    @Test
+    public void skipsMissingSequenceAfterGapTimeout() throws Exception
+    {
+        resequencer = createResequencer(10, 1);
+
+        assertNull(resequencer.process(createEvent(2, 3)));
+        Thread.sleep(20);
+        assertNotNull(resequencer.process(createEvent(3, 3)));
+        assertEquals(Arrays.<Object> asList(2, 3), released);
+
+        // the skipped event is let through when it finally arrives
+        resequencer.process(createEvent(1, 3));
+        assertEquals(Arrays.<Object> asList(2, 3, 1), released);
+    }
+
+    @Test
+    public void skipsMissingSequenceOnTimeoutWithoutFurtherEvents() throws Exception
+    {
+        resequencer = createResequencer(10, 100);
+
+        assertNull(resequencer.process(createEvent(2, 3)));
+        assertNull(resequencer.process(createEvent(3, 3)));
+        Thread.sleep(150);
+        resequencer.expire();
+
+        assertEquals(Arrays.<Object> asList(2, 3), released);
+        assertEquals(0, resequencer.getReorderDepth());
+        assertEquals(0, resequencer.getGroupCount());
+    }
+
+    @Test
+    public void releasesHeldEventsFromTheMonitorOnceStarted() throws Exception
+    {
+        resequencer = createResequencer(10, 20);
+        resequencer.start();
+
+        assertNull(resequencer.process(createEvent(2, 3)));
+
+        new PollingProber(RECEIVE_TIMEOUT, 10).check(new Probe()
+        {
+            @Override
+            public boolean isSatisfied()
+            {
+                synchronized (released)
+                {
+                    return released.equals(Arrays.<Object> asList(2));
+                }
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "Held event was not released on timeout";
+            }
+        });
+    }
+
+    @Test
+    public void dropsIdleGroupsOfUnknownSize() throws Exception
+    {
+        resequencer = createResequencer(10, 0);
+        resequencer.setIdleGroupTimeout(1);
+
+        assertNotNull(resequencer.process(createEvent(1, -1)));
+        assertNotNull(resequencer.process(createEvent(2, -1)));
+        assertEquals(1, resequencer.getGroupCount());
+
+        Thread.sleep(20);
+        resequencer.expire();
+        assertEquals(0, resequencer.getGroupCount());
+    }
+
+    @Test
+    public void keepsGroupsHoldingEventsWithoutGapTimeout() throws Exception
+    {
+        resequencer = createResequencer(10, 0);
+        resequencer.setIdleGroupTimeout(1);
+
+        assertNull(resequencer.process(createEvent(2, -1)));
+        Thread.sleep(20);
+        resequencer.expire();
+
+        assertEquals(1, resequencer.getGroupCount());
+        assertEquals(1, resequencer.getReorderDepth());
+    }
+
+    @Test
+    public void releasesEventsWithoutSequenceRightAway() throws Exception
+    {
+        resequencer = createResequencer(10, 0);
+        MuleEvent event = getTestEvent("no sequence");
+
+        assertTrue(resequencer.process(event) == event);
+        assertEquals(Arrays.<Object> asList("no sequence"), released);
+    }
+
+    private IncrementalResequencer createResequencer(int reorderWindow, long gapTimeout) throws Exception
+    {
+        return new IncrementalResequencer(muleContext, MuleTestUtils.getTestFlow(muleContext), "test", reorderWindow, gapTimeout, callback);
+    }
+
+    private MuleEvent createEvent(int sequence, int groupSize) throws Exception
+    {
+        MuleEvent event = getTestEvent(sequence);
+        MuleMessage message = event.getMessage();
+        message.setCorrelationId(GROUP);
+        message.setCorrelationSequence(sequence);
+        message.setCorrelationGroupSize(groupSize);
+        return event;
+    }
+}
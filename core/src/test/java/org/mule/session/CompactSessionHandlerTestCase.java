@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.session;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleSession;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.model.SessionException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.Base64;
+import org.mule.util.SerializationUtils;
+import org.mule.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+@SmallTest
+public class CompactSessionHandlerTestCase extends AbstractMuleTestCase
+{
+
+    private MuleContext muleContext;
+    private CompactSessionHandler handler;
+
+    @Before
+    public void setUp()
+    {
+        muleContext = mock(MuleContext.class);
+        when(muleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        handler = new CompactSessionHandler();
+    }
+
+    @Test
+    public void roundTripsCommonValueTypes() throws Exception
+    {
+        DefaultMuleSession session = new DefaultMuleSession();
+        session.setProperty("string", "value");
+        session.setProperty("int", -7);
+        session.setProperty("long", 1234567890123L);
+        session.setProperty("boolean", true);
+        session.setProperty("double", 1.5d);
+        session.setProperty("char", 'x');
+        session.setProperty("bytes", new byte[] {1, 2, 3});
+        session.setProperty("date", new Date(1000));
+        session.setProperty("decimal", new BigDecimal("10.25"));
+        session.setProperty("serialized", Locale.CANADA);
+        session.setProperty("nonSerializable", new Object());
+
+        MuleSession restored = retrieve(store(session));
+
+        assertEquals(session.getId(), restored.getId());
+        assertEquals("value", restored.getProperty("string"));
+        assertEquals(-7, restored.getProperty("int"));
+        assertEquals(1234567890123L, restored.getProperty("long"));
+        assertEquals(true, restored.getProperty("boolean"));
+        assertEquals(1.5d, restored.getProperty("double"));
+        assertEquals('x', restored.getProperty("char"));
+        assertArrayEquals(new byte[] {1, 2, 3}, (byte[]) restored.getProperty("bytes"));
+        assertEquals(new Date(1000), restored.getProperty("date"));
+        assertEquals(new BigDecimal("10.25"), restored.getProperty("decimal"));
+        assertEquals(Locale.CANADA, restored.getProperty("serialized"));
+        assertFalse(restored.getPropertyNamesAsSet().contains("nonSerializable"));
+    }
+
+    @Test
+    public void headerIsSmallerThanSerializedSession() throws Exception
+    {
+        DefaultMuleSession session = new DefaultMuleSession();
+        session.setProperty("customerId", "12345");
+        session.setProperty("retries", 3);
+        session.setProperty("premium", false);
+
+        String compactHeader = store(session);
+        String serializedHeader = Base64.encodeBytes(SerializationUtils.serialize(session), Base64.DONT_BREAK_LINES);
+
+        assertTrue(compactHeader.length() + " >= " + serializedHeader.length(),
+            compactHeader.length() * 3 < serializedHeader.length());
+    }
+
+    @Test
+    public void deflatesLargeSessions() throws Exception
+    {
+        DefaultMuleSession session = new DefaultMuleSession();
+        session.setProperty("large", StringUtils.repeat("abcdef", 500));
+
+        byte[] encoded = handler.encode(session, null, false, muleContext);
+
+        assertEquals(CompactSessionHandler.FLAG_DEFLATED, encoded[2] & CompactSessionHandler.FLAG_DEFLATED);
+        assertTrue(encoded.length < 3000);
+        assertEquals(session.getProperty("large"), handler.decode(encoded, null, muleContext).getProperty("large"));
+    }
+
+    @Test
+    public void readsSerializedSessions() throws Exception
+    {
+        DefaultMuleSession session = new DefaultMuleSession();
+        session.setProperty("key", "value");
+
+        MuleSession restored = retrieve(Base64.encodeBytes(SerializationUtils.serialize(session), Base64.DONT_BREAK_LINES));
+
+        assertEquals(session.getId(), restored.getId());
+        assertEquals("value", restored.getProperty("key"));
+    }
+
+    @Test
+    public void sendsOnlyChangesWithResponse() throws Exception
+    {
+        handler.setDeltaEncoding(true);
+        DefaultMuleSession callerSession = new DefaultMuleSession();
+        callerSession.setProperty("unchanged", StringUtils.repeat("x", 100));
+        callerSession.setProperty("changed", "before");
+        callerSession.setProperty("removed", 1);
+
+        String requestHeader = store(callerSession);
+        MuleSession receiverSession = retrieve(requestHeader);
+        receiverSession.setProperty("changed", "after");
+        receiverSession.setProperty("added", 2L);
+        receiverSession.removeProperty("removed");
+
+        String responseHeader = storeResponse(new DefaultMuleSession(receiverSession), receiverSession);
+        byte[] encoded = Base64.decode(responseHeader);
+        assertEquals(CompactSessionHandler.FLAG_DELTA, encoded[2] & CompactSessionHandler.FLAG_DELTA);
+        assertTrue(responseHeader.length() < requestHeader.length());
+
+        MuleSession result = retrieveResponse(responseHeader, callerSession);
+        assertEquals(callerSession.getId(), result.getId());
+        assertEquals(callerSession.getProperty("unchanged"), result.getProperty("unchanged"));
+        assertEquals("after", result.getProperty("changed"));
+        assertEquals(2L, result.getProperty("added"));
+        assertNull(result.getProperty("removed"));
+    }
+
+    @Test
+    public void sendsWholeSessionWithoutDeltaEncoding() throws Exception
+    {
+        DefaultMuleSession session = new DefaultMuleSession();
+        session.setProperty("key", "value");
+        MuleSession receiverSession = retrieve(store(session));
+
+        assertEquals(0, Base64.decode(storeResponse(receiverSession, receiverSession))[2] & CompactSessionHandler.FLAG_DELTA);
+    }
+
+    @Test
+    public void sendsWholeSessionWhenRequestDoesNotAcceptDelta() throws Exception
+    {
+        DefaultMuleSession callerSession = new DefaultMuleSession();
+        callerSession.setProperty("key", "value");
+        String requestHeader = store(callerSession);
+
+        handler.setDeltaEncoding(true);
+        MuleSession receiverSession = retrieve(requestHeader);
+        receiverSession.setProperty("added", "value");
+        String responseHeader = storeResponse(receiverSession, receiverSession);
+
+        assertEquals(0, Base64.decode(responseHeader)[2] & CompactSessionHandler.FLAG_DELTA);
+        MuleSession result = retrieve(responseHeader);
+        assertEquals("value", result.getProperty("key"));
+        assertEquals("value", result.getProperty("added"));
+    }
+
+    @Test
+    public void sendsWholeSessionWhenRequestSessionIsUnknown() throws Exception
+    {
+        handler.setDeltaEncoding(true);
+        DefaultMuleSession callerSession = new DefaultMuleSession();
+        callerSession.setProperty("key", "value");
+        retrieve(store(callerSession));
+
+        String responseHeader = storeResponse(new DefaultMuleSession(callerSession), new DefaultMuleSession());
+
+        assertEquals(0, Base64.decode(responseHeader)[2] & CompactSessionHandler.FLAG_DELTA);
+        assertEquals("value", retrieve(responseHeader).getProperty("key"));
+    }
+
+    @Test(expected = SessionException.class)
+    public void rejectsDeltaWithoutRequestSession() throws Exception
+    {
+        handler.setDeltaEncoding(true);
+        MuleSession receiverSession = retrieve(store(new DefaultMuleSession()));
+        receiverSession.setProperty("added", "value");
+
+        retrieve(storeResponse(receiverSession, receiverSession));
+    }
+
+    private String storeResponse(MuleSession session, MuleSession requestSession) throws MuleException
+    {
+        MuleMessage response = mock(MuleMessage.class);
+        when(response.getMuleContext()).thenReturn(muleContext);
+        handler.storeResponseSessionInfoToMessage(session, requestSession, response);
+        return captureHeader(response);
+    }
+
+    private String store(MuleSession session) throws MuleException
+    {
+        MuleMessage message = mock(MuleMessage.class);
+        when(message.getMuleContext()).thenReturn(muleContext);
+        handler.storeSessionInfoToMessage(session, message);
+        return captureHeader(message);
+    }
+
+    private String captureHeader(MuleMessage message)
+    {
+        ArgumentCaptor<Object> header = ArgumentCaptor.forClass(Object.class);
+        verify(message).setOutboundProperty(eq(MuleProperties.MULE_SESSION_PROPERTY), header.capture());
+        return (String) header.getValue();
+    }
+
+    private MuleSession retrieve(String header) throws MuleException
+    {
+        return handler.retrieveSessionInfoFromMessage(message(header));
+    }
+
+    private MuleSession retrieveResponse(String header, MuleSession requestSession) throws MuleException
+    {
+        return handler.retrieveResponseSessionInfoFromMessage(message(header), requestSession);
+    }
+
+    private MuleMessage message(String header)
+    {
+        MuleMessage message = mock(MuleMessage.class);
+        when(message.getMuleContext()).thenReturn(muleContext);
+        when(message.<String>getInboundProperty(MuleProperties.MULE_SESSION_PROPERTY)).thenReturn(header);
+        return message;
+    }
+}
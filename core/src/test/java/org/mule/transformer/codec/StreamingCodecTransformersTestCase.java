@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transformer.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.transport.OutputHandler;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.Base64;
+import org.mule.util.XMLEntityCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+@SmallTest
+public class StreamingCodecTransformersTestCase extends AbstractMuleTestCase
+{
+    private static final String TEST_DATA = "<caf\u00e9 name=\"na\u00efve\">the quick brown fox</caf\u00e9>";
+
+    private static final String ENCODED_TEST_DATA = XMLEntityCodec.encodeString(TEST_DATA);
+
+    @Test
+    public void base64EncodesToOutputHandler() throws Exception
+    {
+        Base64Encoder encoder = new Base64Encoder();
+        encoder.setReturnClass(OutputHandler.class);
+
+        Object result = encoder.doTransform(new ByteArrayInputStream(TEST_DATA.getBytes("UTF-8")), "UTF-8");
+
+        assertTrue(result instanceof OutputHandler);
+        assertEquals(Base64.encodeBytes(TEST_DATA.getBytes("UTF-8"), Base64.DONT_BREAK_LINES),
+            new String(write((OutputHandler) result), Base64.PREFERRED_ENCODING));
+    }
+
+    @Test
+    public void base64DecodesToOutputHandler() throws Exception
+    {
+        Base64Decoder decoder = new Base64Decoder();
+        decoder.setReturnClass(OutputHandler.class);
+        byte[] encoded = Base64.encodeBytes(TEST_DATA.getBytes("UTF-8")).getBytes(Base64.PREFERRED_ENCODING);
+
+        Object result = decoder.doTransform(new ByteArrayInputStream(encoded), "UTF-8");
+
+        assertTrue(result instanceof OutputHandler);
+        assertArrayEquals(TEST_DATA.getBytes("UTF-8"), write((OutputHandler) result));
+    }
+
+    @Test
+    public void base64DecodesCompressedDataToOutputHandler() throws Exception
+    {
+        Base64Decoder decoder = new Base64Decoder();
+        decoder.setReturnClass(OutputHandler.class);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+        gzip.write(TEST_DATA.getBytes("UTF-8"));
+        gzip.close();
+
+        Object result = decoder.doTransform(Base64.encodeBytes(compressed.toByteArray()), "UTF-8");
+
+        assertArrayEquals(TEST_DATA.getBytes("UTF-8"), write((OutputHandler) result));
+    }
+
+    @Test
+    public void xmlEntitiesAreEncodedToOutputHandler() throws Exception
+    {
+        XmlEntityEncoder encoder = new XmlEntityEncoder();
+        encoder.setReturnClass(OutputHandler.class);
+
+        Object result = encoder.doTransform(new ByteArrayInputStream(TEST_DATA.getBytes("UTF-16")), "UTF-16");
+
+        assertTrue(result instanceof OutputHandler);
+        assertEquals(ENCODED_TEST_DATA, new String(write((OutputHandler) result), "UTF-16"));
+    }
+
+    @Test
+    public void xmlEntitiesAreDecodedToOutputHandler() throws Exception
+    {
+        XmlEntityDecoder decoder = new XmlEntityDecoder();
+        decoder.setReturnClass(OutputHandler.class);
+
+        Object result = decoder.doTransform(new ByteArrayInputStream(ENCODED_TEST_DATA.getBytes("UTF-16")), "UTF-16");
+
+        assertTrue(result instanceof OutputHandler);
+        assertEquals(TEST_DATA, new String(write((OutputHandler) result), "UTF-16"));
+    }
+
+    @Test
+    public void xmlEntityStreamsAreReadWithTheTransformerEncoding() throws Exception
+    {
+        assertEquals(ENCODED_TEST_DATA,
+            new XmlEntityEncoder().doTransform(new ByteArrayInputStream(TEST_DATA.getBytes("UTF-16")), "UTF-16"));
+        assertEquals(TEST_DATA,
+            new XmlEntityDecoder().doTransform(new ByteArrayInputStream(ENCODED_TEST_DATA.getBytes("UTF-16")), "UTF-16"));
+    }
+
+    private byte[] write(OutputHandler handler) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        handler.write(null, out);
+        return out.toByteArray();
+    }
+}
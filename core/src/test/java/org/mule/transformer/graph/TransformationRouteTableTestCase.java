@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transformer.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.mule.api.transformer.Converter;
+import org.mule.api.transformer.DataType;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.transformer.CompositeConverter;
+import org.mule.transformer.builder.MockConverterBuilder;
+
+import java.util.List;
+
+import org.junit.Test;
+
+@SmallTest
+public class TransformationRouteTableTestCase extends AbstractMuleTestCase
+{
+
+    private static final DataType XML_DATA_TYPE = mock(DataType.class, "XML_DATA_TYPE");
+    private static final DataType JSON_DATA_TYPE = mock(DataType.class, "JSON_DATA_TYPE");
+    private static final DataType INPUT_STREAM_DATA_TYPE = mock(DataType.class, "INPUT_STREAM_DATA_TYPE");
+    private static final DataType STRING_DATA_TYPE = mock(DataType.class, "STRING_DATA_TYPE");
+
+    private static final ConverterFilter ALL_CONVERTERS = new ConverterFilter()
+    {
+        @Override
+        public List<Converter> filter(List<Converter> converters, DataType<?> source, DataType<?> result)
+        {
+            return converters;
+        }
+    };
+
+    private TransformationRouteTable routeTable = new TransformationRouteTable(new TransformationGraph(), ALL_CONVERTERS);
+
+    @Test
+    public void findsOnlyShortestPaths() throws Exception
+    {
+        routeTable.addConverter(new MockConverterBuilder().from(XML_DATA_TYPE).to(INPUT_STREAM_DATA_TYPE).build());
+        routeTable.addConverter(new MockConverterBuilder().from(INPUT_STREAM_DATA_TYPE).to(JSON_DATA_TYPE).build());
+        routeTable.addConverter(new MockConverterBuilder().from(XML_DATA_TYPE).to(STRING_DATA_TYPE).build());
+        routeTable.addConverter(new MockConverterBuilder().from(STRING_DATA_TYPE).to(JSON_DATA_TYPE).build());
+
+        List<Converter> converters = routeTable.lookupConverters(XML_DATA_TYPE, JSON_DATA_TYPE);
+        assertEquals(2, converters.size());
+        assertTrue(converters.get(0) instanceof CompositeConverter);
+        assertTrue(converters.get(1) instanceof CompositeConverter);
+
+        Converter xmlToJson = new MockConverterBuilder().from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        routeTable.addConverter(xmlToJson);
+
+        converters = routeTable.lookupConverters(XML_DATA_TYPE, JSON_DATA_TYPE);
+        assertEquals(1, converters.size());
+        assertEquals(xmlToJson, converters.get(0));
+    }
+
+    @Test
+    public void keepsRoutesThatCannotReachAddedConverter() throws Exception
+    {
+        routeTable.addConverter(new MockConverterBuilder().from(INPUT_STREAM_DATA_TYPE).to(XML_DATA_TYPE).build());
+        routeTable.addConverter(new MockConverterBuilder().from(JSON_DATA_TYPE).to(STRING_DATA_TYPE).build());
+
+        List<Converter> inputStreamToXml = routeTable.lookupConverters(INPUT_STREAM_DATA_TYPE, XML_DATA_TYPE);
+        List<Converter> jsonToString = routeTable.lookupConverters(JSON_DATA_TYPE, STRING_DATA_TYPE);
+
+        routeTable.addConverter(new MockConverterBuilder().from(STRING_DATA_TYPE).to(XML_DATA_TYPE).build());
+
+        assertSame(inputStreamToXml, routeTable.lookupConverters(INPUT_STREAM_DATA_TYPE, XML_DATA_TYPE));
+        assertNotSame(jsonToString, routeTable.lookupConverters(JSON_DATA_TYPE, STRING_DATA_TYPE));
+        assertEquals(1, routeTable.lookupConverters(JSON_DATA_TYPE, XML_DATA_TYPE).size());
+    }
+
+    @Test
+    public void dropsRoutesThroughRemovedConverter() throws Exception
+    {
+        Converter xmlToJson = new MockConverterBuilder().from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        routeTable.addConverter(new MockConverterBuilder().from(INPUT_STREAM_DATA_TYPE).to(XML_DATA_TYPE).build());
+        routeTable.addConverter(xmlToJson);
+
+        assertEquals(1, routeTable.lookupConverters(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE).size());
+
+        routeTable.removeConverter(xmlToJson);
+
+        assertEquals(0, routeTable.lookupConverters(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE).size());
+        assertEquals(1, routeTable.lookupConverters(INPUT_STREAM_DATA_TYPE, XML_DATA_TYPE).size());
+    }
+}
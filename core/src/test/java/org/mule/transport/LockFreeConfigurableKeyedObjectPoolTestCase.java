@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+import org.mule.tck.size.SmallTest;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.pool.BaseKeyedPoolableObjectFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class LockFreeConfigurableKeyedObjectPoolTestCase extends AbstractMuleTestCase
+{
+
+    private static final int RECEIVE_TIMEOUT = AbstractMuleContextTestCase.RECEIVE_TIMEOUT;
+
+    private static final String KEY = "key";
+    private static final String OTHER_KEY = "otherKey";
+    private static final int THREADS = 8;
+    private static final int BORROWS_PER_THREAD = 100;
+
+    private final TestObjectFactory factory = new TestObjectFactory();
+    private final LockFreeConfigurableKeyedObjectPool pool = new LockFreeConfigurableKeyedObjectPool();
+
+    @Before
+    public void setUpPool()
+    {
+        pool.setFactory(factory);
+    }
+
+    @Test
+    public void reusesReturnedObject() throws Exception
+    {
+        Object object = pool.borrowObject(KEY);
+        assertEquals(1, pool.getNumActive(KEY));
+
+        pool.returnObject(KEY, object);
+        assertEquals(0, pool.getNumActive(KEY));
+        assertEquals(1, pool.getNumIdle(KEY));
+
+        assertSame(object, pool.borrowObject(KEY));
+        assertEquals(1, pool.getCreatedObjects());
+        assertEquals(2, pool.getBorrowedObjects());
+    }
+
+    @Test
+    public void destroysInvalidObjectOnReturn() throws Exception
+    {
+        Object object = pool.borrowObject(KEY);
+        factory.valid = false;
+
+        pool.returnObject(KEY, object);
+
+        assertEquals(0, pool.getNumActive(KEY));
+        assertEquals(0, pool.getNumIdle(KEY));
+        assertEquals(1, pool.getDestroyedObjects());
+        assertEquals(1, factory.destroyed.get());
+    }
+
+    @Test
+    public void destroysObjectsOverMaxIdle() throws Exception
+    {
+        pool.setMaxIdle(1);
+        Object first = pool.borrowObject(KEY);
+        Object second = pool.borrowObject(KEY);
+
+        pool.returnObject(KEY, first);
+        pool.returnObject(KEY, second);
+
+        assertEquals(1, pool.getNumIdle(KEY));
+        assertEquals(1, pool.getDestroyedObjects());
+    }
+
+    @Test
+    public void failsWhenExhausted() throws Exception
+    {
+        pool.setMaxActive(1);
+        pool.setWhenExhaustedAction(ConfigurableKeyedObjectPool.WHEN_EXHAUSTED_FAIL);
+        pool.borrowObject(KEY);
+
+        try
+        {
+            pool.borrowObject(KEY);
+            fail("Exception expected");
+        }
+        catch (NoSuchElementException e)
+        {
+            assertEquals(1, pool.getNumActive(KEY));
+        }
+    }
+
+    @Test
+    public void growsWhenExhausted() throws Exception
+    {
+        pool.setMaxActive(1);
+        pool.setWhenExhaustedAction(ConfigurableKeyedObjectPool.WHEN_EXHAUSTED_GROW);
+
+        assertNotSame(pool.borrowObject(KEY), pool.borrowObject(KEY));
+        assertEquals(2, pool.getNumActive(KEY));
+    }
+
+    @Test
+    public void blocksUntilObjectIsReturned() throws Exception
+    {
+        pool.setMaxActive(1);
+        pool.setMaxWait(RECEIVE_TIMEOUT);
+        final Object object = pool.borrowObject(KEY);
+        final AtomicReference<Object> borrowed = new AtomicReference<Object>();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        final Thread borrower = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    borrowed.set(pool.borrowObject(KEY));
+                }
+                catch (Throwable e)
+                {
+                    error.set(e);
+                }
+            }
+        });
+        borrower.start();
+        new PollingProber(RECEIVE_TIMEOUT, 10).check(new Probe()
+        {
+            public boolean isSatisfied()
+            {
+                return borrower.getState() == Thread.State.TIMED_WAITING;
+            }
+
+            public String describeFailure()
+            {
+                return "Borrower did not wait for the object, error was " + error.get();
+            }
+        });
+
+        pool.returnObject(KEY, object);
+        borrower.join(RECEIVE_TIMEOUT);
+
+        assertFalse(borrower.isAlive());
+        assertNull(error.get());
+        assertSame(object, borrowed.get());
+        assertEquals(1, pool.getNumActive(KEY));
+        assertEquals(2, pool.getBorrowWaitTime().getLifetime().getTotalCount());
+    }
+
+    @Test
+    public void timesOutWaitingForObject() throws Exception
+    {
+        pool.setMaxActive(1);
+        pool.setMaxWait(20);
+        pool.borrowObject(KEY);
+
+        long start = System.nanoTime();
+        try
+        {
+            pool.borrowObject(KEY);
+            fail("Exception expected");
+        }
+        catch (NoSuchElementException e)
+        {
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 20);
+        }
+    }
+
+    @Test
+    public void evictsIdleObjectOfOtherKeyWhenMaxTotalIsReached() throws Exception
+    {
+        pool.setMaxTotal(1);
+        pool.returnObject(OTHER_KEY, pool.borrowObject(OTHER_KEY));
+        assertEquals(1, pool.getNumIdle(OTHER_KEY));
+
+        pool.borrowObject(KEY);
+
+        assertEquals(0, pool.getNumIdle(OTHER_KEY));
+        assertEquals(1, pool.getNumActive(KEY));
+        assertEquals(1, pool.getDestroyedObjects());
+    }
+
+    @Test
+    public void dropsPoolOfKeyWithoutObjects() throws Exception
+    {
+        Object object = pool.borrowObject(KEY);
+        pool.returnObject(OTHER_KEY, pool.borrowObject(OTHER_KEY));
+        assertEquals(2, pool.getNumKeys());
+
+        pool.invalidateObject(KEY, object);
+        assertEquals(1, pool.getNumKeys());
+
+        pool.clear(OTHER_KEY);
+        assertEquals(0, pool.getNumKeys());
+
+        // the key can still be used once its pool is dropped
+        pool.returnObject(KEY, pool.borrowObject(KEY));
+        assertEquals(1, pool.getNumIdle(KEY));
+    }
+
+    @Test
+    public void neverCreatesMoreThanMaxTotalObjectsConcurrently() throws Exception
+    {
+        final int maxTotal = 4;
+        pool.setMaxTotal(maxTotal);
+        pool.setMaxWait(RECEIVE_TIMEOUT);
+
+        runConcurrently(new Task()
+        {
+            public void run(int thread) throws Exception
+            {
+                for (int i = 0; i < BORROWS_PER_THREAD; i++)
+                {
+                    Object key = "key" + (thread + i) % 3;
+                    Object object = pool.borrowObject(key);
+                    pool.returnObject(key, object);
+                }
+            }
+        });
+
+        assertTrue("Live objects peaked at " + factory.maxLive.get(), factory.maxLive.get() <= maxTotal);
+        assertEquals(0, pool.getNumActive());
+    }
+
+    @Test
+    public void neverKeepsMoreThanMaxIdleObjectsConcurrently() throws Exception
+    {
+        final int maxIdle = 2;
+        pool.setMaxIdle(maxIdle);
+        pool.setMaxActive(THREADS);
+        final Object[] objects = new Object[THREADS];
+        for (int i = 0; i < THREADS; i++)
+        {
+            objects[i] = pool.borrowObject(KEY);
+        }
+
+        runConcurrently(new Task()
+        {
+            public void run(int thread) throws Exception
+            {
+                pool.returnObject(KEY, objects[thread]);
+            }
+        });
+
+        assertEquals(maxIdle, pool.getNumIdle(KEY));
+        assertEquals(THREADS - maxIdle, pool.getDestroyedObjects());
+        assertEquals(0, pool.getNumActive(KEY));
+    }
+
+    private void runConcurrently(final Task task) throws Exception
+    {
+        final CyclicBarrier start = new CyclicBarrier(THREADS);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++)
+        {
+            final int thread = i;
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                        task.run(thread);
+                    }
+                    catch (Throwable e)
+                    {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join(RECEIVE_TIMEOUT);
+            assertFalse(thread.isAlive());
+        }
+        assertNull(error.get());
+    }
+
+    private interface Task
+    {
+
+        void run(int thread) throws Exception;
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void failsToBorrowFromClosedPool() throws Exception
+    {
+        pool.close();
+        pool.borrowObject(KEY);
+    }
+
+    private static class TestObjectFactory extends BaseKeyedPoolableObjectFactory
+    {
+
+        private final AtomicInteger destroyed = new AtomicInteger();
+        private final AtomicInteger live = new AtomicInteger();
+        private final AtomicInteger maxLive = new AtomicInteger();
+        private volatile boolean valid = true;
+
+        @Override
+        public Object makeObject(Object key) throws Exception
+        {
+            int current = live.incrementAndGet();
+            int max;
+            while ((max = maxLive.get()) < current && !maxLive.compareAndSet(max, current))
+            {
+                // retry
+            }
+            return new Object();
+        }
+
+        @Override
+        public boolean validateObject(Object key, Object obj)
+        {
+            return valid;
+        }
+
+        @Override
+        public void destroyObject(Object key, Object obj) throws Exception
+        {
+            live.decrementAndGet();
+            destroyed.incrementAndGet();
+        }
+    }
+}
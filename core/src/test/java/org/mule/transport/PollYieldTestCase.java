@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.lifecycle.CreateException;
+import org.mule.api.processor.DemandSignal;
+import org.mule.api.transport.Connector;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class PollYieldTestCase extends AbstractMuleTestCase
+{
+
+    private static final int MAX_RECEIVER_THREADS = 16;
+
+    private final ExecutorService workers = Executors.newSingleThreadExecutor();
+    private final CountDownLatch releaseWork = new CountDownLatch(1);
+
+    private HandOffPollingMessageReceiver receiver;
+
+    @Before
+    public void createReceiver() throws Exception
+    {
+        AbstractConnector connector = mock(AbstractConnector.class, RETURNS_DEEP_STUBS);
+        when(connector.getReceiverThreadingProfile().getMaxThreadsActive()).thenReturn(MAX_RECEIVER_THREADS);
+        InboundEndpoint endpoint = mock(InboundEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getConnector()).thenReturn(connector);
+        FlowConstruct flowConstruct = mock(FlowConstruct.class,
+            withSettings().extraInterfaces(DemandSignal.class).defaultAnswer(RETURNS_DEEP_STUBS));
+        when(((DemandSignal) flowConstruct).getDemand()).thenReturn(DemandSignal.UNBOUNDED);
+
+        receiver = new HandOffPollingMessageReceiver(connector, flowConstruct, endpoint);
+    }
+
+    @After
+    public void stopWorkers() throws Exception
+    {
+        releaseWork.countDown();
+        workers.shutdown();
+        workers.awaitTermination(AbstractMuleContextTestCase.RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void yieldsWhatThePollFoundBeforeTheWorkIsDone() throws Exception
+    {
+        receiver.toFind = 3;
+        receiver.performPoll();
+
+        // nothing has been processed yet, the poll handed the work off
+        assertEquals(3, receiver.pending.getCount());
+        assertEquals(PollYield.PARTIAL, receiver.getLastPollYield());
+        assertEquals(0, receiver.getEmptyPolls());
+    }
+
+    @Test
+    public void yieldsFullWhenThePollLeftMoreWaiting() throws Exception
+    {
+        receiver.toFind = 2;
+        receiver.more = true;
+        receiver.performPoll();
+
+        assertEquals(PollYield.FULL, receiver.getLastPollYield());
+        assertEquals(1, receiver.getFullPolls());
+    }
+
+    @Test
+    public void yieldsEmptyWhenThePollFoundNothing() throws Exception
+    {
+        receiver.toFind = 0;
+        receiver.performPoll();
+
+        assertEquals(PollYield.EMPTY, receiver.getLastPollYield());
+        assertEquals(1, receiver.getEmptyPolls());
+    }
+
+    @Test
+    public void yieldsPartialWhenThePollReportsNothing() throws Exception
+    {
+        receiver.report = false;
+        receiver.performPoll();
+
+        assertEquals(PollYield.PARTIAL, receiver.getLastPollYield());
+        assertEquals(0, receiver.getEmptyPolls());
+    }
+
+    @Test
+    public void yieldsFullWhenTheBatchIsTruncated() throws Exception
+    {
+        receiver.report = false;
+        receiver.available = 100;
+        receiver.performPoll();
+
+        assertEquals(PollYield.FULL, receiver.getLastPollYield());
+    }
+
+    @Test
+    public void reportsOutsideOfAPollAreIgnored() throws Exception
+    {
+        receiver.toFind = 0;
+        receiver.performPoll();
+        receiver.pollFound(5, true);
+
+        assertEquals(PollYield.EMPTY, receiver.getLastPollYield());
+        assertEquals(1, receiver.getPolls());
+    }
+
+    private class HandOffPollingMessageReceiver extends AbstractPollingMessageReceiver
+    {
+
+        int toFind;
+        boolean more;
+        boolean report = true;
+        int available;
+        CountDownLatch pending = new CountDownLatch(0);
+
+        HandOffPollingMessageReceiver(Connector connector, FlowConstruct flowConstruct, InboundEndpoint endpoint)
+            throws CreateException
+        {
+            super(connector, flowConstruct, endpoint);
+        }
+
+        @Override
+        protected void poll() throws Exception
+        {
+            if (available > 0)
+            {
+                getBatchSize(available);
+            }
+            pending = new CountDownLatch(toFind);
+            for (int i = 0; i < toFind; i++)
+            {
+                workers.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            releaseWork.await();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                        pending.countDown();
+                    }
+                });
+            }
+            if (report)
+            {
+                pollFound(toFind, more);
+            }
+        }
+    }
+}
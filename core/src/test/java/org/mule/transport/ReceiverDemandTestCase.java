@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.lifecycle.CreateException;
+import org.mule.api.processor.DemandSignal;
+import org.mule.api.transaction.Transaction;
+import org.mule.api.transaction.TransactionException;
+import org.mule.api.transport.Connector;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class ReceiverDemandTestCase extends AbstractMuleTestCase
+{
+    private static final int MAX_RECEIVER_THREADS = 16;
+
+    private final AtomicInteger demand = new AtomicInteger();
+    private final AtomicInteger demandChecks = new AtomicInteger();
+
+    private TestPollingMessageReceiver receiver;
+
+    @Before
+    public void createReceiver() throws Exception
+    {
+        AbstractConnector connector = mock(AbstractConnector.class, RETURNS_DEEP_STUBS);
+        when(connector.getReceiverThreadingProfile().getMaxThreadsActive()).thenReturn(MAX_RECEIVER_THREADS);
+        InboundEndpoint endpoint = mock(InboundEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getConnector()).thenReturn(connector);
+        FlowConstruct flowConstruct = mock(FlowConstruct.class,
+            withSettings().extraInterfaces(DemandSignal.class).defaultAnswer(RETURNS_DEEP_STUBS));
+        when(((DemandSignal) flowConstruct).getDemand()).thenAnswer(new Answer<Integer>()
+        {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable
+            {
+                demandChecks.incrementAndGet();
+                return demand.get();
+            }
+        });
+
+        receiver = new TestPollingMessageReceiver(connector, flowConstruct, endpoint);
+    }
+
+    @Test
+    public void skipsPollWhileFlowHasNoDemand() throws Exception
+    {
+        demand.set(0);
+        receiver.performPoll();
+
+        assertEquals(0, receiver.pollCount);
+        assertEquals(1, receiver.getSkippedPolls());
+
+        demand.set(1);
+        receiver.performPoll();
+
+        assertEquals(1, receiver.pollCount);
+        assertEquals(1, receiver.getSkippedPolls());
+    }
+
+    @Test
+    public void batchSizeNeverExceedsDemand() throws Exception
+    {
+        demand.set(3);
+        assertEquals(3, receiver.getBatchSize(10));
+
+        demand.set(0);
+        assertEquals(0, receiver.getBatchSize(10));
+
+        // without a limit from the flow only the receiver threads bound the batch
+        demand.set(DemandSignal.UNBOUNDED);
+        assertEquals(MAX_RECEIVER_THREADS / 2 - 1, receiver.getBatchSize(10));
+    }
+
+    @Test
+    public void resourceWorkerWaitsForDemandBeforeReading() throws Exception
+    {
+        demand.set(0);
+        final TestResourceWorker worker = new TestResourceWorker(receiver, "first", "second");
+        Thread workerThread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                worker.doRun();
+            }
+        });
+        workerThread.start();
+
+        final int checksBefore = demandChecks.get();
+        new PollingProber(AbstractMuleContextTestCase.RECEIVE_TIMEOUT, 10).check(new Probe()
+        {
+            public boolean isSatisfied()
+            {
+                return demandChecks.get() > checksBefore + 2;
+            }
+
+            public String describeFailure()
+            {
+                return "Worker did not check the flow demand";
+            }
+        });
+        assertEquals(0, worker.reads.get());
+
+        demand.set(1);
+        workerThread.join(AbstractMuleContextTestCase.RECEIVE_TIMEOUT);
+
+        assertFalse(workerThread.isAlive());
+        assertEquals(Arrays.<Object>asList("first", "second", null), worker.processed);
+    }
+
+    @Test
+    public void resourceWorkerStopsWaitingWhenReceiverStops() throws Exception
+    {
+        demand.set(0);
+        receiver.started = false;
+        TestResourceWorker worker = new TestResourceWorker(receiver, "first");
+
+        worker.doRun();
+
+        assertEquals(Arrays.<Object>asList("first", null), worker.processed);
+    }
+
+    private static class TestPollingMessageReceiver extends AbstractPollingMessageReceiver
+    {
+        volatile boolean started = true;
+        int pollCount;
+
+        TestPollingMessageReceiver(Connector connector, FlowConstruct flowConstruct, InboundEndpoint endpoint)
+            throws CreateException
+        {
+            super(connector, flowConstruct, endpoint);
+        }
+
+        @Override
+        protected void poll() throws Exception
+        {
+            pollCount++;
+        }
+
+        @Override
+        public boolean isStarted()
+        {
+            return started;
+        }
+    }
+
+    private static class TestResourceWorker extends AbstractReceiverResourceWorker
+    {
+        final AtomicInteger reads = new AtomicInteger();
+        final List<Object> processed = new ArrayList<Object>();
+        private final Object[] resourceMessages;
+
+        TestResourceWorker(AbstractMessageReceiver receiver, Object... resourceMessages)
+        {
+            super(null, receiver);
+            this.resourceMessages = resourceMessages;
+        }
+
+        @Override
+        protected Object getNextMessage(Object resource) throws Exception
+        {
+            int read = reads.getAndIncrement();
+            return read < resourceMessages.length ? resourceMessages[read] : null;
+        }
+
+        @Override
+        public void processMessages() throws Exception
+        {
+            processed.addAll(messages);
+            messages.clear();
+        }
+
+        @Override
+        protected void bindTransaction(Transaction tx) throws TransactionException
+        {
+            // no transaction
+        }
+    }
+}
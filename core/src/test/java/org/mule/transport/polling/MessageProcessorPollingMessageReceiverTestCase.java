@@ -7,22 +7,41 @@
 package org.mule.transport.polling;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
+import org.mule.MessageExchangePattern;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
 import org.mule.endpoint.EndpointURIEndpointBuilder;
 import org.mule.tck.SensingNullMessageProcessor;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
 import org.mule.transport.NullPayload;
 import org.mule.transport.polling.schedule.FixedFrequencySchedulerFactory;
+import org.mule.transport.polling.watermark.selector.SelectorWatermark;
+import org.mule.transport.polling.watermark.selector.WatermarkSelectorBroker;
+import org.mule.util.store.SimpleMemoryObjectStore;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -109,13 +128,140 @@ public class MessageProcessorPollingMessageReceiverTestCase extends AbstractMule
 
     }
 
+    @Test
+    public void testPartitionsPolledInParallel() throws Exception
+    {
+        final Set<Object> partitions = new HashSet<Object>();
+        final AtomicInteger polls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(3);
+        final CountDownLatch release = new CountDownLatch(1);
+        MessageProcessorPollingMessageReceiver receiver = createReceiver(new MessageProcessor()
+        {
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                synchronized (partitions)
+                {
+                    partitions.add(event.getFlowVariable(MessageProcessorPollingMessageReceiver.PARTITION_VARIABLE));
+                }
+                polls.incrementAndGet();
+                started.countDown();
+                try
+                {
+                    release.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }
+        }, 3, "#['shard-' + flowVars.pollPartition]");
+        if (!receiver.getConnector().isStarted())
+        {
+            receiver.getConnector().start();
+        }
+
+        receiver.poll();
+        assertTrue(started.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+
+        // every partition is still running, so none of them is polled again
+        receiver.poll();
+        assertEquals(3, polls.get());
+        release.countDown();
+
+        synchronized (partitions)
+        {
+            assertEquals(3, partitions.size());
+            assertTrue(partitions.contains("shard-0"));
+            assertTrue(partitions.contains("shard-2"));
+        }
+    }
+
+    @Test
+    public void testPartitionsKeepTheirOwnSelectorWatermark() throws Exception
+    {
+        final ObjectStore<Serializable> store = new SimpleMemoryObjectStore<Serializable>();
+        SelectorWatermark watermark = new SelectorWatermark(store, "lastId", "0", WatermarkSelectorBroker.MAX,
+            "#[payload]");
+        MessageProcessorPollingMessageReceiver receiver = createReceiver(new MessageProcessor()
+        {
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                Object partition = event.getFlowVariable(MessageProcessorPollingMessageReceiver.PARTITION_VARIABLE);
+                List<Integer> ids = Integer.valueOf(0).equals(partition)
+                                                                          ? Arrays.asList(1, 5, 3)
+                                                                          : Arrays.asList(10, 20);
+                return new DefaultMuleEvent(new DefaultMuleMessage(ids, muleContext), event);
+            }
+        }, 2, null, watermark);
+        receiver.setListener(getSensingNullMessageProcessor());
+        if (!receiver.getConnector().isStarted())
+        {
+            receiver.getConnector().start();
+        }
+
+        receiver.poll();
+
+        new PollingProber(RECEIVE_TIMEOUT, 50).check(new Probe()
+        {
+            public boolean isSatisfied()
+            {
+                try
+                {
+                    return store.contains("lastId.0") && store.contains("lastId.1");
+                }
+                catch (ObjectStoreException e)
+                {
+                    return false;
+                }
+            }
+
+            public String describeFailure()
+            {
+                return "Watermarks of both partitions were not stored";
+            }
+        });
+        assertEquals(5, store.retrieve("lastId.0"));
+        assertEquals(20, store.retrieve("lastId.1"));
+        assertFalse(store.contains("lastId"));
+    }
+
     private MessageProcessorPollingMessageReceiver createReceiver(MessageProcessor processor)
         throws MuleException
+    {
+        return createReceiver(processor, 1, null);
+    }
+
+    private MessageProcessorPollingMessageReceiver createReceiver(MessageProcessor processor,
+                                                                  int partitions,
+                                                                  String partitionExpression)
+        throws MuleException
+    {
+        return createReceiver(processor, partitions, partitionExpression, null);
+    }
+
+    private MessageProcessorPollingMessageReceiver createReceiver(MessageProcessor processor,
+                                                                  int partitions,
+                                                                  String partitionExpression,
+                                                                  MessageProcessorPollingOverride override)
+        throws MuleException
     {
         EndpointURIEndpointBuilder builder = new EndpointURIEndpointBuilder("test://test", muleContext);
         builder.setProperty(MessageProcessorPollingMessageReceiver.SOURCE_MESSAGE_PROCESSOR_PROPERTY_NAME,
             processor);
         builder.setProperty(MessageProcessorPollingMessageReceiver.SCHEDULER_FACTORY_PROPERTY_NAME, schedulerFactory());
+        builder.setProperty(MessageProcessorPollingMessageReceiver.PARTITIONS_PROPERTY_NAME, partitions);
+        if (partitionExpression != null)
+        {
+            builder.setProperty(MessageProcessorPollingMessageReceiver.PARTITION_EXPRESSION_PROPERTY_NAME,
+                partitionExpression);
+        }
+        if (override != null)
+        {
+            builder.setProperty(MessageProcessorPollingMessageReceiver.POLL_OVERRIDE_PROPERTY_NAME, override);
+            // watermarks require the flow to be run synchronously
+            builder.setExchangePattern(MessageExchangePattern.REQUEST_RESPONSE);
+        }
         InboundEndpoint inboundEndpoint = muleContext.getEndpointFactory().getInboundEndpoint(builder);
 
         MessageProcessorPollingMessageReceiver receiver = new MessageProcessorPollingMessageReceiver(
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.polling.schedule;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleException;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+import org.mule.tck.probe.Prober;
+import org.mule.transport.AbstractPollingMessageReceiver;
+import org.mule.transport.PollYield;
+import org.mule.transport.PollingReceiverWorker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AdaptiveFrequencySchedulerTestCase extends AbstractMuleContextTestCase
+{
+
+    private AbstractPollingMessageReceiver receiver = mock(AbstractPollingMessageReceiver.class);
+    private Prober pollingProber = new PollingProber(1000, 0l);
+
+    @Test
+    public void validateLifecycleHappyPath() throws MuleException
+    {
+        AdaptiveFrequencyScheduler scheduler = createScheduler(new PollingReceiverWorker(receiver));
+
+        scheduler.initialise();
+        scheduler.start();
+        scheduler.stop();
+        scheduler.start();
+        scheduler.stop();
+        scheduler.dispose();
+    }
+
+    @Test
+    public void backsOffAfterEmptyPolls()
+    {
+        AdaptiveFrequencyScheduler scheduler = createScheduler(new PollingReceiverWorker(receiver));
+
+        assertEquals(20, scheduler.nextDelay(PollYield.EMPTY));
+        assertEquals(40, scheduler.nextDelay(PollYield.EMPTY));
+        assertEquals(50, scheduler.nextDelay(PollYield.EMPTY));
+        assertEquals(50, scheduler.nextDelay(PollYield.EMPTY));
+        assertEquals(50, scheduler.getCurrentDelay());
+        assertEquals(3, scheduler.getBackedOffPolls());
+    }
+
+    @Test
+    public void returnsToMinFrequencyWhenPollsYield()
+    {
+        AdaptiveFrequencyScheduler scheduler = createScheduler(new PollingReceiverWorker(receiver));
+
+        scheduler.nextDelay(PollYield.EMPTY);
+        scheduler.nextDelay(PollYield.EMPTY);
+
+        assertEquals(10, scheduler.nextDelay(PollYield.PARTIAL));
+        assertEquals(20, scheduler.nextDelay(PollYield.EMPTY));
+        assertEquals(0, scheduler.nextDelay(PollYield.FULL));
+        assertEquals(10, scheduler.getCurrentDelay());
+        assertEquals(1, scheduler.getImmediatePolls());
+    }
+
+    @Test
+    public void pollsRightAwayWhileMessagesAreLeft() throws Exception
+    {
+        when(receiver.getLastPollYield()).thenReturn(PollYield.FULL);
+        final TestPollingWorker job = new TestPollingWorker(receiver);
+        AdaptiveFrequencyScheduler scheduler = new AdaptiveFrequencyScheduler<PollingReceiverWorker>("name", 1, 1, 0, job, TimeUnit.HOURS);
+
+        scheduler.initialise();
+        scheduler.start();
+        try
+        {
+            pollingProber.check(new Probe()
+            {
+                @Override
+                public boolean isSatisfied()
+                {
+                    return job.runs.get() >= 3;
+                }
+
+                @Override
+                public String describeFailure()
+                {
+                    return "The scheduler did not poll again right away";
+                }
+            });
+        }
+        finally
+        {
+            scheduler.stop();
+            scheduler.dispose();
+        }
+    }
+
+    private AdaptiveFrequencyScheduler createScheduler(PollingReceiverWorker job)
+    {
+        return new AdaptiveFrequencyScheduler<PollingReceiverWorker>("name", 10, 50, 10, job, TimeUnit.HOURS);
+    }
+
+    private class TestPollingWorker extends PollingReceiverWorker
+    {
+
+        final AtomicInteger runs = new AtomicInteger();
+
+        public TestPollingWorker(AbstractPollingMessageReceiver pollingMessageReceiver)
+        {
+            super(pollingMessageReceiver);
+        }
+
+        @Override
+        public void run()
+        {
+            runs.incrementAndGet();
+        }
+    }
+
+}
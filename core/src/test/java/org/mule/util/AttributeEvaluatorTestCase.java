@@ -8,8 +8,13 @@ package org.mule.util;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.mule.api.MuleMessage;
 import org.mule.api.expression.ExpressionManager;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
@@ -28,6 +33,9 @@ public class AttributeEvaluatorTestCase extends AbstractMuleTestCase
     @Mock
     private ExpressionManager mockExpressionManager;
 
+    @Mock
+    private MuleMessage mockMessage;
+
     @Test
     public void testPlainTextValue()
     {
@@ -97,4 +105,22 @@ public class AttributeEvaluatorTestCase extends AbstractMuleTestCase
         assertThat(attributeEvaluator.isExpression(), is(true));
     }
 
+    @Test
+    public void testPlainTextIsNotParsed()
+    {
+        AttributeEvaluator attributeEvaluator = new AttributeEvaluator("plain text");
+        attributeEvaluator.initialize(mockExpressionManager);
+        assertThat((String) attributeEvaluator.resolveValue(mockMessage), is("plain text"));
+        verify(mockExpressionManager, never()).parse(anyString(), any(MuleMessage.class));
+    }
+
+    @Test
+    public void testTemplateIsParsed()
+    {
+        when(mockExpressionManager.parse("1#[2]3", mockMessage)).thenReturn("123");
+        AttributeEvaluator attributeEvaluator = new AttributeEvaluator("1#[2]3");
+        attributeEvaluator.initialize(mockExpressionManager);
+        assertThat((String) attributeEvaluator.resolveValue(mockMessage), is("123"));
+    }
+
 }
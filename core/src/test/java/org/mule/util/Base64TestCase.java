@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@SmallTest
+public class Base64TestCase extends AbstractMuleTestCase
+{
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void streamEncodingMatchesArrayEncoding() throws Exception
+    {
+        for (int length : new int[] {0, 1, 2, 3, 3071, 3072, 3073, 20000})
+        {
+            byte[] data = randomBytes(length);
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            Base64.encode(new ByteArrayInputStream(data), encoded);
+            assertEquals(Base64.encodeBytes(data, Base64.DONT_BREAK_LINES), encoded.toString("US-ASCII"));
+        }
+    }
+
+    @Test
+    public void streamDecodingSkipsLineBreaks() throws Exception
+    {
+        for (int length : new int[] {0, 1, 2, 3, 4095, 4096, 20000})
+        {
+            byte[] data = randomBytes(length);
+            String encoded = Base64.encodeBytes(data);
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            Base64.decode(new ByteArrayInputStream(encoded.getBytes("US-ASCII")), decoded);
+            assertArrayEquals(data, decoded.toByteArray());
+        }
+    }
+
+    @Test
+    public void bufferEncodingLeavesIncompleteGroupUntilEndOfInput() throws Exception
+    {
+        ByteBuffer source = ByteBuffer.wrap(new byte[] {1, 2, 3, 4});
+        ByteBuffer destination = ByteBuffer.allocate(8);
+
+        Base64.encode(source, destination, false);
+        assertEquals(1, source.remaining());
+        assertEquals(4, destination.position());
+
+        Base64.encode(source, destination, true);
+        assertFalse(source.hasRemaining());
+        assertEquals(Base64.encodeBytes(new byte[] {1, 2, 3, 4}), new String(destination.array(), "US-ASCII"));
+    }
+
+    @Test
+    public void bufferDecodingResumesIncompleteGroup() throws Exception
+    {
+        byte[] encoded = "AQID\nBA==".getBytes("US-ASCII");
+        ByteBuffer destination = ByteBuffer.allocate(8);
+
+        ByteBuffer source = ByteBuffer.wrap(encoded, 0, 7);
+        assertFalse(Base64.decode(source, destination));
+        assertEquals(5, source.position());
+        assertEquals(3, destination.position());
+
+        source = ByteBuffer.wrap(encoded, 5, encoded.length - 5);
+        assertTrue(Base64.decode(source, destination));
+        destination.flip();
+        byte[] decoded = new byte[destination.remaining()];
+        destination.get(decoded);
+        assertArrayEquals(new byte[] {1, 2, 3, 4}, decoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void bufferDecodingRejectsInvalidCharacters()
+    {
+        Base64.decode(ByteBuffer.wrap(new byte[] {'A', '!', 'I', 'D'}), ByteBuffer.allocate(3));
+    }
+
+    @Test
+    public void bufferDecodingRejectsBytesOutsideTheAlphabet()
+    {
+        for (byte invalid : new byte[] {0x7F, (byte) 0x80, (byte) 0xC1, (byte) 0xFF})
+        {
+            try
+            {
+                Base64.decode(ByteBuffer.wrap(new byte[] {'A', invalid, 'I', 'D'}), ByteBuffer.allocate(3));
+                fail("Decoded byte " + invalid);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void arrayDecodingRejectsBytesOutsideTheAlphabet()
+    {
+        for (byte invalid : new byte[] {0x7F, (byte) 0xC1})
+        {
+            try
+            {
+                Base64.decode(new byte[] {'A', invalid, 'I', 'D'}, 0, 4);
+                fail("Decoded byte " + invalid);
+            }
+            catch (IllegalArgumentException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void streamDecodingSkipsBytesOutsideTheAlphabet() throws Exception
+    {
+        byte[] encoded = new byte[] {'A', 0x7F, 'Q', (byte) 0xC1, 'I', 'D'};
+        Base64.InputStream in = new Base64.InputStream(new ByteArrayInputStream(encoded), Base64.DECODE);
+
+        assertArrayEquals(new byte[] {1, 2, 3}, IOUtils.toByteArray(in));
+    }
+
+    @Test
+    public void xmlEntityStreamCodecMatchesStringCodec() throws Exception
+    {
+        String text = "<a href=\"x?y=1&amp;z=2\">caf\u00e9 &copy; 'q'</a> & &unknown; &#233;&#x41;";
+        StringWriter encoded = new StringWriter();
+        XMLEntityCodec.encode(new StringReader(text), encoded);
+        assertEquals(XMLEntityCodec.encodeString(text), encoded.toString());
+
+        StringWriter decoded = new StringWriter();
+        XMLEntityCodec.decode(new StringReader(text), decoded);
+        assertEquals(XMLEntityCodec.decodeString(text), decoded.toString());
+    }
+
+    private byte[] randomBytes(int length)
+    {
+        byte[] data = new byte[length];
+        random.nextBytes(data);
+        return data;
+    }
+}
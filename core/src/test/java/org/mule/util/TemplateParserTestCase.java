@@ -9,6 +9,7 @@ package org.mule.util;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.mule.tck.junit4.AbstractMuleTestCase;
@@ -19,6 +20,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -308,6 +310,65 @@ public class TemplateParserTestCase extends AbstractMuleTestCase
         assertTrue(tp.isValid("#[foo:blah = '#[foo]']"));
     }
 
+    @Test
+    public void muleParserCachesCompiledTemplates()
+    {
+        TemplateParser tp = TemplateParser.createMuleStyleParser();
+        String template = "/orders/#[header:id]/items";
+
+        TemplateParser.CompiledTemplate compiled = tp.compile(template);
+        assertTrue(compiled.isContainsTemplate());
+        assertSame(compiled, tp.compile(template));
+        assertFalse(tp.compile("no tokens").isContainsTemplate());
+    }
+
+    @Test
+    public void muleParserCompiledTemplateResolvesRepeatedTokensOnce()
+    {
+        TemplateParser tp = TemplateParser.createMuleStyleParser();
+        final AtomicInteger invocations = new AtomicInteger();
+
+        String result = tp.compile("#[a]-#[b]-#[a]").render(new TemplateParser.TemplateCallback()
+        {
+            @Override
+            public Object match(String token)
+            {
+                return token + invocations.incrementAndGet();
+            }
+        });
+
+        assertEquals("a1-b2-a1", result);
+        assertEquals(2, invocations.get());
+    }
+
+    @Test
+    public void muleParserCompiledTemplateRendersNestedTemplates()
+    {
+        final TemplateParser tp = TemplateParser.createMuleStyleParser();
+
+        String result = tp.parse(new TemplateParser.TemplateCallback()
+        {
+            @Override
+            public Object match(String token)
+            {
+                if ("outer".equals(token))
+                {
+                    return tp.parse(new TemplateParser.TemplateCallback()
+                    {
+                        @Override
+                        public Object match(String token)
+                        {
+                            return "$" + token;
+                        }
+                    }, "(#[inner])");
+                }
+                return token;
+            }
+        }, "start #[outer] end");
+
+        assertEquals("start ($inner) end", result);
+    }
+
     private Map<String, Object> buildMap()
     {
         Map<String, Object> props = new HashMap<String, Object>();
@@ -17,7 +17,6 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.codehaus.jackson.JsonNode;
-import org.codehaus.jackson.map.ObjectMapper;
 
 /**
  * A wrapper for the {@link org.codehaus.jackson.JsonNode} object that
@@ -66,12 +65,12 @@ public class JsonData implements Serializable
 
     public JsonData(InputStream node) throws IOException
     {
-        this.node = new ObjectMapper().readTree(node);
+        this.node = JsonMapperCache.getSharedInstance().getDefaultMapper().readTree(node);
     }
 
     public JsonData(Reader node) throws IOException
     {
-        this.node = new ObjectMapper().readTree(node);
+        this.node = JsonMapperCache.getSharedInstance().getDefaultMapper().readTree(node);
     }
 
     public JsonData(String node) throws IOException
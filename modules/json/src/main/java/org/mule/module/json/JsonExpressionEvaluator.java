@@ -6,8 +6,10 @@
  */
 package org.mule.module.json;
 
+import org.mule.api.MuleContext;
 import org.mule.api.MuleMessage;
 import org.mule.api.MuleRuntimeException;
+import org.mule.api.context.MuleContextAware;
 import org.mule.api.expression.ExpressionEvaluator;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.NumberUtils;
@@ -59,13 +61,21 @@ import org.codehaus.jackson.node.ValueNode;
  *
  * @see org.mule.module.json.JsonData
  */
-public class JsonExpressionEvaluator implements ExpressionEvaluator
+public class JsonExpressionEvaluator implements ExpressionEvaluator, MuleContextAware
 {
     /**
      * logger used by this class
      */
     protected transient final Log logger = LogFactory.getLog(JsonExpressionEvaluator.class);
 
+    private JsonMapperCache mapperCache = JsonMapperCache.getSharedInstance();
+
+    @Override
+    public void setMuleContext(MuleContext context)
+    {
+        this.mapperCache = JsonMapperCache.lookup(context);
+    }
+
     @Override
     public Object evaluate(String expression, MuleMessage message)
     {
@@ -92,7 +102,7 @@ public class JsonExpressionEvaluator implements ExpressionEvaluator
         try
         {
             String json = message.getPayloadAsString();
-            JsonData data = new JsonData(json);
+            JsonData data = new JsonData(mapperCache.getDefaultMapper().readTree(json));
             try
             {
                 JsonNode resultNode = data.get(expression);
@@ -143,6 +153,11 @@ public class JsonExpressionEvaluator implements ExpressionEvaluator
         }
     }
 
+    protected JsonMapperCache getMapperCache()
+    {
+        return mapperCache;
+    }
+
     protected Object extractResultFromNode(JsonNode result)
     {
         if (result instanceof ValueNode)
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import org.mule.api.MuleContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+
+import de.odysseus.staxon.json.JsonXMLInputFactory;
+import de.odysseus.staxon.json.JsonXMLOutputFactory;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Holds the Jackson {@link ObjectMapper}s and StAX factories used by the JSON module so that they are
+ * created and configured once per application instead of once per transformer or per message.
+ * <p/>
+ * An {@link ObjectMapper} is thread-safe once it has been configured, so mappers handed out by this
+ * cache are fully configured (including mixins) before they are published and must not be reconfigured
+ * by callers. For that reason they are only meant for the module's own use and are never injected into
+ * user code. Mappers are keyed by the mixins they carry, so transformers that declare the same mixins
+ * share a single instance.
+ * <p/>
+ * An instance is registered in the registry under {@link #REGISTRY_KEY} through the module's registry
+ * bootstrap.
+ *
+ * @since 3.5
+ */
+public class JsonMapperCache
+{
+    public static final String REGISTRY_KEY = "_jsonMapperCache";
+
+    private static final JsonMapperCache DEFAULT_INSTANCE = new JsonMapperCache();
+
+    private final ObjectMapper defaultMapper = new ObjectMapper();
+
+    private final ConcurrentMap<MixinKey, ObjectMapper> mixinMappers = new ConcurrentHashMap<MixinKey, ObjectMapper>();
+
+    private final XMLInputFactory jsonXmlInputFactory;
+
+    private final XMLOutputFactory jsonXmlOutputFactory;
+
+    private final XMLInputFactory xmlInputFactory;
+
+    private final XMLOutputFactory xmlOutputFactory;
+
+    public JsonMapperCache()
+    {
+        jsonXmlInputFactory = new JsonXMLInputFactory();
+        jsonXmlInputFactory.setProperty(JsonXMLInputFactory.PROP_MULTIPLE_PI, false);
+
+        jsonXmlOutputFactory = new JsonXMLOutputFactory();
+        jsonXmlOutputFactory.setProperty(JsonXMLOutputFactory.PROP_AUTO_ARRAY, true);
+        jsonXmlOutputFactory.setProperty(JsonXMLOutputFactory.PROP_PRETTY_PRINT, true);
+
+        xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+
+        xmlOutputFactory = XMLOutputFactory.newInstance();
+    }
+
+    /**
+     * @return the JVM wide instance used where there is no {@link MuleContext} available
+     */
+    public static JsonMapperCache getSharedInstance()
+    {
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * Returns the cache registered for the given context, or a JVM wide instance if there is no context or
+     * the module bootstrap has not registered one (i.e. when transformers are used programmatically).
+     */
+    public static JsonMapperCache lookup(MuleContext muleContext)
+    {
+        if (muleContext != null && muleContext.getRegistry() != null)
+        {
+            JsonMapperCache cache = muleContext.getRegistry().lookupObject(REGISTRY_KEY);
+            if (cache != null)
+            {
+                return cache;
+            }
+        }
+        return DEFAULT_INSTANCE;
+    }
+
+    /**
+     * @return a shared mapper with no mixins, suitable for reading trees and for types that need no
+     *         additional configuration
+     */
+    public ObjectMapper getDefaultMapper()
+    {
+        return defaultMapper;
+    }
+
+    /**
+     * Returns a shared mapper configured with the given mixins. If both maps are empty the default mapper
+     * is returned.
+     *
+     * @param serializationMixins mixins to apply when serializing, keyed by target class
+     * @param deserializationMixins mixins to apply when deserializing, keyed by target class
+     */
+    public ObjectMapper getMapper(Map<Class<?>, Class<?>> serializationMixins,
+                                  Map<Class<?>, Class<?>> deserializationMixins)
+    {
+        if (isEmpty(serializationMixins) && isEmpty(deserializationMixins))
+        {
+            return defaultMapper;
+        }
+
+        MixinKey key = new MixinKey(serializationMixins, deserializationMixins);
+        ObjectMapper mapper = mixinMappers.get(key);
+        if (mapper == null)
+        {
+            mapper = new ObjectMapper();
+            for (Map.Entry<Class<?>, Class<?>> entry : key.serializationMixins.entrySet())
+            {
+                mapper.getSerializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<Class<?>, Class<?>> entry : key.deserializationMixins.entrySet())
+            {
+                mapper.getDeserializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
+            }
+            ObjectMapper previous = mixinMappers.putIfAbsent(key, mapper);
+            if (previous != null)
+            {
+                mapper = previous;
+            }
+        }
+        return mapper;
+    }
+
+    /**
+     * Creates a streaming parser over the given content without reading it up front.
+     *
+     * @param source an {@link InputStream}, {@link Reader}, byte array or String holding JSON
+     * @param encoding the encoding of binary content, used when it is not one Jackson detects by itself
+     * @return a parser positioned before the first token, or null if the source type is not supported
+     * @throws IOException if the parser cannot be created
+     */
+    public JsonParser createParser(Object source, String encoding) throws IOException
+    {
+        JsonFactory factory = defaultMapper.getJsonFactory();
+        boolean unicode = encoding == null || encoding.toUpperCase().startsWith("UTF");
+        if (source instanceof InputStream)
+        {
+            InputStream in = (InputStream) source;
+            return unicode ? factory.createJsonParser(in) : factory.createJsonParser(new InputStreamReader(in, encoding));
+        }
+        else if (source instanceof byte[])
+        {
+            byte[] bytes = (byte[]) source;
+            return unicode ? factory.createJsonParser(bytes) : factory.createJsonParser(new String(bytes, encoding));
+        }
+        else if (source instanceof String)
+        {
+            return factory.createJsonParser((String) source);
+        }
+        else if (source instanceof Reader)
+        {
+            return factory.createJsonParser((Reader) source);
+        }
+        return null;
+    }
+
+    /**
+     * @return a Staxon factory that reads JSON as StAX events
+     */
+    public XMLInputFactory getJsonXmlInputFactory()
+    {
+        return jsonXmlInputFactory;
+    }
+
+    /**
+     * @return a Staxon factory that writes StAX events as JSON
+     */
+    public XMLOutputFactory getJsonXmlOutputFactory()
+    {
+        return jsonXmlOutputFactory;
+    }
+
+    /**
+     * @return a coalescing StAX factory for reading XML
+     */
+    public XMLInputFactory getXmlInputFactory()
+    {
+        return xmlInputFactory;
+    }
+
+    /**
+     * @return a StAX factory for writing XML
+     */
+    public XMLOutputFactory getXmlOutputFactory()
+    {
+        return xmlOutputFactory;
+    }
+
+    private static boolean isEmpty(Map<?, ?> map)
+    {
+        return map == null || map.isEmpty();
+    }
+
+    private static class MixinKey
+    {
+        private final Map<Class<?>, Class<?>> serializationMixins;
+        private final Map<Class<?>, Class<?>> deserializationMixins;
+        private final int hashCode;
+
+        MixinKey(Map<Class<?>, Class<?>> serializationMixins, Map<Class<?>, Class<?>> deserializationMixins)
+        {
+            this.serializationMixins = copyOf(serializationMixins);
+            this.deserializationMixins = copyOf(deserializationMixins);
+            this.hashCode = 31 * this.serializationMixins.hashCode() + this.deserializationMixins.hashCode();
+        }
+
+        private static Map<Class<?>, Class<?>> copyOf(Map<Class<?>, Class<?>> mixins)
+        {
+            if (isEmpty(mixins))
+            {
+                return Collections.emptyMap();
+            }
+            return Collections.unmodifiableMap(new HashMap<Class<?>, Class<?>>(mixins));
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof MixinKey))
+            {
+                return false;
+            }
+            MixinKey other = (MixinKey) o;
+            return serializationMixins.equals(other.serializationMixins)
+                   && deserializationMixins.equals(other.deserializationMixins);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleRuntimeException;
+import org.mule.config.i18n.CoreMessages;
+
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * An expression evaluator that resolves simple paths against the payload incrementally, i.e.
+ * <code>
+ * #[json-stream:header.messageId]
+ * </code>
+ * <p/>
+ * Unlike {@link JsonExpressionEvaluator} the payload is never parsed into a tree. Only the values on the
+ * path are visited and parsing stops as soon as the selected value is found, so looking up a header field
+ * at the beginning of a very large document is cheap. The comparison operators supported by the
+ * {@link JsonExpressionEvaluator} are not available.
+ * <p/>
+ * Note that if the payload is an {@link InputStream} it is consumed by the evaluation. In that case this
+ * evaluator should be the only consumer of the payload, or the stream should be cached beforehand.
+ *
+ * @see JsonStreamingPath
+ */
+public class JsonStreamingExpressionEvaluator extends JsonExpressionEvaluator
+{
+    private final ConcurrentMap<String, JsonStreamingPath> paths = new ConcurrentHashMap<String, JsonStreamingPath>();
+
+    @Override
+    public Object evaluate(String expression, MuleMessage message)
+    {
+        JsonParser parser = null;
+        try
+        {
+            Object payload = message.getPayload();
+            parser = getMapperCache().createParser(payload, message.getEncoding());
+            if (parser == null)
+            {
+                parser = getMapperCache().createParser(message.getPayloadAsBytes(), message.getEncoding());
+            }
+
+            if (!getPath(expression).moveTo(parser))
+            {
+                logger.debug("returning null for json expression: " + expression);
+                return null;
+            }
+            if (parser.getCurrentToken().isScalarValue())
+            {
+                return parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+            }
+            return extractResultFromNode(getMapperCache().getDefaultMapper().readTree(parser));
+        }
+        catch (Exception e)
+        {
+            throw new MuleRuntimeException(CoreMessages.failedToProcessExtractorFunction(getName() + ":" + expression), e);
+        }
+        finally
+        {
+            closeQuietly(parser);
+        }
+    }
+
+    protected JsonStreamingPath getPath(String expression)
+    {
+        JsonStreamingPath path = paths.get(expression);
+        if (path == null)
+        {
+            path = new JsonStreamingPath(expression);
+            JsonStreamingPath previous = paths.putIfAbsent(expression, path);
+            if (previous != null)
+            {
+                path = previous;
+            }
+        }
+        return path;
+    }
+
+    private void closeQuietly(JsonParser parser)
+    {
+        if (parser != null)
+        {
+            try
+            {
+                parser.close();
+            }
+            catch (Exception e)
+            {
+                logger.debug("Failed to close JSON parser: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getName()
+    {
+        return "json-stream";
+    }
+}
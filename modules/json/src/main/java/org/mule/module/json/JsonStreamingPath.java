@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * A simple path into a JSON document that can be resolved against a {@link JsonParser} without
+ * building a tree for the whole document. Sibling values that are not on the path are skipped
+ * and parsing stops as soon as the selected value is reached.
+ * <p/>
+ * Path segments can be separated with either '.' or '/' and array elements are selected using square
+ * braces with an index value i.e.
+ * <code>
+ * person.addresses[0].postcode
+ * </code>
+ * <p/>
+ * or
+ * <p/>
+ * <code>
+ * person/addresses[0]/postcode
+ * </code>
+ * <p/>
+ * If a property name contains a separator it needs to be quoted with single quotes, as with {@link JsonData}.
+ * An empty path selects the root value.
+ */
+public class JsonStreamingPath
+{
+    private final String expression;
+
+    // Either String field names or Integer array indexes
+    private final List<Object> segments;
+
+    public JsonStreamingPath(String expression)
+    {
+        this.expression = expression == null ? "" : expression.trim();
+        this.segments = Collections.unmodifiableList(parseSegments(this.expression));
+    }
+
+    /**
+     * Advances the parser to the first token of the value selected by this path. If the parser has not been
+     * started yet the first token of the document is read.
+     *
+     * @param parser the parser to advance
+     * @return true if the value exists, in which case the parser's current token is its first token,
+     *         or false if the document does not contain the path
+     * @throws IOException if the content cannot be read or is not valid JSON
+     */
+    public boolean moveTo(JsonParser parser) throws IOException
+    {
+        JsonToken token = parser.getCurrentToken();
+        if (token == null)
+        {
+            token = parser.nextToken();
+        }
+
+        for (Object segment : segments)
+        {
+            if (token == null)
+            {
+                return false;
+            }
+            if (segment instanceof Integer)
+            {
+                if (token != JsonToken.START_ARRAY || !moveToElement(parser, (Integer) segment))
+                {
+                    return false;
+                }
+            }
+            else
+            {
+                if (token != JsonToken.START_OBJECT || !moveToField(parser, (String) segment))
+                {
+                    return false;
+                }
+            }
+            token = parser.getCurrentToken();
+        }
+        return token != null;
+    }
+
+    private boolean moveToField(JsonParser parser, String name) throws IOException
+    {
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (name.equals(field))
+            {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    private boolean moveToElement(JsonParser parser, int index) throws IOException
+    {
+        JsonToken token;
+        int i = 0;
+        while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY)
+        {
+            if (i++ == index)
+            {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    protected List<Object> parseSegments(String path)
+    {
+        List<Object> result = new ArrayList<Object>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < path.length(); i++)
+        {
+            char c = path.charAt(i);
+            if (c == '\'')
+            {
+                quoted = !quoted;
+            }
+            else if (quoted)
+            {
+                current.append(c);
+            }
+            else if (c == '.' || c == '/')
+            {
+                addField(result, current);
+            }
+            else if (c == '[')
+            {
+                addField(result, current);
+                int end = path.indexOf(']', i);
+                if (end == -1)
+                {
+                    throw new IllegalArgumentException("Unterminated array index in JSON path: " + path);
+                }
+                result.add(Integer.valueOf(path.substring(i + 1, end).trim()));
+                i = end;
+            }
+            else
+            {
+                current.append(c);
+            }
+        }
+        if (quoted)
+        {
+            throw new IllegalArgumentException("Unterminated quote in JSON path: " + path);
+        }
+        addField(result, current);
+        return result;
+    }
+
+    private void addField(List<Object> result, StringBuilder current)
+    {
+        if (current.length() > 0)
+        {
+            result.add(current.toString());
+            current.setLength(0);
+        }
+    }
+
+    public List<Object> getSegments()
+    {
+        return segments;
+    }
+
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    @Override
+    public String toString()
+    {
+        return expression;
+    }
+}
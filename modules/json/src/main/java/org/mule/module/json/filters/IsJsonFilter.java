@@ -8,13 +8,13 @@ package org.mule.module.json.filters;
 
 import org.mule.api.MuleMessage;
 import org.mule.api.routing.filter.Filter;
+import org.mule.module.json.JsonMapperCache;
 import org.mule.util.StringUtils;
 
 import java.io.IOException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.codehaus.jackson.map.ObjectMapper;
 
 /**
  * A filter that will determine if the current message payload is a JSON encoded message.
@@ -72,7 +72,7 @@ public class IsJsonFilter implements Filter
 
                 if (isValidateParsing())
                 {
-                    new ObjectMapper().readTree((String) obj);
+                    JsonMapperCache.getSharedInstance().getDefaultMapper().readTree((String) obj);
                 }
                 return true;
             }
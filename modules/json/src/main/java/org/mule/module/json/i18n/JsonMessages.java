@@ -22,4 +22,14 @@ public class JsonMessages extends MessageFactory
     {
         return factory.createMessage(BUNDLE_PATH, 1);
     }
+
+    public static Message failedToReadJsonStream(String reason)
+    {
+        return factory.createMessage(BUNDLE_PATH, 2, reason);
+    }
+
+    public static Message pathIsNotAnArray(String path)
+    {
+        return factory.createMessage(BUNDLE_PATH, 3, path);
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MuleRuntimeException;
+import org.mule.module.json.i18n.JsonMessages;
+import org.mule.routing.AbstractMessageSequence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * A {@link org.mule.routing.MessageSequence} over the elements of a JSON array that reads each element
+ * from the parser only when it is requested. The parser must be positioned on the
+ * {@link JsonToken#START_ARRAY} token of the array.
+ */
+class JsonArrayMessageSequence extends AbstractMessageSequence<String> implements Closeable
+{
+    private final JsonParser parser;
+    private final ObjectMapper mapper;
+    private String next;
+    private boolean finished;
+
+    JsonArrayMessageSequence(JsonParser parser, ObjectMapper mapper)
+    {
+        this.parser = parser;
+        this.mapper = mapper;
+    }
+
+    public int size()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    public boolean hasNext()
+    {
+        if (next == null && !finished)
+        {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    public String next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        String result = next;
+        next = null;
+        return result;
+    }
+
+    private String readNext()
+    {
+        try
+        {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY)
+            {
+                finish();
+                return null;
+            }
+            if (token == JsonToken.VALUE_NULL)
+            {
+                return "null";
+            }
+            if (token.isScalarValue())
+            {
+                return parser.getText();
+            }
+            JsonNode node = mapper.readTree(parser);
+            return node.toString();
+        }
+        catch (IOException e)
+        {
+            finish();
+            throw new MuleRuntimeException(JsonMessages.failedToReadJsonStream(e.getMessage()), e);
+        }
+    }
+
+    private void finish()
+    {
+        finished = true;
+        try
+        {
+            parser.close();
+        }
+        catch (IOException e)
+        {
+            // ignore, the content has already been read
+        }
+    }
+
+    public void close() throws IOException
+    {
+        finished = true;
+        parser.close();
+    }
+}
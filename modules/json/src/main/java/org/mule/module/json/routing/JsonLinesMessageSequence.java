@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MuleRuntimeException;
+import org.mule.module.json.i18n.JsonMessages;
+import org.mule.routing.AbstractMessageSequence;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link org.mule.routing.MessageSequence} over newline-delimited JSON that reads one line at a time.
+ * Blank lines are skipped and lines are returned without being parsed.
+ */
+class JsonLinesMessageSequence extends AbstractMessageSequence<String> implements Closeable
+{
+    private final BufferedReader reader;
+    private String next;
+    private boolean finished;
+
+    JsonLinesMessageSequence(Reader reader)
+    {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    public int size()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    public boolean hasNext()
+    {
+        while (next == null && !finished)
+        {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    public String next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        String result = next;
+        next = null;
+        return result;
+    }
+
+    private String readNext()
+    {
+        try
+        {
+            String line = reader.readLine();
+            if (line == null)
+            {
+                close();
+                return null;
+            }
+            line = line.trim();
+            return line.length() == 0 ? null : line;
+        }
+        catch (IOException e)
+        {
+            finished = true;
+            throw new MuleRuntimeException(JsonMessages.failedToReadJsonStream(e.getMessage()), e);
+        }
+    }
+
+    public void close() throws IOException
+    {
+        finished = true;
+        reader.close();
+    }
+}
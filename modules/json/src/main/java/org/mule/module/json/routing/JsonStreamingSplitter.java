@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.module.json.JsonMapperCache;
+import org.mule.module.json.JsonStreamingPath;
+import org.mule.module.json.i18n.JsonMessages;
+import org.mule.routing.MessageSequence;
+import org.mule.routing.outbound.AbstractMessageSequenceSplitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+
+/**
+ * Splits a JSON payload without reading it into memory first. Each part is read from the payload only when
+ * the previous one has been processed, so the document itself is never held in memory as a whole. As with
+ * any splitter, the events the parts return from the rest of the flow are collected and aggregated into the
+ * result, so the memory used still grows with the number of parts unless they return no event. Two formats
+ * are supported:
+ * <ul>
+ * <li>{@link Format#ARRAY}: the payload (or the value selected by {@link #setPath(String) path}) is a JSON
+ * array and each element becomes a message. Scalar elements are passed on as their text and structured
+ * elements as their JSON representation.</li>
+ * <li>{@link Format#LINES}: the payload is newline-delimited JSON and each non-blank line becomes a message
+ * as is, without being parsed.</li>
+ * </ul>
+ * Since the number of parts is not known up front the correlation group size of the parts is unknown.
+ *
+ * @see JsonStreamingPath
+ */
+public class JsonStreamingSplitter extends AbstractMessageSequenceSplitter implements Initialisable
+{
+    public enum Format
+    {
+        ARRAY, LINES
+    }
+
+    private Format format = Format.ARRAY;
+
+    private String path;
+
+    private JsonStreamingPath streamingPath;
+
+    private JsonMapperCache mapperCache;
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        mapperCache = JsonMapperCache.lookup(muleContext);
+        streamingPath = new JsonStreamingPath(path);
+    }
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        MuleMessage message = event.getMessage();
+        JsonParser parser;
+        try
+        {
+            if (format == Format.LINES)
+            {
+                return new JsonLinesMessageSequence(createReader(message));
+            }
+
+            parser = mapperCache.createParser(message.getPayload(), message.getEncoding());
+            if (parser == null)
+            {
+                parser = mapperCache.createParser(message.getPayloadAsBytes(), message.getEncoding());
+            }
+            if (streamingPath.moveTo(parser) && parser.getCurrentToken() == JsonToken.START_ARRAY)
+            {
+                return new JsonArrayMessageSequence(parser, mapperCache.getDefaultMapper());
+            }
+        }
+        catch (Exception e)
+        {
+            throw new MessagingException(JsonMessages.failedToReadJsonStream(e.getMessage()), event, e, this);
+        }
+
+        closeQuietly(parser);
+        throw new MessagingException(JsonMessages.pathIsNotAnArray(streamingPath.getExpression()), event, this);
+    }
+
+    @Override
+    protected List<MuleEvent> processParts(MessageSequence<?> seq, MuleEvent originalEvent) throws MuleException
+    {
+        try
+        {
+            return super.processParts(seq, originalEvent);
+        }
+        finally
+        {
+            if (seq instanceof Closeable)
+            {
+                closeQuietly((Closeable) seq);
+            }
+        }
+    }
+
+    private void closeQuietly(Closeable closeable)
+    {
+        try
+        {
+            closeable.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("Failed to close JSON stream: " + e.getMessage());
+        }
+    }
+
+    protected Reader createReader(MuleMessage message) throws Exception
+    {
+        Object payload = message.getPayload();
+        if (payload instanceof Reader)
+        {
+            return (Reader) payload;
+        }
+        else if (payload instanceof String)
+        {
+            return new StringReader((String) payload);
+        }
+        else if (payload instanceof InputStream)
+        {
+            return new InputStreamReader((InputStream) payload, message.getEncoding());
+        }
+        return new StringReader(message.getPayloadAsString());
+    }
+
+    public Format getFormat()
+    {
+        return format;
+    }
+
+    public void setFormat(Format format)
+    {
+        this.format = format;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    /**
+     * A path to the array to split when the array is not the root of the document, i.e. {@code results.items}.
+     * Only used with the {@link Format#ARRAY} format.
+     */
+    public void setPath(String path)
+    {
+        this.path = path;
+    }
+}
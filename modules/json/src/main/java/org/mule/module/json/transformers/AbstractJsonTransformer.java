@@ -8,10 +8,12 @@ package org.mule.module.json.transformers;
 
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.DiscoverableTransformer;
+import org.mule.module.json.JsonMapperCache;
 import org.mule.transformer.AbstractMessageTransformer;
 
 import org.codehaus.jackson.map.ObjectMapper;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +26,8 @@ public abstract class AbstractJsonTransformer extends AbstractMessageTransformer
 
     private ObjectMapper mapper;
 
+    private boolean sharedMapper = false;
+
     private Map<Class<?>, Class<?>> sharedMixins = new HashMap<Class<?>, Class<?>>();
 
     @Override
@@ -31,10 +35,41 @@ public abstract class AbstractJsonTransformer extends AbstractMessageTransformer
     {
         if (mapper == null)
         {
-            mapper = new ObjectMapper();
+            Map<Class<?>, Class<?>> serializationMixins = new HashMap<Class<?>, Class<?>>(getMixins());
+            serializationMixins.putAll(getSerializationMixinsToApply());
+            Map<Class<?>, Class<?>> deserializationMixins = new HashMap<Class<?>, Class<?>>(getMixins());
+            deserializationMixins.putAll(getDeserializationMixinsToApply());
+
+            mapper = JsonMapperCache.lookup(muleContext).getMapper(serializationMixins, deserializationMixins);
+            sharedMapper = true;
         }
     }
 
+    /**
+     * @return the transformer specific mixins applied when serializing, in addition to the shared ones
+     */
+    protected Map<Class<?>, Class<?>> getSerializationMixinsToApply()
+    {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return the transformer specific mixins applied when deserializing, in addition to the shared ones
+     */
+    protected Map<Class<?>, Class<?>> getDeserializationMixinsToApply()
+    {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return true if the mapper was obtained from the {@link JsonMapperCache}, in which case it is already
+     *         configured with this transformer's mixins and must not be modified
+     */
+    protected boolean isSharedMapper()
+    {
+        return sharedMapper;
+    }
+
     public ObjectMapper getMapper()
     {
         return mapper;
@@ -43,6 +78,7 @@ public abstract class AbstractJsonTransformer extends AbstractMessageTransformer
     public void setMapper(ObjectMapper mapper)
     {
         this.mapper = mapper;
+        this.sharedMapper = false;
     }
 
     public int getPriorityWeighting()
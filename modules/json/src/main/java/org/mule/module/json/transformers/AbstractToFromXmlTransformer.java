@@ -6,6 +6,9 @@
  */
 package org.mule.module.json.transformers;
 
+import org.mule.api.MuleEvent;
+import org.mule.api.transport.OutputHandler;
+import org.mule.module.json.JsonMapperCache;
 import org.mule.transformer.AbstractTransformer;
 
 import javax.xml.stream.XMLOutputFactory;
@@ -14,10 +17,11 @@ import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stax.StAXResult;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.StringWriter;
 
 /**
@@ -32,6 +36,22 @@ public abstract class AbstractToFromXmlTransformer extends AbstractTransformer
         transformerFactory = TransformerInputs.createTransformerFactory();
     }
 
+    /**
+     * @return the factories shared by the JSON module for the current application
+     */
+    protected JsonMapperCache getMapperCache()
+    {
+        return JsonMapperCache.lookup(muleContext);
+    }
+
+    /**
+     * @return true if the configured return type asks for the result to be streamed
+     */
+    protected boolean isStreamingResult()
+    {
+        return OutputHandler.class.isAssignableFrom(getReturnDataType().getType());
+    }
+
     /**
      * Return result of transformation
      */
@@ -44,4 +64,60 @@ public abstract class AbstractToFromXmlTransformer extends AbstractTransformer
         transformer.transform(source, result);
         return writer.toString();
     }
+
+    /**
+     * Write the result of the transformation to the given stream without buffering it
+     */
+    protected void convert(Source source, XMLOutputFactory factory, OutputStream out, String encoding)
+        throws XMLStreamException, TransformerException
+    {
+        XMLStreamWriter output = factory.createXMLStreamWriter(out, encoding);
+        try
+        {
+            Result result = new StAXResult(output);
+            Transformer transformer = transformerFactory.newTransformer();
+            transformer.transform(source, result);
+            output.flush();
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    /**
+     * Callback used by {@link #createOutputHandler(StreamingConversion)} to perform the conversion once the
+     * output stream is available
+     */
+    protected interface StreamingConversion
+    {
+        void convert(OutputStream out) throws Exception;
+    }
+
+    /**
+     * Wraps a deferred conversion as an {@link OutputHandler}
+     */
+    protected OutputHandler createOutputHandler(final StreamingConversion conversion)
+    {
+        return new OutputHandler()
+        {
+            public void write(MuleEvent event, OutputStream out) throws IOException
+            {
+                try
+                {
+                    conversion.convert(out);
+                }
+                catch (IOException e)
+                {
+                    throw e;
+                }
+                catch (Exception e)
+                {
+                    IOException ioe = new IOException(e.toString());
+                    ioe.initCause(e);
+                    throw ioe;
+                }
+            }
+        };
+    }
 }
@@ -17,6 +17,8 @@ import org.codehaus.jackson.map.ObjectMapper;
  * into any transform methods that add {@link org.codehaus.jackson.map.ObjectMapper} to the method signature.
  * <p/>
  * If there is no shared Object Mapper one will be created for the transformer using the return type as the Json root element.
+ * Such a mapper is handed to user code that may reconfigure it, so a new one is created each time rather than
+ * sharing one of the {@link org.mule.module.json.JsonMapperCache} mappers used internally by the module.
  *
  * @since 3.0
  */
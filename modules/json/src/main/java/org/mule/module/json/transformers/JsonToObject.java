@@ -52,6 +52,12 @@ public class JsonToObject extends AbstractJsonTransformer
     public void initialise() throws InitialisationException
     {
         super.initialise();
+        if (isSharedMapper())
+        {
+            //The cached mapper is already configured with our mixins
+            return;
+        }
+
         //Add shared mixins first
         for (Map.Entry<Class<?>, Class<?>> entry : getMixins().entrySet())
         {
@@ -139,6 +145,12 @@ public class JsonToObject extends AbstractJsonTransformer
         }
     }
 
+    @Override
+    protected Map<Class<?>, Class<?>> getDeserializationMixinsToApply()
+    {
+        return deserializationMixins;
+    }
+
     public Map<Class<?>, Class<?>> getDeserializationMixins()
     {
         return deserializationMixins;
@@ -11,16 +11,14 @@ import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.IOUtils;
 
 import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Source;
 import javax.xml.transform.stax.StAXSource;
 import java.io.File;
+import java.io.OutputStream;
 import java.io.Reader;
-import java.io.StringWriter;
 import java.net.URL;
 
-import de.odysseus.staxon.json.JsonXMLInputFactory;
-
 /**
  * Convert JSON to an XML document string
  */
@@ -39,28 +37,36 @@ public class JsonToXml extends AbstractToFromXmlTransformer
 
 
     /**
-     * Use Staxon to convert JSON to an XML string
+     * Use Staxon to convert JSON to an XML string, or to an {@link org.mule.api.transport.OutputHandler}
+     * that streams the XML if that is the configured return type
      */
     @Override
     protected Object doTransform(Object src, String enc) throws TransformerException
     {
-        XMLInputFactory inputFactory = new JsonXMLInputFactory();
-        inputFactory.setProperty(JsonXMLInputFactory.PROP_MULTIPLE_PI, false);
-        TransformerInputs inputs = new TransformerInputs(this,src);
-        Source source;
-        try
+        final String encoding = enc == null ? "UTF-8" : enc;
+        final TransformerInputs inputs = new TransformerInputs(this,src);
+        if (isStreamingResult())
         {
-            if (inputs.getInputStream() != null)
+            return createOutputHandler(new StreamingConversion()
             {
-                source = new StAXSource(inputFactory.createXMLStreamReader(inputs.getInputStream(), enc == null ? "UTF-8" : enc));
-            }
-            else
-            {
-                source = new StAXSource(inputFactory.createXMLStreamReader(inputs.getReader()));
-            }
+                public void convert(OutputStream out) throws Exception
+                {
+                    try
+                    {
+                        JsonToXml.this.convert(createSource(inputs, encoding), getMapperCache().getXmlOutputFactory(), out, encoding);
+                    }
+                    finally
+                    {
+                        IOUtils.closeQuietly(inputs.getInputStream());
+                        IOUtils.closeQuietly(inputs.getReader());
+                    }
+                }
+            });
+        }
 
-            XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
-            return convert(source, outputFactory);
+        try
+        {
+            return convert(createSource(inputs, encoding), getMapperCache().getXmlOutputFactory());
         }
         catch (Exception ex)
         {
@@ -72,4 +78,17 @@ public class JsonToXml extends AbstractToFromXmlTransformer
             IOUtils.closeQuietly(inputs.getReader());
         }
     }
+
+    protected Source createSource(TransformerInputs inputs, String encoding) throws XMLStreamException
+    {
+        XMLInputFactory inputFactory = getMapperCache().getJsonXmlInputFactory();
+        if (inputs.getInputStream() != null)
+        {
+            return new StAXSource(inputFactory.createXMLStreamReader(inputs.getInputStream(), encoding));
+        }
+        else
+        {
+            return new StAXSource(inputFactory.createXMLStreamReader(inputs.getReader()));
+        }
+    }
 }
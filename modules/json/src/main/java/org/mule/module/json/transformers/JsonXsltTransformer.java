@@ -8,13 +8,11 @@ package org.mule.module.json.transformers;
 
 import org.mule.api.MuleMessage;
 import org.mule.api.transformer.TransformerException;
+import org.mule.module.json.JsonMapperCache;
 import org.mule.module.xml.transformer.XsltTransformer;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.IOUtils;
 
-import de.odysseus.staxon.json.JsonXMLInputFactory;
-import de.odysseus.staxon.json.JsonXMLOutputFactory;
-
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
@@ -51,8 +49,8 @@ public class JsonXsltTransformer extends XsltTransformer
     @Override
     public Object transformMessage(MuleMessage message, String enc) throws TransformerException
     {
-        XMLInputFactory inputFactory = new JsonXMLInputFactory();
-        inputFactory.setProperty(JsonXMLInputFactory.PROP_MULTIPLE_PI, false);
+        JsonMapperCache cache = JsonMapperCache.lookup(muleContext);
+        XMLInputFactory inputFactory = cache.getJsonXmlInputFactory();
         TransformerInputs inputs = new TransformerInputs(this, message.getPayload());
         Source source;
         try
@@ -66,9 +64,7 @@ public class JsonXsltTransformer extends XsltTransformer
                 source = new StAXSource(inputFactory.createXMLStreamReader(inputs.getReader()));
             }
 
-            XMLOutputFactory outputFactory = new JsonXMLOutputFactory();
-            outputFactory.setProperty(JsonXMLOutputFactory.PROP_AUTO_ARRAY, true);
-            outputFactory.setProperty(JsonXMLOutputFactory.PROP_PRETTY_PRINT, true);
+            XMLOutputFactory outputFactory = cache.getJsonXmlOutputFactory();
             StringWriter writer = new StringWriter();
             XMLStreamWriter output = outputFactory.createXMLStreamWriter(writer);
             Result result = new StAXResult(output);
@@ -6,18 +6,24 @@
  */
 package org.mule.module.json.transformers;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.json.filters.IsJsonFilter;
 import org.mule.transformer.types.DataTypeFactory;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.map.ObjectMapper;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -27,7 +33,9 @@ import java.util.Map;
  * Converts a java object to a JSON encoded object that can be consumed by other languages such as
  * Javascript or Ruby.
  * <p/>
- * The returnClass for this transformer is always java.lang.String, there is no need to set this.
+ * The returnClass for this transformer is usually java.lang.String, there is no need to set this. {@code byte[]}
+ * can also be used, as can {@link OutputHandler} in which case the object is serialized straight to the
+ * transport's output stream.
  */
 public class ObjectToJson extends AbstractJsonTransformer
 {
@@ -61,6 +69,12 @@ public class ObjectToJson extends AbstractJsonTransformer
             registerSourceType(DataTypeFactory.create(getSourceClass()));
         }
 
+        if (isSharedMapper())
+        {
+            //The cached mapper is already configured with our mixins
+            return;
+        }
+
         //Add shared mixins first
         for (Map.Entry<Class<?>, Class<?>> entry : getMixins().entrySet())
         {
@@ -73,9 +87,20 @@ public class ObjectToJson extends AbstractJsonTransformer
         }
     }
 
+    @Override
+    protected Map<Class<?>, Class<?>> getSerializationMixinsToApply()
+    {
+        return serializationMixins;
+    }
+
     @Override
     public Object transformMessage(MuleMessage message, String outputEncoding) throws TransformerException
     {
+        if (outputEncoding == null)
+        {
+            outputEncoding = message.getEncoding();
+        }
+
         Object src = message.getPayload();
         if (src instanceof String && isJsonFilter.accept(src))
         {
@@ -93,6 +118,11 @@ public class ObjectToJson extends AbstractJsonTransformer
             src = this.getException(message.getExceptionPayload().getException());
         }
 
+        if (OutputHandler.class.isAssignableFrom(returnType.getType()))
+        {
+            return createOutputHandler(src, outputEncoding);
+        }
+
         StringWriter writer = new StringWriter();
         try
         {
@@ -120,6 +150,24 @@ public class ObjectToJson extends AbstractJsonTransformer
         }
     }
 
+    /**
+     * Defers serialization until the transport provides its output stream so that the JSON document is
+     * never held in memory as a whole.
+     */
+    protected OutputHandler createOutputHandler(final Object src, final String outputEncoding)
+    {
+        final ObjectMapper mapper = getMapper();
+        return new OutputHandler()
+        {
+            public void write(MuleEvent event, OutputStream out) throws IOException
+            {
+                Writer writer = new OutputStreamWriter(out, outputEncoding);
+                mapper.writeValue(writer, src);
+                writer.flush();
+            }
+        };
+    }
+
     /**
      * The reason of having this is because the original exception object is way too
      * complex and it breaks JSON-lib.
@@ -12,15 +12,15 @@ import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.IOUtils;
 
 import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stax.StAXSource;
 import java.io.File;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.net.URL;
 
-import de.odysseus.staxon.json.JsonXMLOutputFactory;
 import org.w3c.dom.Document;
 
 /**
@@ -41,44 +41,35 @@ public class XmlToJson  extends AbstractToFromXmlTransformer
     }
 
     /**
-     * Use Staxon to convert XML to a JSON string
+     * Use Staxon to convert XML to a JSON string, or to an {@link org.mule.api.transport.OutputHandler}
+     * that streams the JSON if that is the configured return type
      */
     @Override
-    protected Object doTransform(Object src, String enc) throws TransformerException
+    protected Object doTransform(final Object src, String enc) throws TransformerException
     {
-        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
-        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
-
-        TransformerInputs inputs = null;
-        Source source;
-        try
+        final String encoding = enc == null ? "UTF-8" : enc;
+        final TransformerInputs inputs = src instanceof Document ? null : new TransformerInputs(this, src);
+        if (isStreamingResult())
         {
-            if (src instanceof Document)
+            return createOutputHandler(new StreamingConversion()
             {
-                Document doc = (Document) src;
-                String location = doc.getDocumentURI();
-                if (location == null)
-                {
-                    location = "(Document)";
-                }
-                source = new DOMSource(doc, location);
-            }
-            else
-            {
-                inputs = new TransformerInputs(this, src);
-                if (inputs.getInputStream() != null)
-                {
-                    source = new StAXSource(inputFactory.createXMLStreamReader(inputs.getInputStream(),  enc == null ? "UTF-8" : enc));
-                }
-                else
+                public void convert(OutputStream out) throws Exception
                 {
-                    source = new StAXSource(inputFactory.createXMLStreamReader(inputs.getReader()));
+                    try
+                    {
+                        XmlToJson.this.convert(createSource(src, inputs, encoding), getMapperCache().getJsonXmlOutputFactory(), out, encoding);
+                    }
+                    finally
+                    {
+                        closeInputs(inputs);
+                    }
                 }
-            }
-            XMLOutputFactory outputFactory = new JsonXMLOutputFactory();
-            outputFactory.setProperty(JsonXMLOutputFactory.PROP_AUTO_ARRAY, true);
-            outputFactory.setProperty(JsonXMLOutputFactory.PROP_PRETTY_PRINT, true);
-           return convert(source, outputFactory);
+            });
+        }
+
+        try
+        {
+            return convert(createSource(src, inputs, encoding), getMapperCache().getJsonXmlOutputFactory());
         }
         catch (Exception ex)
         {
@@ -86,11 +77,40 @@ public class XmlToJson  extends AbstractToFromXmlTransformer
         }
         finally
         {
-            if (inputs != null)
+            closeInputs(inputs);
+        }
+    }
+
+    protected Source createSource(Object src, TransformerInputs inputs, String encoding) throws XMLStreamException
+    {
+        if (src instanceof Document)
+        {
+            Document doc = (Document) src;
+            String location = doc.getDocumentURI();
+            if (location == null)
             {
-                IOUtils.closeQuietly(inputs.getInputStream());
-                IOUtils.closeQuietly(inputs.getReader());
+                location = "(Document)";
             }
+            return new DOMSource(doc, location);
+        }
+
+        XMLInputFactory inputFactory = getMapperCache().getXmlInputFactory();
+        if (inputs.getInputStream() != null)
+        {
+            return new StAXSource(inputFactory.createXMLStreamReader(inputs.getInputStream(), encoding));
+        }
+        else
+        {
+            return new StAXSource(inputFactory.createXMLStreamReader(inputs.getReader()));
+        }
+    }
+
+    private void closeInputs(TransformerInputs inputs)
+    {
+        if (inputs != null)
+        {
+            IOUtils.closeQuietly(inputs.getInputStream());
+            IOUtils.closeQuietly(inputs.getReader());
         }
     }
 }
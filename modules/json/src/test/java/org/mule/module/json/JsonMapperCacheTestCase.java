@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.mule.module.json.transformers.FruitCollection;
+import org.mule.module.json.transformers.FruitCollectionMixin;
+import org.mule.module.json.transformers.JsonToObject;
+import org.mule.module.json.transformers.ObjectToJson;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class JsonMapperCacheTestCase extends AbstractMuleContextTestCase
+{
+    @Test
+    public void sharesMapperBetweenTransformersWithoutMixins() throws Exception
+    {
+        ObjectToJson objectToJson = new ObjectToJson();
+        objectToJson.setMuleContext(muleContext);
+        objectToJson.initialise();
+
+        JsonToObject jsonToObject = new JsonToObject();
+        jsonToObject.setMuleContext(muleContext);
+        jsonToObject.initialise();
+
+        assertSame(objectToJson.getMapper(), jsonToObject.getMapper());
+        assertSame(JsonMapperCache.lookup(muleContext).getDefaultMapper(), objectToJson.getMapper());
+    }
+
+    @Test
+    public void sharesMapperBetweenTransformersWithSameMixins() throws Exception
+    {
+        ObjectToJson first = createTransformerWithMixin();
+        ObjectToJson second = createTransformerWithMixin();
+
+        assertSame(first.getMapper(), second.getMapper());
+        assertNotSame(JsonMapperCache.lookup(muleContext).getDefaultMapper(), first.getMapper());
+    }
+
+    @Test
+    public void cachesMapperPerMixinSet() throws Exception
+    {
+        JsonMapperCache cache = new JsonMapperCache();
+        Map<Class<?>, Class<?>> mixins = new HashMap<Class<?>, Class<?>>();
+        mixins.put(FruitCollection.class, FruitCollectionMixin.class);
+        Map<Class<?>, Class<?>> none = Collections.emptyMap();
+
+        assertSame(cache.getMapper(mixins, none), cache.getMapper(new HashMap<Class<?>, Class<?>>(mixins), none));
+        assertNotSame(cache.getMapper(mixins, none), cache.getMapper(none, mixins));
+        assertSame(cache.getDefaultMapper(), cache.getMapper(none, none));
+    }
+
+    private ObjectToJson createTransformerWithMixin() throws Exception
+    {
+        ObjectToJson transformer = new ObjectToJson();
+        Map<Class<?>, Class<?>> mixins = new HashMap<Class<?>, Class<?>>();
+        mixins.put(FruitCollection.class, FruitCollectionMixin.class);
+        transformer.setSerializationMixins(mixins);
+        transformer.setMuleContext(muleContext);
+        transformer.initialise();
+        return transformer;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleMessage;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.util.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonStreamingExpressionEvaluatorTestCase extends AbstractMuleContextTestCase
+{
+    private JsonStreamingExpressionEvaluator eval;
+    private MuleMessage message;
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        super.doSetUp();
+        eval = new JsonStreamingExpressionEvaluator();
+        eval.setMuleContext(muleContext);
+        message = new DefaultMuleMessage(IOUtils.getResourceAsString("test-data.json", getClass()), muleContext);
+    }
+
+    @Test
+    public void testExpressions() throws Exception
+    {
+        assertEquals("test from Mule: 6ffca02b-9d52-475e-8b17-946acdb01492", eval.evaluate("[0]/text", message));
+        assertEquals("Mule Test", eval.evaluate("[0].user.name", message));
+        assertEquals("Mule Test9", eval.evaluate("[9]/'user'/name", message));
+        assertNull(eval.evaluate("[9]/user/XXX", message));
+        assertNull(eval.evaluate("[100]", message));
+    }
+
+    @Test
+    public void testReturnTypes() throws Exception
+    {
+        assertEquals(String.class, eval.evaluate("[0]/id", message).getClass());
+        assertEquals(String.class, eval.evaluate("[0]/user", message).getClass());
+        assertTrue(eval.evaluate("[0]/anArray", message) instanceof List);
+    }
+
+    @Test
+    public void testStopsAtValueInStream() throws Exception
+    {
+        // The content after the selected value is not valid JSON, so reading it would fail
+        String json = "{\"header\":{\"id\":\"abc\"},\"body\":[1,2,";
+        MuleMessage streamMessage = new DefaultMuleMessage(new ByteArrayInputStream(json.getBytes("UTF-8")), muleContext);
+
+        assertEquals("abc", eval.evaluate("header.id", streamMessage));
+    }
+
+    @Test
+    public void testParsePath() throws Exception
+    {
+        JsonStreamingPath path = new JsonStreamingPath("results/'http://foo.com'.values[2][0]");
+
+        assertEquals(5, path.getSegments().size());
+        assertEquals("http://foo.com", path.getSegments().get(1));
+        assertEquals(2, path.getSegments().get(3));
+        assertEquals(0, path.getSegments().get(4));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonStreamingSplitterTestCase extends AbstractMuleContextTestCase
+{
+    private JsonStreamingSplitter splitter;
+    private List<String> splitPayloads = new ArrayList<String>();
+
+    @Override
+    protected void doSetUp() throws Exception
+    {
+        super.doSetUp();
+        splitter = new JsonStreamingSplitter();
+        splitter.setMuleContext(muleContext);
+        splitter.setListener(new MessageProcessor()
+        {
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                splitPayloads.add(event.getMessageAsString());
+                return event;
+            }
+        });
+    }
+
+    @Test
+    public void splitsRootArrayFromStream() throws Exception
+    {
+        splitter.initialise();
+        String json = "[{\"id\":1,\"tags\":[\"a\",\"b\"]}, \"two\", 3, null]";
+
+        splitter.process(getTestEvent(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+
+        assertEquals(4, splitPayloads.size());
+        assertEquals("{\"id\":1,\"tags\":[\"a\",\"b\"]}", splitPayloads.get(0));
+        assertEquals("two", splitPayloads.get(1));
+        assertEquals("3", splitPayloads.get(2));
+        assertEquals("null", splitPayloads.get(3));
+    }
+
+    @Test
+    public void splitsNestedArray() throws Exception
+    {
+        splitter.setPath("results.items");
+        splitter.initialise();
+        String json = "{\"header\":{\"count\":2,\"skip\":[1,2,3]},\"results\":{\"items\":[{\"id\":1},{\"id\":2}]}}";
+
+        splitter.process(getTestEvent(json));
+
+        assertEquals(2, splitPayloads.size());
+        assertEquals("{\"id\":1}", splitPayloads.get(0));
+        assertEquals("{\"id\":2}", splitPayloads.get(1));
+    }
+
+    @Test
+    public void splitsNewlineDelimitedJson() throws Exception
+    {
+        splitter.setFormat(JsonStreamingSplitter.Format.LINES);
+        splitter.initialise();
+        String json = "{\"id\":1}\n\n{\"id\":2}\r\n{\"id\":3}\n";
+
+        splitter.process(getTestEvent(new ByteArrayInputStream(json.getBytes("UTF-8"))));
+
+        assertEquals(3, splitPayloads.size());
+        assertEquals("{\"id\":3}", splitPayloads.get(2));
+    }
+
+    @Test(expected = MessagingException.class)
+    public void failsWhenPathIsNotAnArray() throws Exception
+    {
+        splitter.setPath("results");
+        splitter.initialise();
+
+        splitter.process(getTestEvent("{\"results\":{\"id\":1}}"));
+    }
+}
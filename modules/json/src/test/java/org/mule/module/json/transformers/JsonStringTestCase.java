@@ -6,10 +6,13 @@
  */
 package org.mule.module.json.transformers;
 
+import org.mule.DefaultMuleMessage;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.transformer.types.DataTypeFactory;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
@@ -38,4 +41,16 @@ public class JsonStringTestCase extends AbstractMuleContextTestCase
         //This is still valid json
         assertEquals("\"Hello\"", transformer.transform("Hello"));
     }
+
+    @Test
+    public void usesMessageEncodingWhenNoOutputEncodingIsGiven() throws Exception
+    {
+        ObjectToJson transformer = createObject(ObjectToJson.class);
+        transformer.setReturnDataType(DataTypeFactory.BYTE_ARRAY);
+        DefaultMuleMessage message = new DefaultMuleMessage("Hello", muleContext);
+
+        Object result = transformer.transformMessage(message, null);
+
+        assertArrayEquals("\"Hello\"".getBytes(message.getEncoding()), (byte[]) result);
+    }
 }
@@ -7,9 +7,12 @@
 package org.mule.module.json.transformers;
 
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.json.transformers.JsonToXml;
+import org.mule.transformer.types.DataTypeFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.StringReader;
 
 import org.junit.Test;
@@ -63,4 +66,19 @@ public class JsonToXmlTestCase
             assertTrue(ex instanceof TransformerException);
         }
     }
+
+    @Test
+    public void testStreamingConversion() throws Exception
+    {
+        String json = "{\"customer\" : {\"id\" : 112, \"first-name\" : \"Jane\"}}";
+
+        JsonToXml jToX = new JsonToXml();
+        jToX.setReturnDataType(DataTypeFactory.create(OutputHandler.class));
+        Object result = jToX.transform(new ByteArrayInputStream(json.getBytes()));
+        assertTrue(result instanceof OutputHandler);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((OutputHandler) result).write(null, out);
+        assertTrue(out.toString("UTF-8").endsWith("<customer><id>112</id><first-name>Jane</first-name></customer>"));
+    }
 }
@@ -6,12 +6,15 @@
  */
 package org.mule.module.launcher;
 
+import org.mule.api.MuleContext;
+
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Keeps track of the deployment status of all applications in the Mule instance.
+ * Keeps track of the deployment status of all applications in the Mule instance, along with the time
+ * taken by each phase of their deployment.
  */
 public class DeploymentStatusTracker extends AbstractDeploymentListener
 {
@@ -26,26 +29,121 @@ public class DeploymentStatusTracker extends AbstractDeploymentListener
         DEPLOYED
     }
 
+    /**
+     * The time at which each deployment phase of an application finished. Applications may be deployed
+     * concurrently, but the events of a single application are always received from the same thread.
+     */
+    public static class DeploymentTimes
+    {
+        private volatile long started;
+        private volatile long contextCreated;
+        private volatile long contextConfigured;
+        private volatile long finished;
+
+        /**
+         * @return the time taken from the start of the deployment until the context of the application is
+         *         created, in milliseconds, or -1 if the phase did not complete. Applications are unpacked
+         *         before their deployment starts, so unpacking is not included.
+         */
+        public long getContextCreationTime()
+        {
+            return elapsed(started, contextCreated);
+        }
+
+        /**
+         * @return the time taken to configure and initialise the application, in milliseconds, or -1 if
+         *         the phase did not complete
+         */
+        public long getInitTime()
+        {
+            return elapsed(contextCreated, contextConfigured);
+        }
+
+        /**
+         * @return the time taken to start the application, in milliseconds, or -1 if the phase did not
+         *         complete
+         */
+        public long getStartTime()
+        {
+            return elapsed(contextConfigured, finished);
+        }
+
+        /**
+         * @return the time taken by the whole deployment, in milliseconds, or -1 if it is still in progress
+         */
+        public long getTotalTime()
+        {
+            return elapsed(started, finished);
+        }
+
+        private long elapsed(long from, long to)
+        {
+            return from == 0 || to == 0 ? -1 : to - from;
+        }
+    }
+
     protected Map<String, DeploymentState> deploymentStates = new ConcurrentHashMap<String, DeploymentState>();
 
+    protected Map<String, DeploymentTimes> deploymentTimes = new ConcurrentHashMap<String, DeploymentTimes>();
+
     public Map<String, DeploymentState> getDeploymentStates()
     {
         return Collections.unmodifiableMap(deploymentStates);
     }
 
+    public Map<String, DeploymentTimes> getDeploymentTimes()
+    {
+        return Collections.unmodifiableMap(deploymentTimes);
+    }
+
     public void onDeploymentStart(String appName)
     {
         deploymentStates.put(appName, DeploymentState.DEPLOYING);
+
+        DeploymentTimes times = new DeploymentTimes();
+        times.started = System.currentTimeMillis();
+        deploymentTimes.put(appName, times);
+    }
+
+    @Override
+    public void onMuleContextCreated(String appName, MuleContext context)
+    {
+        DeploymentTimes times = deploymentTimes.get(appName);
+        if (times != null)
+        {
+            times.contextCreated = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void onMuleContextConfigured(String appName, MuleContext context)
+    {
+        DeploymentTimes times = deploymentTimes.get(appName);
+        if (times != null)
+        {
+            times.contextConfigured = System.currentTimeMillis();
+        }
     }
 
     public void onDeploymentSuccess(String appName)
     {
         deploymentStates.put(appName, DeploymentState.DEPLOYED);
+        onDeploymentFinished(appName);
     }
 
     public void onDeploymentFailure(String appName, Throwable failureCause)
     {
         deploymentStates.put(appName, DeploymentState.FAILED);
+        onDeploymentFinished(appName);
+    }
+
+    private void onDeploymentFinished(String appName)
+    {
+        DeploymentTimes times = deploymentTimes.get(appName);
+        if (times != null)
+        {
+            times.finished = System.currentTimeMillis();
+        }
     }
 
 }
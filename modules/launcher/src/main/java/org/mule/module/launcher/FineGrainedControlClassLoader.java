@@ -11,13 +11,32 @@ import org.mule.util.StringUtils;
 import java.net.URL;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.collections.map.LRUMap;
 
 /**
  * TODO document overrides, blocked, systemPackages and syntax for specifying those.
+ * <p/>
+ * Classes are loaded without holding a lock on the class loader: concurrent requests for the same class are
+ * serialized on a lock for that class name only. The outcome of every lookup is cached, so a class is looked
+ * up in the parent or in the class path of this class loader only once. The last missing classes looked up are
+ * remembered too, so that lookups for them fail fast until a URL is added to the class path. When running on
+ * Java 7 or later the class loader is also registered as parallel capable, so that the VM does not lock it
+ * either when resolving classes.
  */
 public class FineGrainedControlClassLoader extends GoodCitizenClassLoader
 {
+    protected static final int MISSING_CLASSES_MAX_CACHE_SIZE = 1000;
+
+    static
+    {
+        registerParallelCapable(FineGrainedControlClassLoader.class);
+    }
 
     protected String appName;
 
@@ -33,6 +52,19 @@ public class FineGrainedControlClassLoader extends GoodCitizenClassLoader
     protected Set<String> overrides = new HashSet<String>();
     protected Set<String> blocked = new HashSet<String>();
 
+    private final ConcurrentMap<String, Class<?>> resolvedClasses = new ConcurrentHashMap<String, Class<?>>();
+    @SuppressWarnings("unchecked")
+    private final Map<String, Boolean> missingClasses = Collections.synchronizedMap(new LRUMap(MISSING_CLASSES_MAX_CACHE_SIZE));
+    // only holds the names of the classes being loaded
+    private final ConcurrentMap<String, Object> classLoadingLocks = new ConcurrentHashMap<String, Object>();
+
+    private final AtomicLong loadRequests = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong missingClassHits = new AtomicLong();
+    private final AtomicLong parentLoads = new AtomicLong();
+    private final AtomicLong localLoads = new AtomicLong();
+    private final AtomicLong failedLoads = new AtomicLong();
+
     public FineGrainedControlClassLoader(URL[] urls, ClassLoader parent)
     {
         this(urls, parent, Collections.<String>emptySet());
@@ -71,14 +103,118 @@ public class FineGrainedControlClassLoader extends GoodCitizenClassLoader
     }
 
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    {
+        loadRequests.incrementAndGet();
+
+        Class<?> result = findCachedClass(name);
+        if (result == null)
+        {
+            Object lock = getLoadingLock(name);
+            try
+            {
+                synchronized (lock)
+                {
+                    result = findCachedClass(name);
+                    if (result == null)
+                    {
+                        result = findUncachedClass(name);
+                    }
+                    else
+                    {
+                        cacheHits.incrementAndGet();
+                    }
+                }
+            }
+            finally
+            {
+                // the outcome is cached by now, so threads taking a new lock for the name find it, unless
+                // the class is still being loaded further up the stack of this thread
+                if (!Thread.holdsLock(lock))
+                {
+                    classLoadingLocks.remove(name, lock);
+                }
+            }
+        }
+        else
+        {
+            cacheHits.incrementAndGet();
+        }
+
+        if (resolve)
+        {
+            resolveClass(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the class if it has already been resolved or defined by this class loader, or null if it
+     *         has not been looked up yet
+     * @throws ClassNotFoundException if the class has already been looked up and was not found
+     */
+    private Class<?> findCachedClass(String name) throws ClassNotFoundException
     {
-        Class<?> result = findLoadedClass(name);
+        Class<?> result = resolvedClasses.get(name);
+        if (result != null)
+        {
+            return result;
+        }
 
+        // classes may also be defined directly by bytecode generation libraries
+        result = findLoadedClass(name);
         if (result != null)
         {
+            resolvedClasses.put(name, result);
+            return result;
+        }
+
+        if (missingClasses.get(name) != null)
+        {
+            missingClassHits.incrementAndGet();
+            throw new ClassNotFoundException(name);
+        }
+        return null;
+    }
+
+    private Class<?> findUncachedClass(String name) throws ClassNotFoundException
+    {
+        try
+        {
+            Class<?> result = doLoadClass(name);
+            resolvedClasses.put(name, result);
             return result;
         }
+        catch (ClassNotFoundException e)
+        {
+            failedLoads.incrementAndGet();
+            missingClasses.put(name, Boolean.TRUE);
+            throw e;
+        }
+    }
+
+    private Object getLoadingLock(String name)
+    {
+        Object lock = classLoadingLocks.get(name);
+        if (lock == null)
+        {
+            lock = new Object();
+            Object previous = classLoadingLocks.putIfAbsent(name, lock);
+            if (previous != null)
+            {
+                lock = previous;
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Looks up a class that is not cached yet applying the override and blocked rules
+     */
+    protected Class<?> doLoadClass(String name) throws ClassNotFoundException
+    {
+        Class<?> result;
         boolean overrideMatch = isOverridden(name);
 
 
@@ -120,11 +256,6 @@ public class FineGrainedControlClassLoader extends GoodCitizenClassLoader
             }
         }
 
-        if (resolve)
-        {
-            resolveClass(result);
-        }
-
         return result;
     }
 
@@ -159,20 +290,91 @@ public class FineGrainedControlClassLoader extends GoodCitizenClassLoader
 
     protected Class<?> findParentClass(String name) throws ClassNotFoundException
     {
+        Class<?> result;
         if (getParent() != null)
         {
-            return getParent().loadClass(name);
+            result = getParent().loadClass(name);
         }
         else
         {
-            return findSystemClass(name);
+            result = findSystemClass(name);
         }
+        parentLoads.incrementAndGet();
+        return result;
     }
 
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException
     {
-        return super.findClass(name);
+        Class<?> result = super.findClass(name);
+        localLoads.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    protected void addURL(URL url)
+    {
+        super.addURL(url);
+        // classes not found so far may be in the new location
+        missingClasses.clear();
+    }
+
+    /**
+     * @return the number of class load requests received by this class loader
+     */
+    public long getLoadRequestCount()
+    {
+        return loadRequests.get();
+    }
+
+    /**
+     * @return the number of requests for classes that had already been loaded
+     */
+    public long getCacheHitCount()
+    {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return the number of requests for classes that had already been looked up without success
+     */
+    public long getMissingClassHitCount()
+    {
+        return missingClassHits.get();
+    }
+
+    /**
+     * @return the number of classes loaded by the parent class loader on behalf of this one
+     */
+    public long getParentLoadCount()
+    {
+        return parentLoads.get();
+    }
+
+    /**
+     * @return the number of classes found in the class path of this class loader
+     */
+    public long getLocalLoadCount()
+    {
+        return localLoads.get();
+    }
+
+    /**
+     * @return the number of classes that were looked up and could not be found
+     */
+    public long getFailedLoadCount()
+    {
+        return failedLoads.get();
+    }
+
+    /**
+     * @return a one line summary of the class loading counters
+     */
+    public String getClassLoadingSummary()
+    {
+        return String.format("requests=%d, cacheHits=%d, missingClassHits=%d, parentLoads=%d, localLoads=%d, failedLoads=%d",
+                             getLoadRequestCount(), getCacheHitCount(), getMissingClassHitCount(),
+                             getParentLoadCount(), getLocalLoadCount(), getFailedLoadCount());
     }
 
 }
@@ -33,12 +33,39 @@ import sun.net.www.protocol.jar.Handler;
  */
 public class GoodCitizenClassLoader extends URLClassLoader implements Closeable
 {
+    static
+    {
+        // Subclasses can only register as parallel capable if this class is registered too
+        registerParallelCapable(GoodCitizenClassLoader.class);
+    }
 
     public GoodCitizenClassLoader(URL[] urls, ClassLoader parent)
     {
         super(urls, parent, new NonCachingURLStreamHandlerFactory());
     }
 
+    /**
+     * Registers the class loader class as parallel capable, so that the VM does not lock its instances
+     * when resolving classes. Only possible from Java 7 on, does nothing on earlier versions.
+     * <p/>
+     * ClassLoader.registerAsParallelCapable() registers the class that calls it, which would be this one
+     * for every subclass, so the class is registered on the table it ends up in instead.
+     */
+    protected static void registerParallelCapable(Class<? extends ClassLoader> classLoaderClass)
+    {
+        try
+        {
+            Class<?> parallelLoaders = Class.forName(ClassLoader.class.getName() + "$ParallelLoaders");
+            Method register = parallelLoaders.getDeclaredMethod("register", Class.class);
+            register.setAccessible(true);
+            register.invoke(null, classLoaderClass);
+        }
+        catch (Exception e)
+        {
+            // not available, the VM serializes class loading on the class loader
+        }
+    }
+
     /**
      * A workaround for http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=5041014
      */
@@ -19,14 +19,34 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+/**
+ * Loads the classes and resources of an application from its <code>classes</code> and <code>lib</code>
+ * directories and the per-application Mule libraries.
+ * <p/>
+ * The first time a class or resource is looked up in the application class path, the directories holding
+ * entries of every application jar are indexed. Lookups for classes or resources in a directory that is not
+ * in any jar, nor in a class path directory, then fail without opening every jar. This speeds up the
+ * parent-first lookups of classes and resources that are not part of the application, which are the most
+ * common ones. Set the {@link #DISABLE_JAR_INDEX_PROPERTY} system property to disable the index.
+ */
 public class MuleApplicationClassLoader extends FineGrainedControlClassLoader implements ApplicationClassLoader
 {
+    static
+    {
+        registerParallelCapable(MuleApplicationClassLoader.class);
+    }
+
+    public static final String DISABLE_JAR_INDEX_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "classloader.disableJarIndex";
 
     /**
      * Library directory in Mule application.
@@ -57,6 +77,13 @@ public class MuleApplicationClassLoader extends FineGrainedControlClassLoader im
 
     private String libraryPath;
 
+    private final Object jarIndexLock = new Object();
+    // null until built, or when the class path can't be indexed
+    private volatile JarIndex jarIndex;
+    private volatile boolean jarIndexBuilt;
+
+    private final AtomicLong indexRejections = new AtomicLong();
+
     public MuleApplicationClassLoader(String appName, ClassLoader parentCl)
     {
         this(appName, parentCl, Collections.<String>emptySet());
@@ -137,9 +164,35 @@ public class MuleApplicationClassLoader extends FineGrainedControlClassLoader im
     @Override
     protected Class<?> findClass(String name) throws ClassNotFoundException
     {
+        int packageEnd = name.lastIndexOf('.');
+        String directory = packageEnd < 0 ? "" : name.substring(0, packageEnd).replace('.', '/');
+        if (!mayContain(directory))
+        {
+            throw new ClassNotFoundException(name);
+        }
         return super.findClass(name);
     }
 
+    @Override
+    public URL findResource(String name)
+    {
+        if (!mayContain(getResourceDirectory(name)))
+        {
+            return null;
+        }
+        return super.findResource(name);
+    }
+
+    @Override
+    public Enumeration<URL> findResources(String name) throws IOException
+    {
+        if (!mayContain(getResourceDirectory(name)))
+        {
+            return Collections.enumeration(Collections.<URL>emptyList());
+        }
+        return super.findResources(name);
+    }
+
     @Override
     public URL getResource(String name)
     {
@@ -152,9 +205,178 @@ public class MuleApplicationClassLoader extends FineGrainedControlClassLoader im
         return super.getResources(name);
     }
 
+    @Override
+    protected void addURL(URL url)
+    {
+        super.addURL(url);
+        synchronized (jarIndexLock)
+        {
+            jarIndex = null;
+            jarIndexBuilt = false;
+        }
+    }
+
+    private String getResourceDirectory(String name)
+    {
+        String path = name.startsWith("/") ? name.substring(1) : name;
+        int directoryEnd = path.lastIndexOf('/');
+        return directoryEnd < 0 ? "" : path.substring(0, directoryEnd);
+    }
+
+    /**
+     * @return false if there is no entry in the given directory in the class path of the application
+     */
+    private boolean mayContain(String directory)
+    {
+        JarIndex index = getJarIndex();
+        if (index == null || index.mayContain(directory))
+        {
+            return true;
+        }
+        indexRejections.incrementAndGet();
+        return false;
+    }
+
+    private JarIndex getJarIndex()
+    {
+        if (!jarIndexBuilt)
+        {
+            synchronized (jarIndexLock)
+            {
+                if (!jarIndexBuilt)
+                {
+                    jarIndex = Boolean.getBoolean(DISABLE_JAR_INDEX_PROPERTY) ? null : JarIndex.create(getURLs());
+                    jarIndexBuilt = true;
+                }
+            }
+        }
+        return jarIndex;
+    }
+
+    /**
+     * The directories that hold entries in the jars of a class path. Directories in the class path are not
+     * indexed since their content may change, they are checked on every lookup instead.
+     */
+    private static class JarIndex
+    {
+        private final Set<String> jarDirectories = new HashSet<String>();
+        private final List<File> classPathDirectories = new ArrayList<File>();
+
+        /**
+         * @return the index, or null if some element of the class path can't be indexed
+         */
+        static JarIndex create(URL[] classPath)
+        {
+            JarIndex index = new JarIndex();
+            for (URL url : classPath)
+            {
+                File file = FileUtils.toFile(url);
+                if (file == null)
+                {
+                    return null;
+                }
+                if (file.isDirectory())
+                {
+                    index.classPathDirectories.add(file);
+                }
+                else if (file.exists() && !index.addJar(file))
+                {
+                    return null;
+                }
+            }
+            return index;
+        }
+
+        private boolean addJar(File file)
+        {
+            JarFile jar = null;
+            try
+            {
+                jar = new JarFile(file);
+                for (Enumeration<JarEntry> entries = jar.entries(); entries.hasMoreElements();)
+                {
+                    addDirectories(entries.nextElement().getName());
+                }
+                return true;
+            }
+            catch (IOException e)
+            {
+                return false;
+            }
+            finally
+            {
+                if (jar != null)
+                {
+                    try
+                    {
+                        jar.close();
+                    }
+                    catch (IOException e)
+                    {
+                        // ignore
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds the directory of the entry and all of its ancestors, as jars do not always have entries for
+         * the directories, and lookups for a package also look for what is in its sub-packages.
+         */
+        private void addDirectories(String entryName)
+        {
+            int directoryEnd = entryName.lastIndexOf('/');
+            while (directoryEnd > 0)
+            {
+                // its ancestors have been added along with it
+                if (!jarDirectories.add(entryName.substring(0, directoryEnd)))
+                {
+                    return;
+                }
+                directoryEnd = entryName.lastIndexOf('/', directoryEnd - 1);
+            }
+            jarDirectories.add("");
+        }
+
+        boolean mayContain(String directory)
+        {
+            if (jarDirectories.contains(directory))
+            {
+                return true;
+            }
+            for (File classPathDirectory : classPathDirectories)
+            {
+                if (directory.length() == 0 || new File(classPathDirectory, directory).isDirectory())
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return the number of class and resource lookups that were answered by the jar index without
+     *         searching the class path
+     */
+    public long getIndexRejectionCount()
+    {
+        return indexRejections.get();
+    }
+
+    @Override
+    public String getClassLoadingSummary()
+    {
+        return super.getClassLoadingSummary() + ", indexRejections=" + getIndexRejectionCount();
+    }
+
     @Override
     public void close()
     {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("[%s] Class loading: %s", appName, getClassLoadingSummary()));
+        }
         for (ShutdownListener listener : shutdownListeners)
         {
             try
@@ -24,6 +24,7 @@ import org.mule.util.ArrayUtils;
 import org.mule.util.CollectionUtils;
 import org.mule.util.FileUtils;
 import org.mule.util.StringUtils;
+import org.mule.util.concurrent.NamedThreadFactory;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
@@ -35,11 +36,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -66,6 +72,12 @@ public class MuleDeploymentService implements DeploymentService
     protected static final int DEFAULT_CHANGES_CHECK_INTERVAL_MS = 5000;
     public static final String CHANGE_CHECK_INTERVAL_PROPERTY = "mule.launcher.changeCheckInterval";
 
+    protected static final int DEFAULT_DEPLOYMENT_THREADS = 1;
+    /**
+     * The maximum number of applications deployed concurrently on startup
+     */
+    public static final String DEPLOYMENT_THREADS_PROPERTY = "mule.launcher.deploymentThreads";
+
     protected ScheduledExecutorService appDirMonitorTimer;
 
     protected transient final Log logger = LogFactory.getLog(getClass());
@@ -75,7 +87,11 @@ public class MuleDeploymentService implements DeploymentService
     private ReentrantLock lock = new DebuggableReentrantLock(true);
 
     private ObservableList<Application> applications = new ObservableList<Application>();
-    private Map<String, ZombieFile> zombieMap = new HashMap<String, ZombieFile>();
+    // applications deployed concurrently on startup may become zombies at the same time
+    private Map<String, ZombieFile> zombieMap = new ConcurrentHashMap<String, ZombieFile>();
+    // applications installed on startup waiting to be deployed concurrently, null when not deploying
+    // concurrently
+    private List<Application> pendingDeployments;
     private final File appsDir = MuleContainerBootstrapUtils.getMuleAppsDir();
 
     private List<StartupListener> startupListeners = new ArrayList<StartupListener>();
@@ -106,6 +122,12 @@ public class MuleDeploymentService implements DeploymentService
 
         deleteAllAnchors();
 
+        int deploymentThreads = getDeploymentThreads();
+        if (deploymentThreads > 1)
+        {
+            pendingDeployments = new ArrayList<Application>();
+        }
+
         // mule -app app1:app2:app3 will restrict deployment only to those specified apps
         final Map<String, Object> options = StartupContext.get().getStartupOptions();
         String appString = (String) options.get("app");
@@ -145,6 +167,13 @@ public class MuleDeploymentService implements DeploymentService
             }
         }
 
+        if (pendingDeployments != null)
+        {
+            List<Application> installedApplications = pendingDeployments;
+            pendingDeployments = null;
+            deployConcurrently(installedApplications, deploymentThreads);
+        }
+
         for (StartupListener listener : startupListeners)
         {
             try
@@ -183,12 +212,148 @@ public class MuleDeploymentService implements DeploymentService
         }
     }
 
+    /**
+     * Deploys the applications installed on startup using up to the given number of threads. Applications
+     * are grouped by domain, with the ones using the default domain first, so that the applications sharing
+     * a domain are started together. The deployment lock is held while the applications are being deployed.
+     */
+    private void deployConcurrently(List<Application> installedApplications, int deploymentThreads)
+    {
+        if (installedApplications.isEmpty())
+        {
+            return;
+        }
+        Collections.sort(installedApplications, new Comparator<Application>()
+        {
+            public int compare(Application app1, Application app2)
+            {
+                return getDomain(app1).compareTo(getDomain(app2));
+            }
+        });
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(String.format("Deploying %d applications using %d threads", installedApplications.size(), deploymentThreads));
+        }
+
+        int threads = Math.min(deploymentThreads, installedApplications.size());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("Mule.app.deployer",
+            Thread.currentThread().getContextClassLoader()));
+        lock.lock();
+        boolean interrupted = false;
+        try
+        {
+            List<Future<?>> deployments = new ArrayList<Future<?>>(installedApplications.size());
+            for (final Application application : installedApplications)
+            {
+                deployments.add(executor.submit(new Runnable()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            deployApplication(application, true);
+                        }
+                        catch (DeploymentException e)
+                        {
+                            // Already logged, ignore and continue
+                        }
+                    }
+                }));
+            }
+
+            // a failed deployment must not release the lock while the others are still running
+            for (Future<?> deployment : deployments)
+            {
+                if (interrupted)
+                {
+                    deployment.cancel(true);
+                    continue;
+                }
+                try
+                {
+                    deployment.get();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                    deployment.cancel(true);
+                }
+                catch (ExecutionException e)
+                {
+                    logger.error(e.getCause());
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            interrupted |= awaitDeployments(executor);
+            lock.unlock();
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits until every deployment task of the given executor, including the cancelled ones still
+     * running, has finished.
+     *
+     * @return whether the current thread was interrupted while waiting
+     */
+    private boolean awaitDeployments(ExecutorService executor)
+    {
+        boolean interrupted = false;
+        while (!executor.isTerminated())
+        {
+            try
+            {
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                interrupted = true;
+            }
+        }
+        return interrupted;
+    }
+
+    private String getDomain(Application application)
+    {
+        String domain = application.getDescriptor() == null ? null : application.getDescriptor().getDomain();
+        // the default domain sorts first
+        return StringUtils.isBlank(domain) || DefaultMuleSharedDomainClassLoader.DEFAULT_DOMAIN_NAME.equals(domain) ? "" : domain;
+    }
+
     private void deployApplication(Application application) throws DeploymentException
+    {
+        if (pendingDeployments != null)
+        {
+            // deployed along with the other applications installed on startup
+            pendingDeployments.add(application);
+            return;
+        }
+        deployApplication(application, false);
+    }
+
+    /**
+     * @param lockHeld true if the deployment lock is already held on behalf of the calling thread
+     */
+    private void deployApplication(Application application, boolean lockHeld) throws DeploymentException
     {
         try
         {
             deploymentListener.onDeploymentStart(application.getAppName());
-            guardedDeploy(application);
+            if (lockHeld)
+            {
+                deployer.deploy(application);
+            }
+            else
+            {
+                guardedDeploy(application);
+            }
             deploymentListener.onDeploymentSuccess(application.getAppName());
             zombieMap.remove(application.getAppName());
         }
@@ -257,6 +422,19 @@ public class MuleDeploymentService implements DeploymentService
         }
     }
 
+    public static int getDeploymentThreads()
+    {
+        try
+        {
+            String value = System.getProperty(DEPLOYMENT_THREADS_PROPERTY);
+            return Integer.parseInt(value);
+        }
+        catch (NumberFormatException e)
+        {
+            return DEFAULT_DEPLOYMENT_THREADS;
+        }
+    }
+
     @Override
     public void stop()
     {
@@ -322,9 +500,9 @@ public class MuleDeploymentService implements DeploymentService
     {
         Map<URL, Long> result = new HashMap<URL, Long>();
 
-        for (String app : zombieMap.keySet())
+        // read without the deployment lock, so entries may be removed meanwhile
+        for (ZombieFile file : zombieMap.values())
         {
-            ZombieFile file = zombieMap.get(app);
             result.put(file.url, file.lastUpdated);
         }
 
@@ -541,7 +719,9 @@ public class MuleDeploymentService implements DeploymentService
 
     protected void addZombieFile(String appName, File marker)
     {
-        // no sync required as deploy operations are single-threaded
+        // the zombie map is concurrent, as applications deployed on startup may fail at the same time from
+        // different threads. The directory watcher only checks it once it gets the deployment lock, which is
+        // held until those deployments are over.
         if (marker == null)
         {
             return;
@@ -12,7 +12,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * Prints application status summary table on Mule startup.
+ * Prints application status summary table on Mule startup, with the time taken by each deployment phase
+ * of every application and by the whole startup deployment.
  */
 public class StartupSummaryDeploymentListener implements StartupListener
 {
@@ -20,9 +21,12 @@ public class StartupSummaryDeploymentListener implements StartupListener
 
     protected DeploymentStatusTracker tracker;
 
+    protected final long startupTime;
+
     public StartupSummaryDeploymentListener(DeploymentStatusTracker tracker)
     {
         this.tracker = tracker;
+        this.startupTime = System.currentTimeMillis();
     }
 
     public void onAfterStartup()
@@ -39,18 +43,33 @@ public class StartupSummaryDeploymentListener implements StartupListener
             return;
         }
 
+        Map<String, DeploymentStatusTracker.DeploymentTimes> deploymentTimes = tracker.getDeploymentTimes();
+
         SimpleLoggingTable applicationTable = new SimpleLoggingTable();
         applicationTable.addColumn("APPLICATION", 45);
         applicationTable.addColumn("STATUS", 18);
+        applicationTable.addColumn("CREATE (ms)", 12);
+        applicationTable.addColumn("INIT (ms)", 12);
+        applicationTable.addColumn("START (ms)", 12);
 
         for (String app : applicationStates.keySet())
         {
-            String[] data = new String[] {app, applicationStates.get(app).toString()};
+            DeploymentStatusTracker.DeploymentTimes times = deploymentTimes.get(app);
+            String[] data = new String[] {app, applicationStates.get(app).toString(),
+                formatTime(times == null ? -1 : times.getContextCreationTime()),
+                formatTime(times == null ? -1 : times.getInitTime()),
+                formatTime(times == null ? -1 : times.getStartTime())};
             applicationTable.addDataRow(data);
         }
 
-        String message = String.format("%n%n%s", applicationTable);
+        String message = String.format("%n%n%s%nApplications deployed in %d ms", applicationTable,
+                                       System.currentTimeMillis() - startupTime);
 
         logger.info(message);
     }
+
+    private String formatTime(long millis)
+    {
+        return millis < 0 ? "-" : String.valueOf(millis);
+    }
 }
@@ -24,7 +24,8 @@ import org.apache.commons.logging.LogFactory;
 
 /**
  * Defines a classloader that delegates classes and resources resolution to
- * a list of classloaders.
+ * a list of classloaders. It keeps no state of its own, so classes are loaded without
+ * locking and each delegate takes care of its own synchronization.
  */
 public class CompositeApplicationClassLoader extends ClassLoader implements ApplicationClassLoader, Closeable
 {
@@ -71,7 +72,7 @@ public class CompositeApplicationClassLoader extends ClassLoader implements Appl
     }
 
     @Override
-    protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
     {
         for (ClassLoader classLoader : classLoaders)
         {
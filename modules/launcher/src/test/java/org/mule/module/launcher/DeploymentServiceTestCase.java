@@ -249,6 +249,29 @@ public class DeploymentServiceTestCase extends AbstractMuleContextTestCase
         assertDeploymentSuccess(deploymentListener, "dummy-app");
     }
 
+    @Test
+    public void deploysAppsConcurrentlyOnStartup() throws Exception
+    {
+        addExplodedAppFromResource("/dummy-app.zip");
+        addPackedAppFromResource("/empty-app.zip");
+        addPackedAppFromResource("/broken-app.zip", "brokenApp.zip");
+
+        System.setProperty(MuleDeploymentService.DEPLOYMENT_THREADS_PROPERTY, "2");
+        try
+        {
+            deploymentService.start();
+        }
+        finally
+        {
+            System.clearProperty(MuleDeploymentService.DEPLOYMENT_THREADS_PROPERTY);
+        }
+
+        assertDeploymentSuccess(deploymentListener, "dummy-app");
+        assertDeploymentSuccess(deploymentListener, "empty-app");
+        assertDeploymentFailure(deploymentListener, "brokenApp");
+        assertEquals("Wrong number of zombie apps registered.", 1, deploymentService.getZombieMap().size());
+    }
+
     @Test
     public void deploysExplodedAppAfterStartup() throws Exception
     {
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.launcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import org.mule.api.MuleContext;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.Test;
+
+public class DeploymentStatusTrackerTestCase extends AbstractMuleTestCase
+{
+    private static final String APP_NAME = "foo";
+
+    private final DeploymentStatusTracker tracker = new DeploymentStatusTracker();
+    private final MuleContext context = mock(MuleContext.class);
+
+    @Test
+    public void timesEachPhaseOfSuccessfulDeployment() throws Exception
+    {
+        tracker.onDeploymentStart(APP_NAME);
+        tracker.onMuleContextCreated(APP_NAME, context);
+        tracker.onMuleContextConfigured(APP_NAME, context);
+        tracker.onDeploymentSuccess(APP_NAME);
+
+        DeploymentStatusTracker.DeploymentTimes times = tracker.getDeploymentTimes().get(APP_NAME);
+        assertTrue(times.getContextCreationTime() >= 0);
+        assertTrue(times.getInitTime() >= 0);
+        assertTrue(times.getStartTime() >= 0);
+        assertEquals(times.getContextCreationTime() + times.getInitTime() + times.getStartTime(),
+                     times.getTotalTime());
+    }
+
+    @Test
+    public void phasesInProgressHaveNoTime() throws Exception
+    {
+        tracker.onDeploymentStart(APP_NAME);
+        tracker.onMuleContextCreated(APP_NAME, context);
+
+        DeploymentStatusTracker.DeploymentTimes times = tracker.getDeploymentTimes().get(APP_NAME);
+        assertTrue(times.getContextCreationTime() >= 0);
+        assertEquals(-1, times.getInitTime());
+        assertEquals(-1, times.getStartTime());
+        assertEquals(-1, times.getTotalTime());
+    }
+
+    @Test
+    public void failedDeploymentOnlyTimesCompletedPhases() throws Exception
+    {
+        tracker.onDeploymentStart(APP_NAME);
+        tracker.onMuleContextCreated(APP_NAME, context);
+        tracker.onDeploymentFailure(APP_NAME, new Exception("Exception on foo"));
+
+        DeploymentStatusTracker.DeploymentTimes times = tracker.getDeploymentTimes().get(APP_NAME);
+        assertEquals(-1, times.getInitTime());
+        assertEquals(-1, times.getStartTime());
+        assertTrue(times.getTotalTime() >= 0);
+        assertEquals(DeploymentStatusTracker.DeploymentState.FAILED, tracker.getDeploymentStates().get(APP_NAME));
+    }
+
+    @Test
+    public void ignoresContextEventsOfUntrackedDeployments() throws Exception
+    {
+        tracker.onMuleContextCreated(APP_NAME, context);
+
+        assertNull(tracker.getDeploymentTimes().get(APP_NAME));
+    }
+}
@@ -6,12 +6,16 @@
  */
 package org.mule.module.launcher;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 
 import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -89,4 +93,82 @@ public class FineGrainedControlClassLoaderTestCase extends AbstractMuleTestCase
         assertTrue(classLoader.isOverridden("org.mycompany.MyClass"));
         assertTrue(classLoader.isOverridden("org.mycompany.somepackage.MyClass"));
     }
+
+    @Test
+    public void cachesLoadedClasses() throws Exception
+    {
+        FineGrainedControlClassLoader classLoader = new FineGrainedControlClassLoader(new URL[0], getClass().getClassLoader());
+
+        Class<?> loaded = classLoader.loadClass(getClass().getName());
+        assertSame(getClass(), loaded);
+        assertSame(loaded, classLoader.loadClass(getClass().getName()));
+
+        assertEquals(2, classLoader.getLoadRequestCount());
+        assertEquals(1, classLoader.getParentLoadCount());
+        assertEquals(1, classLoader.getCacheHitCount());
+    }
+
+    @Test
+    public void cachesMissingClasses() throws Exception
+    {
+        FineGrainedControlClassLoader classLoader = new FineGrainedControlClassLoader(new URL[0], getClass().getClassLoader());
+
+        for (int i = 0; i < 2; i++)
+        {
+            try
+            {
+                classLoader.loadClass("org.mycompany.MissingClass");
+                fail("Class should not be found");
+            }
+            catch (ClassNotFoundException e)
+            {
+                // expected
+            }
+        }
+
+        assertEquals(1, classLoader.getFailedLoadCount());
+        assertEquals(1, classLoader.getMissingClassHitCount());
+    }
+
+    @Test
+    public void forgetsMissingClassesWhenAddingURLs() throws Exception
+    {
+        FineGrainedControlClassLoader classLoader = new FineGrainedControlClassLoader(new URL[0], new URLClassLoader(new URL[0], null));
+
+        assertClassNotFound(classLoader, getClass().getName());
+        classLoader.addURL(getClass().getProtectionDomain().getCodeSource().getLocation());
+
+        assertEquals(getClass().getName(), classLoader.loadClass(getClass().getName()).getName());
+        assertEquals(1, classLoader.getLocalLoadCount());
+        assertEquals(0, classLoader.getMissingClassHitCount());
+    }
+
+    @Test
+    public void remembersOnlyTheLastMissingClasses() throws Exception
+    {
+        FineGrainedControlClassLoader classLoader = new FineGrainedControlClassLoader(new URL[0], getClass().getClassLoader());
+
+        for (int i = 0; i <= FineGrainedControlClassLoader.MISSING_CLASSES_MAX_CACHE_SIZE; i++)
+        {
+            assertClassNotFound(classLoader, "org.mycompany.MissingClass" + i);
+        }
+        assertClassNotFound(classLoader, "org.mycompany.MissingClass" + FineGrainedControlClassLoader.MISSING_CLASSES_MAX_CACHE_SIZE);
+        assertClassNotFound(classLoader, "org.mycompany.MissingClass0");
+
+        assertEquals(1, classLoader.getMissingClassHitCount());
+        assertEquals(FineGrainedControlClassLoader.MISSING_CLASSES_MAX_CACHE_SIZE + 2, classLoader.getFailedLoadCount());
+    }
+
+    private void assertClassNotFound(ClassLoader classLoader, String name)
+    {
+        try
+        {
+            classLoader.loadClass(name);
+            fail("Class should not be found");
+        }
+        catch (ClassNotFoundException e)
+        {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.launcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import org.mule.api.config.MuleProperties;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class MuleApplicationClassLoaderTestCase extends AbstractMuleTestCase
+{
+
+    private static final String APP_NAME = "test";
+
+    @Rule
+    public TemporaryFolder muleHome = new TemporaryFolder();
+
+    private String previousMuleHome;
+    private MuleApplicationClassLoader classLoader;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        previousMuleHome = System.setProperty(MuleProperties.MULE_HOME_DIRECTORY_PROPERTY, muleHome.getRoot().getCanonicalPath());
+        File libDir = new File(muleHome.getRoot(), "apps/" + APP_NAME + "/" + MuleApplicationClassLoader.PATH_LIBRARY);
+        libDir.mkdirs();
+
+        // no entries for the directories, as some build tools leave them out
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(new File(libDir, "test.jar")));
+        try
+        {
+            jar.putNextEntry(new JarEntry("org/mule/test/config/app-config.xml"));
+            jar.write("<config/>".getBytes());
+            jar.closeEntry();
+        }
+        finally
+        {
+            jar.close();
+        }
+
+        classLoader = new MuleApplicationClassLoader(APP_NAME, new URLClassLoader(new URL[0], null));
+    }
+
+    @After
+    public void tearDown()
+    {
+        classLoader.close();
+        if (previousMuleHome == null)
+        {
+            System.clearProperty(MuleProperties.MULE_HOME_DIRECTORY_PROPERTY);
+        }
+        else
+        {
+            System.setProperty(MuleProperties.MULE_HOME_DIRECTORY_PROPERTY, previousMuleHome);
+        }
+    }
+
+    @Test
+    public void findsResourcesInJarsWithoutDirectoryEntries() throws Exception
+    {
+        assertNotNull(classLoader.getResource("org/mule/test/config/app-config.xml"));
+        assertEquals(0, classLoader.getIndexRejectionCount());
+    }
+
+    @Test
+    public void looksUpAncestorsOfIndexedDirectories() throws Exception
+    {
+        // what classpath*: scanning asks for
+        classLoader.getResources("org/mule/");
+        classLoader.getResources("org/");
+        classLoader.findResource("org/mule/test/application.properties");
+
+        assertEquals(0, classLoader.getIndexRejectionCount());
+    }
+
+    @Test
+    public void rejectsLookupsInDirectoriesNotInTheClassPath() throws Exception
+    {
+        assertFalse(classLoader.getResources("com/mycompany/").hasMoreElements());
+        assertEquals(1, classLoader.getIndexRejectionCount());
+    }
+}
@@ -28,6 +28,8 @@ import org.mule.module.management.mbean.EndpointService;
 import org.mule.module.management.mbean.EndpointServiceMBean;
 import org.mule.module.management.mbean.FlowConstructService;
 import org.mule.module.management.mbean.FlowConstructServiceMBean;
+import org.mule.module.management.mbean.MessageProcessorProfilerService;
+import org.mule.module.management.mbean.MessageProcessorProfilerServiceMBean;
 import org.mule.module.management.mbean.ModelService;
 import org.mule.module.management.mbean.ModelServiceMBean;
 import org.mule.module.management.mbean.MuleConfigurationService;
@@ -361,6 +363,16 @@ public class JmxAgent extends AbstractAgent
         mBeanServer.registerMBean(mBean, on);
     }
 
+    protected void registerMessageProcessorProfilerService() throws NotCompliantMBeanException, MBeanRegistrationException,
+        InstanceAlreadyExistsException, MalformedObjectNameException
+    {
+        ObjectName on = jmxSupport.getObjectName(String.format("%s:%s", jmxSupport.getDomainName(muleContext, !containerMode), MessageProcessorProfilerServiceMBean.DEFAULT_JMX_NAME));
+        MessageProcessorProfilerService service = new MessageProcessorProfilerService(muleContext);
+        ClassloaderSwitchingMBeanWrapper mBean = new ClassloaderSwitchingMBeanWrapper(service, MessageProcessorProfilerServiceMBean.class, muleContext.getExecutionClassLoader());
+        logger.debug("Registering message processor profiler with name: " + on);
+        mBeanServer.registerMBean(mBean, on);
+    }
+
     protected void registerModelServices() throws NotCompliantMBeanException, MBeanRegistrationException,
             InstanceAlreadyExistsException, MalformedObjectNameException
     {
@@ -702,6 +714,7 @@ public class JmxAgent extends AbstractAgent
                 {
                     registerWrapperService();
                     registerStatisticsService();
+                    registerMessageProcessorProfilerService();
                     registerMuleService();
                     registerConfigurationService();
                     registerModelServices();
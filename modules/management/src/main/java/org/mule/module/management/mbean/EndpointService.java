@@ -12,6 +12,7 @@ import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.endpoint.OutboundEndpoint;
 import org.mule.api.transport.MessageReceiver;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.transport.AbstractPollingMessageReceiver;
 import org.mule.util.ObjectNameHelper;
 
 import org.apache.commons.logging.Log;
@@ -129,4 +130,44 @@ public class EndpointService implements EndpointServiceMBean
     {
         this.componentName = componentName;
     }
+
+    public long getPolls()
+    {
+        return isPolling() ? getPollingReceiver().getPolls() : 0;
+    }
+
+    public long getEmptyPolls()
+    {
+        return isPolling() ? getPollingReceiver().getEmptyPolls() : 0;
+    }
+
+    public long getFullPolls()
+    {
+        return isPolling() ? getPollingReceiver().getFullPolls() : 0;
+    }
+
+    public long getSkippedPolls()
+    {
+        return isPolling() ? getPollingReceiver().getSkippedPolls() : 0;
+    }
+
+    public long getPolledMessages()
+    {
+        return isPolling() ? getPollingReceiver().getPolledMessages() : 0;
+    }
+
+    public String getLastPollYield()
+    {
+        return isPolling() ? getPollingReceiver().getLastPollYield().name() : null;
+    }
+
+    private boolean isPolling()
+    {
+        return receiver instanceof AbstractPollingMessageReceiver;
+    }
+
+    private AbstractPollingMessageReceiver getPollingReceiver()
+    {
+        return (AbstractPollingMessageReceiver) receiver;
+    }
 }
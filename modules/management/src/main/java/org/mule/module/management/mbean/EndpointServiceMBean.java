@@ -31,4 +31,34 @@ public interface EndpointServiceMBean
     MessageExchangePattern getMessageExchangePattern();
 
     String getComponentName();
+
+    /**
+     * @return the number of polls run by a polling receiver, 0 for other endpoints
+     */
+    long getPolls();
+
+    /**
+     * @return the number of polls that found nothing to route
+     */
+    long getEmptyPolls();
+
+    /**
+     * @return the number of polls that left messages waiting for the next poll
+     */
+    long getFullPolls();
+
+    /**
+     * @return the number of polls skipped because the flow could not take more events
+     */
+    long getSkippedPolls();
+
+    /**
+     * @return the number of messages routed by polls
+     */
+    long getPolledMessages();
+
+    /**
+     * @return what the last poll yielded, null for endpoints that do not poll
+     */
+    String getLastPollYield();
 }
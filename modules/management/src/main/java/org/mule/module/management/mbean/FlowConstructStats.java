@@ -91,6 +91,51 @@ public class FlowConstructStats implements FlowConstructStatsMBean, MBeanRegistr
         return statistics.getFatalErrors();
     }
 
+    public long getProcessingTime50thPercentile()
+    {
+        return statistics.getLatencyStatistics().getFlowLatency().getWindowSnapshot().getValueAtPercentile(50);
+    }
+
+    public long getProcessingTime90thPercentile()
+    {
+        return statistics.getLatencyStatistics().getFlowLatency().getWindowSnapshot().getValueAtPercentile(90);
+    }
+
+    public long getProcessingTime99thPercentile()
+    {
+        return statistics.getLatencyStatistics().getFlowLatency().getWindowSnapshot().getValueAtPercentile(99);
+    }
+
+    public long getProcessingTime999thPercentile()
+    {
+        return statistics.getLatencyStatistics().getFlowLatency().getWindowSnapshot().getValueAtPercentile(99.9);
+    }
+
+    public String getProcessingTimeLatencySummary()
+    {
+        return statistics.getLatencyStatistics().getFlowLatency().getSummary();
+    }
+
+    public String[] getInboundEndpointLatencies()
+    {
+        return statistics.getLatencyStatistics().getInboundEndpointLatencySummaries();
+    }
+
+    public String[] getMessageProcessorLatencies()
+    {
+        return statistics.getLatencyStatistics().getMessageProcessorLatencySummaries();
+    }
+
+    public boolean isMessageProcessorLatencyEnabled()
+    {
+        return statistics.getLatencyStatistics().isMessageProcessorLatencyEnabled();
+    }
+
+    public void setMessageProcessorLatencyEnabled(boolean enabled)
+    {
+        statistics.getLatencyStatistics().setMessageProcessorLatencyEnabled(enabled);
+    }
+
     public ObjectName preRegister(MBeanServer server, ObjectName name) throws Exception
     {
         this.server = server;
@@ -34,4 +34,43 @@ public interface FlowConstructStatsMBean
     long getFatalErrors();
 
     long getExecutionErrors();
+
+    /**
+     * @return the median flow processing time over the rolling latency window, in milliseconds
+     */
+    long getProcessingTime50thPercentile();
+
+    /**
+     * @return the 90th percentile of the flow processing time over the rolling latency window, in milliseconds
+     */
+    long getProcessingTime90thPercentile();
+
+    /**
+     * @return the 99th percentile of the flow processing time over the rolling latency window, in milliseconds
+     */
+    long getProcessingTime99thPercentile();
+
+    /**
+     * @return the 99.9th percentile of the flow processing time over the rolling latency window, in milliseconds
+     */
+    long getProcessingTime999thPercentile();
+
+    /**
+     * @return percentiles of the flow processing time for the rolling window and since the last reset
+     */
+    String getProcessingTimeLatencySummary();
+
+    /**
+     * @return percentiles of the processing time of each inbound endpoint, in milliseconds
+     */
+    String[] getInboundEndpointLatencies();
+
+    /**
+     * @return percentiles of the processing time of each message processor, in microseconds
+     */
+    String[] getMessageProcessorLatencies();
+
+    boolean isMessageProcessorLatencyEnabled();
+
+    void setMessageProcessorLatencyEnabled(boolean enabled);
 }
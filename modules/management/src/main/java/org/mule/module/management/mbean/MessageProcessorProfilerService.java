@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.management.mbean;
+
+import org.mule.api.MuleContext;
+import org.mule.management.stats.MessageProcessorProfiler;
+import org.mule.util.IOUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+
+/**
+ * <code>MessageProcessorProfilerService</code> exposes the message processor profiler of an application
+ */
+public class MessageProcessorProfilerService implements MessageProcessorProfilerServiceMBean
+{
+    private final MessageProcessorProfiler profiler;
+
+    public MessageProcessorProfilerService(MuleContext muleContext)
+    {
+        this.profiler = muleContext.getStatistics().getMessageProcessorProfiler();
+    }
+
+    public boolean isEnabled()
+    {
+        return profiler.isEnabled();
+    }
+
+    public void setEnabled(boolean enabled)
+    {
+        profiler.setEnabled(enabled);
+    }
+
+    public int getSampleRate()
+    {
+        return profiler.getSampleRate();
+    }
+
+    public void setSampleRate(int sampleRate)
+    {
+        profiler.setSampleRate(sampleRate);
+    }
+
+    public void clear()
+    {
+        profiler.clear();
+    }
+
+    public String printTree() throws IOException
+    {
+        StringWriter writer = new StringWriter(8192);
+        profiler.writeTree(writer);
+        return writer.toString();
+    }
+
+    public String printCollapsedStacks() throws IOException
+    {
+        StringWriter writer = new StringWriter(8192);
+        profiler.writeCollapsedStacks(writer);
+        return writer.toString();
+    }
+
+    public String dumpTree(String fileName) throws IOException
+    {
+        File file = new File(fileName);
+        Writer writer = createWriter(file);
+        try
+        {
+            profiler.writeTree(writer);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(writer);
+        }
+        return file.getAbsolutePath();
+    }
+
+    public String dumpCollapsedStacks(String fileName) throws IOException
+    {
+        File file = new File(fileName);
+        Writer writer = createWriter(file);
+        try
+        {
+            profiler.writeCollapsedStacks(writer);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(writer);
+        }
+        return file.getAbsolutePath();
+    }
+
+    private Writer createWriter(File file) throws IOException
+    {
+        return new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.management.mbean;
+
+/**
+ * <code>MessageProcessorProfilerServiceMBean</code> is a JMX interface to control the
+ * message processor profiler and retrieve its reports.
+ *
+ * @see org.mule.management.stats.MessageProcessorProfiler
+ */
+public interface MessageProcessorProfilerServiceMBean
+{
+    String DEFAULT_JMX_NAME = "type=Statistics,name=MessageProcessorProfiler";
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getSampleRate();
+
+    /**
+     * @param sampleRate profile one out of every this many top level processor invocations
+     */
+    void setSampleRate(int sampleRate);
+
+    /**
+     * Resets the counters of every processor
+     */
+    void clear();
+
+    /**
+     * @return the profile as a tree ordered by total time
+     */
+    String printTree() throws Exception;
+
+    /**
+     * @return the profile in the collapsed stack format used by flame graph tools
+     */
+    String printCollapsedStacks() throws Exception;
+
+    /**
+     * Writes the profile as a tree to a file
+     *
+     * @return the absolute path of the written file
+     */
+    String dumpTree(String fileName) throws Exception;
+
+    /**
+     * Writes the profile as collapsed stacks to a file
+     *
+     * @return the absolute path of the written file
+     */
+    String dumpCollapsedStacks(String fileName) throws Exception;
+}
@@ -28,6 +28,7 @@ import org.mule.module.management.mbean.ConnectorService;
 import org.mule.module.management.mbean.EndpointService;
 import org.mule.module.management.mbean.FlowConstructService;
 import org.mule.module.management.mbean.FlowConstructStats;
+import org.mule.module.management.mbean.MessageProcessorProfilerService;
 import org.mule.module.management.mbean.ModelService;
 import org.mule.module.management.mbean.MuleConfigurationService;
 import org.mule.module.management.mbean.MuleService;
@@ -83,6 +84,7 @@ public class MBeansRegistrationTestCase extends AbstractServiceAndFlowTestCase
         assertTrue(mbeanClasses.contains(MuleService.class.getName()));
         assertTrue(mbeanClasses.contains(MuleConfigurationService.class.getName()));
         assertTrue(mbeanClasses.contains(StatisticsService.class.getName()));
+        assertTrue(mbeanClasses.contains(MessageProcessorProfilerService.class.getName()));
         assertTrue(mbeanClasses.contains(ModelService.class.getName()));
 
         // Only if registerMx4jAdapter="true"
@@ -23,6 +23,8 @@ public class PollingMessageSourceFactoryBean extends InboundEndpointFactoryBean
     protected MessageProcessor messageProcessor;
     protected MessageProcessorPollingOverride override;
     protected Long frequency;
+    protected Integer partitions;
+    protected String partitionExpression;
 
     private FixedFrequencySchedulerFactory defaultSchedulerFactory()
     {
@@ -41,6 +43,14 @@ public class PollingMessageSourceFactoryBean extends InboundEndpointFactoryBean
         properties.put(MessageProcessorPollingMessageReceiver.POLL_OVERRIDE_PROPERTY_NAME, override);
         properties.put(MessageProcessorPollingMessageReceiver.SCHEDULER_FACTORY_PROPERTY_NAME, schedulerFactory == null ? defaultSchedulerFactory() : schedulerFactory);
         properties.put(AbstractConnector.PROPERTY_POLLING_FREQUENCY, frequency);
+        if (partitions != null)
+        {
+            properties.put(MessageProcessorPollingMessageReceiver.PARTITIONS_PROPERTY_NAME, partitions);
+        }
+        if (partitionExpression != null)
+        {
+            properties.put(MessageProcessorPollingMessageReceiver.PARTITION_EXPRESSION_PROPERTY_NAME, partitionExpression);
+        }
 
         EndpointFactory ef = muleContext.getEndpointFactory();
         if (ef != null)
@@ -74,5 +84,15 @@ public class PollingMessageSourceFactoryBean extends InboundEndpointFactoryBean
         this.schedulerFactory = schedulerFactory;
     }
 
+    public void setPartitions(Integer partitions)
+    {
+        this.partitions = partitions;
+    }
+
+    public void setPartitionExpression(String partitionExpression)
+    {
+        this.partitionExpression = partitionExpression;
+    }
+
 
 }
@@ -52,6 +52,12 @@ public abstract class AbstractRetrieveMailConnector extends AbstractMailConnecto
      */
     private Flags.Flag defaultProcessMessageAction = Flags.Flag.SEEN;
 
+    /**
+     * Should the headers and flags of each batch of messages be fetched at once, and the processed messages be
+     * moved and flagged at once
+     */
+    private volatile boolean bulkMode = false;
+
 
     protected AbstractRetrieveMailConnector(int defaultPort, MuleContext context)
     {
@@ -134,4 +140,14 @@ public abstract class AbstractRetrieveMailConnector extends AbstractMailConnecto
     {
         this.defaultProcessMessageAction = defaultProcessMessageAction;
     }
+
+    public boolean isBulkMode()
+    {
+        return bulkMode;
+    }
+
+    public void setBulkMode(boolean bulkMode)
+    {
+        this.bulkMode = bulkMode;
+    }
 }
@@ -17,6 +17,12 @@ public class ImapConnector extends AbstractRetrieveMailConnector
     public static final String IMAP = "imap";
     public static final int DEFAULT_IMAP_PORT = 143;
 
+    /**
+     * Should the receivers wait for new messages with the IMAP IDLE command, when the server supports it,
+     * instead of polling the mailbox
+     */
+    private volatile boolean useIdle = false;
+
     public ImapConnector(MuleContext context)
     {
         super(DEFAULT_IMAP_PORT, context);
@@ -27,4 +33,14 @@ public class ImapConnector extends AbstractRetrieveMailConnector
         return IMAP;
     }
 
+    public boolean isUseIdle()
+    {
+        return useIdle;
+    }
+
+    public void setUseIdle(boolean useIdle)
+    {
+        this.useIdle = useIdle;
+    }
+
 }
@@ -20,13 +20,19 @@ import org.mule.util.FileUtils;
 import org.mule.util.StringUtils;
 import org.mule.util.UUID;
 
+import com.sun.mail.imap.IMAPFolder;
+import com.sun.mail.imap.IMAPStore;
+
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.mail.Address;
+import javax.mail.FetchProfile;
 import javax.mail.Flags;
 import javax.mail.Folder;
 import javax.mail.Message;
@@ -43,6 +49,12 @@ import javax.mail.internet.MimeMessage;
  * <p/>
  * This contains a reference to a mail folder (and also the endpoint and connector,
  * via superclasses)
+ * <p/>
+ * In bulk mode the envelope, flags and content information of each batch are fetched
+ * with a single request, and the processed messages are moved and flagged with a
+ * single command per action once the batch is done. When the IMAP connector uses
+ * IDLE and the server supports it, the folder is kept open after polling and new
+ * messages are processed as the server notifies them.
  */
 public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver implements MessageCountListener
 {
@@ -52,6 +64,7 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
     private String backupFolder = null;
     // A lock to protect concurrent access to the folder.
     private final Object folderLock = new Object();
+    private volatile boolean idling = false;
 
     public RetrieveMessageReceiver(Connector connector,
                                    FlowConstruct flowConstruct,
@@ -107,6 +120,8 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
     @Override
     protected void doStop() throws MuleException
     {
+        // the poll waiting in IDLE has to return before the schedule can be stopped
+        stopIdle();
         super.doStop();
 
         synchronized (folderLock)
@@ -136,90 +151,108 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
             List<Message> processedMessages = new ArrayList<Message>();
             if (messages != null)
             {
-                MuleMessage message = null;
-                for (int i = 0; i < messages.length; i++)
+                boolean bulkMode = castConnector().isBulkMode();
+                if (bulkMode)
                 {
-                    if (getLifecycleState().isStopping() || getLifecycleState().isStopped())
-                    {
-                        break;
-                    }
-                    try
+                    prefetch(messages);
+                }
+                ProcessedMessageActions actions = new ProcessedMessageActions(folder, moveToFolder, bulkMode);
+                try
+                {
+                    MuleMessage message = null;
+                    for (int i = 0; i < messages.length; i++)
                     {
-                        if (!messages[i].getFlags().contains(Flags.Flag.DELETED)
-                            && !messages[i].getFlags().contains(Flags.Flag.SEEN))
+                        if (getLifecycleState().isStopping() || getLifecycleState().isStopped())
+                        {
+                            break;
+                        }
+                        try
                         {
-                            try
+                            if (!messages[i].getFlags().contains(Flags.Flag.DELETED)
+                                && !messages[i].getFlags().contains(Flags.Flag.SEEN))
                             {
-                                MimeMessage mimeMessage = new MimeMessage((MimeMessage) messages[i]);
-                                storeMessage(mimeMessage);
-                                message = createMuleMessage(mimeMessage, endpoint.getEncoding());
-
-                                if (castConnector().isDeleteReadMessages())
+                                try
                                 {
-                                    if (moveToFolder != null)
+                                    MimeMessage mimeMessage = new MimeMessage((MimeMessage) messages[i]);
+                                    storeMessage(mimeMessage);
+                                    message = createMuleMessage(mimeMessage, endpoint.getEncoding());
+
+                                    if (castConnector().isDeleteReadMessages())
                                     {
-                                        folder.copyMessages(new Message[]{messages[i]}, moveToFolder);
+                                        if (moveToFolder != null)
+                                        {
+                                            actions.move(messages[i]);
+                                        }
+                                        // Mark as deleted
+                                        actions.flag(messages[i], Flags.Flag.DELETED);
                                     }
-                                    // Mark as deleted
-                                    messages[i].setFlag(Flags.Flag.DELETED, true);
-                                }
-                                else
-                                {
-                                    if (this.getEndpoint().getFilter() != null && this.getEndpoint().getFilter().accept(message))
+                                    else
                                     {
-                                        Flags.Flag flag = castConnector().getDefaultProcessMessageAction();
-                                        if (flag != null)
+                                        if (this.getEndpoint().getFilter() != null && this.getEndpoint().getFilter().accept(message))
                                         {
-                                            if(flag == Flags.Flag.DELETED && moveToFolder != null)
+                                            Flags.Flag flag = castConnector().getDefaultProcessMessageAction();
+                                            if (flag != null)
                                             {
-                                                folder.copyMessages(new Message[]{messages[i]}, moveToFolder);
+                                                if(flag == Flags.Flag.DELETED && moveToFolder != null)
+                                                {
+                                                    actions.move(messages[i]);
+                                                }
+                                                actions.flag(messages[i], flag);
                                             }
-                                            messages[i].setFlag(flag, true);
+                                        }
+                                        else
+                                        {
+                                            actions.flag(messages[i], Flags.Flag.SEEN);
+                                            processedMessages.add(messages[i]);
                                         }
                                     }
-                                    else
-                                    {
-                                        messages[i].setFlag(Flags.Flag.SEEN, true);
-                                        processedMessages.add(messages[i]);
-                                    }
+                                    routeMessage(message);
+                                }
+                                catch (org.mule.api.MessagingException e)
+                                {
+                                    //Already handled by TransactionTemplate
+                                }
+                                catch (Exception e)
+                                {
+                                    connector.getMuleContext().getExceptionListener().handleException(e);
+                                    throw e;
                                 }
-                                routeMessage(message);
-                            }
-                            catch (org.mule.api.MessagingException e)
-                            {
-                                //Already handled by TransactionTemplate
-                            }
-                            catch (Exception e)
-                            {
-                                connector.getMuleContext().getExceptionListener().handleException(e);
-                                throw e;
                             }
                         }
-                    }
-                    catch (MuleException e)
-                    {
-                        throw e;
-                    }
-                    catch (Exception e)
-                    {
-                        Exception forwarded;
-    
-                        if (message != null)
+                        catch (MuleException e)
                         {
-                            forwarded = new org.mule.api.MessagingException(EmailMessages.routingError(), message, e);
+                            throw e;
                         }
-                        else
+                        catch (Exception e)
                         {
-                            forwarded = new ReceiveException(endpoint, -1, e);
+                            Exception forwarded;
+    
+                            if (message != null)
+                            {
+                                forwarded = new org.mule.api.MessagingException(EmailMessages.routingError(), message, e);
+                            }
+                            else
+                            {
+                                forwarded = new ReceiveException(endpoint, -1, e);
+                            }
+                            throw forwarded;
                         }
-                        throw forwarded;
                     }
                 }
+                finally
+                {
+                    actions.flush();
+                }
                 // Copy processed messages that have not been deleted (the deleted were already moved)
                 if (moveToFolder != null)
                 {
                     folder.copyMessages(processedMessages.toArray(new Message[processedMessages.size()]), moveToFolder);
                 }
+                // the folder stays open while idling, so closing it does not expunge the deleted messages
+                if (idling && actions.isDeleted())
+                {
+                    folder.expunge();
+                }
             }
         }
         catch (Exception e)
@@ -323,6 +356,7 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
     @Override
     public void poll()
     {
+        boolean idle = isIdleSupported();
         boolean done = false;
         while (!done)
         {
@@ -368,21 +402,113 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
                 catch (MessagingException e)
                 {
                     done = true;
+                    idle = false;
                     getConnector().getMuleContext().getExceptionListener().handleException(e);
                 }
                 finally
                 {
-                    try
+                    if (!(done && idle))
                     {
-                        folder.close(true); // close and expunge deleted messages
-                    }
-                    catch (Exception e)
-                    {
-                        logger.error("Failed to close pop3  inbox: " + e.getMessage());
+                        closeFolder();
                     }
                 }
             }
         }
+
+        if (done && idle)
+        {
+            idle();
+        }
+    }
+
+    /**
+     * Waits with IMAP IDLE on the folder left open by the last poll. The messages the server notifies meanwhile
+     * are processed by {@link #messagesAdded} as the folder delivers the events, which interrupts the IDLE
+     * until they are done. Waiting ends when the receiver stops or the connection fails, and the next poll
+     * starts waiting again.
+     */
+    void idle()
+    {
+        idling = true;
+        try
+        {
+            IMAPFolder imapFolder = (IMAPFolder) folder;
+            while (idling && imapFolder.isOpen())
+            {
+                imapFolder.idle();
+            }
+        }
+        catch (Exception e)
+        {
+            if (idling)
+            {
+                logger.warn("Stopped waiting for new messages in " + folder.getFullName() + ": " + e.getMessage());
+            }
+        }
+        finally
+        {
+            idling = false;
+            synchronized (folderLock)
+            {
+                closeFolder();
+            }
+        }
+    }
+
+    private void stopIdle()
+    {
+        if (idling)
+        {
+            idling = false;
+            // any use of the folder ends the IDLE
+            closeFolder();
+        }
+    }
+
+    private boolean isIdleSupported()
+    {
+        if (!(connector instanceof ImapConnector) || !((ImapConnector) connector).isUseIdle()
+            || !(folder instanceof IMAPFolder))
+        {
+            return false;
+        }
+        try
+        {
+            return ((IMAPStore) folder.getStore()).hasCapability("IDLE");
+        }
+        catch (MessagingException e)
+        {
+            logger.debug("ignoring exception: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void closeFolder()
+    {
+        try
+        {
+            if (folder.isOpen())
+            {
+                folder.close(true); // close and expunge deleted messages
+            }
+        }
+        catch (Exception e)
+        {
+            logger.error("Failed to close pop3  inbox: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fetches the envelope, flags and content information of all the messages with a single request, instead of
+     * one request per message as they are read
+     */
+    private void prefetch(Message[] messages) throws MessagingException
+    {
+        FetchProfile profile = new FetchProfile();
+        profile.add(FetchProfile.Item.ENVELOPE);
+        profile.add(FetchProfile.Item.FLAGS);
+        profile.add(FetchProfile.Item.CONTENT_INFO);
+        folder.fetch(messages, profile);
     }
 
 
@@ -415,6 +541,79 @@ public class RetrieveMessageReceiver extends AbstractPollingMessageReceiver impl
         }
     }
 
+    /**
+     * Moves and flags the processed messages. One message at a time as they are processed, or in bulk mode all
+     * the messages of a batch with a single command per action when it is flushed.
+     */
+    static class ProcessedMessageActions
+    {
+        private final Folder folder;
+        private final Folder moveToFolder;
+        private final boolean bulkMode;
+        private final List<Message> moved = new ArrayList<Message>();
+        private final Map<Flags.Flag, List<Message>> flagged = new LinkedHashMap<Flags.Flag, List<Message>>();
+        private boolean deleted = false;
+
+        ProcessedMessageActions(Folder folder, Folder moveToFolder, boolean bulkMode)
+        {
+            this.folder = folder;
+            this.moveToFolder = moveToFolder;
+            this.bulkMode = bulkMode;
+        }
+
+        void move(Message message) throws MessagingException
+        {
+            if (bulkMode)
+            {
+                moved.add(message);
+            }
+            else
+            {
+                folder.copyMessages(new Message[]{message}, moveToFolder);
+            }
+        }
+
+        void flag(Message message, Flags.Flag flag) throws MessagingException
+        {
+            deleted |= flag == Flags.Flag.DELETED;
+            if (bulkMode)
+            {
+                List<Message> messages = flagged.get(flag);
+                if (messages == null)
+                {
+                    messages = new ArrayList<Message>();
+                    flagged.put(flag, messages);
+                }
+                messages.add(message);
+            }
+            else
+            {
+                message.setFlag(flag, true);
+            }
+        }
+
+        void flush() throws MessagingException
+        {
+            // messages are copied before they are flagged, as when done one at a time
+            if (!moved.isEmpty())
+            {
+                folder.copyMessages(moved.toArray(new Message[moved.size()]), moveToFolder);
+                moved.clear();
+            }
+            for (Map.Entry<Flags.Flag, List<Message>> entry : flagged.entrySet())
+            {
+                List<Message> messages = entry.getValue();
+                folder.setFlags(messages.toArray(new Message[messages.size()]), new Flags(entry.getKey()), true);
+            }
+            flagged.clear();
+        }
+
+        boolean isDeleted()
+        {
+            return deleted;
+        }
+    }
+
     @Override
     protected MuleMessage handleUnacceptedFilter(MuleMessage message)
     {
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.email;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.aryEq;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import com.sun.mail.imap.IMAPFolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.mail.Flags;
+import javax.mail.Folder;
+import javax.mail.Message;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class RetrieveMessageReceiverTestCase extends AbstractMuleTestCase
+{
+
+    private final Folder folder = mock(Folder.class);
+    private final Folder moveToFolder = mock(Folder.class);
+    private final Message first = mock(Message.class);
+    private final Message second = mock(Message.class);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @After
+    public void stopExecutor()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void bulkModeMovesAndFlagsTheBatchWithOneCommandEach() throws Exception
+    {
+        RetrieveMessageReceiver.ProcessedMessageActions actions =
+            new RetrieveMessageReceiver.ProcessedMessageActions(folder, moveToFolder, true);
+        actions.move(first);
+        actions.flag(first, Flags.Flag.DELETED);
+        actions.move(second);
+        actions.flag(second, Flags.Flag.DELETED);
+
+        // nothing is sent to the server until the batch is done
+        verify(folder, never()).copyMessages(any(Message[].class), any(Folder.class));
+        verify(folder, never()).setFlags(any(Message[].class), any(Flags.class), anyBoolean());
+
+        actions.flush();
+
+        Message[] batch = new Message[] {first, second};
+        verify(folder, times(1)).copyMessages(aryEq(batch), eq(moveToFolder));
+        verify(folder, times(1)).setFlags(aryEq(batch), eq(new Flags(Flags.Flag.DELETED)), eq(true));
+        verify(first, never()).setFlag(any(Flags.Flag.class), anyBoolean());
+        verify(second, never()).setFlag(any(Flags.Flag.class), anyBoolean());
+        assertTrue(actions.isDeleted());
+    }
+
+    @Test
+    public void bulkModeFlagsEachFlagWithItsOwnCommand() throws Exception
+    {
+        RetrieveMessageReceiver.ProcessedMessageActions actions =
+            new RetrieveMessageReceiver.ProcessedMessageActions(folder, moveToFolder, true);
+        actions.flag(first, Flags.Flag.SEEN);
+        actions.flag(second, Flags.Flag.FLAGGED);
+        actions.flush();
+
+        verify(folder).setFlags(aryEq(new Message[] {first}), eq(new Flags(Flags.Flag.SEEN)), eq(true));
+        verify(folder).setFlags(aryEq(new Message[] {second}), eq(new Flags(Flags.Flag.FLAGGED)), eq(true));
+        verify(folder, never()).copyMessages(any(Message[].class), any(Folder.class));
+        assertFalse(actions.isDeleted());
+    }
+
+    @Test
+    public void withoutBulkModeEachMessageIsMovedAndFlaggedAsItIsProcessed() throws Exception
+    {
+        RetrieveMessageReceiver.ProcessedMessageActions actions =
+            new RetrieveMessageReceiver.ProcessedMessageActions(folder, moveToFolder, false);
+        actions.move(first);
+        actions.flag(first, Flags.Flag.DELETED);
+
+        verify(folder).copyMessages(aryEq(new Message[] {first}), eq(moveToFolder));
+        verify(first).setFlag(Flags.Flag.DELETED, true);
+
+        actions.flush();
+
+        verify(folder, times(1)).copyMessages(any(Message[].class), any(Folder.class));
+        verify(folder, never()).setFlags(any(Message[].class), any(Flags.class), anyBoolean());
+    }
+
+    @Test
+    public void stoppingEndsTheIdlePromptly() throws Exception
+    {
+        final CountDownLatch idling = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        IMAPFolder imapFolder = mock(IMAPFolder.class);
+        when(imapFolder.isOpen()).thenAnswer(new Answer<Boolean>()
+        {
+            public Boolean answer(InvocationOnMock invocation)
+            {
+                return closed.getCount() > 0;
+            }
+        });
+        doAnswer(new Answer<Void>()
+        {
+            public Void answer(InvocationOnMock invocation) throws Throwable
+            {
+                idling.countDown();
+                // the server keeps the IDLE going until the folder is used again
+                closed.await(AbstractMuleContextTestCase.RECEIVE_TIMEOUT * 10, TimeUnit.MILLISECONDS);
+                return null;
+            }
+        }).when(imapFolder).idle();
+        doAnswer(new Answer<Void>()
+        {
+            public Void answer(InvocationOnMock invocation)
+            {
+                closed.countDown();
+                return null;
+            }
+        }).when(imapFolder).close(anyBoolean());
+
+        final RetrieveMessageReceiver receiver = createReceiver();
+        receiver.setFolder(imapFolder);
+        Future<?> idle = executor.submit(new Runnable()
+        {
+            public void run()
+            {
+                receiver.idle();
+            }
+        });
+        assertTrue(idling.await(AbstractMuleContextTestCase.RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS));
+
+        receiver.doStop();
+
+        idle.get(AbstractMuleContextTestCase.RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+        verify(imapFolder).close(true);
+    }
+
+    private RetrieveMessageReceiver createReceiver() throws Exception
+    {
+        ImapConnector connector = mock(ImapConnector.class, RETURNS_DEEP_STUBS);
+        InboundEndpoint endpoint = mock(InboundEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getConnector()).thenReturn(connector);
+        FlowConstruct flowConstruct = mock(FlowConstruct.class, RETURNS_DEEP_STUBS);
+        return new RetrieveMessageReceiver(connector, flowConstruct, endpoint, 1000, false, null);
+    }
+}
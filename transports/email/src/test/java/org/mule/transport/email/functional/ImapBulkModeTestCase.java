@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.email.functional;
+
+import static org.junit.Assert.assertNotNull;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+import org.mule.tck.probe.Prober;
+import org.mule.transport.email.GreenMailUtilities;
+import org.mule.transport.email.ImapConnector;
+
+import com.icegreen.greenmail.imap.ImapHostManager;
+import com.icegreen.greenmail.user.GreenMailUser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.mail.internet.MimeMessage;
+
+import org.junit.Test;
+import org.junit.runners.Parameterized.Parameters;
+
+public class ImapBulkModeTestCase extends AbstractEmailFunctionalTestCase
+{
+    private static final int MESSAGES = 5;
+
+    public ImapBulkModeTestCase(ConfigVariant variant, String configResources)
+    {
+        super(variant, STRING_MESSAGE, ImapConnector.IMAP, configResources);
+    }
+
+    @Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[][]{
+            {ConfigVariant.FLOW, "imap-bulk-mode-test.xml"}
+        });
+    }
+
+    @Override
+    protected void generateAndStoreEmail() throws Exception
+    {
+        List<MimeMessage> messages = new ArrayList<MimeMessage>();
+        for (int i = 0; i < MESSAGES; i++)
+        {
+            messages.add(GreenMailUtilities.toMessage(DEFAULT_MESSAGE + " " + i, DEFAULT_EMAIL, null));
+        }
+        storeEmail(messages);
+    }
+
+    @Test
+    public void movesAndDeletesBatchOfMessages() throws Exception
+    {
+        MuleClient client = muleContext.getClient();
+        for (int i = 0; i < MESSAGES; i++)
+        {
+            MuleMessage reply = client.request("vm://receive", RECEIVE_TIMEOUT);
+            assertNotNull(reply);
+        }
+
+        final ImapHostManager imapHostManager = server.getManagers().getImapHostManager();
+        final GreenMailUser user = server.getManagers().getUserManager().getUser(DEFAULT_USER);
+        Prober prober = new PollingProber(RECEIVE_TIMEOUT, 100);
+        prober.check(new Probe()
+        {
+            public boolean isSatisfied()
+            {
+                try
+                {
+                    return imapHostManager.getFolder(user, DEFAULT_PROCESSED_MAILBOX).getMessageCount() == MESSAGES
+                           && imapHostManager.getInbox(user).getMessageCount() == 0;
+                }
+                catch (Exception e)
+                {
+                    return false;
+                }
+            }
+
+            public String describeFailure()
+            {
+                return "The messages were not moved to the " + DEFAULT_PROCESSED_MAILBOX + " folder";
+            }
+        });
+    }
+}
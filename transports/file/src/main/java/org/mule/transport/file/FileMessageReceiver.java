@@ -198,12 +198,20 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
             {
                 Collections.sort(files, comparator);
             }
+            int found = 0;
+            boolean more = false;
             for (File file : files)
             {
                 if (getLifecycleState().isStopping())
                 {
                     break;
                 }
+                if (getDemand() <= 0)
+                {
+                    // the remaining files are picked up by a later poll once the flow catches up
+                    more = true;
+                    break;
+                }
                 // don't process directories
                 if (file.isFile())
                 {
@@ -232,6 +240,7 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
                             }
                             if (file.exists())
                             {
+                                found++;
                                 processFile(file);
                             }
                         }
@@ -242,6 +251,7 @@ public class FileMessageReceiver extends AbstractPollingMessageReceiver
                     }
                 }
             }
+            pollFound(found, more);
         }
         catch (Exception e)
         {
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.file;
+
+import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.store.ListableObjectStore;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreManager;
+
+import java.io.Serializable;
+import java.util.Collection;
+
+/**
+ * Remembers the size and modification time of the files already processed from a polled directory, so that
+ * receivers that leave the files in place only process the files that are new or changed since the last
+ * time they were processed.
+ * <p/>
+ * The index is kept in a persistent object store of its own for each endpoint, so it survives restarts.
+ * Files that are no longer listed are dropped from it with {@link #retainOnly(Collection)}, so that it does
+ * not grow with every file that ever went through the directory.
+ */
+public class PolledFileIndex
+{
+
+    private static final String STORE_NAME_PREFIX = "_polledFileIndex.";
+
+    private final ListableObjectStore<Serializable> store;
+
+    public PolledFileIndex(ListableObjectStore<Serializable> store)
+    {
+        this.store = store;
+    }
+
+    /**
+     * Creates the index of the files polled by a receiver of the endpoint.
+     */
+    public static PolledFileIndex create(MuleContext muleContext, String flowName, InboundEndpoint endpoint)
+    {
+        ObjectStoreManager objectStoreManager = muleContext.getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER);
+        // the store name may be used as a directory name, so the address is not used as is
+        String name = STORE_NAME_PREFIX + flowName + "."
+                      + Integer.toHexString(endpoint.getEndpointURI().getAddress().hashCode());
+        ListableObjectStore<Serializable> store = objectStoreManager.getObjectStore(name, true);
+        return new PolledFileIndex(store);
+    }
+
+    /**
+     * @return true if the file was not processed before, or it was with another size or modification time
+     */
+    public boolean isNewOrChanged(String fileName, long size, long timestamp) throws ObjectStoreException
+    {
+        try
+        {
+            return !toEntry(size, timestamp).equals(store.retrieve(fileName));
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Records the file as processed with the given size and modification time
+     */
+    public void processed(String fileName, long size, long timestamp) throws ObjectStoreException
+    {
+        // object stores do not replace entries
+        remove(fileName);
+        store.store(fileName, toEntry(size, timestamp));
+    }
+
+    /**
+     * Forgets a file, so that it is processed again if it shows up
+     */
+    public void remove(String fileName) throws ObjectStoreException
+    {
+        try
+        {
+            store.remove(fileName);
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            // not processed before
+        }
+    }
+
+    /**
+     * Forgets the files that are not in a complete listing of the directory, as they were deleted or moved
+     * away since they were processed
+     *
+     * @param listedFileNames the names of all the files accepted by the receiver in the directory
+     */
+    public void retainOnly(Collection<String> listedFileNames) throws ObjectStoreException
+    {
+        for (Serializable fileName : store.allKeys())
+        {
+            if (!listedFileNames.contains(fileName))
+            {
+                remove(fileName.toString());
+            }
+        }
+    }
+
+    private String toEntry(long size, long timestamp)
+    {
+        // a plain string, so that entries can still be read after an upgrade
+        return size + ":" + timestamp;
+    }
+}
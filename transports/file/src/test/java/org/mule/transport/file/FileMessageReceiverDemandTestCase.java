@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.file;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import org.mule.api.MuleException;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.processor.DemandSignal;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.api.store.ObjectStoreManager;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+@SmallTest
+public class FileMessageReceiverDemandTestCase extends AbstractMuleTestCase
+{
+    @Rule
+    public TemporaryFolder readDirectory = new TemporaryFolder();
+
+    private final AtomicInteger demand = new AtomicInteger();
+    private final List<String> processed = new ArrayList<String>();
+
+    private FileMessageReceiver receiver;
+
+    @Before
+    public void createReceiver() throws Exception
+    {
+        for (String name : Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt", "e.txt"))
+        {
+            readDirectory.newFile(name);
+        }
+
+        FileConnector connector = mock(FileConnector.class, RETURNS_DEEP_STUBS);
+        when(connector.getWorkDirectory()).thenReturn(null);
+        Lock lock = mock(Lock.class);
+        when(lock.tryLock()).thenReturn(true);
+        when(connector.getMuleContext().getLockFactory().createLock(anyString())).thenReturn(lock);
+        when(connector.getMuleContext().getRegistry().get(MuleProperties.OBJECT_STORE_MANAGER)).thenReturn(
+            mock(ObjectStoreManager.class, RETURNS_DEEP_STUBS));
+
+        InboundEndpoint endpoint = mock(InboundEndpoint.class, RETURNS_DEEP_STUBS);
+        when(endpoint.getConnector()).thenReturn(connector);
+        when(endpoint.getFilter()).thenReturn(null);
+
+        FlowConstruct flowConstruct = mock(FlowConstruct.class,
+            withSettings().extraInterfaces(DemandSignal.class).defaultAnswer(RETURNS_DEEP_STUBS));
+        when(((DemandSignal) flowConstruct).getDemand()).thenAnswer(new Answer<Integer>()
+        {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable
+            {
+                return demand.get();
+            }
+        });
+
+        receiver = new FileMessageReceiver(connector, flowConstruct, endpoint,
+            readDirectory.getRoot().getAbsolutePath(), null, null, 100)
+        {
+            @Override
+            List<File> listFiles() throws MuleException
+            {
+                return new ArrayList<File>(Arrays.asList(readDirectory.getRoot().listFiles()));
+            }
+
+            @Override
+            protected Comparator<File> getComparator() throws Exception
+            {
+                return new Comparator<File>()
+                {
+                    public int compare(File first, File second)
+                    {
+                        return first.getName().compareTo(second.getName());
+                    }
+                };
+            }
+
+            @Override
+            public void processFile(File file) throws MuleException
+            {
+                // each file takes up room in the flow until it is processed
+                processed.add(file.getName());
+                file.delete();
+                demand.decrementAndGet();
+            }
+        };
+        receiver.setListener(mock(MessageProcessor.class));
+        receiver.initialise();
+    }
+
+    @Test
+    public void stopsPickingFilesOnceDemandRunsOut() throws Exception
+    {
+        demand.set(2);
+        receiver.poll();
+
+        assertEquals(Arrays.asList("a.txt", "b.txt"), processed);
+    }
+
+    @Test
+    public void picksRemainingFilesOnLaterPoll() throws Exception
+    {
+        demand.set(2);
+        receiver.poll();
+        demand.set(3);
+        receiver.poll();
+
+        assertEquals(Arrays.asList("a.txt", "b.txt", "c.txt", "d.txt", "e.txt"), processed);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.file;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.store.SimpleMemoryObjectStore;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+@SmallTest
+public class PolledFileIndexTestCase extends AbstractMuleTestCase
+{
+
+    private final PolledFileIndex fileIndex = new PolledFileIndex(new SimpleMemoryObjectStore<Serializable>());
+
+    @Test
+    public void unknownFileIsNew() throws Exception
+    {
+        assertTrue(fileIndex.isNewOrChanged("file.txt", 10, 1000));
+    }
+
+    @Test
+    public void processedFileIsNotChanged() throws Exception
+    {
+        fileIndex.processed("file.txt", 10, 1000);
+
+        assertFalse(fileIndex.isNewOrChanged("file.txt", 10, 1000));
+        assertTrue(fileIndex.isNewOrChanged("other.txt", 10, 1000));
+    }
+
+    @Test
+    public void fileWithOtherSizeOrTimestampIsChanged() throws Exception
+    {
+        fileIndex.processed("file.txt", 10, 1000);
+
+        assertTrue(fileIndex.isNewOrChanged("file.txt", 11, 1000));
+        assertTrue(fileIndex.isNewOrChanged("file.txt", 10, 2000));
+
+        fileIndex.processed("file.txt", 11, 2000);
+        assertFalse(fileIndex.isNewOrChanged("file.txt", 11, 2000));
+    }
+
+    @Test
+    public void removedFileIsNewAgain() throws Exception
+    {
+        fileIndex.processed("file.txt", 10, 1000);
+        fileIndex.remove("file.txt");
+
+        assertTrue(fileIndex.isNewOrChanged("file.txt", 10, 1000));
+    }
+
+    @Test
+    public void filesNoLongerListedAreForgotten() throws Exception
+    {
+        fileIndex.processed("kept.txt", 10, 1000);
+        fileIndex.processed("deleted.txt", 10, 1000);
+
+        fileIndex.retainOnly(Arrays.asList("kept.txt", "new.txt"));
+
+        assertFalse(fileIndex.isNewOrChanged("kept.txt", 10, 1000));
+        assertTrue(fileIndex.isNewOrChanged("deleted.txt", 10, 1000));
+    }
+}
@@ -85,6 +85,12 @@ public class FtpConnector extends AbstractConnector
 
     private String connectionFactoryClass = DEFAULT_FTP_CONNECTION_FACTORY_CLASS;
 
+    /**
+     * Leave the received files on the server and keep an index of the ones processed, so that only new or
+     * changed files are received
+     */
+    private boolean incrementalPolling = false;
+
     public FtpConnector(MuleContext context)
     {
         super(context);
@@ -679,4 +685,17 @@ public class FtpConnector extends AbstractConnector
         this.streaming = streaming;
     }
 
+    public boolean isIncrementalPolling()
+    {
+        return incrementalPolling;
+    }
+
+    /**
+     * @see FtpConnector#incrementalPolling
+     */
+    public void setIncrementalPolling(boolean incrementalPolling)
+    {
+        this.incrementalPolling = incrementalPolling;
+    }
+
 }
@@ -19,8 +19,10 @@ import org.mule.api.retry.RetryContext;
 import org.mule.api.transport.Connector;
 import org.mule.construct.Flow;
 import org.mule.processor.strategy.SynchronousProcessingStrategy;
+import org.mule.routing.filters.WildcardFilter;
 import org.mule.transport.AbstractConnector;
 import org.mule.transport.AbstractPollingMessageReceiver;
+import org.mule.transport.file.PolledFileIndex;
 import org.mule.util.lock.LockFactory;
 
 import java.io.FilenameFilter;
@@ -54,6 +56,7 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
     protected final Set<String> scheduledFiles = Collections.synchronizedSet(new HashSet<String>());
     protected final Set<String> currentFiles = Collections.synchronizedSet(new HashSet<String>());
     private boolean poolOnPrimaryInstanceOnly;
+    private PolledFileIndex fileIndex;
 
     public FtpMessageReceiver(Connector connector,
                               FlowConstruct flowConstruct,
@@ -85,18 +88,29 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
             synchronousProcessing = ((Flow)getFlowConstruct()).getProcessingStrategy() instanceof SynchronousProcessingStrategy;
         }
         this.poolOnPrimaryInstanceOnly = Boolean.valueOf(System.getProperty("mule.transport.ftp.singlepollinstance","false")) || (!synchronousProcessing && ((AbstractConnector)getConnector()).getReceiverThreadingProfile().isDoThreading());
+        if (connector.isIncrementalPolling())
+        {
+            fileIndex = PolledFileIndex.create(connector.getMuleContext(), getFlowConstruct().getName(), endpoint);
+        }
     }
 
 
     @Override
     public void poll() throws Exception
     {
+        if (fileIndex != null)
+        {
+            pollIncrementally();
+            return;
+        }
+
         FTPFile[] files = listFiles();
         if (logger.isDebugEnabled())
         {
             logger.debug("Poll encountered " + files.length + " new file(s)");
         }
 
+        int scheduled = 0;
         synchronized (scheduledFiles)
         {
             for (final FTPFile file : files)
@@ -114,10 +128,111 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
                     {
                         scheduledFiles.add(fileName);
                         getWorkManager().scheduleWork(new FtpWork(fileName, file));
+                        scheduled++;
                     }
                 }
             }
         }
+        // the files are received by the work manager after the poll returns
+        pollFound(scheduled, false);
+    }
+
+    /**
+     * Schedules the new and changed files as the listing is parsed, page by page, instead of waiting for the
+     * whole directory to be listed. The files processed before, as recorded in the index, are skipped, and
+     * the files no longer listed are dropped from the index once the whole listing has been read.
+     */
+    protected void pollIncrementally() throws Exception
+    {
+        FTPClient client = null;
+        Set<String> listedFiles = new HashSet<String>();
+        int scheduled = 0;
+        try
+        {
+            client = connector.createFtpClient(endpoint);
+            FTPListParseEngine engine = client.initiateListParsing(null, getListingPattern());
+            while (engine.hasNext())
+            {
+                FTPFile[] files = engine.getNext(FTP_LIST_PAGE_SIZE);
+                for (FTPFile file : files)
+                {
+                    if (getLifecycleState().isStopping())
+                    {
+                        return;
+                    }
+                    if (!file.isFile() || (filenameFilter != null && !filenameFilter.accept(null, file.getName())))
+                    {
+                        continue;
+                    }
+                    listedFiles.add(file.getName());
+                    if (scheduleIfChanged(file))
+                    {
+                        scheduled++;
+                    }
+                }
+            }
+
+            if (!FTPReply.isPositiveCompletion(client.getReplyCode()))
+            {
+                throw new IOException("Failed to list files. Ftp error: " + client.getReplyCode());
+            }
+        }
+        finally
+        {
+            if (client != null)
+            {
+                connector.releaseFtp(endpoint.getEndpointURI(), client);
+            }
+        }
+
+        pollFound(scheduled, false);
+        fileIndex.retainOnly(listedFiles);
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Poll encountered " + scheduled + " new or changed file(s)");
+        }
+    }
+
+    private boolean scheduleIfChanged(FTPFile file) throws Exception
+    {
+        String fileName = file.getName();
+        synchronized (scheduledFiles)
+        {
+            if (scheduledFiles.contains(fileName) || currentFiles.contains(fileName)
+                || !fileIndex.isNewOrChanged(fileName, file.getSize(), getTimestamp(file)))
+            {
+                return false;
+            }
+            scheduledFiles.add(fileName);
+            getWorkManager().scheduleWork(new FtpWork(fileName, file));
+            return true;
+        }
+    }
+
+    private long getTimestamp(FTPFile file)
+    {
+        return file.getTimestamp() == null ? 0 : file.getTimestamp().getTimeInMillis();
+    }
+
+    /**
+     * @return the name pattern for the server to list only the files accepted by the filename filter, null
+     *         for listing the whole directory if the filter has no pattern that every server understands
+     */
+    protected String getListingPattern()
+    {
+        if (!(filenameFilter instanceof WildcardFilter))
+        {
+            return null;
+        }
+        WildcardFilter wildcardFilter = (WildcardFilter) filenameFilter;
+        String pattern = wildcardFilter.getPattern();
+        // servers glob a single case sensitive pattern at most
+        if (pattern == null || !wildcardFilter.isCaseSensitive() || pattern.indexOf(',') >= 0
+            || pattern.indexOf('/') >= 0 || pattern.indexOf(' ') >= 0 || pattern.indexOf('*') < 0)
+        {
+            return null;
+        }
+        return pattern;
     }
 
     @Override
@@ -193,12 +308,17 @@ public class FtpMessageReceiver extends AbstractPollingMessageReceiver
 
     protected void postProcess(FTPClient client, FTPFile file, MuleMessage message) throws Exception
     {
-        if (!client.deleteFile(file.getName()))
+        if (fileIndex != null)
+        {
+            // the file is left on the server, and not received again unless it changes
+            fileIndex.processed(file.getName(), file.getSize(), getTimestamp(file));
+        }
+        else if (!client.deleteFile(file.getName()))
         {
             throw new IOException(MessageFormat.format("Failed to delete file {0}. Ftp error: {1}",
                                                        file.getName(), client.getReplyCode()));
         }
-        if (logger.isDebugEnabled())
+        else if (logger.isDebugEnabled())
         {
             logger.debug("Deleted processed file " + file.getName());
         }
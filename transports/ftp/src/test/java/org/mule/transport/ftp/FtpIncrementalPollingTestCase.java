@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.ftp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runners.Parameterized;
+
+public class FtpIncrementalPollingTestCase extends AbstractFtpServerTestCase
+{
+
+    private static final int POLLS_TIMEOUT = 1000;
+
+    public FtpIncrementalPollingTestCase(ConfigVariant variant, String configResources)
+    {
+        super(variant, configResources);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> parameters()
+    {
+        return Arrays.asList(new Object[][] {
+                {ConfigVariant.FLOW, "ftp-incremental-polling-config-flow.xml"}
+        });
+    }
+
+    @Test
+    public void receivesFileOnceAndLeavesItOnServer() throws Exception
+    {
+        File file = createDataFile(getFtpServerBaseDir(), TEST_MESSAGE);
+        LocalMuleClient client = muleContext.getClient();
+
+        MuleMessage response = client.request("vm://testOut", RECEIVE_TIMEOUT);
+        assertNotNull("Did not process the file", response);
+        assertEquals(TEST_MESSAGE, response.getPayload());
+
+        assertNull(client.request("vm://testOut", POLLS_TIMEOUT));
+        assertTrue(fileExists(file.getName()));
+    }
+
+    @Test
+    public void receivesChangedFileAgain() throws Exception
+    {
+        File file = createDataFile(getFtpServerBaseDir(), TEST_MESSAGE);
+        LocalMuleClient client = muleContext.getClient();
+        assertNotNull(client.request("vm://testOut", RECEIVE_TIMEOUT));
+        assertNull(client.request("vm://testOut", POLLS_TIMEOUT));
+
+        // a new size, as the servers list modification times to the minute at best
+        FileUtils.writeStringToFile(file, TEST_MESSAGE + " changed", "UTF-8");
+
+        MuleMessage response = client.request("vm://testOut", RECEIVE_TIMEOUT);
+        assertNotNull("Did not receive the changed file", response);
+        assertEquals(TEST_MESSAGE + " changed", response.getPayload());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Formats HTTP dates with a resolution of one second, formatting the value only once per second no matter how
+ * many responses ask for it.
+ */
+public class CachedHttpDate
+{
+
+    private final DateFormat format;
+    private volatile FormattedDate last;
+
+    public CachedHttpDate(String pattern)
+    {
+        this(new SimpleDateFormat(pattern, Locale.US));
+    }
+
+    public CachedHttpDate(DateFormat format)
+    {
+        this.format = (DateFormat) format.clone();
+    }
+
+    /**
+     * @return the current time, formatted
+     */
+    public String now()
+    {
+        return format(System.currentTimeMillis());
+    }
+
+    /**
+     * @return the time formatted, with the milliseconds dropped
+     */
+    public String format(long time)
+    {
+        long second = time / 1000;
+        FormattedDate date = last;
+        if (date == null || date.second != second)
+        {
+            String value;
+            // date formats are not thread safe, but this only happens once per second
+            synchronized (format)
+            {
+                value = format.format(new Date(second * 1000));
+            }
+            date = new FormattedDate(second, value);
+            last = date;
+        }
+        return date.value;
+    }
+
+    private static class FormattedDate
+    {
+
+        final long second;
+        final String value;
+
+        FormattedDate(long second, String value)
+        {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
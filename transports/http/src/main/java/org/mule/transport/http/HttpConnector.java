@@ -172,6 +172,7 @@ public class HttpConnector extends TcpConnector
     public static final String COOKIE_SPEC_RFC2109 = "rfc2109";
     public static final String ROOT_PATH = "/";
     public static final int DEFAULT_CONNECTION_TIMEOUT = 2000;
+    public static final int DEFAULT_MULTIPART_IN_MEMORY_THRESHOLD = 64 * 1024;
 
     private String proxyHostname = null;
 
@@ -187,6 +188,10 @@ public class HttpConnector extends TcpConnector
 
     private boolean enableCookies = false;
 
+    private boolean streamingMultipart = false;
+
+    private int multipartInMemoryThreshold = DEFAULT_MULTIPART_IN_MEMORY_THRESHOLD;
+
     protected HttpConnectionManager clientConnectionManager;
 
     private IdleConnectionTimeoutThread connectionCleaner;
@@ -431,6 +436,38 @@ public class HttpConnector extends TcpConnector
         this.enableCookies = enableCookies;
     }
 
+    public boolean isStreamingMultipart()
+    {
+        return streamingMultipart;
+    }
+
+    /**
+     * Whether the parts of multipart/form-data requests are parsed as the flow reads them, rather than all of
+     * them before the flow is invoked.
+     * <p/>
+     * On request-response endpoints the parts that come after the "payload" part are only added as inbound
+     * attachments once the flow has read the payload to its end or closed it, so a flow that needs them must
+     * read the payload first.
+     */
+    public void setStreamingMultipart(boolean streamingMultipart)
+    {
+        this.streamingMultipart = streamingMultipart;
+    }
+
+    public int getMultipartInMemoryThreshold()
+    {
+        return multipartInMemoryThreshold;
+    }
+
+    /**
+     * The size up to which the content of a part that is not read right away is kept in memory when
+     * streaming multipart requests. Bigger parts are written to temporary files.
+     */
+    public void setMultipartInMemoryThreshold(int multipartInMemoryThreshold)
+    {
+        this.multipartInMemoryThreshold = multipartInMemoryThreshold;
+    }
+
 
     public HttpConnectionManager getClientConnectionManager()
     {
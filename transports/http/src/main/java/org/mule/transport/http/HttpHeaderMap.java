@@ -0,0 +1,411 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of HTTP headers whose names are matched ignoring case, as {@link org.mule.util.CaseInsensitiveHashMap}
+ * does, but kept in open addressed arrays so that neither lookups nor insertions allocate entries or lower
+ * case copies of the names.
+ * <p/>
+ * Names keep the case they were first put with. Null names are not supported. Not thread safe.
+ */
+public class HttpHeaderMap extends AbstractMap<String, Object>
+{
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    private String[] names;
+    private Object[] values;
+    private int size;
+    private int modCount;
+
+    public HttpHeaderMap()
+    {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize the number of headers expected, so that the arrays are not grown for them
+     */
+    public HttpHeaderMap(int expectedSize)
+    {
+        int capacity = 4;
+        while (capacity * 3 < expectedSize * 4)
+        {
+            capacity <<= 1;
+        }
+        names = new String[capacity];
+        values = new Object[capacity];
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key)
+    {
+        if (!(key instanceof String))
+        {
+            return null;
+        }
+        int index = indexOf((String) key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public Object put(String key, Object value)
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("Header name may not be null");
+        }
+        int mask = names.length - 1;
+        int i = hash(key) & mask;
+        while (names[i] != null)
+        {
+            if (names[i].equalsIgnoreCase(key))
+            {
+                Object previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            i = (i + 1) & mask;
+        }
+        names[i] = key;
+        values[i] = value;
+        size++;
+        modCount++;
+        if (size * 4 > names.length * 3)
+        {
+            resize(names.length << 1);
+        }
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key)
+    {
+        if (!(key instanceof String))
+        {
+            return null;
+        }
+        int index = indexOf((String) key);
+        if (index < 0)
+        {
+            return null;
+        }
+        Object previous = values[index];
+        delete(index);
+        return previous;
+    }
+
+    @Override
+    public void clear()
+    {
+        for (int i = 0; i < names.length; i++)
+        {
+            names[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet()
+    {
+        return new AbstractSet<Map.Entry<String, Object>>()
+        {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator()
+            {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size()
+            {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(String key)
+    {
+        int mask = names.length - 1;
+        int i = hash(key) & mask;
+        while (names[i] != null)
+        {
+            if (names[i].equalsIgnoreCase(key))
+            {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the entry in the slot and moves back the entries of the same run that would not be found past
+     * the empty slot otherwise, so that no tombstones are needed
+     */
+    private void delete(int index)
+    {
+        int mask = names.length - 1;
+        int empty = index;
+        int i = (index + 1) & mask;
+        while (names[i] != null)
+        {
+            int home = hash(names[i]) & mask;
+            // move the entry if its home slot is not in between the empty slot and where it is now
+            if (((i - home) & mask) >= ((i - empty) & mask))
+            {
+                names[empty] = names[i];
+                values[empty] = values[i];
+                empty = i;
+            }
+            i = (i + 1) & mask;
+        }
+        names[empty] = null;
+        values[empty] = null;
+        size--;
+        modCount++;
+    }
+
+    private void resize(int capacity)
+    {
+        String[] oldNames = names;
+        Object[] oldValues = values;
+        names = new String[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldNames.length; j++)
+        {
+            if (oldNames[j] != null)
+            {
+                int i = hash(oldNames[j]) & mask;
+                while (names[i] != null)
+                {
+                    i = (i + 1) & mask;
+                }
+                names[i] = oldNames[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Hashes the name as {@link String#equalsIgnoreCase(String)} compares it, without a lower case copy
+     */
+    static int hash(String name)
+    {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (c < 128)
+            {
+                if (c >= 'A' && c <= 'Z')
+                {
+                    c += 'a' - 'A';
+                }
+            }
+            else
+            {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            h = 31 * h + c;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Iterates over the slots of the arrays until an entry is removed. Deleting moves entries back, possibly
+     * into slots already iterated over, so from then on it iterates over a snapshot of the names that were
+     * not returned yet, looking each one up.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>>
+    {
+
+        private int next = advance(0);
+        private int expectedModCount = modCount;
+        private String[] remaining;
+        private int nextRemaining;
+        private String current;
+
+        private int advance(int from)
+        {
+            int i = from;
+            while (i < names.length && names[i] == null)
+            {
+                i++;
+            }
+            return i;
+        }
+
+        public boolean hasNext()
+        {
+            return remaining == null ? next < names.length : nextRemaining < remaining.length;
+        }
+
+        public Map.Entry<String, Object> next()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            int index;
+            if (remaining == null)
+            {
+                index = next;
+                next = advance(next + 1);
+            }
+            else
+            {
+                index = indexOf(remaining[nextRemaining++]);
+            }
+            current = names[index];
+            return new Entry(index);
+        }
+
+        public void remove()
+        {
+            if (current == null)
+            {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == null)
+            {
+                remaining = remainingNames();
+            }
+            delete(indexOf(current));
+            current = null;
+            expectedModCount = modCount;
+        }
+
+        private String[] remainingNames()
+        {
+            int count = 0;
+            for (int i = next; i < names.length; i++)
+            {
+                if (names[i] != null)
+                {
+                    count++;
+                }
+            }
+            String[] snapshot = new String[count];
+            count = 0;
+            for (int i = next; i < names.length; i++)
+            {
+                if (names[i] != null)
+                {
+                    snapshot[count++] = names[i];
+                }
+            }
+            return snapshot;
+        }
+    }
+
+    private class Entry implements Map.Entry<String, Object>
+    {
+
+        private final String name;
+        private int index;
+
+        Entry(int index)
+        {
+            this.index = index;
+            this.name = names[index];
+        }
+
+        /**
+         * @return the slot of the entry, which moves when other entries are removed, or -1 once it is removed
+         */
+        private int slot()
+        {
+            if (index < 0 || index >= names.length || names[index] != name)
+            {
+                index = indexOf(name);
+            }
+            return index;
+        }
+
+        public String getKey()
+        {
+            return name;
+        }
+
+        public Object getValue()
+        {
+            int slot = slot();
+            return slot < 0 ? null : values[slot];
+        }
+
+        public Object setValue(Object value)
+        {
+            int slot = slot();
+            if (slot < 0)
+            {
+                throw new IllegalStateException("Header " + name + " was removed");
+            }
+            Object previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            Object value = getValue();
+            return name.equals(other.getKey())
+                   && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            Object value = getValue();
+            return name.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return name + "=" + getValue();
+        }
+    }
+}
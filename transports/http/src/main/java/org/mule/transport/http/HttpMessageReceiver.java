@@ -88,6 +88,13 @@ public class HttpMessageReceiver extends AbstractMessageReceiver
 
             factory.setExchangePattern(endpoint.getExchangePattern());
 
+            if (factory instanceof HttpMultipartMuleMessageFactory)
+            {
+                HttpConnector httpConnector = (HttpConnector) connector;
+                ((HttpMultipartMuleMessageFactory) factory).setStreaming(httpConnector.isStreamingMultipart());
+                ((HttpMultipartMuleMessageFactory) factory).setInMemoryThreshold(httpConnector.getMultipartInMemoryThreshold());
+            }
+
             muleMessageFactory = factory;
         }
         catch (CreateException ce)
@@ -12,7 +12,6 @@ import org.mule.api.MuleContext;
 import org.mule.api.MuleMessage;
 import org.mule.api.transport.MessageTypeNotSupportedException;
 import org.mule.transport.AbstractMuleMessageFactory;
-import org.mule.util.CaseInsensitiveHashMap;
 import org.mule.util.IOUtils;
 import org.mule.util.PropertiesUtils;
 import org.mule.util.StringUtils;
@@ -185,31 +184,39 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
         initEncoding(message, encoding);
     }
 
+    /**
+     * Renames the X-MULE headers in place, so that the headers stay in the map they were read into
+     */
     protected Map<String, Object> processIncomingHeaders(Map<String, Object> headers) throws Exception
     {
-        Map<String, Object> outHeaders = new HashMap<String, Object>();
-
-        for (Map.Entry<String, Object> header : headers.entrySet())
+        List<String> muleHeaderNames = null;
+        for (String headerName : headers.keySet())
         {
-            String headerName = header.getKey();
-
-            // fix Mule headers?
             if (headerName.startsWith("X-MULE"))
             {
-                headerName = headerName.substring(2);
+                if (muleHeaderNames == null)
+                {
+                    muleHeaderNames = new ArrayList<String>();
+                }
+                muleHeaderNames.add(headerName);
             }
+        }
 
-            // accept header & value
-            outHeaders.put(headerName, header.getValue());
+        if (muleHeaderNames != null)
+        {
+            for (String headerName : muleHeaderNames)
+            {
+                headers.put(headerName.substring(2), headers.remove(headerName));
+            }
         }
 
-        return outHeaders;
+        return headers;
     }
 
     Map<String, Object> convertHeadersToMap(Header[] headersArray, String uri)
         throws URISyntaxException
     {
-        Map<String, Object> headersMap = new CaseInsensitiveHashMap();
+        Map<String, Object> headersMap = new HttpHeaderMap(headersArray.length);
         for (int i = 0; i < headersArray.length; i++)
         {
             final Header header = headersArray[i];
@@ -431,4 +438,9 @@ public class HttpMuleMessageFactory extends AbstractMuleMessageFactory
     {
         exchangePattern = mep;
     }
+
+    protected MessageExchangePattern getExchangePattern()
+    {
+        return exchangePattern;
+    }
 }
@@ -8,11 +8,16 @@ package org.mule.transport.http;
 
 import org.mule.DefaultMuleMessage;
 import org.mule.api.MuleContext;
+import org.mule.model.streaming.DelegatingInputStream;
 import org.mule.transport.http.multipart.MultiPartInputStream;
+import org.mule.transport.http.multipart.MultipartConfiguration;
 import org.mule.transport.http.multipart.Part;
 import org.mule.transport.http.multipart.PartDataSource;
+import org.mule.transport.http.multipart.StreamingMultiPartInputStream;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Map;
 
@@ -21,7 +26,11 @@ import javax.activation.DataHandler;
 public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
 {
 
-    private Collection<Part> parts;
+    // the factory is shared by the requests of a receiver, so the parts of each request are kept on the thread
+    // creating its message, from the payload extraction to the attachments
+    private final ThreadLocal<RequestParts> requestParts = new ThreadLocal<RequestParts>();
+    private boolean streaming;
+    private int inMemoryThreshold = HttpConnector.DEFAULT_MULTIPART_IN_MEMORY_THRESHOLD;
 
     public HttpMultipartMuleMessageFactory(MuleContext context)
     {
@@ -32,13 +41,21 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
     protected Object extractPayloadFromHttpRequest(HttpRequest httpRequest) throws IOException
     {
         Object body = null;
+        // anything left by a message that failed to be created
+        requestParts.remove();
 
         if (httpRequest.getContentType().contains("multipart/form-data"))
         {
+            if (streaming)
+            {
+                return extractStreamingPayload(httpRequest);
+            }
+
             MultiPartInputStream in = new MultiPartInputStream(httpRequest.getBody(), httpRequest.getContentType(), null);
 
             // We need to store this so that the headers for the part can be read
-            parts = in.getParts();
+            Collection<Part> parts = in.getParts();
+            requestParts.set(new RequestParts(parts));
             for (Part part : parts)
             {
                 if (part.getName().equals("payload"))
@@ -56,26 +73,68 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
         return body;
     }
 
+    /**
+     * Reads the parts up to the payload one, whose content is then read right from the request by the flow.
+     * The parts before it are spilled as they are passed, and the ones after it once the payload is read.
+     */
+    protected Object extractStreamingPayload(HttpRequest httpRequest) throws IOException
+    {
+        MultipartConfiguration config = new MultipartConfiguration(null, -1L, -1L, inMemoryThreshold);
+        StreamingMultiPartInputStream in = new StreamingMultiPartInputStream(httpRequest.getBody(), httpRequest.getContentType(), config);
+
+        RequestParts parts = new RequestParts(new ArrayList<Part>());
+        requestParts.set(parts);
+        if (!getExchangePattern().hasResponse())
+        {
+            // The connection gets closed before an asynchronous flow reads the payload
+            parts.parts.addAll(in.getParts());
+            for (Part part : parts.parts)
+            {
+                if (part.getName().equals("payload"))
+                {
+                    return part.getInputStream();
+                }
+            }
+            return null;
+        }
+
+        Part part;
+        while ((part = in.nextPart()) != null)
+        {
+            parts.parts.add(part);
+            if (part.getName().equals("payload"))
+            {
+                parts.payloadPart = new PayloadPartInputStream(part.getInputStream(), in);
+                return parts.payloadPart;
+            }
+        }
+        return null;
+    }
+
     @Override
     protected void addAttachments(DefaultMuleMessage message, Object transportMessage) throws Exception
     {
+        RequestParts parts = requestParts.get();
         if (parts != null)
         {
             try
             {
-                for (Part part : parts)
+                for (Part part : parts.parts)
                 {
                     if (!part.getName().equals("payload"))
                     {
                         message.addInboundAttachment(part.getName(), new DataHandler(new PartDataSource(part)));
                     }
                 }
+                if (parts.payloadPart != null)
+                {
+                    parts.payloadPart.attachRemainingPartsTo(message);
+                }
             }
             finally
             {
                 // Attachments are the last thing to get processed
-                parts.clear();
-                parts = null;
+                requestParts.remove();
             }
         }
     }
@@ -83,9 +142,10 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
     @Override
     protected void convertMultiPartHeaders(Map<String, Object> headers)
     {
+        RequestParts parts = requestParts.get();
         if (parts != null)
         {
-            for (Part part : parts)
+            for (Part part : parts.parts)
             {
                 if (part.getName().equals("payload"))
                 {
@@ -101,6 +161,115 @@ public class HttpMultipartMuleMessageFactory extends HttpMuleMessageFactory
 
     }
 
-}
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
+    public void setInMemoryThreshold(int inMemoryThreshold)
+    {
+        this.inMemoryThreshold = inMemoryThreshold;
+    }
+
+    /**
+     * The parts of the request whose message is being created
+     */
+    private static class RequestParts
+    {
+
+        final Collection<Part> parts;
+        PayloadPartInputStream payloadPart;
+
+        RequestParts(Collection<Part> parts)
+        {
+            this.parts = parts;
+        }
+    }
+
+    /**
+     * Content of the payload part, read from the request. The parts after it are added as inbound attachments
+     * of the message once it has been read or closed.
+     */
+    private static class PayloadPartInputStream extends DelegatingInputStream
+    {
+
+        private final StreamingMultiPartInputStream multiPart;
+        private DefaultMuleMessage message;
+        private boolean ended;
+
+        PayloadPartInputStream(InputStream delegate, StreamingMultiPartInputStream multiPart)
+        {
+            super(delegate);
+            this.multiPart = multiPart;
+        }
+
+        synchronized void attachRemainingPartsTo(DefaultMuleMessage message) throws IOException
+        {
+            this.message = message;
+            if (ended)
+            {
+                attachRemainingParts();
+            }
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            return ended(super.read());
+        }
+
+        @Override
+        public int read(byte[] b) throws IOException
+        {
+            return ended(super.read(b));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            return ended(super.read(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                ended(-1);
+            }
+            finally
+            {
+                super.close();
+            }
+        }
 
+        private synchronized int ended(int read) throws IOException
+        {
+            if (read < 0 && !ended)
+            {
+                ended = true;
+                if (message != null)
+                {
+                    attachRemainingParts();
+                }
+            }
+            return read;
+        }
 
+        private void attachRemainingParts() throws IOException
+        {
+            Part part;
+            while ((part = multiPart.nextPart()) != null)
+            {
+                try
+                {
+                    message.addInboundAttachment(part.getName(), new DataHandler(new PartDataSource(part)));
+                }
+                catch (Exception e)
+                {
+                    throw new IOException("Could not attach part " + part.getName(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.HttpVersion;
+
+/**
+ * Writes HTTP responses through a buffer that is reused for every response of a connection, so that the status
+ * line, the headers and a small body go out in a single write.
+ * <p/>
+ * Status lines and the lines of headers whose values repeat across responses, such as Server, Content-Type or
+ * Date, are encoded once and copied from then on. Only the recent values of each header are kept, in
+ * structures shared by every connection that are read without locking. Other header lines are encoded
+ * straight into the buffer, which gives the same bytes as {@link ResponseWriter} for the same encoding.
+ * <p/>
+ * Not thread safe, as the connection it writes to.
+ */
+public class HttpResponseEncoder extends OutputStream
+{
+
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final int MAX_CACHED_VALUES = 32;
+
+    private static final ConcurrentMap<Integer, byte[]> statusLines = new ConcurrentHashMap<Integer, byte[]>();
+    private static final Map<String, EncodedLines> headerLines = new HashMap<String, EncodedLines>();
+    private static final ConcurrentMap<String, Boolean> asciiCompatibleEncodings = new ConcurrentHashMap<String, Boolean>();
+
+    static
+    {
+        for (String name : new String[] {HttpConstants.HEADER_SERVER, HttpConstants.HEADER_CONTENT_TYPE,
+            HttpConstants.HEADER_CONNECTION, HttpConstants.HEADER_TRANSFER_ENCODING,
+            HttpConstants.HEADER_CACHE_CONTROL, HttpConstants.HEADER_KEEP_ALIVE, HttpConstants.HEADER_EXPIRES})
+        {
+            headerLines.put(name, new BoundedEncodedLines(MAX_CACHED_VALUES));
+        }
+        // one value per second, so only the latest one is worth keeping
+        headerLines.put(HttpConstants.HEADER_DATE, new LatestEncodedLine());
+    }
+
+    private final OutputStream out;
+    private final String encoding;
+    private final boolean asciiCompatible;
+    private final int bufferSize;
+    private byte[] buffer;
+    private int count;
+
+    public HttpResponseEncoder(OutputStream out, String encoding) throws UnsupportedEncodingException
+    {
+        this(out, encoding, DEFAULT_BUFFER_SIZE);
+    }
+
+    public HttpResponseEncoder(OutputStream out, String encoding, int bufferSize) throws UnsupportedEncodingException
+    {
+        this.out = out;
+        this.encoding = encoding == null ? ResponseWriter.ISO_8859_1 : encoding;
+        this.asciiCompatible = isAsciiCompatible(this.encoding);
+        this.bufferSize = bufferSize;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Starts a response, discarding anything left from the previous one, with its status line and headers.
+     * The body is written to this stream after it, and {@link #flush()} ends the response.
+     */
+    public void writeHead(HttpResponse response) throws IOException
+    {
+        count = 0;
+        if (buffer.length > bufferSize)
+        {
+            // do not keep what a response with huge headers needed
+            buffer = new byte[bufferSize];
+        }
+
+        writeStatusLine(response);
+        Iterator<?> headers = response.getHeaderIterator();
+        while (headers.hasNext())
+        {
+            writeHeader((Header) headers.next());
+        }
+        append(CRLF, 0, CRLF.length);
+    }
+
+    /**
+     * @return whether a body of the length fits in the buffer after what is already in it, so that it is not
+     *         worth sending the head on its own
+     */
+    public boolean hasRoomFor(long contentLength)
+    {
+        return contentLength >= 0 && count + contentLength <= buffer.length;
+    }
+
+    private void writeStatusLine(HttpResponse response) throws IOException
+    {
+        int statusCode = response.getStatusCode();
+        boolean cacheable = asciiCompatible && HttpVersion.HTTP_1_1.equals(response.getHttpVersion())
+                            && response.getPhrase() != null
+                            && response.getPhrase().equals(HttpStatus.getStatusText(statusCode));
+        if (cacheable)
+        {
+            byte[] line = statusLines.get(statusCode);
+            if (line == null)
+            {
+                line = (response.getStatusLine() + ResponseWriter.CRLF).getBytes(encoding);
+                statusLines.putIfAbsent(statusCode, line);
+            }
+            append(line, 0, line.length);
+        }
+        else
+        {
+            appendString(response.getStatusLine());
+            append(CRLF, 0, CRLF.length);
+        }
+    }
+
+    private void writeHeader(Header header) throws IOException
+    {
+        String name = header.getName();
+        String value = header.getValue() == null ? "" : header.getValue();
+        EncodedLines lines = asciiCompatible ? headerLines.get(name) : null;
+        if (lines != null)
+        {
+            byte[] line = lines.get(value);
+            if (line != null)
+            {
+                append(line, 0, line.length);
+                return;
+            }
+        }
+
+        int start = count;
+        appendString(name);
+        appendString(": ");
+        appendString(value);
+        append(CRLF, 0, CRLF.length);
+
+        if (lines != null && isAscii(value))
+        {
+            lines.put(value, Arrays.copyOfRange(buffer, start, count));
+        }
+    }
+
+    /**
+     * Encodes the string into the buffer, byte per char while the chars are ASCII
+     */
+    private void appendString(String s) throws IOException
+    {
+        int length = s.length();
+        if (!asciiCompatible || !isAscii(s))
+        {
+            byte[] bytes = s.getBytes(encoding);
+            append(bytes, 0, bytes.length);
+            return;
+        }
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++)
+        {
+            buffer[count++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void append(byte[] b, int off, int len)
+    {
+        ensureCapacity(len);
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    private void ensureCapacity(int length)
+    {
+        if (count + length > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        if (count == buffer.length)
+        {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        if (len >= buffer.length)
+        {
+            // no point in copying what fills the buffer anyway
+            flushBuffer();
+            out.write(b, off, len);
+            return;
+        }
+        if (count + len > buffer.length)
+        {
+            flushBuffer();
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Writes what is buffered and flushes the connection
+     */
+    @Override
+    public void flush() throws IOException
+    {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes the response, but leaves the connection open
+     */
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+    }
+
+    private void flushBuffer() throws IOException
+    {
+        if (count > 0)
+        {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+
+    private static boolean isAscii(String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            if (s.charAt(i) >= 128)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the encoding encodes every ASCII char as the byte of the same value
+     */
+    static boolean isAsciiCompatible(String encoding) throws UnsupportedEncodingException
+    {
+        Boolean compatible = asciiCompatibleEncodings.get(encoding);
+        if (compatible == null)
+        {
+            char[] ascii = new char[128];
+            for (int i = 0; i < ascii.length; i++)
+            {
+                ascii[i] = (char) i;
+            }
+            byte[] bytes = new String(ascii).getBytes(encoding);
+            compatible = bytes.length == ascii.length;
+            for (int i = 0; compatible && i < bytes.length; i++)
+            {
+                compatible = bytes[i] == i;
+            }
+            asciiCompatibleEncodings.put(encoding, compatible);
+        }
+        return compatible;
+    }
+
+    /**
+     * The encoded lines of a header for some of the values it has had. Shared by every connection, so reads
+     * never lock.
+     */
+    abstract static class EncodedLines
+    {
+
+        /**
+         * @return the encoded line of the header with the value, or null if it is not kept
+         */
+        abstract byte[] get(String value);
+
+        abstract void put(String value, byte[] line);
+    }
+
+    /**
+     * Keeps up to a maximum of values. Once full it starts over, so values seen long ago make room for the
+     * current ones without keeping track of their use.
+     */
+    static class BoundedEncodedLines extends EncodedLines
+    {
+
+        private final int maxValues;
+        private final ConcurrentMap<String, byte[]> lines = new ConcurrentHashMap<String, byte[]>();
+
+        BoundedEncodedLines(int maxValues)
+        {
+            this.maxValues = maxValues;
+        }
+
+        @Override
+        byte[] get(String value)
+        {
+            return lines.get(value);
+        }
+
+        @Override
+        void put(String value, byte[] line)
+        {
+            if (lines.size() >= maxValues)
+            {
+                lines.clear();
+            }
+            lines.putIfAbsent(value, line);
+        }
+    }
+
+    /**
+     * Keeps only the latest value, for headers such as Date whose value changes for good
+     */
+    static class LatestEncodedLine extends EncodedLines
+    {
+
+        private volatile EncodedLine latest;
+
+        @Override
+        byte[] get(String value)
+        {
+            EncodedLine line = latest;
+            return line != null && line.value.equals(value) ? line.line : null;
+        }
+
+        @Override
+        void put(String value, byte[] line)
+        {
+            latest = new EncodedLine(value, line);
+        }
+    }
+
+    private static final class EncodedLine
+    {
+
+        final String value;
+        final byte[] line;
+
+        EncodedLine(String value, byte[] line)
+        {
+            this.value = value;
+            this.line = line;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.security.cert.Certificate;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -58,6 +59,7 @@ public class HttpServerConnection implements HandshakeCompletedListener
     private Certificate[] peerCertificateChain;
     private Certificate[] localCertificateChain;
     private RequestLine requestLine;
+    private HttpResponseEncoder responseEncoder;
 
     public HttpServerConnection(final Socket socket, String encoding, HttpConnector connector) throws IOException
     {
@@ -298,7 +300,7 @@ public class HttpServerConnection implements HandshakeCompletedListener
 
     public void writeResponse(final HttpResponse response) throws IOException
     {
-        writeResponse(response, new HashMap<String,String>());
+        writeResponse(response, Collections.<String, String>emptyMap());
     }
 
     /**
@@ -323,22 +325,22 @@ public class HttpServerConnection implements HandshakeCompletedListener
 
         setKeepAlive(response.isKeepAlive());
         addHeadersToHttpResponse(response, headers);
-        ResponseWriter writer = new ResponseWriter(this.out, encoding);
-        OutputStream outstream = this.out;
-
-        writer.println(response.getStatusLine());
-        Iterator item = response.getHeaderIterator();
-        while (item.hasNext())
+        if (responseEncoder == null)
         {
-            Header header = (Header) item.next();
-            writer.print(header.toExternalForm());
+            responseEncoder = new HttpResponseEncoder(this.out, encoding);
         }
-        writer.println();
-        writer.flush();
+        OutputStream outstream = responseEncoder;
+
+        responseEncoder.writeHead(response);
 
         OutputHandler content = response.getBody();
         if (content != null)
         {
+            if (!responseEncoder.hasRoomFor(response.getContentLength()))
+            {
+                // the body may take a while, so the head goes first as it always did
+                responseEncoder.flush();
+            }
             Header transferenc = response.getFirstHeader(HttpConstants.HEADER_TRANSFER_ENCODING);
             if (transferenc != null)
             {
@@ -134,6 +134,7 @@ public class PollingHttpMessageReceiver extends AbstractPollingMessageReceiver
             {
                 logger.debug("Received empty message and ignoring from: " + endpoint.getEndpointURI());
             }
+            pollFound(0, false);
             return;
         }
         int status = message.getOutboundProperty(HttpConnector.HTTP_STATUS_PROPERTY, 0);
@@ -141,7 +142,12 @@ public class PollingHttpMessageReceiver extends AbstractPollingMessageReceiver
 
         if ((status != HttpConstants.SC_NOT_MODIFIED || !checkEtag))
         {
+            pollFound(1, false);
             routeMessage(message);
         }
+        else
+        {
+            pollFound(0, false);
+        }
     }
 }
@@ -17,6 +17,7 @@ import org.mule.api.processor.MessageProcessor;
 import org.mule.processor.AbstractMessageProcessorOwner;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transport.http.CacheControlHeader;
+import org.mule.transport.http.CachedHttpDate;
 import org.mule.transport.http.CookieHelper;
 import org.mule.transport.http.CookieWrapper;
 import org.mule.transport.http.HttpConnector;
@@ -40,6 +41,8 @@ import org.apache.commons.httpclient.ProtocolException;
 public class HttpResponseBuilder extends AbstractMessageProcessorOwner
     implements Initialisable, MessageProcessor
 {
+    private static final CachedHttpDate responseDate = new CachedHttpDate(HttpConstants.DATE_FORMAT);
+
     private Map<String, String> headers = new HashMap<String, String>();
     private List<CookieWrapper> cookies = new ArrayList<CookieWrapper>();
     private String contentType;
@@ -74,7 +77,7 @@ public class HttpResponseBuilder extends AbstractMessageProcessorOwner
         setHeaders(httpResponse, msg);
         setCookies(httpResponse, msg);
         setCacheControl(httpResponse, msg);
-        String date = new SimpleDateFormat(HttpConstants.DATE_FORMAT, Locale.US).format(new Date());
+        String date = responseDate.now();
         httpResponse.setHeader(new Header(HttpConstants.HEADER_DATE, date));
         setBody(httpResponse, msg, event);
 
@@ -0,0 +1,782 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http.multipart;
+
+import org.mule.model.streaming.DeleteOnCloseFileInputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.StringTokenizer;
+
+import org.apache.commons.io.input.AutoCloseInputStream;
+
+/**
+ * Parses a multipart/form-data stream one part at a time, as the parts are asked for, rather than reading the
+ * whole stream up front as {@link MultiPartInputStream} does.
+ * <p/>
+ * The content of the part returned by {@link #nextPart()} is read right from the underlying stream, through a
+ * single buffer that is also used to look for the boundary. When the next part is asked for before the content
+ * of the current one has been read, the rest of the current one is spilled: kept in memory up to the
+ * {@link MultipartConfiguration#getFileSizeThreshold()} of the configuration and written to a temporary file
+ * beyond it, so that it can still be read later.
+ * <p/>
+ * The boundary is looked for with a Boyer-Moore-Horspool search, whose skip table is computed once per stream.
+ * <p/>
+ * Instances are not meant to be shared, but the parts of a stream may be read from another thread than the one
+ * asking for the next part.
+ */
+public class StreamingMultiPartInputStream
+{
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final InputStream in;
+    private final String contentType;
+    private final MultipartConfiguration config;
+
+    /**
+     * The CRLF, the two dashes and the boundary in front of every part
+     */
+    private byte[] delimiter;
+
+    /**
+     * How far the search can move when the last byte compared is not in the delimiter, for each byte value
+     */
+    private int[] skip;
+
+    private byte[] buffer;
+    private int start;
+    private int end;
+    private boolean eof;
+    private long total;
+
+    /**
+     * Where the next delimiter starts in the buffer, or -1 when it is not in the bytes searched so far
+     */
+    private int delimiterAt = -1;
+    private boolean searched;
+    private int delimiters;
+
+    private StreamingPart current;
+    private boolean finished;
+    private File tmpDir;
+    private final List<Part> parts = new ArrayList<Part>();
+
+    /**
+     * @param in request input stream
+     * @param contentType Content-Type header
+     * @param config configuration, or null for the default one
+     */
+    public StreamingMultiPartInputStream(InputStream in, String contentType, MultipartConfiguration config)
+    {
+        this.in = in;
+        this.contentType = contentType;
+        this.config = config == null ? MultiPartInputStream.__DEFAULT_MULTIPART_CONFIG : config;
+    }
+
+    /**
+     * Reads up to the headers of the next part. The content of the part returned before, if not read yet, is
+     * spilled first.
+     *
+     * @return the next part, or null when there are no more
+     */
+    public synchronized Part nextPart() throws IOException
+    {
+        if (delimiter == null)
+        {
+            start();
+        }
+        if (current != null)
+        {
+            current.spill();
+            current = null;
+        }
+
+        while (!finished)
+        {
+            StreamingPart part = readPartHeaders();
+            if (part == null)
+            {
+                break;
+            }
+            if (part.getName() != null)
+            {
+                current = part;
+                parts.add(part);
+                return part;
+            }
+            // parts that are not named form-data are skipped, as MultiPartInputStream does
+            while (readContent(null, 0, BUFFER_SIZE) >= 0)
+            {
+            }
+        }
+        finished = true;
+        return null;
+    }
+
+    /**
+     * Reads all the parts left, spilling their content.
+     *
+     * @return all the parts of the stream, in the order they came in
+     */
+    public synchronized Collection<Part> getParts() throws IOException
+    {
+        while (nextPart() != null)
+        {
+        }
+        return parts;
+    }
+
+    /**
+     * @return whether all the parts have been read
+     */
+    public synchronized boolean isFinished()
+    {
+        return finished;
+    }
+
+    private void start() throws IOException
+    {
+        if (contentType == null || !contentType.startsWith("multipart/form-data"))
+        {
+            throw new IOException("Not a multipart/form-data stream: " + contentType);
+        }
+        String location = "".equals(config.getLocation())
+                          ? MultiPartInputStream.__DEFAULT_MULTIPART_CONFIG.getLocation()
+                          : config.getLocation();
+        tmpDir = new File(location);
+
+        int boundaryIndex = contentType.indexOf("boundary=");
+        if (boundaryIndex < 0)
+        {
+            throw new IOException("Missing multi part boundary");
+        }
+        delimiter = ("\r\n--" + value(contentType.substring(boundaryIndex))).getBytes("ISO-8859-1");
+        skip = skipTable(delimiter);
+
+        buffer = new byte[Math.max(BUFFER_SIZE, 4 * delimiter.length)];
+        // the first boundary may come without the CRLF in front
+        buffer[end++] = CR;
+        buffer[end++] = LF;
+
+        // skip the preamble
+        while (readContent(null, 0, buffer.length) >= 0)
+        {
+        }
+        if (delimiters == 0)
+        {
+            throw new IOException("Missing initial multi part boundary");
+        }
+    }
+
+    /**
+     * @return the skip table of a Boyer-Moore-Horspool search for the pattern
+     */
+    static int[] skipTable(byte[] pattern)
+    {
+        int[] table = new int[256];
+        Arrays.fill(table, pattern.length);
+        for (int i = 0; i < pattern.length - 1; i++)
+        {
+            table[pattern[i] & 0xff] = pattern.length - 1 - i;
+        }
+        return table;
+    }
+
+    /**
+     * @return where the pattern starts in the range of the data, or -1 if it is not there
+     */
+    static int indexOf(byte[] data, int from, int to, byte[] pattern, int[] table)
+    {
+        int last = pattern.length - 1;
+        int i = from;
+        while (i + last < to)
+        {
+            int j = last;
+            while (j >= 0 && data[i + j] == pattern[j])
+            {
+                j--;
+            }
+            if (j < 0)
+            {
+                return i;
+            }
+            i += table[data[i + last] & 0xff];
+        }
+        return -1;
+    }
+
+    /**
+     * Reads the content of the current part up to the next delimiter, which is consumed with the line it ends.
+     *
+     * @param b where to copy the content, or null to discard it
+     * @return the number of bytes read, or -1 once the delimiter is reached
+     */
+    private synchronized int readContent(byte[] b, int off, int len) throws IOException
+    {
+        if (finished)
+        {
+            return -1;
+        }
+        while (true)
+        {
+            if (!searched)
+            {
+                delimiterAt = indexOf(buffer, start, end, delimiter, skip);
+                searched = true;
+            }
+
+            int available;
+            if (delimiterAt >= 0)
+            {
+                available = delimiterAt - start;
+            }
+            else if (eof)
+            {
+                // the line end before a missing closing delimiter is not content either
+                boolean lineEnd = end - start >= 2 && buffer[end - 2] == CR && buffer[end - 1] == LF;
+                available = end - start - (lineEnd ? 2 : 0);
+            }
+            else
+            {
+                // the end of the buffer might be the start of a delimiter
+                available = end - start - (delimiter.length - 1);
+            }
+
+            if (available > 0)
+            {
+                int count = Math.min(len, available);
+                if (b != null)
+                {
+                    System.arraycopy(buffer, start, b, off, count);
+                }
+                consume(count);
+                return count;
+            }
+            if (delimiterAt >= 0)
+            {
+                consume(delimiter.length);
+                searched = false;
+                delimiters++;
+                readDelimiterLine();
+                return -1;
+            }
+            if (eof)
+            {
+                // lenient about streams that end without the closing delimiter
+                consume(end - start);
+                finished = true;
+                return -1;
+            }
+            fill();
+        }
+    }
+
+    private void readDelimiterLine() throws IOException
+    {
+        while (end - start < 2 && !eof)
+        {
+            fill();
+        }
+        if (end - start >= 2 && buffer[start] == '-' && buffer[start + 1] == '-')
+        {
+            finished = true;
+            return;
+        }
+        // skip the transport padding up to the end of the line
+        readLine();
+    }
+
+    private StreamingPart readPartHeaders() throws IOException
+    {
+        MultiMap<String> headers = new MultiMap<String>();
+        String contentDisposition = null;
+        String partContentType = null;
+        while (true)
+        {
+            String line = readLine();
+            if (line == null)
+            {
+                finished = true;
+                return null;
+            }
+            if (line.length() == 0)
+            {
+                break;
+            }
+            int c = line.indexOf(':');
+            if (c > 0)
+            {
+                String key = line.substring(0, c).trim().toLowerCase();
+                String value = line.substring(c + 1).trim();
+                headers.put(key, value);
+                if (key.equals("content-disposition"))
+                {
+                    contentDisposition = value;
+                }
+                else if (key.equals("content-type"))
+                {
+                    partContentType = value;
+                }
+            }
+        }
+
+        if (contentDisposition == null)
+        {
+            throw new IOException("Missing content-disposition");
+        }
+
+        boolean formData = false;
+        String name = null;
+        String filename = null;
+        StringTokenizer tok = new StringTokenizer(contentDisposition, ";");
+        while (tok.hasMoreTokens())
+        {
+            String t = tok.nextToken().trim();
+            String tl = t.toLowerCase();
+            if (t.startsWith("form-data"))
+            {
+                formData = true;
+            }
+            else if (tl.startsWith("name="))
+            {
+                name = value(t);
+            }
+            else if (tl.startsWith("filename="))
+            {
+                filename = value(t);
+            }
+        }
+        return new StreamingPart(formData ? name : null, filename, partContentType, headers);
+    }
+
+    /**
+     * @return the next line without its end, or null at the end of the stream
+     */
+    private String readLine() throws IOException
+    {
+        int from = start;
+        while (true)
+        {
+            for (int i = from; i < end; i++)
+            {
+                if (buffer[i] == LF)
+                {
+                    int lineEnd = i > start && buffer[i - 1] == CR ? i - 1 : i;
+                    String line = new String(buffer, start, lineEnd - start, "UTF-8");
+                    consume(i + 1 - start);
+                    searched = false;
+                    return line;
+                }
+            }
+            if (eof)
+            {
+                if (start == end)
+                {
+                    return null;
+                }
+                String line = new String(buffer, start, end - start, "UTF-8");
+                consume(end - start);
+                return line;
+            }
+            from = end - start;
+            if (start == 0 && end == buffer.length)
+            {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            fill();
+            from += start;
+        }
+    }
+
+    private void consume(int count) throws IOException
+    {
+        start += count;
+        total += count;
+        if (config.getMaxRequestSize() > 0 && total > config.getMaxRequestSize())
+        {
+            throw new IOException("Request exceeds maxRequestSize (" + config.getMaxRequestSize() + ")");
+        }
+    }
+
+    /**
+     * Moves the bytes left to the start of the buffer and reads more after them
+     */
+    private void fill() throws IOException
+    {
+        if (start > 0)
+        {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        int read = in.read(buffer, end, buffer.length - end);
+        if (read < 0)
+        {
+            eof = true;
+        }
+        else
+        {
+            end += read;
+        }
+        searched = false;
+    }
+
+    private String value(String nameEqualsValue)
+    {
+        String value = nameEqualsValue.substring(nameEqualsValue.indexOf('=') + 1).trim();
+        int i = value.indexOf(';');
+        if (i > 0)
+        {
+            value = value.substring(0, i);
+        }
+        if (value.startsWith("\""))
+        {
+            value = value.substring(1, value.indexOf('"', 1));
+        }
+        else
+        {
+            i = value.indexOf(' ');
+            if (i > 0)
+            {
+                value = value.substring(0, i);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * A part whose content is read from the multipart stream until it is spilled
+     */
+    public class StreamingPart implements Part
+    {
+
+        private final String name;
+        private final String filename;
+        private final String contentType;
+        private final MultiMap<String> headers;
+
+        private long size;
+        private boolean ended;
+        private boolean spilled;
+        private byte[] data;
+        private File file;
+        private InputStream liveStream;
+
+        StreamingPart(String name, String filename, String contentType, MultiMap<String> headers)
+        {
+            this.name = name;
+            this.filename = filename;
+            this.contentType = contentType;
+            this.headers = headers;
+        }
+
+        int read(byte[] b, int off, int len) throws IOException
+        {
+            if (ended)
+            {
+                return -1;
+            }
+            int read = readContent(b, off, len);
+            if (read < 0)
+            {
+                ended = true;
+            }
+            else
+            {
+                size += read;
+                if (config.getMaxFileSize() > 0 && size > config.getMaxFileSize())
+                {
+                    throw new IOException("Multipart Mime part " + name + " exceeds max filesize");
+                }
+            }
+            return read;
+        }
+
+        /**
+         * Reads what is left of the content into memory, or into a temporary file once it goes past the
+         * threshold of the configuration
+         */
+        void spill() throws IOException
+        {
+            if (spilled)
+            {
+                return;
+            }
+            if (ended)
+            {
+                data = new byte[0];
+                spilled = true;
+                return;
+            }
+            int threshold = config.getFileSizeThreshold();
+            byte[] memory = new byte[Math.max(0, Math.min(threshold, BUFFER_SIZE))];
+            int length = 0;
+            OutputStream out = null;
+            try
+            {
+                while (true)
+                {
+                    if (length == memory.length)
+                    {
+                        if (length < threshold)
+                        {
+                            memory = Arrays.copyOf(memory, Math.min(threshold, Math.max(BUFFER_SIZE, length * 2)));
+                        }
+                        else
+                        {
+                            if (out == null)
+                            {
+                                if (!tmpDir.exists())
+                                {
+                                    tmpDir.mkdirs();
+                                }
+                                file = File.createTempFile("MultiPart", "", tmpDir);
+                                out = new FileOutputStream(file);
+                                out.write(memory, 0, length);
+                                memory = new byte[BUFFER_SIZE];
+                            }
+                            else
+                            {
+                                out.write(memory, 0, length);
+                            }
+                            length = 0;
+                        }
+                    }
+                    int read = read(memory, length, memory.length - length);
+                    if (read < 0)
+                    {
+                        break;
+                    }
+                    length += read;
+                }
+                if (out != null)
+                {
+                    out.write(memory, 0, length);
+                }
+                else
+                {
+                    data = length == memory.length ? memory : Arrays.copyOf(memory, length);
+                }
+            }
+            finally
+            {
+                if (out != null)
+                {
+                    out.close();
+                }
+            }
+            spilled = true;
+        }
+
+        private InputStream spilledStream() throws IOException
+        {
+            if (file != null)
+            {
+                // Automatically close and delete the temp file when end of input has been reached (MULE-6732).
+                return new AutoCloseInputStream(new DeleteOnCloseFileInputStream(file));
+            }
+            return new ByteArrayInputStream(data);
+        }
+
+        /**
+         * @return whether the content is still read from the multipart stream
+         */
+        public boolean isStreaming()
+        {
+            synchronized (StreamingMultiPartInputStream.this)
+            {
+                return !spilled;
+            }
+        }
+
+        /**
+         * While the part is streaming, the same stream over the multipart stream is returned every time, and it
+         * goes on with the spilled content once the part is spilled. Content read from it before that is not
+         * kept.
+         *
+         * @see Part#getInputStream()
+         */
+        public InputStream getInputStream() throws IOException
+        {
+            synchronized (StreamingMultiPartInputStream.this)
+            {
+                if (spilled)
+                {
+                    return liveStream != null ? liveStream : spilledStream();
+                }
+                if (liveStream == null)
+                {
+                    liveStream = new PartInputStream();
+                }
+                return liveStream;
+            }
+        }
+
+        /**
+         * @see Part#getContentType()
+         */
+        public String getContentType()
+        {
+            return contentType;
+        }
+
+        /**
+         * @see Part#getName()
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return the size of the content read so far, which is the whole size once the part is spilled
+         * @see Part#getSize()
+         */
+        public long getSize()
+        {
+            return size;
+        }
+
+        /**
+         * @see Part#write(java.lang.String)
+         */
+        public void write(String fileName) throws IOException
+        {
+            synchronized (StreamingMultiPartInputStream.this)
+            {
+                spill();
+            }
+            File target = new File(tmpDir, fileName);
+            if (file != null)
+            {
+                file.renameTo(target);
+            }
+            else
+            {
+                OutputStream out = new FileOutputStream(target);
+                try
+                {
+                    out.write(data);
+                }
+                finally
+                {
+                    out.close();
+                }
+            }
+            file = target;
+        }
+
+        /**
+         * @see Part#delete()
+         */
+        public void delete() throws IOException
+        {
+            if (file != null)
+            {
+                file.delete();
+            }
+        }
+
+        /**
+         * @see Part#getHeader(java.lang.String)
+         */
+        public String getHeader(String name)
+        {
+            return (String) headers.getValue(name, 0);
+        }
+
+        /**
+         * @see Part#getHeaders(java.lang.String)
+         */
+        public Collection<String> getHeaders(String name)
+        {
+            return headers.getValues(name);
+        }
+
+        /**
+         * @see Part#getHeaderNames()
+         */
+        public Collection<String> getHeaderNames()
+        {
+            return headers.keySet();
+        }
+
+        /**
+         * Get the filename from the content-disposition.
+         *
+         * @return null or the filename
+         */
+        public String getContentDispositionFilename()
+        {
+            return filename;
+        }
+
+        /**
+         * Reads the content of the part from the multipart stream, and from the spilled content once it is
+         * spilled
+         */
+        private class PartInputStream extends InputStream
+        {
+
+            private InputStream spilledStream;
+
+            @Override
+            public int read() throws IOException
+            {
+                byte[] b = new byte[1];
+                int read;
+                do
+                {
+                    read = read(b, 0, 1);
+                }
+                while (read == 0);
+                return read < 0 ? -1 : b[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                if (len == 0)
+                {
+                    return 0;
+                }
+                synchronized (StreamingMultiPartInputStream.this)
+                {
+                    if (!spilled)
+                    {
+                        return StreamingPart.this.read(b, off, len);
+                    }
+                    if (spilledStream == null)
+                    {
+                        spilledStream = spilledStream();
+                    }
+                }
+                return spilledStream.read(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                if (spilledStream != null)
+                {
+                    spilledStream.close();
+                }
+            }
+        }
+    }
+}
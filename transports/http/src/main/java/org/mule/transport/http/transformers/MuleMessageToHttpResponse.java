@@ -14,6 +14,7 @@ import org.mule.config.MuleManifest;
 import org.mule.transformer.AbstractMessageTransformer;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.transport.NullPayload;
+import org.mule.transport.http.CachedHttpDate;
 import org.mule.transport.http.CookieHelper;
 import org.mule.transport.http.HttpConnector;
 import org.mule.transport.http.HttpConstants;
@@ -40,6 +41,7 @@ public class MuleMessageToHttpResponse extends AbstractMessageTransformer
 {
     
     private static final DateTimeFormatter dateFormatter = DateTimeFormat.forPattern(HttpConstants.DATE_FORMAT_RFC822).withLocale(Locale.US);
+    private static final CachedHttpDate responseDate = new CachedHttpDate(HttpConstants.DATE_FORMAT_RFC822);
     
     public static String formatDate(long time)
     {
@@ -216,7 +218,7 @@ public class MuleMessageToHttpResponse extends AbstractMessageTransformer
         {
             response.setHeader(new Header(HttpConstants.HEADER_CONTENT_TYPE, contentType));
         }
-        String date = formatDate(System.currentTimeMillis());
+        String date = responseDate.now();
         response.setHeader(new Header(HttpConstants.HEADER_DATE, date));
         response.setHeader(new Header(HttpConstants.HEADER_SERVER, server));
 
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Test;
+
+@SmallTest
+public class CachedHttpDateTestCase extends AbstractMuleTestCase
+{
+
+    private final CachedHttpDate date = new CachedHttpDate(HttpConstants.DATE_FORMAT_RFC822);
+
+    @Test
+    public void formatsOncePerSecond()
+    {
+        String formatted = date.format(1000000000123L);
+
+        assertSame(formatted, date.format(1000000000999L));
+        assertFalse(formatted.equals(date.format(1000000001000L)));
+    }
+
+    @Test
+    public void formatsAsTheDateFormat()
+    {
+        SimpleDateFormat format = new SimpleDateFormat(HttpConstants.DATE_FORMAT_RFC822, Locale.US);
+
+        assertEquals(format.format(new Date(1000000000000L)), date.format(1000000000500L));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+@SmallTest
+public class HttpHeaderMapTestCase extends AbstractMuleTestCase
+{
+
+    private final HttpHeaderMap headers = new HttpHeaderMap();
+
+    @Test
+    public void matchesNamesIgnoringCase()
+    {
+        headers.put("Content-Type", "text/plain");
+
+        assertEquals("text/plain", headers.get("content-type"));
+        assertEquals("text/plain", headers.get("CONTENT-TYPE"));
+        assertTrue(headers.containsKey("Content-type"));
+        assertFalse(headers.containsKey("Content-Length"));
+        assertNull(headers.get(null));
+    }
+
+    @Test
+    public void keepsTheCaseTheNameWasFirstPutWith()
+    {
+        headers.put("X-Custom", "1");
+        assertEquals("1", headers.put("x-custom", "2"));
+
+        assertEquals(1, headers.size());
+        assertEquals("X-Custom", headers.keySet().iterator().next());
+        assertEquals("2", headers.get("X-CUSTOM"));
+    }
+
+    @Test
+    public void behavesAsACaseInsensitiveMap()
+    {
+        Map<String, Object> expected = new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER);
+        Random random = new Random(17);
+        for (int i = 0; i < 5000; i++)
+        {
+            String name = (random.nextBoolean() ? "Header-" : "HEADER-") + random.nextInt(100);
+            if (random.nextInt(3) == 0)
+            {
+                assertEquals(expected.remove(name), headers.remove(name));
+            }
+            else
+            {
+                assertEquals(expected.put(name, i), headers.put(name, i));
+            }
+            assertEquals(expected.size(), headers.size());
+        }
+        for (Map.Entry<String, Object> entry : expected.entrySet())
+        {
+            assertEquals(entry.getValue(), headers.get(entry.getKey().toLowerCase()));
+        }
+        assertEquals(expected, new TreeMap<String, Object>(headers));
+    }
+
+    @Test
+    public void copiesIntoOtherMaps()
+    {
+        headers.put("Host", "localhost");
+        headers.put("Accept", "*/*");
+
+        Map<String, Object> copy = new HashMap<String, Object>(headers);
+
+        assertEquals(2, copy.size());
+        assertEquals("localhost", copy.get("Host"));
+        assertEquals(copy, headers);
+    }
+
+    @Test
+    public void removesWhileIterating()
+    {
+        Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < 100; i++)
+        {
+            headers.put("Header-" + i, i);
+            if (i % 3 != 0)
+            {
+                expected.add("Header-" + i);
+            }
+        }
+
+        Set<String> iterated = new HashSet<String>();
+        for (Iterator<Map.Entry<String, Object>> it = headers.entrySet().iterator(); it.hasNext();)
+        {
+            Map.Entry<String, Object> entry = it.next();
+            assertTrue(iterated.add(entry.getKey()));
+            if ((Integer) entry.getValue() % 3 == 0)
+            {
+                it.remove();
+            }
+        }
+
+        assertEquals(100, iterated.size());
+        assertEquals(expected, headers.keySet());
+        for (String name : expected)
+        {
+            assertEquals(Integer.valueOf(name.substring("Header-".length())), headers.get(name));
+        }
+    }
+}
@@ -6,7 +6,9 @@
  */
 package org.mule.transport.http;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.mule.MessageExchangePattern;
@@ -14,6 +16,7 @@ import org.mule.api.MuleMessage;
 import org.mule.api.transport.MuleMessageFactory;
 import org.mule.transport.AbstractMuleMessageFactoryTestCase;
 import org.mule.transport.NullPayload;
+import org.mule.util.IOUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
@@ -87,6 +90,33 @@ public class HttpMultipartMuleMessageFactoryTestCase extends AbstractMuleMessage
         assertTrue(message.getPayload() instanceof NullPayload);
     }
 
+    @Test
+    public void testStreamingPayloadAttachesLaterParts() throws Exception
+    {
+        HttpMultipartMuleMessageFactory factory = (HttpMultipartMuleMessageFactory) createMuleMessageFactory();
+        factory.setExchangePattern(MessageExchangePattern.REQUEST_RESPONSE);
+        factory.setStreaming(true);
+        HttpRequest request = createMultiPartHttpRequest(MULTIPART_MESSAGE);
+        MuleMessage message = factory.create(request, encoding);
+
+        assertNull(message.getInboundAttachment("two"));
+        assertEquals("part payload\r\n", IOUtils.toString((InputStream) message.getPayload()));
+        assertEquals("part two\r\n", IOUtils.toString(message.getInboundAttachment("two").getInputStream()));
+    }
+
+    @Test
+    public void testStreamingPayloadWhenOneWay() throws Exception
+    {
+        HttpMultipartMuleMessageFactory factory = (HttpMultipartMuleMessageFactory) createMuleMessageFactory();
+        factory.setExchangePattern(MessageExchangePattern.ONE_WAY);
+        factory.setStreaming(true);
+        HttpRequest request = createMultiPartHttpRequest(MULTIPART_MESSAGE);
+        MuleMessage message = factory.create(request, encoding);
+
+        assertNotNull(message.getInboundAttachment("two"));
+        assertEquals("part payload\r\n", IOUtils.toString((InputStream) message.getPayload()));
+    }
+
     private HttpRequest createMultiPartHttpRequest(String message) throws Exception
     {
         RequestLine requestLine = RequestLine.parseLine(REQUEST_LINE);
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HttpVersion;
+import org.junit.Test;
+
+@SmallTest
+public class HttpResponseEncoderTestCase extends AbstractMuleTestCase
+{
+
+    private static final String JSON = "{\"id\":17,\"name\":\"mule\",\"tags\":[\"a\",\"b\"]}";
+    private static final CachedHttpDate DATE = new CachedHttpDate(HttpConstants.DATE_FORMAT_RFC822);
+
+    private final CountingOutputStream out = new CountingOutputStream();
+
+    @Test
+    public void writesSmallResponsesInASingleWrite() throws Exception
+    {
+        HttpResponseEncoder encoder = new HttpResponseEncoder(out, "UTF-8");
+
+        for (int i = 0; i < 3; i++)
+        {
+            HttpResponse response = jsonResponse(JSON);
+            out.reset();
+            out.writes = 0;
+
+            encoder.writeHead(response);
+            encoder.write(JSON.getBytes("UTF-8"));
+            encoder.flush();
+
+            assertEquals(1, out.writes);
+            assertArrayEquals(writtenByResponseWriter(response, JSON.getBytes("UTF-8"), "UTF-8"), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void encodesHeadersAsTheResponseWriter() throws Exception
+    {
+        HttpResponse response = new HttpResponse();
+        response.setStatusLine(HttpVersion.HTTP_1_0, 404, "Not Here");
+        response.setHeader(new Header(HttpConstants.HEADER_SERVER, "Mule"));
+        response.setHeader(new Header("X-Name", "caf\u00e9"));
+        response.setHeader(new Header("X-Empty", null));
+
+        for (String encoding : new String[] {"UTF-8", "ISO-8859-1"})
+        {
+            out.reset();
+            HttpResponseEncoder encoder = new HttpResponseEncoder(out, encoding);
+            encoder.writeHead(response);
+            encoder.flush();
+
+            assertArrayEquals(writtenByResponseWriter(response, new byte[0], encoding), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void writesLargeBodiesThrough() throws Exception
+    {
+        HttpResponseEncoder encoder = new HttpResponseEncoder(out, "UTF-8", 64);
+        byte[] body = new byte[1000];
+
+        encoder.writeHead(jsonResponse(""));
+        encoder.write(body);
+        encoder.write('x');
+        encoder.flush();
+
+        assertEquals(3, out.writes);
+        assertEquals(1001, out.size() - indexOfBody(out.toByteArray()));
+    }
+
+    @Test
+    public void tellsWhetherTheBodyFits() throws Exception
+    {
+        HttpResponseEncoder encoder = new HttpResponseEncoder(out, "UTF-8", 256);
+        encoder.writeHead(jsonResponse(JSON));
+
+        assertTrue(encoder.hasRoomFor(JSON.length()));
+        assertFalse(encoder.hasRoomFor(256));
+        assertFalse(encoder.hasRoomFor(-1));
+    }
+
+    @Test
+    public void startsOverOnceAllValuesAreKept() throws Exception
+    {
+        HttpResponseEncoder.EncodedLines lines = new HttpResponseEncoder.BoundedEncodedLines(2);
+        lines.put("text/plain", new byte[] {1});
+        lines.put("text/xml", new byte[] {2});
+        assertArrayEquals(new byte[] {1}, lines.get("text/plain"));
+
+        lines.put("application/json", new byte[] {3});
+
+        assertNull(lines.get("text/plain"));
+        assertNull(lines.get("text/xml"));
+        assertArrayEquals(new byte[] {3}, lines.get("application/json"));
+    }
+
+    @Test
+    public void keepsOnlyTheLatestDate() throws Exception
+    {
+        HttpResponseEncoder.EncodedLines lines = new HttpResponseEncoder.LatestEncodedLine();
+        lines.put("Mon, 19 Oct 2026 10:00:00 +0000", new byte[] {1});
+        lines.put("Mon, 19 Oct 2026 10:00:01 +0000", new byte[] {2});
+
+        assertNull(lines.get("Mon, 19 Oct 2026 10:00:00 +0000"));
+        assertArrayEquals(new byte[] {2}, lines.get("Mon, 19 Oct 2026 10:00:01 +0000"));
+    }
+
+    private HttpResponse jsonResponse(String json)
+    {
+        HttpResponse response = new HttpResponse();
+        response.setHeader(new Header(HttpConstants.HEADER_CONTENT_TYPE, "application/json"));
+        response.setHeader(new Header(HttpConstants.HEADER_DATE, DATE.now()));
+        response.setHeader(new Header(HttpConstants.HEADER_SERVER, "Mule EE Core Extensions/3.5.0"));
+        response.setHeader(new Header(HttpConstants.HEADER_CONTENT_LENGTH, Integer.toString(json.length())));
+        return response;
+    }
+
+    private byte[] writtenByResponseWriter(HttpResponse response, byte[] body, String encoding) throws IOException
+    {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        ResponseWriter writer = new ResponseWriter(expected, encoding);
+        writer.println(response.getStatusLine());
+        Iterator<?> headers = response.getHeaderIterator();
+        while (headers.hasNext())
+        {
+            writer.print(((Header) headers.next()).toExternalForm());
+        }
+        writer.println();
+        writer.flush();
+        expected.write(body);
+        return expected.toByteArray();
+    }
+
+    private int indexOfBody(byte[] written)
+    {
+        for (int i = 3; i < written.length; i++)
+        {
+            if (written[i - 3] == '\r' && written[i - 2] == '\n' && written[i - 1] == '\r' && written[i] == '\n')
+            {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static class CountingOutputStream extends ByteArrayOutputStream
+    {
+
+        int writes;
+
+        @Override
+        public synchronized void write(int b)
+        {
+            writes++;
+            super.write(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len)
+        {
+            writes++;
+            super.write(b, off, len);
+        }
+    }
+}
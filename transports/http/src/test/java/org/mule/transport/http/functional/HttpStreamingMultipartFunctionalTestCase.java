@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http.functional;
+
+import static org.junit.Assert.assertEquals;
+
+import org.mule.api.MuleEventContext;
+import org.mule.api.MuleMessage;
+import org.mule.api.lifecycle.Callable;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.util.IOUtils;
+
+import java.io.InputStream;
+import java.util.TreeSet;
+
+import javax.activation.DataHandler;
+
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.methods.PostMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class HttpStreamingMultipartFunctionalTestCase extends FunctionalTestCase
+{
+
+    private static final String BOUNDARY = "----------------------------299df9f9431b";
+
+    @Rule
+    public DynamicPort httpPort = new DynamicPort("port");
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-streaming-multipart-config.xml";
+    }
+
+    @Test
+    public void attachesPartsAfterThePayloadOnceItIsRead() throws Exception
+    {
+        String body = part("before", "part before") + part("payload", "part payload") + part("after", "part after")
+                      + "--" + BOUNDARY + "--\r\n";
+        PostMethod method = new PostMethod("http://localhost:" + httpPort.getNumber() + "/upload");
+        method.setRequestEntity(new StringRequestEntity(body, "multipart/form-data; boundary=" + BOUNDARY, "UTF-8"));
+
+        int status = new HttpClient().executeMethod(method);
+
+        assertEquals(200, status);
+        assertEquals("before reading: [before], payload: part payload, after reading: [after, before], after: part after",
+                     method.getResponseBodyAsString());
+    }
+
+    private String part(String name, String content)
+    {
+        return "--" + BOUNDARY + "\r\n"
+               + "Content-Disposition: form-data; name=\"" + name + "\"\r\n"
+               + "Content-Type: text/plain\r\n\r\n"
+               + content + "\r\n";
+    }
+
+    public static class AttachmentsReader implements Callable
+    {
+
+        @Override
+        public Object onCall(MuleEventContext eventContext) throws Exception
+        {
+            MuleMessage message = eventContext.getMessage();
+            String namesBefore = new TreeSet<String>(message.getInboundAttachmentNames()).toString();
+            String payload = IOUtils.toString((InputStream) message.getPayload());
+            DataHandler after = message.getInboundAttachment("after");
+            return String.format("before reading: %s, payload: %s, after reading: %s, after: %s", namesBefore,
+                                 payload.trim(), new TreeSet<String>(message.getInboundAttachmentNames()),
+                                 after == null ? null : IOUtils.toString(after.getInputStream()).trim());
+        }
+    }
+}
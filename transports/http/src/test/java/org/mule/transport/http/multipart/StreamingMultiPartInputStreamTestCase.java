@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http.multipart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.FileUtils;
+import org.mule.util.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+
+@SmallTest
+public class StreamingMultiPartInputStreamTestCase extends AbstractMuleTestCase
+{
+
+    private static final String BOUNDARY = "----------------------------299df9f9431b";
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=" + BOUNDARY;
+    private static final String TMP_DIR = "./streamingMultipartTmpDir";
+
+    @After
+    public void deleteTmpDir()
+    {
+        FileUtils.deleteTree(new File(TMP_DIR));
+    }
+
+    @Test
+    public void readsPartsAsTheyCome() throws Exception
+    {
+        byte[] large = new byte[50 * 1024];
+        new Random(17).nextBytes(large);
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        appendPart(message, "first", "one".getBytes());
+        appendPart(message, "large", large);
+        appendPart(message, "last", "three".getBytes());
+        message.write(("--" + BOUNDARY + "--\r\n").getBytes());
+
+        StreamingMultiPartInputStream in = createStream(new TrickleInputStream(message.toByteArray()), 0);
+
+        Part first = in.nextPart();
+        assertEquals("first", first.getName());
+        assertEquals("one", IOUtils.toString(first.getInputStream()));
+
+        Part part = in.nextPart();
+        assertEquals("large", part.getName());
+        assertEquals("application/octet-stream", part.getContentType());
+        assertArrayEquals(large, IOUtils.toByteArray(part.getInputStream()));
+
+        Part last = in.nextPart();
+        assertEquals("three", IOUtils.toString(last.getInputStream()));
+        assertNull(in.nextPart());
+        assertTrue(in.isFinished());
+    }
+
+    @Test
+    public void spillsPartsNotRead() throws Exception
+    {
+        byte[] large = new byte[20 * 1024];
+        new Random(17).nextBytes(large);
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        appendPart(message, "small", "small content".getBytes());
+        appendPart(message, "large", large);
+        appendPart(message, "payload", "payload content".getBytes());
+        message.write(("--" + BOUNDARY + "--\r\n").getBytes());
+
+        StreamingMultiPartInputStream in = createStream(new ByteArrayInputStream(message.toByteArray()), 1024);
+
+        StreamingMultiPartInputStream.StreamingPart small = (StreamingMultiPartInputStream.StreamingPart) in.nextPart();
+        StreamingMultiPartInputStream.StreamingPart spilled = (StreamingMultiPartInputStream.StreamingPart) in.nextPart();
+        Part payload = in.nextPart();
+
+        assertFalse(small.isStreaming());
+        assertFalse(spilled.isStreaming());
+        assertEquals("payload content", IOUtils.toString(payload.getInputStream()));
+        assertEquals("small content", IOUtils.toString(small.getInputStream()));
+        assertEquals(1, new File(TMP_DIR).list().length);
+        assertArrayEquals(large, IOUtils.toByteArray(spilled.getInputStream()));
+        assertEquals(large.length, spilled.getSize());
+        assertEquals(3, in.getParts().size());
+    }
+
+    @Test
+    public void partialReadGoesOnWithSpilledContent() throws Exception
+    {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        appendPart(message, "payload", "0123456789".getBytes());
+        appendPart(message, "other", "other".getBytes());
+
+        StreamingMultiPartInputStream in = createStream(new ByteArrayInputStream(message.toByteArray()), 1024);
+
+        InputStream payload = in.nextPart().getInputStream();
+        byte[] start = new byte[4];
+        assertEquals(4, payload.read(start));
+
+        Part other = in.nextPart();
+        assertEquals("456789", IOUtils.toString(payload));
+        assertEquals("other", IOUtils.toString(other.getInputStream()));
+        assertNull(in.nextPart());
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWithoutInitialBoundary() throws Exception
+    {
+        createStream(new ByteArrayInputStream("no boundary here".getBytes()), 1024).nextPart();
+    }
+
+    @Test
+    public void findsPatternWithSkipTable() throws Exception
+    {
+        byte[] pattern = "\r\n--abc".getBytes();
+        int[] table = StreamingMultiPartInputStream.skipTable(pattern);
+        byte[] data = "xx\r\n-\r\n--ab\r\n--abc".getBytes();
+
+        assertEquals(11, StreamingMultiPartInputStream.indexOf(data, 0, data.length, pattern, table));
+        assertEquals(-1, StreamingMultiPartInputStream.indexOf(data, 0, data.length - 1, pattern, table));
+    }
+
+    private StreamingMultiPartInputStream createStream(InputStream in, int threshold)
+    {
+        return new StreamingMultiPartInputStream(in, CONTENT_TYPE, new MultipartConfiguration(TMP_DIR, -1L, -1L, threshold));
+    }
+
+    private void appendPart(ByteArrayOutputStream message, String name, byte[] content) throws IOException
+    {
+        message.write(("--" + BOUNDARY + "\r\n").getBytes());
+        message.write(("Content-Disposition: form-data; name=\"" + name + "\"; filename=\"" + name + "\"\r\n").getBytes());
+        message.write("Content-Type: application/octet-stream\r\n\r\n".getBytes());
+        message.write(content);
+        message.write("\r\n".getBytes());
+    }
+
+    /**
+     * Returns a few bytes on each read, as a network stream might
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream
+    {
+
+        TrickleInputStream(byte[] data)
+        {
+            super(data);
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len)
+        {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+}
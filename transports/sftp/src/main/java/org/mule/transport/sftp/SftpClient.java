@@ -13,14 +13,12 @@ import static org.mule.transport.sftp.notification.SftpTransportNotification.SFT
 
 import org.mule.api.endpoint.ImmutableEndpoint;
 import org.mule.transport.sftp.notification.SftpNotifier;
-import org.mule.util.StringUtils;
 
-import com.jcraft.jsch.Channel;
+import org.mule.transport.sftp.SftpSessionManager.SessionKey;
+
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.ChannelSftp.LsEntry;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
 
@@ -29,7 +27,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Properties;
 import java.util.Vector;
 
 import org.apache.commons.logging.Log;
@@ -51,11 +48,9 @@ public class SftpClient
 
     private ChannelSftp channelSftp;
 
-    private JSch jsch;
+    private final SftpSessionManager sessionManager;
     private SftpNotifier notifier;
 
-    private Session session;
-
     private final String host;
 
     private int port = 22;
@@ -75,11 +70,19 @@ public class SftpClient
     }
 
     public SftpClient(String host, SftpNotifier notifier)
+    {
+        this(host, notifier, new SftpSessionManager());
+    }
+
+    /**
+     * @param sessionManager opens the channel of the client, over a session that may be shared with other
+     *            clients
+     */
+    public SftpClient(String host, SftpNotifier notifier, SftpSessionManager sessionManager)
     {
         this.host = host;
         this.notifier = notifier;
-
-        jsch = new JSch();
+        this.sessionManager = sessionManager;
     }
 
     public void changeWorkingDirectory(String wd) throws IOException
@@ -123,35 +126,7 @@ public class SftpClient
 
     public void login(String user, String password) throws IOException
     {
-        try
-        {
-            Properties hash = new Properties();
-            hash.put(STRICT_HOST_KEY_CHECKING, "no");
-            if (!StringUtils.isEmpty(preferredAuthenticationMethods))
-            {
-                hash.put(PREFERRED_AUTHENTICATION_METHODS, preferredAuthenticationMethods);
-            }
-
-            session = jsch.getSession(user, host);
-            session.setConfig(hash);
-            session.setPort(port);
-            session.setPassword(password);
-            session.connect();
-
-            Channel channel = session.openChannel(CHANNEL_SFTP);
-            channel.connect();
-
-            channelSftp = (ChannelSftp) channel;
-            setHome(channelSftp.pwd());
-        }
-        catch (JSchException e)
-        {
-            logAndThrowLoginError(user, e);
-        }
-        catch (SftpException e)
-        {
-            logAndThrowLoginError(user, e);
-        }
+        login(new SessionKey(host, port, user, password, null, null, preferredAuthenticationMethods));
     }
 
     public void login(String user, String identityFile, String passphrase) throws IOException
@@ -162,42 +137,23 @@ public class SftpClient
             throw new IOException("IdentityFile '" + identityFile + "' not found");
         }
 
+        login(new SessionKey(host, port, user, null, identityFile, passphrase, preferredAuthenticationMethods));
+    }
+
+    private void login(SessionKey sessionKey) throws IOException
+    {
         try
         {
-            if (passphrase == null || "".equals(passphrase))
-            {
-                jsch.addIdentity(new File(identityFile).getAbsolutePath());
-            }
-            else
-            {
-                jsch.addIdentity(new File(identityFile).getAbsolutePath(), passphrase);
-            }
-
-            Properties hash = new Properties();
-            hash.put(STRICT_HOST_KEY_CHECKING, "no");
-            if (!StringUtils.isEmpty(preferredAuthenticationMethods))
-            {
-                hash.put(PREFERRED_AUTHENTICATION_METHODS, preferredAuthenticationMethods);
-            }
-
-            session = jsch.getSession(user, host);
-            session.setConfig(hash);
-            session.setPort(port);
-            session.connect();
-
-            Channel channel = session.openChannel(CHANNEL_SFTP);
-            channel.connect();
-
-            channelSftp = (ChannelSftp) channel;
+            channelSftp = sessionManager.openChannel(sessionKey);
             setHome(channelSftp.pwd());
         }
         catch (JSchException e)
         {
-            logAndThrowLoginError(user, e);
+            logAndThrowLoginError(sessionKey.getUser(), e);
         }
         catch (SftpException e)
         {
-            logAndThrowLoginError(user, e);
+            logAndThrowLoginError(sessionKey.getUser(), e);
         }
     }
 
@@ -266,18 +222,16 @@ public class SftpClient
     {
         if (channelSftp != null)
         {
-            channelSftp.disconnect();
-        }
-        if ((session != null) && session.isConnected())
-        {
-            session.disconnect();
+            // the session is disconnected along with the last channel using it
+            sessionManager.closeChannel(channelSftp);
+            channelSftp = null;
         }
     }
 
     public boolean isConnected()
     {
         return (channelSftp != null) && channelSftp.isConnected() && !channelSftp.isClosed()
-               && (session != null) && session.isConnected();
+               && sessionManager.isSessionConnected(channelSftp);
     }
 
     public String[] listFiles() throws IOException
@@ -339,6 +293,51 @@ public class SftpClient
         return null;
     }
 
+    /**
+     * Lists the files of a directory, handing each one to the visitor as the listing is read from the server
+     * rather than once the whole directory has been listed.
+     */
+    public void listFiles(String path, final FileVisitor visitor) throws IOException
+    {
+        final Exception[] visitorException = new Exception[1];
+        try
+        {
+            channelSftp.ls(path, new ChannelSftp.LsEntrySelector()
+            {
+                public int select(LsEntry entry)
+                {
+                    if (entry.getAttrs().isDir())
+                    {
+                        return CONTINUE;
+                    }
+                    try
+                    {
+                        return visitor.visit(entry.getFilename(), entry.getAttrs().getSize(),
+                            entry.getAttrs().getMTime() * 1000L) ? CONTINUE : BREAK;
+                    }
+                    catch (Exception e)
+                    {
+                        visitorException[0] = e;
+                        return BREAK;
+                    }
+                }
+            });
+        }
+        catch (SftpException e)
+        {
+            throw new IOException(e.getMessage());
+        }
+
+        if (visitorException[0] instanceof IOException)
+        {
+            throw (IOException) visitorException[0];
+        }
+        else if (visitorException[0] != null)
+        {
+            throw new IOException(visitorException[0]);
+        }
+    }
+
     // public boolean logout()
     // {
     // return true;
@@ -404,6 +403,28 @@ public class SftpClient
         }
     }
 
+    /**
+     * Writes data into a remote file, overwriting it, splitting it in ranges that are written in parallel over
+     * up to <code>channels</code> sftp channels of the session of this client.
+     *
+     * @param minRangeSize smallest range worth a channel of its own
+     */
+    public void storeFile(String fileName, byte[] data, int channels, long minRangeSize) throws IOException
+    {
+        if (notifier != null)
+        {
+            notifier.notify(SFTP_PUT_ACTION, currentDirectory + "/" + fileName);
+        }
+
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Sending to SFTP service over up to " + channels + " channels: " + data.length
+                         + " bytes, filename = " + fileName);
+        }
+
+        new SftpRangeTransfer(sessionManager, channelSftp, channels, minRangeSize).upload(data, fileName);
+    }
+
     public void storeFile(String fileNameLocal, String fileNameRemote) throws IOException
     {
         storeFile(fileNameLocal, fileNameRemote, WriteMode.OVERWRITE);
@@ -704,6 +725,19 @@ public class SftpClient
         this.preferredAuthenticationMethods = preferredAuthenticationMethods;
     }
 
+    /**
+     * Receives the files of a directory as they are listed
+     */
+    public interface FileVisitor
+    {
+
+        /**
+         * @param lastModifiedTime milliseconds since the epoch
+         * @return false to stop listing
+         */
+        boolean visit(String fileName, long size, long lastModifiedTime) throws Exception;
+    }
+
     public enum WriteMode
     {
         APPEND
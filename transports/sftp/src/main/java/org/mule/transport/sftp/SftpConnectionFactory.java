@@ -21,6 +21,7 @@ public class SftpConnectionFactory implements PoolableObjectFactory
 
     private final ImmutableEndpoint endpoint;
     private String preferredAuthenticationMethods;
+    private SftpSessionManager sessionManager;
 
     public SftpConnectionFactory(ImmutableEndpoint endpoint)
     {
@@ -40,7 +41,7 @@ public class SftpConnectionFactory implements PoolableObjectFactory
 
     public Object makeObject() throws Exception
     {
-        return createClient(endpoint, preferredAuthenticationMethods);
+        return createClient(endpoint, preferredAuthenticationMethods, sessionManager);
     }
 
     public static SftpClient createClient(ImmutableEndpoint endpoint) throws Exception
@@ -49,6 +50,16 @@ public class SftpConnectionFactory implements PoolableObjectFactory
     }
 
     public static SftpClient createClient(ImmutableEndpoint endpoint, String preferredAuthenticationMethods) throws IOException
+    {
+        return createClient(endpoint, preferredAuthenticationMethods, null);
+    }
+
+    /**
+     * @param sessionManager shares the sessions of the clients to the same host with the same credentials, a
+     *            session is opened just for the client if null
+     */
+    public static SftpClient createClient(ImmutableEndpoint endpoint, String preferredAuthenticationMethods,
+                                          SftpSessionManager sessionManager) throws IOException
     {
         EndpointURI endpointURI = endpoint.getEndpointURI();
 
@@ -58,7 +69,9 @@ public class SftpConnectionFactory implements PoolableObjectFactory
             logger.debug("Using host: " + host);
         }
 
-        SftpClient client = new SftpClient(host);
+        SftpClient client = sessionManager == null
+                            ? new SftpClient(host)
+                            : new SftpClient(host, null, sessionManager);
         if (!StringUtils.isEmpty(preferredAuthenticationMethods))
         {
             client.setPreferredAuthenticationMethods(preferredAuthenticationMethods);
@@ -146,4 +159,9 @@ public class SftpConnectionFactory implements PoolableObjectFactory
     {
         this.preferredAuthenticationMethods = preferredAuthenticationMethods;
     }
+
+    public void setSessionManager(SftpSessionManager sessionManager)
+    {
+        this.sessionManager = sessionManager;
+    }
 }
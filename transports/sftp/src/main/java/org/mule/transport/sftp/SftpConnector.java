@@ -69,6 +69,7 @@ public class SftpConnector extends AbstractConnector
     public static final String PROPERTY_KEEP_FILE_ON_ERROR = "keepFileOnError";
 
     public static final int DEFAULT_POLLING_FREQUENCY = 1000;
+    public static final long DEFAULT_MIN_TRANSFER_RANGE_SIZE = 4 * 1024 * 1024;
 
     /**
      * logger used by this class
@@ -100,6 +101,26 @@ public class SftpConnector extends AbstractConnector
     private String archiveTempSendingDir = "";
     private String preferredAuthenticationMethods;
 
+    private final SftpSessionManager sessionManager = new SftpSessionManager();
+
+    /**
+     * Number of channels a file written from a byte array payload is split over, 1 for writing it through the
+     * channel of the client only. Other payloads are always written through a single channel. The ranges
+     * after the first one are written in the JSch RESUME mode from their offset, see {@link SftpRangeTransfer}.
+     */
+    private int transferChannels = 1;
+
+    /**
+     * Smallest part of a file worth being written through a channel of its own
+     */
+    private long minTransferRangeSize = DEFAULT_MIN_TRANSFER_RANGE_SIZE;
+
+    /**
+     * Leave the received files on the server and keep an index of them, so that only new or changed files
+     * are received
+     */
+    private boolean incrementalPolling = false;
+
     /**
      * Should the file be kept if an error occurs when writing the file on the
      * outbound endpoint?
@@ -187,7 +208,7 @@ public class SftpConnector extends AbstractConnector
             }
             else
             {
-                client = SftpConnectionFactory.createClient(endpoint, preferredAuthenticationMethods);
+                client = SftpConnectionFactory.createClient(endpoint, preferredAuthenticationMethods, sessionManager);
             }
 
             // We have to set the working directory before returning
@@ -277,6 +298,7 @@ public class SftpConnector extends AbstractConnector
             }
             SftpConnectionFactory factory = new SftpConnectionFactory(endpoint);
             factory.setPreferredAuthenticationMethods(preferredAuthenticationMethods);
+            factory.setSessionManager(sessionManager);
             pool = new GenericObjectPool(factory, getMaxConnectionPoolSize());
             pool.setTestOnBorrow(isValidateConnections());
             pools.put(endpoint.getEndpointURI(), pool);
@@ -317,7 +339,7 @@ public class SftpConnector extends AbstractConnector
      */
     protected void doDispose()
     {
-        // Do nothing!
+        sessionManager.dispose();
     }
 
     /*
@@ -567,6 +589,82 @@ public class SftpConnector extends AbstractConnector
         return maxConnectionPoolSize;
     }
 
+    /**
+     * @return the manager sharing the SSH sessions of the clients of this connector, which keeps the number of
+     *         sessions and channels opened
+     */
+    public SftpSessionManager getSessionManager()
+    {
+        return sessionManager;
+    }
+
+    public int getMaxChannelsPerSession()
+    {
+        return sessionManager.getMaxChannelsPerSession();
+    }
+
+    /**
+     * @param maxChannelsPerSession number of clients to the same host with the same credentials that share an
+     *            SSH session, 1 for opening a session for each client
+     */
+    public void setMaxChannelsPerSession(int maxChannelsPerSession)
+    {
+        sessionManager.setMaxChannelsPerSession(maxChannelsPerSession);
+    }
+
+    public int getSessionKeepAliveInterval()
+    {
+        return sessionManager.getKeepAliveInterval();
+    }
+
+    /**
+     * @param sessionKeepAliveInterval milliseconds between keep-alive messages sent over idle SSH sessions, 0
+     *            for not sending them
+     */
+    public void setSessionKeepAliveInterval(int sessionKeepAliveInterval)
+    {
+        sessionManager.setKeepAliveInterval(sessionKeepAliveInterval);
+    }
+
+    public int getTransferChannels()
+    {
+        return transferChannels;
+    }
+
+    /**
+     * @see SftpConnector#transferChannels
+     */
+    public void setTransferChannels(int transferChannels)
+    {
+        this.transferChannels = transferChannels;
+    }
+
+    public long getMinTransferRangeSize()
+    {
+        return minTransferRangeSize;
+    }
+
+    /**
+     * @see SftpConnector#minTransferRangeSize
+     */
+    public void setMinTransferRangeSize(long minTransferRangeSize)
+    {
+        this.minTransferRangeSize = minTransferRangeSize;
+    }
+
+    public boolean isIncrementalPolling()
+    {
+        return incrementalPolling;
+    }
+
+    /**
+     * @see SftpConnector#incrementalPolling
+     */
+    public void setIncrementalPolling(boolean incrementalPolling)
+    {
+        this.incrementalPolling = incrementalPolling;
+    }
+
     public Boolean isKeepFileOnError()
     {
         return keepFileOnError;
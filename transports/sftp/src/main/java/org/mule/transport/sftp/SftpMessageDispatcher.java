@@ -103,10 +103,17 @@ public class SftpMessageDispatcher extends AbstractMessageDispatcher
 
             // send file over sftp
             // choose appropriate writing mode
+            Object payload = event.getMessage().getPayload();
             if (sftpUtil.getDuplicateHandling().equals(SftpConnector.PROPERTY_DUPLICATE_HANDLING_APPEND))
             {
                 client.storeFile(transferFilename, inputStream, SftpClient.WriteMode.APPEND);
             }
+            else if (payload instanceof byte[] && connector.getTransferChannels() > 1)
+            {
+                // large files are written in ranges over several channels
+                client.storeFile(transferFilename, (byte[]) payload, connector.getTransferChannels(),
+                    connector.getMinTransferRangeSize());
+            }
             else
             {
                 client.storeFile(transferFilename, inputStream);
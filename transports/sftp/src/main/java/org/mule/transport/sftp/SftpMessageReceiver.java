@@ -19,11 +19,13 @@ import org.mule.api.transport.PropertyScope;
 import org.mule.construct.Flow;
 import org.mule.processor.strategy.SynchronousProcessingStrategy;
 import org.mule.transport.AbstractPollingMessageReceiver;
+import org.mule.transport.file.PolledFileIndex;
 import org.mule.transport.sftp.notification.SftpNotifier;
 import org.mule.util.lock.LockFactory;
 
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
@@ -38,6 +40,7 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
     private SftpReceiverRequesterUtil sftpRRUtil = null;
     private LockFactory lockFactory;
     private boolean poolOnPrimaryInstanceOnly;
+    private PolledFileIndex fileIndex;
 
     public SftpMessageReceiver(SftpConnector connector,
                                FlowConstruct flow,
@@ -69,6 +72,12 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
         }
         try
         {
+            if (fileIndex != null)
+            {
+                pollIncrementally();
+                return;
+            }
+
             String[] files = sftpRRUtil.getAvailableFiles(false);
 
             if (files.length == 0)
@@ -123,6 +132,52 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
         }
     }
 
+    /**
+     * Routes only the files that are new or changed since they were routed before, recording them in the
+     * index once routed. As with FTP, the files are left on the server, whatever the autoDelete setting.
+     */
+    protected void pollIncrementally() throws Exception
+    {
+        Map<String, long[]> files = sftpRRUtil.getNewOrChangedFiles(fileIndex);
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Polling. " + files.size() + " new or changed files found at "
+                         + endpoint.getEndpointURI());
+        }
+
+        for (Map.Entry<String, long[]> file : files.entrySet())
+        {
+            if (getLifecycleState().isStopping())
+            {
+                break;
+            }
+            Lock fileLock = lockFactory.createLock(connector.getName() + file.getKey());
+            if (fileLock.tryLock(10, TimeUnit.MILLISECONDS))
+            {
+                try
+                {
+                    routeFile(file.getKey());
+                    fileIndex.processed(file.getKey(), file.getValue()[0], file.getValue()[1]);
+                }
+                catch (MessagingException e)
+                {
+                    // already handled by the execution template; not recorded, so the file is received again
+                }
+                catch (Exception e)
+                {
+                    // not recorded, so the file is received again on the next poll
+                    logger.error("Error routing file " + file.getKey(), e);
+                    getConnector().getMuleContext().getExceptionListener().handleException(e);
+                }
+                finally
+                {
+                    // the file stays on the server and is locked again if it changes
+                    fileLock.unlock();
+                }
+            }
+        }
+    }
+
     @Override
     protected void doInitialise() throws InitialisationException
     {
@@ -133,6 +188,10 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
             synchronousProcessing = ((Flow)getFlowConstruct()).getProcessingStrategy() instanceof SynchronousProcessingStrategy;
         }
         this.poolOnPrimaryInstanceOnly = Boolean.valueOf(System.getProperty("mule.transport.sftp.singlepollinstance","false")) || !synchronousProcessing;
+        if (((SftpConnector) connector).isIncrementalPolling())
+        {
+            fileIndex = PolledFileIndex.create(connector.getMuleContext(), getFlowConstruct().getName(), endpoint);
+        }
     }
 
     @Override
@@ -154,7 +213,9 @@ public class SftpMessageReceiver extends AbstractPollingMessageReceiver
                 SftpNotifier notifier = new SftpNotifier((SftpConnector) connector, createNullMuleMessage(),
                         endpoint, flowConstruct.getName());
 
-                InputStream inputStream = sftpRRUtil.retrieveFile(path, notifier);
+                // files polled incrementally stay on the server, the index keeps them from being received again
+                InputStream inputStream = sftpRRUtil.retrieveFile(path, notifier,
+                    fileIndex == null && ((SftpConnector) connector).isAutoDelete());
 
                 if (logger.isDebugEnabled())
                 {
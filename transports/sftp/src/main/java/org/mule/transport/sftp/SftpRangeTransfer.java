@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.sftp;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Writes a file split in ranges, each one through its own sftp channel over the session of a
+ * {@link SftpClient}, so that a large file is not limited by the window of a single channel.
+ * <p/>
+ * The channels besides the one of the client are opened with {@link SftpSessionManager#openSiblingChannel}
+ * and closed once the transfer is done. The transfer goes on with fewer ranges if the session can not take
+ * as many channels as wanted.
+ */
+class SftpRangeTransfer
+{
+
+    private final SftpSessionManager sessionManager;
+    private final ChannelSftp channel;
+    private final int maxChannels;
+    private final long minRangeSize;
+
+    SftpRangeTransfer(SftpSessionManager sessionManager, ChannelSftp channel, int maxChannels, long minRangeSize)
+    {
+        this.sessionManager = sessionManager;
+        this.channel = channel;
+        this.maxChannels = maxChannels;
+        this.minRangeSize = minRangeSize;
+    }
+
+    /**
+     * Writes the data into the remote file, which is overwritten
+     */
+    void upload(final byte[] data, String fileName) throws IOException
+    {
+        String path = getRemotePath(fileName);
+        List<ChannelSftp> channels = openChannels(data.length);
+        try
+        {
+            long[] ranges = split(data.length, channels.size());
+
+            // The remote file is truncated by the first stream, and the rest are opened resuming from the
+            // still empty file before anything is written, as there is no mode for writing at an offset
+            // without truncating or appending
+            final List<OutputStream> streams = new ArrayList<OutputStream>(channels.size());
+            try
+            {
+                for (int i = 0; i < channels.size(); i++)
+                {
+                    int mode = i == 0 ? ChannelSftp.OVERWRITE : ChannelSftp.RESUME;
+                    streams.add(channels.get(i).put(path, null, mode, ranges[i]));
+                }
+            }
+            catch (SftpException e)
+            {
+                closeQuietly(streams);
+                throw new IOException(e.getMessage() + " (" + path + ")");
+            }
+
+            transfer(channels, data.length, new RangeTask()
+            {
+                public void transfer(int range, ChannelSftp rangeChannel, long offset, long length) throws Exception
+                {
+                    OutputStream out = streams.get(range);
+                    try
+                    {
+                        out.write(data, (int) offset, (int) length);
+                    }
+                    finally
+                    {
+                        out.close();
+                    }
+                }
+            });
+        }
+        finally
+        {
+            closeSiblings(channels);
+        }
+    }
+
+    private List<ChannelSftp> openChannels(long size)
+    {
+        List<ChannelSftp> channels = new ArrayList<ChannelSftp>();
+        channels.add(channel);
+        long wanted = Math.min(maxChannels, Math.max(1, size / Math.max(1, minRangeSize)));
+        while (channels.size() < wanted)
+        {
+            ChannelSftp sibling = sessionManager.openSiblingChannel(channel);
+            if (sibling == null)
+            {
+                break;
+            }
+            channels.add(sibling);
+        }
+        return channels;
+    }
+
+    private void transfer(List<ChannelSftp> channels, long size, final RangeTask task) throws IOException
+    {
+        long[] ranges = split(size, channels.size());
+        List<Future<Object>> futures = new ArrayList<Future<Object>>(channels.size() - 1);
+        for (int i = 1; i < channels.size(); i++)
+        {
+            final int range = i;
+            final ChannelSftp rangeChannel = channels.get(i);
+            final long offset = ranges[i];
+            final long length = ranges[i + 1] - ranges[i];
+            futures.add(sessionManager.getTransferExecutor().submit(new Callable<Object>()
+            {
+                public Object call() throws Exception
+                {
+                    task.transfer(range, rangeChannel, offset, length);
+                    return null;
+                }
+            }));
+        }
+
+        Exception failure = null;
+        try
+        {
+            task.transfer(0, channels.get(0), ranges[0], ranges[1] - ranges[0]);
+        }
+        catch (Exception e)
+        {
+            failure = e;
+        }
+        for (Future<Object> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (failure == null)
+                {
+                    failure = (Exception) (e.getCause() instanceof Exception ? e.getCause() : e);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                failure = e;
+                break;
+            }
+        }
+
+        if (failure instanceof IOException)
+        {
+            throw (IOException) failure;
+        }
+        else if (failure != null)
+        {
+            IOException ioException = new IOException(failure.getMessage());
+            ioException.initCause(failure);
+            throw ioException;
+        }
+    }
+
+    /**
+     * @return the offsets where each range starts, followed by the size
+     */
+    static long[] split(long size, int count)
+    {
+        long[] offsets = new long[count + 1];
+        for (int i = 0; i <= count; i++)
+        {
+            offsets[i] = size * i / count;
+        }
+        return offsets;
+    }
+
+    private String getRemotePath(String fileName) throws IOException
+    {
+        if (fileName.startsWith("/"))
+        {
+            return fileName;
+        }
+        try
+        {
+            // the other channels start at the home directory rather than at the working one of the client
+            return channel.pwd() + "/" + fileName;
+        }
+        catch (SftpException e)
+        {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    private void closeSiblings(List<ChannelSftp> channels)
+    {
+        for (int i = 1; i < channels.size(); i++)
+        {
+            sessionManager.closeChannel(channels.get(i));
+        }
+    }
+
+    private static void closeQuietly(List<OutputStream> streams)
+    {
+        for (OutputStream stream : streams)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException e)
+            {
+                // already failing
+            }
+        }
+    }
+
+    private interface RangeTask
+    {
+
+        void transfer(int range, ChannelSftp rangeChannel, long offset, long length) throws Exception;
+    }
+}
@@ -7,6 +7,7 @@
 package org.mule.transport.sftp;
 
 import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.transport.file.PolledFileIndex;
 import org.mule.transport.sftp.notification.SftpNotifier;
 import org.mule.util.FileUtils;
 
@@ -15,7 +16,12 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -143,7 +149,88 @@ public class SftpReceiverRequesterUtil
         }
     }
 
+    /**
+     * Gets the files in the directory configured on the endpoint that are not in the index, or that changed
+     * since they were put in it, along with their size and modification time. Only the new or changed files
+     * are kept while the directory is listed, and the files no longer listed are dropped from the index.
+     *
+     * @return the size and the modification time of each file, by file name, in listing order
+     */
+    public Map<String, long[]> getNewOrChangedFiles(final PolledFileIndex fileIndex) throws Exception
+    {
+        if (logger.isDebugEnabled())
+        {
+            logger.debug("Checking new or changed files at endpoint " + endpoint.getEndpointURI());
+        }
+
+        SftpClient client = null;
+        try
+        {
+            client = connector.createSftpClient(endpoint);
+
+            final Set<String> listedFiles = new HashSet<String>();
+            final Map<String, long[]> changedFiles = new LinkedHashMap<String, long[]>();
+            client.listFiles(".", new SftpClient.FileVisitor()
+            {
+                public boolean visit(String fileName, long size, long lastModifiedTime) throws Exception
+                {
+                    if (filenameFilter != null && !filenameFilter.accept(null, fileName))
+                    {
+                        return true;
+                    }
+                    listedFiles.add(fileName);
+                    if (fileIndex.isNewOrChanged(fileName, size, lastModifiedTime))
+                    {
+                        changedFiles.put(fileName, new long[] {size, lastModifiedTime});
+                    }
+                    return true;
+                }
+            });
+            fileIndex.retainOnly(listedFiles);
+
+            long fileAge = getFileAge();
+            long sizeCheckDelayMs = sftpUtil.getSizeCheckWaitTime();
+            if (fileAge > 0 || sizeCheckDelayMs > 0)
+            {
+                for (Iterator<String> files = changedFiles.keySet().iterator(); files.hasNext();)
+                {
+                    // files still being written are left for a later poll
+                    if (!canProcessFile(files.next(), client, fileAge, sizeCheckDelayMs))
+                    {
+                        files.remove();
+                    }
+                }
+            }
+            return changedFiles;
+        }
+        finally
+        {
+            if (client != null)
+            {
+                connector.releaseClient(endpoint, client);
+            }
+        }
+    }
+
+    private long getFileAge()
+    {
+        // Override the value from the Endpoint?
+        if (endpoint.getProperty(SftpConnector.PROPERTY_FILE_AGE) != null)
+        {
+            return Long.valueOf((String) endpoint.getProperty(SftpConnector.PROPERTY_FILE_AGE));
+        }
+        return connector.getCheckFileAge() ? connector.getFileAge() : 0;
+    }
+
     public InputStream retrieveFile(String fileName, SftpNotifier notifier) throws Exception
+    {
+        return retrieveFile(fileName, notifier, connector.isAutoDelete());
+    }
+
+    /**
+     * @param autoDelete whether the file is deleted from the server once its stream is closed
+     */
+    public InputStream retrieveFile(String fileName, SftpNotifier notifier, boolean autoDelete) throws Exception
     {
         // Getting a new SFTP client dedicated to the SftpInputStream below
         SftpClient client = connector.createSftpClient(endpoint, notifier);
@@ -188,7 +275,7 @@ public class SftpReceiverRequesterUtil
             String archiveTmpReceivingDir = sftpUtil.getArchiveTempReceivingDir();
             String archiveTmpSendingDir = sftpUtil.getArchiveTempSendingDir();
 
-            InputStream is = new SftpInputStream(client, fileInputStream, fileName, connector.isAutoDelete(),
+            InputStream is = new SftpInputStream(client, fileInputStream, fileName, autoDelete,
                 endpoint);
 
             // TODO ML FIX. Refactor to util-class...
@@ -213,7 +300,7 @@ public class SftpReceiverRequesterUtil
         // This special InputStream closes the SftpClient when the stream is closed.
         // The stream will be materialized in a Message Dispatcher or Service
         // Component
-        return new SftpInputStream(client, fileInputStream, fileName, connector.isAutoDelete(), endpoint);
+        return new SftpInputStream(client, fileInputStream, fileName, autoDelete, endpoint);
     }
 
     private InputStream archiveFileUsingTempDirs(String archive,
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.sftp;
+
+import org.mule.util.StringUtils;
+import org.mule.util.concurrent.DaemonThreadFactory;
+
+import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Opens sftp channels over SSH sessions that are shared by all the channels to the same host with the same
+ * credentials, so that only the first channel pays for the SSH handshake and the authentication.
+ * <p/>
+ * A session takes up to {@link #getMaxChannelsPerSession()} channels, a new session is opened for the same
+ * host and credentials once all the existing ones are full. SSH servers limit the number of channels of a
+ * session (<code>MaxSessions</code> is 10 by default on OpenSSH), and a channel that is refused by the server
+ * makes the session be taken as full. Sessions are disconnected when their last channel is closed.
+ * <p/>
+ * The manager also runs the ranges of the parallel transfers of {@link SftpClient}, and keeps the number of
+ * sessions and channels opened as metrics.
+ */
+public class SftpSessionManager
+{
+
+    public static final int DEFAULT_MAX_CHANNELS_PER_SESSION = 1;
+    public static final int DEFAULT_KEEP_ALIVE_COUNT_MAX = 3;
+
+    private final Log logger = LogFactory.getLog(getClass());
+
+    // @GuardedBy(this)
+    private final Map<SessionKey, List<SharedSession>> sessions = new HashMap<SessionKey, List<SharedSession>>();
+    // @GuardedBy(this)
+    private final Map<Channel, SharedSession> channels = new IdentityHashMap<Channel, SharedSession>();
+
+    private final AtomicLong openedSessions = new AtomicLong();
+    private final AtomicLong openedChannels = new AtomicLong();
+    private final AtomicLong reusedSessions = new AtomicLong();
+
+    private volatile int maxChannelsPerSession = DEFAULT_MAX_CHANNELS_PER_SESSION;
+    private volatile int keepAliveInterval = 0;
+    private volatile int keepAliveCountMax = DEFAULT_KEEP_ALIVE_COUNT_MAX;
+
+    // @GuardedBy(this)
+    private ExecutorService transferExecutor;
+
+    /**
+     * Opens a sftp channel over a session with the given credentials, connecting a new session only if there
+     * is no connected one with room for another channel.
+     *
+     * @param key host and credentials of the session
+     * @return the connected channel, to be closed with {@link #closeChannel(ChannelSftp)}
+     */
+    public ChannelSftp openChannel(SessionKey key) throws JSchException
+    {
+        while (true)
+        {
+            SharedSession session = reserveSession(key);
+            ChannelSftp channel;
+            try
+            {
+                channel = connectChannel(session.session);
+            }
+            catch (JSchException e)
+            {
+                if (!releaseFullSession(session))
+                {
+                    throw e;
+                }
+                // the server did not take another channel on a session that already had some
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Session to " + key + " refused a new channel, using another session", e);
+                }
+                continue;
+            }
+            registerChannel(channel, session);
+            return channel;
+        }
+    }
+
+    /**
+     * Opens another sftp channel over the session of the given channel, if the session has room for it.
+     *
+     * @return the new channel, or null if the session cannot take more channels or the channel was not
+     *         opened by this manager
+     */
+    public ChannelSftp openSiblingChannel(ChannelSftp channel)
+    {
+        SharedSession session;
+        synchronized (this)
+        {
+            session = channels.get(channel);
+            if (session == null || !session.session.isConnected() || session.channels >= session.maxChannels)
+            {
+                return null;
+            }
+            session.channels++;
+        }
+
+        ChannelSftp sibling;
+        try
+        {
+            sibling = connectChannel(session.session);
+        }
+        catch (JSchException e)
+        {
+            releaseFullSession(session);
+            return null;
+        }
+        registerChannel(sibling, session);
+        return sibling;
+    }
+
+    /**
+     * Closes a channel opened by this manager, disconnecting its session if it was the last channel on it.
+     */
+    public void closeChannel(ChannelSftp channel)
+    {
+        channel.disconnect();
+
+        SharedSession session;
+        synchronized (this)
+        {
+            session = channels.remove(channel);
+            if (session == null || --session.channels > 0)
+            {
+                return;
+            }
+            removeSession(session);
+        }
+        session.session.disconnect();
+    }
+
+    /**
+     * @return whether the session of a channel opened by this manager is still connected
+     */
+    public synchronized boolean isSessionConnected(ChannelSftp channel)
+    {
+        SharedSession session = channels.get(channel);
+        return session != null && session.session.isConnected();
+    }
+
+    private synchronized SharedSession reserveSession(SessionKey key) throws JSchException
+    {
+        List<SharedSession> keySessions = sessions.get(key);
+        if (keySessions == null)
+        {
+            keySessions = new ArrayList<SharedSession>(1);
+            sessions.put(key, keySessions);
+        }
+
+        for (Iterator<SharedSession> iterator = keySessions.iterator(); iterator.hasNext();)
+        {
+            SharedSession session = iterator.next();
+            if (!session.session.isConnected())
+            {
+                // its channels are dead too, they are removed when closed by their clients
+                iterator.remove();
+                continue;
+            }
+            if (session.channels < session.maxChannels)
+            {
+                session.channels++;
+                reusedSessions.incrementAndGet();
+                return session;
+            }
+        }
+
+        // connecting blocks the rest of the callers, but keeps them from opening more sessions than needed
+        SharedSession session = new SharedSession(key, connectSession(key), Math.max(1, maxChannelsPerSession));
+        session.channels++;
+        keySessions.add(session);
+        openedSessions.incrementAndGet();
+        return session;
+    }
+
+    /**
+     * Gives back the channel reserved on a session that refused it, limiting the session to the channels it
+     * already has.
+     *
+     * @return true if the session had other channels, so that another session may take the channel
+     */
+    private boolean releaseFullSession(SharedSession session)
+    {
+        synchronized (this)
+        {
+            session.channels--;
+            session.maxChannels = session.channels;
+            if (session.channels > 0)
+            {
+                return true;
+            }
+            removeSession(session);
+        }
+        session.session.disconnect();
+        return false;
+    }
+
+    private void registerChannel(ChannelSftp channel, SharedSession session)
+    {
+        openedChannels.incrementAndGet();
+        synchronized (this)
+        {
+            channels.put(channel, session);
+        }
+    }
+
+    private void removeSession(SharedSession session)
+    {
+        List<SharedSession> keySessions = sessions.get(session.key);
+        if (keySessions != null)
+        {
+            keySessions.remove(session);
+            if (keySessions.isEmpty())
+            {
+                sessions.remove(session.key);
+            }
+        }
+    }
+
+    private ChannelSftp connectChannel(Session session) throws JSchException
+    {
+        Channel channel = session.openChannel(SftpClient.CHANNEL_SFTP);
+        channel.connect();
+        return (ChannelSftp) channel;
+    }
+
+    protected Session connectSession(SessionKey key) throws JSchException
+    {
+        JSch jsch = new JSch();
+        if (key.identityFile != null)
+        {
+            String identityFile = new File(key.identityFile).getAbsolutePath();
+            if (StringUtils.isEmpty(key.passphrase))
+            {
+                jsch.addIdentity(identityFile);
+            }
+            else
+            {
+                jsch.addIdentity(identityFile, key.passphrase);
+            }
+        }
+
+        Properties hash = new Properties();
+        hash.put(SftpClient.STRICT_HOST_KEY_CHECKING, "no");
+        if (!StringUtils.isEmpty(key.preferredAuthenticationMethods))
+        {
+            hash.put(SftpClient.PREFERRED_AUTHENTICATION_METHODS, key.preferredAuthenticationMethods);
+        }
+
+        Session session = jsch.getSession(key.user, key.host);
+        session.setConfig(hash);
+        session.setPort(key.port);
+        if (key.identityFile == null)
+        {
+            session.setPassword(key.password);
+        }
+        if (keepAliveInterval > 0)
+        {
+            session.setServerAliveInterval(keepAliveInterval);
+            session.setServerAliveCountMax(keepAliveCountMax);
+        }
+        session.connect();
+        return session;
+    }
+
+    /**
+     * @return the executor running the ranges of parallel transfers, created the first time it is needed
+     */
+    synchronized ExecutorService getTransferExecutor()
+    {
+        if (transferExecutor == null)
+        {
+            // threads are only kept while there are transfers going on
+            transferExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new DaemonThreadFactory("sftp.transfer"));
+        }
+        return transferExecutor;
+    }
+
+    /**
+     * Disconnects all the sessions and stops the threads of parallel transfers
+     */
+    public void dispose()
+    {
+        List<SharedSession> disconnected = new ArrayList<SharedSession>();
+        synchronized (this)
+        {
+            for (List<SharedSession> keySessions : sessions.values())
+            {
+                disconnected.addAll(keySessions);
+            }
+            sessions.clear();
+            channels.clear();
+            if (transferExecutor != null)
+            {
+                transferExecutor.shutdownNow();
+                transferExecutor = null;
+            }
+        }
+        for (SharedSession session : disconnected)
+        {
+            session.session.disconnect();
+        }
+    }
+
+    public synchronized int getNumSessions()
+    {
+        int numSessions = 0;
+        for (List<SharedSession> keySessions : sessions.values())
+        {
+            numSessions += keySessions.size();
+        }
+        return numSessions;
+    }
+
+    public synchronized int getNumChannels()
+    {
+        return channels.size();
+    }
+
+    /**
+     * @return the number of SSH sessions connected, each one with its own handshake and authentication
+     */
+    public long getOpenedSessions()
+    {
+        return openedSessions.get();
+    }
+
+    public long getOpenedChannels()
+    {
+        return openedChannels.get();
+    }
+
+    /**
+     * @return the number of channels opened over an already connected session
+     */
+    public long getReusedSessions()
+    {
+        return reusedSessions.get();
+    }
+
+    public int getMaxChannelsPerSession()
+    {
+        return maxChannelsPerSession;
+    }
+
+    /**
+     * @param maxChannelsPerSession channels opened over a session before opening another one for the same host
+     *            and credentials. 1 for not sharing sessions.
+     */
+    public void setMaxChannelsPerSession(int maxChannelsPerSession)
+    {
+        this.maxChannelsPerSession = maxChannelsPerSession;
+    }
+
+    public int getKeepAliveInterval()
+    {
+        return keepAliveInterval;
+    }
+
+    /**
+     * @param keepAliveInterval milliseconds between keep-alive messages sent over idle sessions, 0 for not
+     *            sending them
+     */
+    public void setKeepAliveInterval(int keepAliveInterval)
+    {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    public int getKeepAliveCountMax()
+    {
+        return keepAliveCountMax;
+    }
+
+    /**
+     * @param keepAliveCountMax keep-alive messages without reply before the session is disconnected
+     */
+    public void setKeepAliveCountMax(int keepAliveCountMax)
+    {
+        this.keepAliveCountMax = keepAliveCountMax;
+    }
+
+    /**
+     * Host and credentials of the sessions that can be shared
+     */
+    public static final class SessionKey
+    {
+
+        private final String host;
+        private final int port;
+        private final String user;
+        private final String password;
+        private final String identityFile;
+        private final String passphrase;
+        private final String preferredAuthenticationMethods;
+
+        public SessionKey(String host, int port, String user, String password, String identityFile,
+                          String passphrase, String preferredAuthenticationMethods)
+        {
+            this.host = host;
+            this.port = port;
+            this.user = user;
+            this.password = password;
+            this.identityFile = identityFile;
+            this.passphrase = passphrase;
+            this.preferredAuthenticationMethods = preferredAuthenticationMethods;
+        }
+
+        public String getUser()
+        {
+            return user;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof SessionKey))
+            {
+                return false;
+            }
+            SessionKey other = (SessionKey) o;
+            return port == other.port && StringUtils.equals(host, other.host)
+                   && StringUtils.equals(user, other.user) && StringUtils.equals(password, other.password)
+                   && StringUtils.equals(identityFile, other.identityFile)
+                   && StringUtils.equals(passphrase, other.passphrase)
+                   && StringUtils.equals(preferredAuthenticationMethods, other.preferredAuthenticationMethods);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = host != null ? host.hashCode() : 0;
+            result = 31 * result + port;
+            result = 31 * result + (user != null ? user.hashCode() : 0);
+            result = 31 * result + (identityFile != null ? identityFile.hashCode() : 0);
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            // no credentials, as it is used for logging
+            return user + "@" + host + ":" + port;
+        }
+    }
+
+    private static class SharedSession
+    {
+
+        private final SessionKey key;
+        private final Session session;
+        private int channels;
+        private int maxChannels;
+
+        SharedSession(SessionKey key, Session session, int maxChannels)
+        {
+            this.key = key;
+            this.session = session;
+            this.maxChannels = maxChannels;
+        }
+    }
+}
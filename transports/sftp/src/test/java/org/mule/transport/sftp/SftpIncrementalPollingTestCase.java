@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.sftp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.LocalMuleClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SftpIncrementalPollingTestCase extends AbstractSftpFunctionalTestCase
+{
+
+    private static final int POLLS_TIMEOUT = 1000;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "sftp-incremental-polling-config.xml";
+    }
+
+    @Test
+    public void receivesFileOnceAndLeavesItOnServer() throws Exception
+    {
+        storeFile("kept.txt", TEST_MESSAGE);
+        LocalMuleClient client = muleContext.getClient();
+
+        MuleMessage response = client.request("vm://testOut", RECEIVE_TIMEOUT);
+        assertNotNull("Did not process the file", response);
+        assertEquals(TEST_MESSAGE, response.getPayload());
+
+        assertNull(client.request("vm://testOut", POLLS_TIMEOUT));
+        assertTrue(Arrays.asList(sftpClient.listFiles()).contains("kept.txt"));
+    }
+
+    @Test
+    public void receivesChangedFileAgain() throws Exception
+    {
+        storeFile("changed.txt", TEST_MESSAGE);
+        LocalMuleClient client = muleContext.getClient();
+        assertNotNull(client.request("vm://testOut", RECEIVE_TIMEOUT));
+        assertNull(client.request("vm://testOut", POLLS_TIMEOUT));
+
+        // a new size, as modification times only have a precision of a second
+        storeFile("changed.txt", TEST_MESSAGE + " changed");
+
+        MuleMessage response = client.request("vm://testOut", RECEIVE_TIMEOUT);
+        assertNotNull("Did not receive the changed file", response);
+        assertEquals(TEST_MESSAGE + " changed", response.getPayload());
+    }
+
+    private void storeFile(String fileName, String content) throws IOException
+    {
+        sftpClient.storeFile(fileName, new ByteArrayInputStream(content.getBytes()));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.sftp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.tck.util.sftp.SftpServer;
+import org.mule.util.FileUtils;
+import org.mule.util.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SftpSessionManagerTestCase extends AbstractMuleTestCase
+{
+
+    private static final String TEST_DIR = "testdir-sessions";
+
+    @Rule
+    public DynamicPort sftpPort = new DynamicPort("SFTP_PORT");
+
+    private final SftpSessionManager sessionManager = new SftpSessionManager();
+    private SftpServer sftpServer;
+
+    @Before
+    public void setUpServer()
+    {
+        sftpServer = new SftpServer(sftpPort.getNumber());
+        sftpServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        sessionManager.dispose();
+        sftpServer.stop();
+        FileUtils.deleteTree(new File(TEST_DIR));
+    }
+
+    @Test
+    public void clientsShareSession() throws Exception
+    {
+        sessionManager.setMaxChannelsPerSession(4);
+
+        SftpClient first = login();
+        SftpClient second = login();
+        SftpClient third = login();
+
+        assertEquals(1, sessionManager.getOpenedSessions());
+        assertEquals(2, sessionManager.getReusedSessions());
+        assertEquals(3, sessionManager.getNumChannels());
+        assertTrue(second.isConnected());
+
+        first.disconnect();
+        assertTrue(second.isConnected());
+        assertFalse(first.isConnected());
+
+        second.disconnect();
+        third.disconnect();
+        assertEquals(0, sessionManager.getNumSessions());
+    }
+
+    @Test
+    public void opensAnotherSessionWhenFull() throws Exception
+    {
+        sessionManager.setMaxChannelsPerSession(2);
+
+        login();
+        login();
+        login();
+
+        assertEquals(2, sessionManager.getOpenedSessions());
+        assertEquals(2, sessionManager.getNumSessions());
+    }
+
+    @Test
+    public void transfersFileInRanges() throws Exception
+    {
+        sessionManager.setMaxChannelsPerSession(4);
+        byte[] data = new byte[1024 * 1024 + 17];
+        new Random(17).nextBytes(data);
+
+        SftpClient client = login();
+        client.mkdir(TEST_DIR);
+        client.changeWorkingDirectory(TEST_DIR);
+        client.storeFile("ranges.bin", data, 4, 64 * 1024);
+
+        assertEquals(4, sessionManager.getOpenedChannels());
+        assertEquals(data.length, client.getSize("ranges.bin"));
+
+        InputStream in = client.retrieveFile("ranges.bin");
+        try
+        {
+            assertArrayEquals(data, IOUtils.toByteArray(in));
+        }
+        finally
+        {
+            in.close();
+        }
+
+        // the channels of the ranges are closed once the upload is done, and reading it back uses the
+        // channel of the client
+        assertEquals(1, sessionManager.getNumChannels());
+        assertEquals(4, sessionManager.getOpenedChannels());
+    }
+
+    private SftpClient login() throws IOException
+    {
+        SftpClient client = new SftpClient("localhost", null, sessionManager);
+        client.setPort(sftpPort.getNumber());
+        client.login(SftpServer.USERNAME, SftpServer.PASSWORD);
+        return client;
+    }
+}
@@ -26,6 +26,7 @@ public class UdpConnector extends AbstractConnector
     public static final String UDP = "udp";
     public static final int DEFAULT_SOCKET_TIMEOUT = INT_VALUE_NOT_SET;
     public static final int DEFAULT_BUFFER_SIZE = 1024 * 16;
+    public static final int DEFAULT_RECEIVE_BATCH_SIZE = 64;
     public static final String KEEP_SEND_SOCKET_OPEN_PROPERTY = "keepSendSocketOpen";
     public static final String ADDRESS_PROPERTY = "packet.address";
     public static final String PORT_PROPERTY = "packet.port";
@@ -35,6 +36,8 @@ public class UdpConnector extends AbstractConnector
     protected int receiveBufferSize = DEFAULT_BUFFER_SIZE;
     protected boolean keepSendSocketOpen = true;
     protected boolean broadcast;
+    protected int receiverThreads = 1;
+    protected int receiveBatchSize = DEFAULT_RECEIVE_BATCH_SIZE;
     protected GenericKeyedObjectPool dispatcherSocketsPool = new GenericKeyedObjectPool();
     protected UdpSocketFactory socketFactory;
 
@@ -149,6 +152,34 @@ public class UdpConnector extends AbstractConnector
     }
 
 
+    public int getReceiverThreads()
+    {
+        return receiverThreads;
+    }
+
+    public void setReceiverThreads(int receiverThreads)
+    {
+        if (receiverThreads < 1)
+        {
+            receiverThreads = 1;
+        }
+        this.receiverThreads = receiverThreads;
+    }
+
+    public int getReceiveBatchSize()
+    {
+        return receiveBatchSize;
+    }
+
+    public void setReceiveBatchSize(int receiveBatchSize)
+    {
+        if (receiveBatchSize < 1)
+        {
+            receiveBatchSize = DEFAULT_RECEIVE_BATCH_SIZE;
+        }
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
     public boolean isKeepSendSocketOpen()
     {
         return keepSendSocketOpen;
@@ -29,18 +29,36 @@ import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkException;
 import javax.resource.spi.work.WorkManager;
 
-/** <code>UdpMessageReceiver</code> receives UDP message packets. */
+/**
+ * <code>UdpMessageReceiver</code> receives UDP message packets.
+ * <p/>
+ * When the socket is bound through a {@link DatagramChannel} the packets are read from the channel in
+ * batches of up to <code>receiveBatchSize</code> each time it has packets available, into a buffer that
+ * each receiving thread allocates once. Otherwise they are read from the socket one at a time, into a packet
+ * that is also reused. Either way the connector's <code>receiverThreads</code> threads read from the same
+ * socket, and replies are sent through it.
+ */
 public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 {
+    private static final long SELECT_TIMEOUT = 1000;
+
     protected DatagramSocket socket = null;
+    protected DatagramChannel channel = null;
     protected InetAddress inetAddress;
     protected int bufferSize;
+    protected int receiverThreads;
+    protected int receiveBatchSize;
     private URI uri;
 
     protected final AtomicBoolean disposing = new AtomicBoolean(false);
@@ -51,7 +69,10 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
         super(connector, flowConstruct, endpoint);
 
-        bufferSize = ((UdpConnector) connector).getReceiveBufferSize();
+        UdpConnector udpConnector = (UdpConnector) connector;
+        bufferSize = udpConnector.getReceiveBufferSize();
+        receiverThreads = udpConnector.getReceiverThreads();
+        receiveBatchSize = udpConnector.getReceiveBatchSize();
 
         uri = endpoint.getEndpointURI().getUri();
 
@@ -74,6 +95,11 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
         try
         {
             socket = ((UdpConnector) connector).getServerSocket(endpoint);
+            channel = socket.getChannel();
+            if (channel != null)
+            {
+                channel.configureBlocking(false);
+            }
         }
         catch (Exception e)
         {
@@ -82,7 +108,10 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
         try
         {
-            getWorkManager().scheduleWork(this, WorkManager.INDEFINITE, null, connector);
+            for (int i = 0; i < receiverThreads; i++)
+            {
+                getWorkManager().scheduleWork(this, WorkManager.INDEFINITE, null, connector);
+            }
         }
         catch (WorkException e)
         {
@@ -132,6 +161,20 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
     public void run()
     {
+        if (channel != null)
+        {
+            receiveFromChannel();
+        }
+        else
+        {
+            receiveFromSocket();
+        }
+    }
+
+    protected void receiveFromSocket()
+    {
+        // the packet is reused, as the data of each one is copied before it is handed to a worker
+        DatagramPacket packet = createPacket();
         while (!disposing.get())
         {
             if (connector.isStarted())
@@ -139,7 +182,7 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
                 try
                 {
-                    DatagramPacket packet = createPacket();
+                    packet.setLength(packet.getData().length);
                     try
                     {
                         if (logger.isDebugEnabled())
@@ -153,15 +196,9 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
                             logger.trace("Received packet on: " + uri);
                         }
 
-                        Work work = createWork(packet);
-                        try
-                        {
-                            getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
-                        }
-                        catch (WorkException e)
-                        {
-                            logger.error("Udp receiver interrupted: " + e.getMessage(), e);
-                        }
+                        scheduleWork(new DatagramPacket(
+                            Arrays.copyOfRange(packet.getData(), packet.getOffset(), packet.getOffset() + packet.getLength()),
+                            packet.getLength(), packet.getAddress(), packet.getPort()));
                     }
                     catch (SocketTimeoutException e)
                     {
@@ -171,14 +208,121 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
                 }
                 catch (Exception e)
                 {
-                    if (!connector.isDisposed() && !disposing.get())
+                    handleReceiveException(e);
+                }
+            }
+        }
+    }
+
+    protected void receiveFromChannel()
+    {
+        Selector selector = null;
+        try
+        {
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+        }
+        catch (IOException e)
+        {
+            closeSelector(selector);
+            handleReceiveException(e);
+            return;
+        }
+
+        // each thread reads into its own buffer, which is reused for every packet
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        try
+        {
+            while (!disposing.get())
+            {
+                if (connector.isStarted())
+                {
+                    try
                     {
-                        logger.debug("Accept failed on socket: " + e, e);
-                        getConnector().getMuleContext().getExceptionListener().handleException(e);
+                        if (selector.select(SELECT_TIMEOUT) == 0)
+                        {
+                            continue;
+                        }
+                        selector.selectedKeys().clear();
+
+                        // other threads may take packets from the same channel, so this one stops as soon as
+                        // there are no more available
+                        for (int i = 0; i < receiveBatchSize && !disposing.get(); i++)
+                        {
+                            buffer.clear();
+                            SocketAddress address = channel.receive(buffer);
+                            if (address == null)
+                            {
+                                break;
+                            }
+                            buffer.flip();
+                            byte[] data = new byte[buffer.remaining()];
+                            buffer.get(data);
+
+                            if (logger.isTraceEnabled())
+                            {
+                                logger.trace("Received packet on: " + uri);
+                            }
+                            scheduleWork(new DatagramPacket(data, data.length, address));
+                        }
                     }
+                    catch (Exception e)
+                    {
+                        handleReceiveException(e);
+                    }
+                }
+                else
+                {
+                    // the channel is not blocking, so wait for the connector instead
+                    Thread.sleep(SELECT_TIMEOUT / 10);
                 }
             }
         }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            closeSelector(selector);
+        }
+    }
+
+    private void scheduleWork(DatagramPacket packet) throws IOException
+    {
+        Work work = createWork(packet);
+        try
+        {
+            getWorkManager().scheduleWork(work, WorkManager.INDEFINITE, null, connector);
+        }
+        catch (WorkException e)
+        {
+            logger.error("Udp receiver interrupted: " + e.getMessage(), e);
+        }
+    }
+
+    private void handleReceiveException(Exception e)
+    {
+        if (!connector.isDisposed() && !disposing.get())
+        {
+            logger.debug("Accept failed on socket: " + e, e);
+            getConnector().getMuleContext().getExceptionListener().handleException(e);
+        }
+    }
+
+    private void closeSelector(Selector selector)
+    {
+        if (selector != null)
+        {
+            try
+            {
+                selector.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("Failed to close selector: " + e.getMessage(), e);
+            }
+        }
     }
 
     public void release()
@@ -199,18 +343,30 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
     protected Work createWork(DatagramPacket packet) throws IOException
     {
-        return new UdpWorker(new DatagramSocket(0), packet);
+        return new UdpWorker(packet);
     }
 
     protected class UdpWorker implements Work, Disposable
     {
         private DatagramSocket socket = null;
         private DatagramPacket packet;
+        private final boolean sharedSocket;
 
         public UdpWorker(DatagramSocket socket, DatagramPacket packet)
         {
             this.socket = socket;
             this.packet = packet;
+            this.sharedSocket = false;
+        }
+
+        /**
+         * Replies through the socket of the receiver, which is left open once the packet is processed
+         */
+        public UdpWorker(DatagramPacket packet)
+        {
+            this.socket = UdpMessageReceiver.this.socket;
+            this.packet = packet;
+            this.sharedSocket = true;
         }
 
         public void release()
@@ -220,7 +376,7 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
 
         public void dispose()
         {
-            if (socket != null && !socket.isClosed())
+            if (socket != null && !sharedSocket && !socket.isClosed())
             {
                 try
                 {
@@ -252,9 +408,18 @@ public class UdpMessageReceiver extends AbstractMessageReceiver implements Work
                 if (endpoint.getExchangePattern().hasResponse() && returnMessage != null)
                 {
                     byte[] data= returnMessage.getPayloadAsBytes();
-                    DatagramPacket result = new DatagramPacket(data, data.length,
-                        packet.getAddress(), packet.getPort());
-                    socket.send(result);
+                    DatagramChannel socketChannel = socket.getChannel();
+                    if (socketChannel != null && !socketChannel.isBlocking())
+                    {
+                        // the socket of a channel that is not blocking can not send by itself
+                        socketChannel.send(ByteBuffer.wrap(data), packet.getSocketAddress());
+                    }
+                    else
+                    {
+                        DatagramPacket result = new DatagramPacket(data, data.length,
+                            packet.getAddress(), packet.getPort());
+                        socket.send(result);
+                    }
                 }
             }
             catch (Exception e)
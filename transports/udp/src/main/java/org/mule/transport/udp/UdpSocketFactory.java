@@ -14,7 +14,10 @@ import org.mule.util.MapUtils;
 import java.io.IOException;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.channels.DatagramChannel;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -128,11 +131,30 @@ public class UdpSocketFactory implements KeyedPoolableObjectFactory
 
     protected DatagramSocket createSocket(int port) throws IOException
     {
-        return new DatagramSocket(port);
+        return createChannelSocket(new InetSocketAddress(port));
     }
 
     protected DatagramSocket createSocket(int port, InetAddress inetAddress) throws IOException
     {
-        return new DatagramSocket(port, inetAddress);
+        return createChannelSocket(new InetSocketAddress(inetAddress, port));
+    }
+
+    /**
+     * Binds the socket of a datagram channel, so that receivers can read packets from it in batches through
+     * the channel
+     */
+    protected DatagramSocket createChannelSocket(SocketAddress address) throws IOException
+    {
+        DatagramChannel channel = DatagramChannel.open();
+        try
+        {
+            channel.socket().bind(address);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        return channel.socket();
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.udp;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.client.MuleClient;
+import org.mule.api.transport.MessageReceiver;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class UdpChannelReceiverTestCase extends FunctionalTestCase
+{
+    private static final int RECEIVE_BUFFER_SIZE = 64;
+
+    @Rule
+    public DynamicPort oneWayPort = new DynamicPort("port1");
+
+    @Rule
+    public DynamicPort requestResponsePort = new DynamicPort("port2");
+
+    private DatagramSocket client;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "udp-channel-receiver-config.xml";
+    }
+
+    @Before
+    public void createClient() throws Exception
+    {
+        client = new DatagramSocket();
+        client.setSoTimeout(RECEIVE_TIMEOUT);
+    }
+
+    @After
+    public void closeClient()
+    {
+        if (client != null)
+        {
+            client.close();
+        }
+    }
+
+    @Test
+    public void receiversReadFromAChannel() throws Exception
+    {
+        UdpConnector connector = (UdpConnector) muleContext.getRegistry().lookupConnector("udpConnector");
+        assertEquals(2, connector.getReceivers().size());
+        for (MessageReceiver receiver : connector.getReceivers().values())
+        {
+            assertNotNull(((UdpMessageReceiver) receiver).getSocket().getChannel());
+        }
+    }
+
+    @Test
+    public void receivesPacketsInBatches() throws Exception
+    {
+        // more packets than fit in a single batch
+        Set<String> sent = new HashSet<String>();
+        for (int i = 0; i < 10; i++)
+        {
+            String payload = TEST_MESSAGE + i;
+            sent.add(payload);
+            send(oneWayPort.getNumber(), payload.getBytes());
+        }
+
+        MuleClient muleClient = muleContext.getClient();
+        Set<String> received = new HashSet<String>();
+        for (int i = 0; i < sent.size(); i++)
+        {
+            MuleMessage message = muleClient.request("vm://received", RECEIVE_TIMEOUT);
+            assertNotNull(message);
+            received.add(message.getPayloadAsString());
+        }
+        assertEquals(sent, received);
+    }
+
+    @Test
+    public void repliesThroughTheReceiverSocket() throws Exception
+    {
+        send(requestResponsePort.getNumber(), TEST_MESSAGE.getBytes());
+
+        DatagramPacket reply = new DatagramPacket(new byte[RECEIVE_BUFFER_SIZE], RECEIVE_BUFFER_SIZE);
+        client.receive(reply);
+
+        assertEquals(requestResponsePort.getNumber(), reply.getPort());
+        assertEquals(TEST_MESSAGE + " received", new String(reply.getData(), 0, reply.getLength()));
+    }
+
+    @Test
+    public void truncatesPacketsLargerThanTheBuffer() throws Exception
+    {
+        byte[] data = new byte[RECEIVE_BUFFER_SIZE * 2];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) ('a' + i % 26);
+        }
+        send(oneWayPort.getNumber(), data);
+
+        MuleMessage message = muleContext.getClient().request("vm://received", RECEIVE_TIMEOUT);
+        assertNotNull(message);
+        assertArrayEquals(Arrays.copyOf(data, RECEIVE_BUFFER_SIZE), message.getPayloadAsBytes());
+    }
+
+    private void send(int port, byte[] data) throws Exception
+    {
+        client.send(new DatagramPacket(data, data.length, InetAddress.getByName("localhost"), port));
+    }
+}